@@ -2,6 +2,8 @@ package krymon;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.joda.JodaModule;
+import okhttp3.OkHttpClient;
+import okhttp3.ResponseBody;
 import retrofit2.Call;
 import retrofit2.Retrofit;
 import retrofit2.converter.jackson.JacksonConverterFactory;
@@ -10,14 +12,25 @@ import retrofit2.http.DELETE;
 import retrofit2.http.GET;
 import retrofit2.http.POST;
 import retrofit2.http.Path;
+import retrofit2.http.Query;
+import retrofit2.http.Streaming;
+
+import java.util.concurrent.TimeUnit;
 
 public interface KrymonService {
     @GET("service")
-    Call<ServiceList> listServices();
+    Call<ServiceList> listServices(@Query("sort") String sort, @Query("fields") String fields);
+
+    @GET("service")
+    Call<ServiceDelta> changedServices(@Query("since") long since, @Query("fields") String fields);
 
     @POST("service")
     Call<Void> addService(@Body NewService newService);
 
+    @Streaming
+    @GET("service/_events")
+    Call<ResponseBody> serviceEvents();
+
     @DELETE("service/{id}")
     Call<Void> deleteService(@Path("id") String id);
 
@@ -35,5 +48,21 @@ public interface KrymonService {
                     .build();
             return retrofit.create(KrymonService.class);
         }
+
+        /**
+         * A service without a read timeout, for the event stream, which can stay quiet for a long time.
+         */
+        public static KrymonService buildStreaming(String url) {
+            Retrofit retrofit = new Retrofit.Builder()
+                    .baseUrl(url)
+                    .client(new OkHttpClient.Builder().readTimeout(0, TimeUnit.MILLISECONDS).build())
+                    .addConverterFactory(JacksonConverterFactory.create(objectMapper))
+                    .build();
+            return retrofit.create(KrymonService.class);
+        }
+
+        static ObjectMapper objectMapper() {
+            return objectMapper;
+        }
     }
 }
@@ -3,6 +3,7 @@ package krymon;
 import android.content.Context;
 import android.content.Intent;
 import android.os.Bundle;
+import android.os.Handler;
 import android.support.design.widget.FloatingActionButton;
 import android.support.v4.widget.SwipeRefreshLayout;
 import android.support.v7.app.AppCompatActivity;
@@ -19,9 +20,12 @@ import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.Response;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class ListServicesActivity extends AppCompatActivity {
 
@@ -30,6 +34,11 @@ public class ListServicesActivity extends AppCompatActivity {
     private String backendUrl;
     private KrymonService krymonService;
     private SwipeRefreshLayout swipeRefreshLayout;
+    private ServiceEventStream eventStream;
+    private final Handler handler = new Handler();
+    private boolean resumed = false;
+    private final Map<String, Service> services = new HashMap<>();
+    private long revision = 0;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -42,8 +51,8 @@ public class ListServicesActivity extends AppCompatActivity {
         this.backendUrl = getIntent().getStringExtra(BACKEND);
         krymonService = KrymonService.Builder.build(backendUrl);
         this.swipeRefreshLayout = findViewById(R.id.list_services_refresh_layout);
+        this.eventStream = new ServiceEventStream(backendUrl);
 
-        refreshServices();
         swipeRefreshLayout.setOnRefreshListener(new SwipeRefreshLayout.OnRefreshListener() {
             @Override
             public void onRefresh() {
@@ -63,26 +72,99 @@ public class ListServicesActivity extends AppCompatActivity {
     }
 
 
+    @Override
+    protected void onResume() {
+        super.onResume();
+        resumed = true;
+        followEvents();
+        refreshServices();
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        resumed = false;
+        handler.removeCallbacksAndMessages(null);
+        eventStream.stop();
+    }
+
+    private void followEvents() {
+        eventStream.start(new ServiceEventStream.Listener() {
+            @Override
+            public void onEvent(final String event, final Service service) {
+                runOnUiThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        if ("delete".equals(event)) {
+                            services.remove(service.getId());
+                        } else {
+                            services.put(service.getId(), service);
+                        }
+                        renderServices();
+                    }
+                });
+            }
+
+            @Override
+            public void onResync() {
+                runOnUiThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        refreshServices();
+                    }
+                });
+            }
+
+            @Override
+            public void onFailure(Throwable throwable) {
+                Log.e("ListServicesActivity", "Lost event stream from backend " + backendUrl + ", reconnecting.", throwable);
+                handler.postDelayed(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (resumed) {
+                            followEvents();
+                            refreshServices();
+                        }
+                    }
+                }, 5000);
+            }
+        });
+    }
+
     private void refreshServices() {
         Log.i("ListServicesActivity", "Asking backend url " + backendUrl);
         swipeRefreshLayout.setRefreshing(true);
-        krymonService.listServices().enqueue(new Callback<ServiceList>() {
+        krymonService.changedServices(revision, "id,name,url,status,lastCheck").enqueue(new Callback<ServiceDelta>() {
             @Override
-            public void onResponse(Call<ServiceList> call, Response<ServiceList> response) {
+            public void onResponse(Call<ServiceDelta> call, Response<ServiceDelta> response) {
                 Log.i("ListServicesActivity", "Got response from backend " + backendUrl);
                 swipeRefreshLayout.setRefreshing(false);
-                renderServices(response);
+                applyChanges(response.body());
+                renderServices();
             }
 
             @Override
-            public void onFailure(Call<ServiceList> call, Throwable throwable) {
+            public void onFailure(Call<ServiceDelta> call, Throwable throwable) {
                 Log.e("ListServicesActivity", "Error when calling backend service.", throwable);
             }
         });
     }
 
-    private void renderServices(Response<ServiceList> response) {
-        List<Service> services = response.body().getServices();
+    private void applyChanges(ServiceDelta delta) {
+        if (delta.isFull()) {
+            services.clear();
+        }
+        for (String id : delta.getDeleted()) {
+            services.remove(id);
+        }
+        for (Service service : delta.getServices()) {
+            services.put(service.getId(), service);
+        }
+        revision = delta.getRevision();
+    }
+
+    private void renderServices() {
+        List<Service> services = new ArrayList<>(this.services.values());
         Collections.sort(services, new Comparator<Service>() {
             @Override
             public int compare(Service o1, Service o2) {
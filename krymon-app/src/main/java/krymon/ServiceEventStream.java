@@ -0,0 +1,92 @@
+package krymon;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Response;
+
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+
+/**
+ * Reads the service events of a backend on a background thread and hands them to a listener, on that thread.
+ */
+public class ServiceEventStream {
+
+    public interface Listener {
+        void onEvent(String event, Service service);
+
+        void onResync();
+
+        void onFailure(Throwable throwable);
+    }
+
+    private final KrymonService krymonService;
+    private final ObjectMapper objectMapper;
+    private Call<ResponseBody> call;
+
+    public ServiceEventStream(String backendUrl) {
+        this.krymonService = KrymonService.Builder.buildStreaming(backendUrl);
+        this.objectMapper = KrymonService.Builder.objectMapper();
+    }
+
+    public void start(final Listener listener) {
+        final Call<ResponseBody> call = krymonService.serviceEvents();
+        this.call = call;
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                read(call, listener);
+            }
+        }, "krymon-events").start();
+    }
+
+    public void stop() {
+        if (call != null) {
+            call.cancel();
+            call = null;
+        }
+    }
+
+    private void read(Call<ResponseBody> call, Listener listener) {
+        try {
+            Response<ResponseBody> response = call.execute();
+            if (!response.isSuccessful()) {
+                throw new IOException("Unexpected response " + response.code() + " from event stream");
+            }
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.body().byteStream(), "UTF-8"))) {
+                String event = null;
+                StringBuilder data = new StringBuilder();
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isEmpty()) {
+                        dispatch(event, data.toString(), listener);
+                        event = null;
+                        data.setLength(0);
+                    } else if (line.startsWith("event:")) {
+                        event = line.substring("event:".length()).trim();
+                    } else if (line.startsWith("data:")) {
+                        data.append(line.substring("data:".length()).trim());
+                    }
+                }
+            }
+            if (!call.isCanceled()) {
+                listener.onFailure(new EOFException("Event stream closed by backend"));
+            }
+        } catch (IOException e) {
+            if (!call.isCanceled()) {
+                listener.onFailure(e);
+            }
+        }
+    }
+
+    private void dispatch(String event, String data, Listener listener) throws IOException {
+        if ("resync".equals(event)) {
+            listener.onResync();
+        } else if (event != null) {
+            listener.onEvent(event, objectMapper.readValue(data, Service.class));
+        }
+    }
+}
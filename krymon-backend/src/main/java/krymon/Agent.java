@@ -0,0 +1,212 @@
+package krymon;
+
+import io.vertx.core.Context;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.json.Json;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import rx.Single;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * A slimmed-down Krymon which checks services from wherever it runs and sends the results to an aggregating Krymon,
+ * which decides the status of every service from the results of all its agents. An agent has no API and no store:
+ * it follows the aggregator's service list with {@code GET /service?since=}, checks the services with the same check
+ * verticles as Krymon, and posts the results as binary {@link ResultBatch}es, once a batch is full or every flush
+ * interval. Only one batch is in flight at a time; results which could not be sent are sent with the next batch,
+ * and the oldest are dropped if too many pile up.
+ */
+public class Agent {
+
+    private final static Logger log = LoggerFactory.getLogger(Agent.class.getName());
+    private final Vertx vertx;
+    private final Context context;
+    private final KrymonOptions options;
+    private final ServiceRegistry registry;
+    private final Cluster cluster;
+    private final CheckHistories histories;
+    private final Latencies latencies;
+    private final KrymonMetrics metrics = new KrymonMetrics();
+    private final String name;
+    private HttpClient client;
+    private long revision = 0;
+    private ResultBatch pending;
+    private boolean sending = false;
+    private long dropped = 0;
+
+    public Agent(Vertx vertx, KrymonOptions options) {
+        this.vertx = vertx;
+        this.context = vertx.getOrCreateContext();
+        this.options = options;
+        this.name = options.getAgentName();
+        this.registry = new ServiceRegistry(vertx, new MemoryStore(), options.getFlushDelay());
+        this.cluster = new Cluster(vertx, registry, options);
+        this.histories = new CheckHistories(registry, options.getHistorySize());
+        this.latencies = new Latencies(registry, options.getLatencySignificantDigits());
+        this.pending = new ResultBatch(name);
+    }
+
+    public Single<Void> start() {
+        return registry.load()
+                .flatMap(ig -> Single.<Void>create(subscriber -> context.runOnContext(ig2 -> {
+                    client = vertx.createHttpClient();
+                    vertx.setPeriodic(options.getAgentSyncInterval(), ig3 -> sync().subscribe());
+                    vertx.setPeriodic(options.getResultFlushInterval(), ig3 -> flush());
+                    subscriber.onSuccess(null);
+                })))
+                .flatMap(ig -> sync())
+                .flatMap(ig -> deploy())
+                .doOnSuccess(ig -> log.info("Agent {0} checking for {1}", name, options.getAggregator()))
+                .doOnError(t -> log.error("Failed to start agent {0}", t, name));
+    }
+
+    /**
+     * Brings the local service list up to date with the aggregator's. Failures are logged and retried on the next
+     * sync.
+     */
+    private Single<Void> sync() {
+        return Single.<ServiceDelta>create(subscriber -> context.runOnContext(ig -> {
+            try {
+                client.getAbs(options.getAggregator() + "/service?since=" + revision, response -> response.bodyHandler(body -> {
+                    if (response.statusCode() == 200) {
+                        subscriber.onSuccess(Json.decodeValue(body, ServiceDelta.class));
+                    } else {
+                        subscriber.onError(new IllegalStateException("Aggregator answered " + response.statusCode()));
+                    }
+                })).setTimeout(options.getCheckTimeout()).exceptionHandler(subscriber::onError).end();
+            } catch (RuntimeException e) {
+                subscriber.onError(e);
+            }
+        })).flatMap(delta -> registry.submit(apply(delta)).map(ig -> {
+            revision = delta.getRevision();
+            return (Void) null;
+        })).onErrorReturn(e -> {
+            log.warn("Failed to sync services from {0}: {1}", options.getAggregator(), e.getMessage());
+            return null;
+        });
+    }
+
+    private static Mutation<Void> apply(ServiceDelta delta) {
+        return (services, journal) -> {
+            if (delta.isFull()) {
+                Set<String> ids = new HashSet<>();
+                for (Service service : delta.getServices()) {
+                    ids.add(service.getId());
+                }
+                for (Object id : services.keySet().toArray()) {
+                    if (!ids.contains(id)) {
+                        Mutation.apply(StoreRecord.delete((String) id), services, journal);
+                    }
+                }
+            }
+            for (String id : delta.getDeleted()) {
+                Mutation.apply(StoreRecord.delete(id), services, journal);
+            }
+            for (Service service : delta.getServices()) {
+                Service local = services.get(service.getId());
+                if (local == null || !local.withStatus(service.getStatus(), service.getLastCheck()).withLatency(service.getLatency()).equals(service)) {
+                    Mutation.apply(StoreRecord.add(service), services, journal);
+                }
+            }
+            return null;
+        };
+    }
+
+    private void checked(Service service, CheckResult result) {
+        context.runOnContext(ig -> {
+            if (pending.size() >= options.getMaxPendingResults()) {
+                dropped++;
+                return;
+            }
+            pending.add(service.getId(), result);
+            if (pending.size() >= options.getResultBatchSize()) {
+                flush();
+            }
+        });
+    }
+
+    private void flush() {
+        if (sending || pending.size() == 0) {
+            return;
+        }
+        if (dropped > 0) {
+            log.warn("Dropped {0} results which could not be sent to {1}", dropped, options.getAggregator());
+            dropped = 0;
+        }
+        ResultBatch batch = pending;
+        pending = new ResultBatch(name);
+        sending = true;
+        try {
+            client.postAbs(options.getAggregator() + "/agent/results", response -> response.bodyHandler(ig -> {
+                if (response.statusCode() == 200) {
+                    sending = false;
+                    if (pending.size() >= options.getResultBatchSize()) {
+                        flush();
+                    }
+                } else {
+                    failed(batch, "aggregator answered " + response.statusCode());
+                }
+            })).putHeader("Content-Type", ResultBatch.CONTENT_TYPE)
+                    .setTimeout(options.getCheckTimeout())
+                    .exceptionHandler(e -> failed(batch, e.getMessage()))
+                    .end(batch.encode());
+        } catch (RuntimeException e) {
+            failed(batch, e.getMessage());
+        }
+    }
+
+    /**
+     * Puts the results of a batch which could not be sent back in front of the pending ones, keeping the newest.
+     */
+    private void failed(ResultBatch batch, String reason) {
+        log.warn("Failed to send {0} results to {1}: {2}", batch.size(), options.getAggregator(), reason);
+        sending = false;
+        ResultBatch retry = new ResultBatch(name);
+        int skip = Math.max(0, batch.size() + pending.size() - options.getMaxPendingResults());
+        for (int i = skip; i < batch.size(); i++) {
+            retry.add(batch.getServiceID(i), batch.getResult(i));
+        }
+        dropped += Math.min(skip, batch.size());
+        for (int i = Math.max(0, skip - batch.size()); i < pending.size(); i++) {
+            retry.add(pending.getServiceID(i), pending.getResult(i));
+        }
+        pending = retry;
+    }
+
+    private Single<Void> deploy() {
+        AtomicInteger instance = new AtomicInteger();
+        Supplier<CheckVerticle> verticles = () -> new CheckVerticle(instance.getAndIncrement(), options.getCheckInstances(),
+                registry, cluster, histories, latencies, metrics, options, this::checked);
+        return Single.create(subscriber ->
+                vertx.deployVerticle(verticles::get, new DeploymentOptions().setInstances(options.getCheckInstances()), handler -> {
+                    if (handler.succeeded()) {
+                        subscriber.onSuccess(null);
+                    } else {
+                        subscriber.onError(handler.cause());
+                    }
+                }));
+    }
+
+    /**
+     * An agent's services only live as long as it runs, and are fetched from the aggregator again on start.
+     */
+    private static class MemoryStore implements ServiceStore {
+
+        @Override
+        public Single<ServiceList> load() {
+            return Single.just(new ServiceList(new java.util.ArrayList<>()));
+        }
+
+        @Override
+        public Single<Void> write(List<StoreRecord> records, Supplier<ServiceList> snapshot) {
+            return Single.just(null);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package krymon;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import org.joda.time.DateTime;
+import rx.Single;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decides the status of services from the results of agents checking them from several vantage points, so that a
+ * service is only FAIL when a quorum of the agents see it fail. The latest result of every agent is kept per service,
+ * and results older than the result TTL no longer count. A service which fails for fewer agents than the quorum is
+ * DEGRADED, since its path from some places is broken, and one which fewer agents than the quorum have freshly seen
+ * up is UNKNOWN. Without a configured quorum, a majority of the agents with fresh results is needed.
+ * <p>
+ * Results are applied on the registry's writer, a whole batch at a time, and only a change of status is stored.
+ * Statuses are also evaluated again on a timer, so that a service drops to UNKNOWN once its agents go quiet.
+ */
+public class Aggregator {
+
+    private final static Logger log = LoggerFactory.getLogger(Aggregator.class.getName());
+    private final Vertx vertx;
+    private final ServiceRegistry registry;
+    private final int quorum;
+    private final long resultTtl;
+    private final Map<String, Map<String, CheckResult>> vantages = new ConcurrentHashMap<>();
+
+    public Aggregator(Vertx vertx, ServiceRegistry registry, KrymonOptions options) {
+        this.vertx = vertx;
+        this.registry = registry;
+        this.quorum = options.getQuorum();
+        this.resultTtl = options.getAgentResultTtl() > 0 ? options.getAgentResultTtl() : 3 * options.getCheckPeriod();
+        registry.addListener(records -> {
+            for (StoreRecord record : records) {
+                if (record.getType() == StoreRecord.Type.DELETE) {
+                    vantages.remove(record.getId());
+                }
+            }
+        });
+    }
+
+    /**
+     * Starts expiring results, evaluating statuses again twice every result TTL.
+     */
+    public Single<Void> start() {
+        vertx.setPeriodic(Math.max(resultTtl / 2, 1), ig -> expire().subscribe(
+                ig2 -> {
+                },
+                e -> log.error("Failed to expire agent results", e)));
+        return Single.just(null);
+    }
+
+    /**
+     * Applies a batch of results, returning how many of them were for known services.
+     */
+    public Single<Integer> receive(ResultBatch batch) {
+        return registry.submit((services, journal) -> {
+            long now = System.currentTimeMillis();
+            int applied = 0;
+            for (int i = 0; i < batch.size(); i++) {
+                String serviceID = batch.getServiceID(i);
+                if (!services.containsKey(serviceID)) {
+                    continue;
+                }
+                CheckResult result = batch.getResult(i);
+                Map<String, CheckResult> latest = vantages.computeIfAbsent(serviceID, id -> new ConcurrentHashMap<>());
+                CheckResult previous = latest.get(batch.getAgent());
+                if (previous == null || previous.getTimestamp() <= result.getTimestamp()) {
+                    latest.put(batch.getAgent(), result);
+                }
+                Mutation.updateStatus(serviceID, statusOf(latest, now), new DateTime(result.getTimestamp())).apply(services, journal);
+                applied++;
+            }
+            return applied;
+        });
+    }
+
+    /**
+     * Stores the status of every service whose results have expired since its last result.
+     */
+    private Single<Void> expire() {
+        return registry.submit((services, journal) -> {
+            long now = System.currentTimeMillis();
+            for (Map.Entry<String, Map<String, CheckResult>> latest : vantages.entrySet()) {
+                Service service = services.get(latest.getKey());
+                Service.Status status = statusOf(latest.getValue(), now);
+                if (service != null && service.getStatus() != status) {
+                    Mutation.updateStatus(service.getId(), status, service.getLastCheck()).apply(services, journal);
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * The latest result of every agent which has checked a service.
+     */
+    public Map<String, CheckResult> get(String serviceID) {
+        Map<String, CheckResult> latest = vantages.get(serviceID);
+        return latest != null ? latest : Collections.emptyMap();
+    }
+
+    private Service.Status statusOf(Map<String, CheckResult> latest, long now) {
+        int fresh = 0;
+        int failing = 0;
+        for (CheckResult result : latest.values()) {
+            if (now - result.getTimestamp() <= resultTtl) {
+                fresh++;
+                if (!result.isOk()) {
+                    failing++;
+                }
+            }
+        }
+        if (fresh == 0) {
+            return Service.Status.UNKNOWN;
+        }
+        int required = quorum > 0 ? quorum : fresh / 2 + 1;
+        if (failing >= required) {
+            return Service.Status.FAIL;
+        } else if (failing > 0) {
+            return Service.Status.DEGRADED;
+        } else if (fresh < required) {
+            return Service.Status.UNKNOWN;
+        } else {
+            return Service.Status.OK;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package krymon;
+
+import io.vertx.core.Vertx;
+import rx.Single;
+
+/**
+ * A way of sending alert notifications, registered by name in {@link KrymonOptions#getAlertSinks()}. Sinks are
+ * created by {@link Alerts} on its own event loop, and only send one notification at a time.
+ */
+public interface AlertSink {
+
+    /**
+     * Sends a notification, failing if it may not have arrived. A failed notification is sent again later.
+     */
+    Single<Void> send(AlertNotification notification);
+
+    interface Factory {
+        AlertSink create(Vertx vertx, KrymonOptions options);
+    }
+}
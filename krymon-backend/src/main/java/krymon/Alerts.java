@@ -0,0 +1,245 @@
+package krymon;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import rx.Single;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns status changes into alert notifications. A service is alerting while its status is one of those of its
+ * {@link AlertSpec}, {@code FAIL} by default. When it starts or stops alerting, the service is added to a group for
+ * each of its targets, and the group is sent as one notification an alert window after it was opened, so that an
+ * outage of many services makes one notification per target. A service which starts and stops alerting within one
+ * window is left out.
+ * <p>
+ * Changes are found on the registry's writer, which only hands them to the alerts' own event loop. Every sink has an
+ * outbox of at most {@link KrymonOptions#getAlertOutboxSize()} notifications, which are sent one at a time and retried
+ * with a doubling delay, so a slow or failing sink holds up nothing but its own notifications.
+ * <p>
+ * In a cluster, a node only alerts about the services it owns. Services which are alerting when Krymon starts are not
+ * alerted about again.
+ */
+public class Alerts {
+
+    private final static Logger log = LoggerFactory.getLogger(Alerts.class.getName());
+    private final static int MAX_BACKOFF_SHIFT = 16;
+    private final Vertx vertx;
+    private final Context context;
+    private final ServiceRegistry registry;
+    private final Cluster cluster;
+    private final KrymonMetrics metrics;
+    private final KrymonOptions options;
+    private final Map<String, Service> alerting = new HashMap<>();
+    private final Map<String, Outbox> outboxes = new LinkedHashMap<>();
+    private final Map<String, Group> groups = new HashMap<>();
+
+    public Alerts(Vertx vertx, ServiceRegistry registry, Cluster cluster, KrymonMetrics metrics, KrymonOptions options) {
+        this.vertx = vertx;
+        this.context = vertx.getOrCreateContext();
+        this.registry = registry;
+        this.cluster = cluster;
+        this.metrics = metrics;
+        this.options = options;
+    }
+
+    /**
+     * Creates the sinks and starts following the registry, unless there are no sinks. The alerting services are taken
+     * on the registry's writer, so no change is seen twice or missed between them and the first records.
+     */
+    public Single<Void> start() {
+        if (options.getAlertSinks().isEmpty()) {
+            return Single.just(null);
+        }
+        return Single.<Void>create(subscriber -> context.runOnContext(ig -> {
+            for (Map.Entry<String, AlertSink.Factory> sink : options.getAlertSinks().entrySet()) {
+                outboxes.put(sink.getKey(), new Outbox(sink.getKey(), sink.getValue().create(vertx, options)));
+            }
+            subscriber.onSuccess(null);
+        })).flatMap(ig -> registry.submit((services, journal) -> {
+            for (Service service : services.values()) {
+                if (isAlerting(service)) {
+                    alerting.put(service.getId(), service);
+                }
+            }
+            registry.addListener(this::changed);
+            return null;
+        }));
+    }
+
+    private void changed(List<StoreRecord> records) {
+        List<Service> firing = new ArrayList<>();
+        List<Service> resolved = new ArrayList<>();
+        for (StoreRecord record : records) {
+            switch (record.getType()) {
+                case ADD:
+                    if (isAlerting(record.getService())) {
+                        alerting.put(record.getId(), record.getService());
+                    } else {
+                        alerting.remove(record.getId());
+                    }
+                    break;
+                case DELETE:
+                    Service deleted = alerting.remove(record.getId());
+                    if (deleted != null && cluster.owns(deleted.getId())) {
+                        resolved.add(deleted);
+                    }
+                    break;
+                case STATUS:
+                    registry.get(record.getId()).ifPresent(current -> {
+                        Service service = current.withStatus(record.getStatus(), record.getLastCheck());
+                        boolean now = isAlerting(service);
+                        if (now == alerting.containsKey(service.getId())) {
+                            return;
+                        }
+                        if (now) {
+                            alerting.put(service.getId(), service);
+                        } else {
+                            alerting.remove(service.getId());
+                        }
+                        if (cluster.owns(service.getId())) {
+                            (now ? firing : resolved).add(service);
+                        }
+                    });
+                    break;
+            }
+        }
+        if (!firing.isEmpty() || !resolved.isEmpty()) {
+            context.runOnContext(ig -> {
+                firing.forEach(service -> add(service, true));
+                resolved.forEach(service -> add(service, false));
+            });
+        }
+    }
+
+    private static boolean isAlerting(Service service) {
+        AlertSpec spec = service.getAlert();
+        if (spec != null && Boolean.TRUE.equals(spec.getMuted())) {
+            return false;
+        }
+        List<Service.Status> statuses = spec != null && spec.getStatuses() != null
+                ? spec.getStatuses()
+                : Collections.singletonList(Service.Status.FAIL);
+        return statuses.contains(service.getStatus());
+    }
+
+    private void add(Service service, boolean firing) {
+        AlertSpec spec = service.getAlert();
+        List<String> targets = spec != null && spec.getTargets() != null ? spec.getTargets() : new ArrayList<>(outboxes.keySet());
+        for (String target : targets) {
+            if (!outboxes.containsKey(target)) {
+                log.warn("Service {0} alerts {1}, which is not an alert sink", service.getId(), target);
+                continue;
+            }
+            Group group = groups.get(target);
+            if (group == null) {
+                group = new Group();
+                groups.put(target, group);
+                vertx.setTimer(options.getAlertWindow(), ig -> flush(target));
+            }
+            group.add(service, firing);
+        }
+    }
+
+    private void flush(String target) {
+        Group group = groups.remove(target);
+        if (group != null && (!group.firing.isEmpty() || !group.resolved.isEmpty())) {
+            outboxes.get(target).offer(new AlertNotification(target, DateTime.now(DateTimeZone.UTC),
+                    new ArrayList<>(group.firing.values()), new ArrayList<>(group.resolved.values())));
+        }
+    }
+
+    /**
+     * The services which started and stopped alerting for a target within a window. A service which does both cancels
+     * out.
+     */
+    private static class Group {
+        private final Map<String, Service> firing = new LinkedHashMap<>();
+        private final Map<String, Service> resolved = new LinkedHashMap<>();
+
+        private void add(Service service, boolean firing) {
+            if (firing) {
+                if (resolved.remove(service.getId()) == null) {
+                    this.firing.put(service.getId(), service);
+                }
+            } else if (this.firing.remove(service.getId()) == null) {
+                resolved.put(service.getId(), service);
+            }
+        }
+    }
+
+    private class Outbox {
+        private final String name;
+        private final AlertSink sink;
+        private final Deque<AlertNotification> queue = new ArrayDeque<>();
+        private AlertNotification sending = null;
+        private int attempts = 0;
+
+        private Outbox(String name, AlertSink sink) {
+            this.name = name;
+            this.sink = sink;
+        }
+
+        private void offer(AlertNotification notification) {
+            if (queue.size() >= options.getAlertOutboxSize()) {
+                queue.poll();
+                metrics.alertDropped();
+                log.warn("Outbox of {0} is full, dropped its oldest notification", name);
+            }
+            queue.add(notification);
+            send();
+        }
+
+        private void send() {
+            if (sending == null && !queue.isEmpty()) {
+                sending = queue.poll();
+                attempt();
+            }
+        }
+
+        private void attempt() {
+            Single<Void> sent;
+            try {
+                sent = sink.send(sending);
+            } catch (RuntimeException e) {
+                sent = Single.error(e);
+            }
+            sent.subscribe(
+                    ig -> context.runOnContext(ig2 -> sent()),
+                    e -> context.runOnContext(ig2 -> failed(e)));
+        }
+
+        private void sent() {
+            sending = null;
+            attempts = 0;
+            metrics.alertSent();
+            send();
+        }
+
+        private void failed(Throwable e) {
+            attempts++;
+            if (attempts > options.getAlertRetries()) {
+                log.error("Dropped a notification to {0} after {1} attempts", e, name, attempts);
+                metrics.alertDropped();
+                sending = null;
+                attempts = 0;
+                send();
+            } else {
+                log.warn("Failed to notify {0}, will retry: {1}", name, e.getMessage());
+                metrics.alertRetried();
+                vertx.setTimer(options.getAlertRetryDelay() << Math.min(attempts - 1, MAX_BACKOFF_SHIFT), ig -> attempt());
+            }
+        }
+    }
+}
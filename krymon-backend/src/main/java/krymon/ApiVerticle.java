@@ -0,0 +1,672 @@
+package krymon;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Future;
+import io.vertx.core.MultiMap;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.Json;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import io.vertx.ext.web.Route;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.RoutingContext;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import rx.Single;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The HTTP API. Any number of instances can be deployed; they share the port and all state lives in the shared
+ * registry, so each instance serves requests on its own event loop.
+ */
+public class ApiVerticle extends AbstractVerticle {
+
+    private final static Logger log = LoggerFactory.getLogger(ApiVerticle.class.getName());
+    private final static int MAX_BULK_ITEMS = 100_000;
+    private final static int MAX_ROLLUPS = 500;
+    private final static long UPTIME_RANGE = 30 * HistoryStore.Resolution.DAY.getWidth();
+    private final int instance;
+    private final ServiceRegistry registry;
+    private final Cluster cluster;
+    private final CheckHistories histories;
+    private final Latencies latencies;
+    private final ServiceEvents events;
+    private final KrymonMetrics metrics;
+    private final Collection<CheckVerticle> checks;
+    private final Aggregator aggregator;
+    private final HistoryStore history;
+    private final int port;
+
+    public ApiVerticle(int instance, ServiceRegistry registry, Cluster cluster, CheckHistories histories, Latencies latencies,
+                       ServiceEvents events, KrymonMetrics metrics, Collection<CheckVerticle> checks, Aggregator aggregator,
+                       HistoryStore history, int port) {
+        this.instance = instance;
+        this.registry = registry;
+        this.cluster = cluster;
+        this.histories = histories;
+        this.latencies = latencies;
+        this.events = events;
+        this.metrics = metrics;
+        this.checks = checks;
+        this.aggregator = aggregator;
+        this.history = history;
+        this.port = port;
+    }
+
+    @Override
+    public void start(Future<Void> startFuture) {
+        vertx.createHttpServer().requestHandler(createRouter()::accept).listen(port, handler -> {
+            if (handler.succeeded()) {
+                startFuture.complete();
+            } else {
+                startFuture.fail(handler.cause());
+            }
+        });
+        metrics.monitorEventLoop(vertx, context, "api-" + instance);
+    }
+
+    private Router createRouter() {
+        Router router = Router.router(vertx);
+        router.route().handler(this::timeRequest);
+        router.get("/metrics").handler(new MetricsHandler(registry, histories, latencies, checks, metrics));
+        router.get("/service").handler(this::getServices);
+        router.get("/service/_latency").handler(this::getLatencies);
+        if (history != null) {
+            router.get("/service/_uptime").handler(this::getUptimeReport);
+        }
+        router.get("/service/_events").handler(routingContext -> events.subscribe(context, routingContext.response()));
+        router.get("/service/_export").handler(this::exportServices);
+        router.post("/service").handler(this::addService);
+        router.post("/service/_bulk").handler(this::bulk);
+        router.delete("/service/:serviceID").handler(this::deleteService);
+        router.get("/service/:serviceID/history").handler(this::getHistory);
+        router.get("/service/:serviceID/latency").handler(this::getLatency);
+        router.get("/cluster").handler(this::getCluster);
+        router.get("/cluster/ping").handler(routingContext -> routingContext.response().end());
+        router.post("/cluster/records").handler(this::receiveRecords);
+        if (history != null) {
+            router.get("/service/:serviceID/rollups").handler(this::getRollups);
+            router.get("/service/:serviceID/uptime").handler(this::getUptime);
+        }
+        if (aggregator != null) {
+            router.get("/service/:serviceID/agents").handler(this::getVantages);
+            router.post("/agent/results").handler(this::receiveResults);
+        }
+        return router;
+    }
+
+    private void timeRequest(RoutingContext routingContext) {
+        long start = System.nanoTime();
+        routingContext.addBodyEndHandler(ig -> {
+            Route route = routingContext.currentRoute();
+            metrics.request(
+                    routingContext.request().rawMethod(),
+                    route != null && route.getPath() != null ? route.getPath() : "unmatched",
+                    routingContext.response().getStatusCode(),
+                    System.nanoTime() - start);
+        });
+        routingContext.next();
+    }
+
+    private void getServices(RoutingContext routingContext) {
+        ServiceQuery query;
+        try {
+            query = serviceQuery(routingContext.request().params());
+        } catch (IllegalArgumentException e) {
+            routingContext.response().setStatusCode(400).end(e.getMessage());
+            return;
+        }
+        boolean withLatency = "true".equals(routingContext.request().getParam("latency"));
+        long now = System.currentTimeMillis();
+        Function<Service, Service> render = service -> query.project(
+                withLatency ? service.withLatency(latencies.get(service.getId(), now).orElse(null)) : service);
+        String since = routingContext.request().getParam("since");
+        if (since != null) {
+            getChanges(routingContext, since, withLatency, render);
+            return;
+        }
+        if (!withLatency && notModified(routingContext, registry.revision())) {
+            return;
+        }
+        if (query.getLimit() == Integer.MAX_VALUE) {
+            Iterator<Service> services = registry.iterate(query);
+            ServiceListWriter.write(context, new Iterator<Service>() {
+                @Override
+                public boolean hasNext() {
+                    return services.hasNext();
+                }
+
+                @Override
+                public Service next() {
+                    return render.apply(services.next());
+                }
+            }, routingContext.response());
+            return;
+        }
+        ServiceList page = registry.query(query);
+        List<Service> services = new ArrayList<>(page.getServices().size());
+        for (Service service : page.getServices()) {
+            services.add(render.apply(service));
+        }
+        routingContext.response().end(Json.encodeToBuffer(new ServiceList(services, page.getNext())));
+    }
+
+    private void getChanges(RoutingContext routingContext, String since, boolean withLatency, Function<Service, Service> render) {
+        MultiMap params = routingContext.request().params();
+        ServiceDelta delta;
+        try {
+            for (String param : Arrays.asList("status", "name", "host", "sort", "limit", "cursor")) {
+                if (params.contains(param)) {
+                    throw new IllegalArgumentException("since cannot be combined with " + param);
+                }
+            }
+            delta = registry.changesSince(Long.parseLong(since));
+        } catch (IllegalArgumentException e) {
+            routingContext.response().setStatusCode(400).end(e.getMessage());
+            return;
+        }
+        if (!withLatency && notModified(routingContext, delta.getRevision())) {
+            return;
+        }
+        List<Service> services = new ArrayList<>(delta.getServices().size());
+        for (Service service : delta.getServices()) {
+            services.add(render.apply(service));
+        }
+        routingContext.response().end(Json.encodeToBuffer(
+                new ServiceDelta(delta.getRevision(), delta.isFull(), services, delta.getDeleted())));
+    }
+
+    /**
+     * Sets the ETag for a registry revision and answers 304 if the client already has it. The tag is weak since a new
+     * check time alone does not change the revision.
+     */
+    private static boolean notModified(RoutingContext routingContext, long revision) {
+        String etag = "W/\"" + revision + "\"";
+        routingContext.response().putHeader("ETag", etag);
+        String ifNoneMatch = routingContext.request().getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            for (String tag : ifNoneMatch.split(",")) {
+                String candidate = tag.trim();
+                if (candidate.equals("*") || candidate.equals(etag) || ("W/" + candidate).equals(etag)) {
+                    routingContext.response().setStatusCode(304).end();
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static ServiceQuery serviceQuery(MultiMap params) {
+        ServiceQuery query = new ServiceQuery();
+        if (params.contains("status")) {
+            query.setStatus(Service.Status.valueOf(params.get("status")));
+        }
+        query.setNamePrefix(params.get("name"));
+        query.setHost(params.get("host"));
+        if (params.contains("sort")) {
+            query.setSort(params.get("sort"));
+        }
+        if (params.contains("limit")) {
+            query.setLimit(Integer.parseInt(params.get("limit")));
+        }
+        if (params.contains("cursor")) {
+            query.setCursor(params.get("cursor"));
+        }
+        if (params.contains("fields")) {
+            query.setFields(new HashSet<>(Arrays.asList(params.get("fields").split(","))));
+        }
+        return query;
+    }
+
+    private void getLatencies(RoutingContext routingContext) {
+        long now = System.currentTimeMillis();
+        Map<String, Latency> services = new LinkedHashMap<>();
+        for (Service service : registry.list().getServices()) {
+            latencies.get(service.getId(), now).ifPresent(latency -> services.put(service.getId(), latency));
+        }
+        routingContext.response().end(Json.encode(new FleetLatency(latencies.fleet(now), services)));
+    }
+
+    private void getLatency(RoutingContext routingContext) {
+        String serviceID = routingContext.pathParam("serviceID");
+        if (!registry.get(serviceID).isPresent()) {
+            routingContext.response().setStatusCode(404).end();
+            return;
+        }
+        Latency latency = latencies.get(serviceID, System.currentTimeMillis())
+                .orElseGet(LatencyStats::empty);
+        routingContext.response().end(Json.encode(latency));
+    }
+
+    private void getHistory(RoutingContext routingContext) {
+        String serviceID = routingContext.pathParam("serviceID");
+        if (!registry.get(serviceID).isPresent()) {
+            routingContext.response().setStatusCode(404).end();
+            return;
+        }
+        int limit;
+        try {
+            limit = intParam(routingContext, "limit", Integer.MAX_VALUE);
+        } catch (NumberFormatException e) {
+            routingContext.response().setStatusCode(400).end();
+            return;
+        }
+        if (history != null && (routingContext.request().getParam("from") != null || routingContext.request().getParam("to") != null)) {
+            getStoredHistory(routingContext, serviceID, limit);
+            return;
+        }
+        List<CheckRecord> checks = histories.get(serviceID)
+                .map(history -> history.latest(limit).stream().map(CheckResult::toRecord).collect(Collectors.toList()))
+                .orElse(Collections.emptyList());
+        routingContext.response().end(Json.encode(new ServiceHistory(serviceID, checks)));
+    }
+
+    /**
+     * Reads the raw results of a time range from the history store, keeping the latest {@code limit}.
+     */
+    private void getStoredHistory(RoutingContext routingContext, String serviceID, int limit) {
+        long to;
+        long from;
+        try {
+            to = timeParam(routingContext, "to", System.currentTimeMillis());
+            from = timeParam(routingContext, "from", to - HistoryStore.Resolution.HOUR.getWidth());
+        } catch (IllegalArgumentException e) {
+            routingContext.response().setStatusCode(400).end(e.getMessage());
+            return;
+        }
+        history.results(serviceID, from, to).subscribe(
+                results -> {
+                    List<CheckRecord> checks = results.subList(Math.max(0, results.size() - limit), results.size()).stream()
+                            .map(CheckResult::toRecord)
+                            .collect(Collectors.toList());
+                    routingContext.response().end(Json.encode(new ServiceHistory(serviceID, checks)));
+                },
+                e -> {
+                    log.error("Failed to read history of {0}", e, serviceID);
+                    routingContext.response().setStatusCode(500).end();
+                });
+    }
+
+    /**
+     * Checks per minute, hour or day from the history store. Without a resolution, the finest one giving at most a
+     * few hundred buckets for the range is used.
+     */
+    private void getRollups(RoutingContext routingContext) {
+        String serviceID = routingContext.pathParam("serviceID");
+        if (!registry.get(serviceID).isPresent()) {
+            routingContext.response().setStatusCode(404).end();
+            return;
+        }
+        long to;
+        long from;
+        HistoryStore.Resolution resolution;
+        try {
+            to = timeParam(routingContext, "to", System.currentTimeMillis());
+            from = timeParam(routingContext, "from", to - HistoryStore.Resolution.DAY.getWidth());
+            String param = routingContext.request().getParam("resolution");
+            resolution = param != null ? HistoryStore.Resolution.of(param) : resolutionFor(to - from);
+            if (resolution == HistoryStore.Resolution.RAW) {
+                throw new IllegalArgumentException("Raw results are read from /service/" + serviceID + "/history");
+            }
+        } catch (IllegalArgumentException e) {
+            routingContext.response().setStatusCode(400).end(e.getMessage());
+            return;
+        }
+        history.rollups(serviceID, resolution, from, to).subscribe(
+                rollups -> routingContext.response().end(Json.encode(new ServiceRollups(serviceID, resolution.getLabel(),
+                        rollups.stream().map(ApiVerticle::toRecord).collect(Collectors.toList())))),
+                e -> {
+                    log.error("Failed to read rollups of {0}", e, serviceID);
+                    routingContext.response().setStatusCode(500).end();
+                });
+    }
+
+    private void getUptime(RoutingContext routingContext) {
+        String serviceID = routingContext.pathParam("serviceID");
+        Optional<Service> service = registry.get(serviceID);
+        if (!service.isPresent()) {
+            routingContext.response().setStatusCode(404).end();
+            return;
+        }
+        long to;
+        long from;
+        try {
+            to = timeParam(routingContext, "to", System.currentTimeMillis());
+            from = timeParam(routingContext, "from", to - UPTIME_RANGE);
+        } catch (IllegalArgumentException e) {
+            routingContext.response().setStatusCode(400).end(e.getMessage());
+            return;
+        }
+        history.totals(serviceID, from, to).subscribe(
+                totals -> routingContext.response().end(Json.encode(
+                        uptimeOf(service.get(), totals.get(serviceID), new DateTime(from, DateTimeZone.UTC), new DateTime(to, DateTimeZone.UTC)))),
+                e -> {
+                    log.error("Failed to compute uptime of {0}", e, serviceID);
+                    routingContext.response().setStatusCode(500).end();
+                });
+    }
+
+    /**
+     * Uptime of every service matching the filters of the service list, and of all of them together, from the
+     * rollups of the history store.
+     */
+    private void getUptimeReport(RoutingContext routingContext) {
+        ServiceQuery query;
+        long to;
+        long from;
+        Double target;
+        try {
+            query = serviceQuery(routingContext.request().params());
+            if (query.getLimit() != Integer.MAX_VALUE || query.getCursor() != null) {
+                throw new IllegalArgumentException("limit and cursor cannot be used with _uptime");
+            }
+            to = timeParam(routingContext, "to", System.currentTimeMillis());
+            from = timeParam(routingContext, "from", to - UPTIME_RANGE);
+            String param = routingContext.request().getParam("target");
+            target = param != null ? Double.valueOf(param) : null;
+        } catch (IllegalArgumentException e) {
+            routingContext.response().setStatusCode(400).end(e.getMessage());
+            return;
+        }
+        List<Service> services = new ArrayList<>();
+        registry.iterate(query).forEachRemaining(services::add);
+        history.totals(null, from, to).subscribe(
+                totals -> {
+                    List<ServiceUptime> uptimes = new ArrayList<>(services.size());
+                    List<String> breaching = target != null ? new ArrayList<>() : null;
+                    long checks = 0;
+                    long failures = 0;
+                    for (Service service : services) {
+                        ServiceUptime uptime = uptimeOf(service, totals.get(service.getId()), null, null);
+                        uptimes.add(uptime);
+                        checks += uptime.getChecks();
+                        failures += uptime.getFailures();
+                        if (target != null && uptime.getUptime() != null && uptime.getUptime() < target) {
+                            breaching.add(service.getId());
+                        }
+                    }
+                    routingContext.response().end(Json.encodeToBuffer(new UptimeReport(new DateTime(from, DateTimeZone.UTC),
+                            new DateTime(to, DateTimeZone.UTC), checks, failures, percentage(checks, failures), target, breaching, uptimes)));
+                },
+                e -> {
+                    log.error("Failed to compute uptime report", e);
+                    routingContext.response().setStatusCode(500).end();
+                });
+    }
+
+    private static ServiceUptime uptimeOf(Service service, HistoryStore.Rollup total, DateTime from, DateTime to) {
+        long checks = total != null ? total.getChecks() : 0;
+        long failures = total != null ? total.getFailures() : 0;
+        return new ServiceUptime(service.getId(), service.getName(), from, to, checks, failures, percentage(checks, failures));
+    }
+
+    private static Double percentage(long checks, long failures) {
+        return checks > 0 ? 100.0 * (checks - failures) / checks : null;
+    }
+
+    private static HistoryStore.Resolution resolutionFor(long range) {
+        for (HistoryStore.Resolution resolution : HistoryStore.Resolution.values()) {
+            if (resolution != HistoryStore.Resolution.RAW && range / resolution.getWidth() <= MAX_ROLLUPS) {
+                return resolution;
+            }
+        }
+        return HistoryStore.Resolution.DAY;
+    }
+
+    private static RollupRecord toRecord(HistoryStore.Rollup rollup) {
+        return new RollupRecord(new DateTime(rollup.getTimestamp(), DateTimeZone.UTC), rollup.getChecks(), rollup.getFailures(),
+                rollup.getChecks() > 0 ? rollup.getLatencySum() / rollup.getChecks() : 0, rollup.getLatencyMax());
+    }
+
+    /**
+     * A time given as milliseconds since the epoch or as an ISO 8601 date and time.
+     */
+    private static long timeParam(RoutingContext routingContext, String name, long defaultValue) {
+        String value = routingContext.request().getParam(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return value.chars().allMatch(Character::isDigit) ? Long.parseLong(value) : DateTime.parse(value).getMillis();
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+    }
+
+    private static int intParam(RoutingContext routingContext, String name, int defaultValue) {
+        String value = routingContext.request().getParam(name);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+
+    private void addService(RoutingContext routingContext) {
+        readBody(routingContext)
+                .map(ApiVerticle::decodeNewService)
+                .doOnSuccess(service -> ContentAssertions.compile(service.getCheck()))
+                .map(this::withRandomId)
+                .flatMap(this::addService)
+                .subscribe(
+                        id -> {
+                            log.info("Successfully added service with id {0}", id);
+                            routingContext.response().setStatusCode(201).putHeader("Location", "/service/" + id).end();
+                        },
+                        e -> {
+                            if (e instanceof IllegalArgumentException) {
+                                routingContext.response().setStatusCode(400).end(e.getMessage());
+                            } else {
+                                log.error("Failed to add service.", e);
+                                routingContext.response().setStatusCode(500).end();
+                            }
+                        }
+                );
+    }
+
+    /**
+     * Applies a JSON array or NDJSON stream of adds and deletes as one batch, answering with a result per item. The
+     * body is parsed as it arrives and nothing is applied unless all of it parses.
+     */
+    private void bulk(RoutingContext routingContext) {
+        HttpServerRequest request = routingContext.request();
+        HttpServerResponse response = routingContext.response();
+        List<BulkOperation> operations = new ArrayList<>();
+        JsonValueStream items;
+        try {
+            items = new JsonValueStream(item -> operations.add(BulkOperation.parse(item)));
+        } catch (IOException e) {
+            log.error("Failed to create bulk parser.", e);
+            response.setStatusCode(500).end();
+            return;
+        }
+        request.handler(chunk -> {
+            if (response.ended()) {
+                return;
+            }
+            try {
+                items.feed(chunk);
+            } catch (IOException e) {
+                response.setStatusCode(400).end(e.getMessage());
+                return;
+            }
+            if (operations.size() > MAX_BULK_ITEMS) {
+                response.setStatusCode(413).end("At most " + MAX_BULK_ITEMS + " items per request");
+            }
+        });
+        request.endHandler(ig -> {
+            if (response.ended()) {
+                return;
+            }
+            try {
+                items.end();
+            } catch (IOException e) {
+                response.setStatusCode(400).end(e.getMessage());
+                return;
+            }
+            registry.submit(Mutation.bulk(operations)).subscribe(
+                    results -> {
+                        log.info("Applied bulk request of {0} items", results.size());
+                        response.end(Json.encodeToBuffer(results));
+                    },
+                    e -> {
+                        log.error("Failed to apply bulk request.", e);
+                        response.setStatusCode(500).end();
+                    });
+        });
+    }
+
+    /**
+     * Streams services as NDJSON, in the format accepted by {@code POST /service/_bulk}.
+     */
+    private void exportServices(RoutingContext routingContext) {
+        ServiceQuery query;
+        try {
+            query = serviceQuery(routingContext.request().params());
+        } catch (IllegalArgumentException e) {
+            routingContext.response().setStatusCode(400).end(e.getMessage());
+            return;
+        }
+        if (query.getLimit() != Integer.MAX_VALUE || query.getCursor() != null) {
+            routingContext.response().setStatusCode(400).end("limit and cursor cannot be used with _export");
+            return;
+        }
+        Iterator<Service> services = registry.iterate(query);
+        ServiceListWriter.writeLines(context, new Iterator<Service>() {
+            @Override
+            public boolean hasNext() {
+                return services.hasNext();
+            }
+
+            @Override
+            public Service next() {
+                return query.project(services.next());
+            }
+        }, routingContext.response());
+    }
+
+    private void getCluster(RoutingContext routingContext) {
+        int owned = 0;
+        for (Iterator<Service> services = registry.iterate(new ServiceQuery()); services.hasNext(); ) {
+            if (cluster.owns(services.next().getId())) {
+                owned++;
+            }
+        }
+        routingContext.response().end(Json.encode(new ClusterStatus(cluster.getSelf(), new ArrayList<>(cluster.getMembers()), owned)));
+    }
+
+    /**
+     * Applies the records of changes made on a peer, one JSON object per line.
+     */
+    private void receiveRecords(RoutingContext routingContext) {
+        readBody(routingContext)
+                .map(body -> {
+                    List<StoreRecord> records = new ArrayList<>();
+                    int start = 0;
+                    for (int i = 0; i < body.length(); i++) {
+                        if (body.getByte(i) == '\n') {
+                            records.add(Json.decodeValue(body.getBuffer(start, i), StoreRecord.class));
+                            start = i + 1;
+                        }
+                    }
+                    return records;
+                })
+                .flatMap(cluster::receive)
+                .subscribe(
+                        ig -> routingContext.response().end(),
+                        e -> {
+                            log.error("Failed to apply replicated records.", e);
+                            routingContext.response().setStatusCode(e instanceof DecodeException ? 400 : 500).end();
+                        });
+    }
+
+    private void getVantages(RoutingContext routingContext) {
+        String serviceID = routingContext.pathParam("serviceID");
+        Optional<Service> service = registry.get(serviceID);
+        if (!service.isPresent()) {
+            routingContext.response().setStatusCode(404).end();
+            return;
+        }
+        Map<String, CheckRecord> agents = new TreeMap<>();
+        for (Map.Entry<String, CheckResult> result : aggregator.get(serviceID).entrySet()) {
+            agents.put(result.getKey(), result.getValue().toRecord());
+        }
+        routingContext.response().end(Json.encode(new VantageResults(serviceID, service.get().getStatus(), agents)));
+    }
+
+    /**
+     * Applies a {@link ResultBatch} of check results sent by an agent.
+     */
+    private void receiveResults(RoutingContext routingContext) {
+        readBody(routingContext)
+                .map(ResultBatch::decode)
+                .flatMap(aggregator::receive)
+                .subscribe(
+                        ig -> routingContext.response().end(),
+                        e -> {
+                            log.error("Failed to apply agent results.", e);
+                            routingContext.response().setStatusCode(e instanceof IllegalArgumentException ? 400 : 500).end();
+                        });
+    }
+
+    /**
+     * Decodes a service to add, which like an item of a bulk request needs its name and url as strings.
+     */
+    private static NewService decodeNewService(Buffer body) {
+        JsonNode item = Json.decodeValue(body, JsonNode.class);
+        JsonNode name = item != null ? item.get("name") : null;
+        JsonNode url = item != null ? item.get("url") : null;
+        if (name == null || !name.isTextual() || url == null || !url.isTextual()) {
+            throw new IllegalArgumentException("name and url are required");
+        }
+        return Json.mapper.convertValue(item, NewService.class);
+    }
+
+    private Single<Buffer> readBody(RoutingContext routingContext) {
+        return Single.create(subscriber -> routingContext.request().bodyHandler(subscriber::onSuccess));
+    }
+
+    private Single<String> addService(Service service) {
+        return registry.submit(Mutation.add(service));
+    }
+
+    private final Service withRandomId(NewService service) {
+        return new Service(UUID.randomUUID().toString(), service.getName(), service.getUrl(), Service.Status.UNKNOWN, DateTime.now(DateTimeZone.UTC),
+                service.getInterval(), service.getTimeout(), null, service.getCheck(), service.getAlert());
+    }
+
+    private void deleteService(RoutingContext routingContext) {
+        String serviceID = routingContext.pathParam("serviceID");
+        Single.just(serviceID)
+                .flatMap(this::deleteIfExists)
+                .subscribe(
+                        existed -> {
+                            if (existed) {
+                                log.info("Successfully deleted service with id {0}", serviceID);
+                                routingContext.response().setStatusCode(200).end();
+                            } else {
+                                log.info("Tried deleting non-existing service id {0}", serviceID);
+                                routingContext.response().setStatusCode(404).end();
+                            }
+                        });
+    }
+
+    private Single<Boolean> deleteIfExists(String serviceID) {
+        return registry.submit(Mutation.remove(serviceID));
+    }
+}
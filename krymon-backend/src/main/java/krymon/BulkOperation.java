@@ -0,0 +1,99 @@
+package krymon;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.vertx.core.json.Json;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * One item of a bulk request. An object with a {@code delete} id deletes that service. Any other object adds a
+ * service from its {@code name}, {@code url}, {@code interval}, {@code timeout}, {@code check} and {@code alert},
+ * keeping its {@code id} if it has one so that exported services can be imported as they were; other fields, such as
+ * the status, are ignored.
+ */
+public class BulkOperation {
+
+    private final Service add;
+    private final String delete;
+    private final String error;
+
+    private BulkOperation(Service add, String delete, String error) {
+        this.add = add;
+        this.delete = delete;
+        this.error = error;
+    }
+
+    public static BulkOperation parse(JsonNode item) {
+        if (!item.isObject()) {
+            return invalid("Expected an object");
+        }
+        if (item.has("delete")) {
+            return item.get("delete").isTextual()
+                    ? new BulkOperation(null, item.get("delete").asText(), null)
+                    : invalid("delete must be a service id");
+        }
+        JsonNode name = item.get("name");
+        JsonNode url = item.get("url");
+        if (name == null || !name.isTextual() || url == null || !url.isTextual()) {
+            return invalid("name and url are required");
+        }
+        JsonNode interval = item.get("interval");
+        JsonNode timeout = item.get("timeout");
+        if (interval != null && !interval.isNull() && !interval.canConvertToLong()
+                || timeout != null && !timeout.isNull() && !timeout.canConvertToInt()) {
+            return invalid("interval and timeout must be whole numbers");
+        }
+        CheckSpec check = null;
+        if (item.hasNonNull("check")) {
+            try {
+                check = Json.mapper.treeToValue(item.get("check"), CheckSpec.class);
+                ContentAssertions.compile(check);
+            } catch (IOException | IllegalArgumentException e) {
+                return invalid("Invalid check: " + e.getMessage());
+            }
+        }
+        AlertSpec alert = null;
+        if (item.hasNonNull("alert")) {
+            try {
+                alert = Json.mapper.treeToValue(item.get("alert"), AlertSpec.class);
+            } catch (IOException e) {
+                return invalid("Invalid alert: " + e.getMessage());
+            }
+        }
+        JsonNode id = item.get("id");
+        return new BulkOperation(new Service(
+                id != null && id.isTextual() ? id.asText() : UUID.randomUUID().toString(),
+                name.asText(),
+                url.asText(),
+                Service.Status.UNKNOWN,
+                DateTime.now(DateTimeZone.UTC),
+                interval != null && !interval.isNull() ? interval.asLong() : null,
+                timeout != null && !timeout.isNull() ? timeout.asInt() : null,
+                null,
+                check,
+                alert), null, null);
+    }
+
+    private static BulkOperation invalid(String error) {
+        return new BulkOperation(null, null, error);
+    }
+
+    BulkResult apply(Map<String, Service> services, List<StoreRecord> journal) {
+        if (add != null) {
+            boolean existed = services.containsKey(add.getId());
+            Mutation.apply(StoreRecord.add(add), services, journal);
+            return new BulkResult(add.getId(), existed ? 200 : 201, null);
+        } else if (delete != null) {
+            return Mutation.apply(StoreRecord.delete(delete), services, journal)
+                    ? new BulkResult(delete, 200, null)
+                    : new BulkResult(delete, 404, null);
+        } else {
+            return new BulkResult(null, 400, error);
+        }
+    }
+}
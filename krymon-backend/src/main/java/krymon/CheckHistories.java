@@ -0,0 +1,29 @@
+package krymon;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class CheckHistories {
+    private final int capacity;
+    private final Map<String, CheckHistory> histories = new ConcurrentHashMap<>();
+
+    public CheckHistories(ServiceRegistry registry, int capacity) {
+        this.capacity = capacity;
+        registry.addListener(records -> {
+            for (StoreRecord record : records) {
+                if (record.getType() == StoreRecord.Type.DELETE) {
+                    histories.remove(record.getId());
+                }
+            }
+        });
+    }
+
+    public void record(String serviceID, CheckResult result) {
+        histories.computeIfAbsent(serviceID, id -> new CheckHistory(capacity)).record(result);
+    }
+
+    public Optional<CheckHistory> get(String serviceID) {
+        return Optional.ofNullable(histories.get(serviceID));
+    }
+}
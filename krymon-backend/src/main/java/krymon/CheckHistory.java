@@ -0,0 +1,69 @@
+package krymon;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The latest checks of one service, kept in a ring buffer of primitive arrays.
+ */
+public class CheckHistory {
+    private final long[] timestamps;
+    private final int[] latencyMicros;
+    private final short[] codes;
+    private final int[] connectMicros;
+    private final int[] firstByteMicros;
+    private final byte[] failedAssertions;
+    private final int[] certificateDays;
+    private int next = 0;
+    private int size = 0;
+
+    public CheckHistory(int capacity) {
+        this.timestamps = new long[capacity];
+        this.latencyMicros = new int[capacity];
+        this.codes = new short[capacity];
+        this.connectMicros = new int[capacity];
+        this.firstByteMicros = new int[capacity];
+        this.failedAssertions = new byte[capacity];
+        this.certificateDays = new int[capacity];
+    }
+
+    public synchronized void record(CheckResult result) {
+        timestamps[next] = result.getTimestamp();
+        latencyMicros[next] = (int) Math.min(result.getLatencyMicros(), Integer.MAX_VALUE);
+        codes[next] = (short) result.getCode();
+        connectMicros[next] = (int) Math.min(result.getConnectMicros(), Integer.MAX_VALUE);
+        firstByteMicros[next] = (int) Math.min(result.getFirstByteMicros(), Integer.MAX_VALUE);
+        failedAssertions[next] = (byte) (result.getFailedAssertion() != null ? result.getFailedAssertion().ordinal() + 1 : 0);
+        certificateDays[next] = result.getCertificateDays();
+        next = (next + 1) % timestamps.length;
+        size = Math.min(size + 1, timestamps.length);
+    }
+
+    /**
+     * The most recent result, or null if there is none.
+     */
+    public synchronized CheckResult last() {
+        if (size == 0) {
+            return null;
+        }
+        return resultAt(Math.floorMod(next - 1, timestamps.length));
+    }
+
+    /**
+     * Up to {@code limit} of the most recent results, oldest first.
+     */
+    public synchronized List<CheckResult> latest(int limit) {
+        int count = Math.min(limit, size);
+        List<CheckResult> results = new ArrayList<>(count);
+        for (int i = count; i > 0; i--) {
+            results.add(resultAt(Math.floorMod(next - i, timestamps.length)));
+        }
+        return results;
+    }
+
+    private CheckResult resultAt(int index) {
+        return new CheckResult(timestamps[index], latencyMicros[index], codes[index], connectMicros[index], firstByteMicros[index],
+                failedAssertions[index] != 0 ? CheckResult.Assertion.values()[failedAssertions[index] - 1] : null,
+                certificateDays[index]);
+    }
+}
@@ -0,0 +1,12 @@
+package krymon;
+
+/**
+ * Is told the result of every check a {@link CheckVerticle} makes, on the verticle's event loop.
+ */
+public interface CheckListener {
+
+    CheckListener NONE = (service, result) -> {
+    };
+
+    void checked(Service service, CheckResult result);
+}
@@ -0,0 +1,178 @@
+package krymon;
+
+import org.joda.time.DateTime;
+
+import io.vertx.core.dns.DnsException;
+
+import javax.net.ssl.SSLException;
+import java.net.ConnectException;
+import java.net.UnknownHostException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The outcome of one check. Responses are stored as their status code and failures without a response as the
+ * negated code of their {@link ErrorClass}, so a result fits in a few primitives.
+ * <p>
+ * Besides the total latency, a result has the time it took to open a connection, including the TLS handshake, and
+ * the time to the first byte of the response, both from the start of the check. Either is -1 when it did not happen:
+ * no connection was opened because a pooled one was reused, or no response arrived. A response which did not satisfy
+ * the service's {@link CheckSpec} has the {@link Assertion} it failed, and is not ok whatever its status code.
+ * <p>
+ * Probes which have no status code, such as a TCP connect, record a success as code 0. A TLS check also has the days
+ * left on the server's certificate, and {@link Integer#MIN_VALUE} stands for none.
+ */
+public class CheckResult {
+    private final long timestamp;
+    private final long latencyMicros;
+    private final int code;
+    private final long connectMicros;
+    private final long firstByteMicros;
+    private final Assertion failed;
+    private final int certificateDays;
+
+    public CheckResult(long timestamp, long latencyMicros, int code) {
+        this(timestamp, latencyMicros, code, -1, -1);
+    }
+
+    public CheckResult(long timestamp, long latencyMicros, int code, long connectMicros, long firstByteMicros) {
+        this(timestamp, latencyMicros, code, connectMicros, firstByteMicros, null);
+    }
+
+    public CheckResult(long timestamp, long latencyMicros, int code, long connectMicros, long firstByteMicros, Assertion failed) {
+        this(timestamp, latencyMicros, code, connectMicros, firstByteMicros, failed, Integer.MIN_VALUE);
+    }
+
+    public CheckResult(long timestamp, long latencyMicros, int code, long connectMicros, long firstByteMicros, Assertion failed,
+                       int certificateDays) {
+        this.timestamp = timestamp;
+        this.latencyMicros = latencyMicros;
+        this.code = code;
+        this.connectMicros = connectMicros;
+        this.firstByteMicros = firstByteMicros;
+        this.failed = failed;
+        this.certificateDays = certificateDays;
+    }
+
+    public static CheckResult response(long timestamp, long latencyMicros, int statusCode) {
+        return new CheckResult(timestamp, latencyMicros, statusCode);
+    }
+
+    public static CheckResult response(long timestamp, long latencyMicros, int statusCode, long connectMicros, long firstByteMicros) {
+        return new CheckResult(timestamp, latencyMicros, statusCode, connectMicros, firstByteMicros);
+    }
+
+    public static CheckResult success(long timestamp, long latencyMicros, long connectMicros) {
+        return new CheckResult(timestamp, latencyMicros, 0, connectMicros, -1);
+    }
+
+    public static CheckResult error(long timestamp, long latencyMicros, ErrorClass error) {
+        return new CheckResult(timestamp, latencyMicros, -error.code);
+    }
+
+    public static CheckResult error(long timestamp, long latencyMicros, ErrorClass error, long connectMicros, long firstByteMicros) {
+        return new CheckResult(timestamp, latencyMicros, -error.code, connectMicros, firstByteMicros);
+    }
+
+    public enum Assertion {
+        CONTAINS, MATCHES, JSON, MAX_LATENCY, CERTIFICATE
+    }
+
+    public enum ErrorClass {
+        TIMEOUT(1), CONNECTION(2), DNS(3), TLS(4), INVALID_URL(5), OTHER(6);
+
+        private final int code;
+
+        ErrorClass(int code) {
+            this.code = code;
+        }
+
+        public static ErrorClass of(Throwable t) {
+            if (t instanceof TimeoutException) {
+                return TIMEOUT;
+            } else if (t instanceof UnknownHostException || t instanceof DnsException) {
+                return DNS;
+            } else if (t instanceof ConnectException) {
+                return CONNECTION;
+            } else if (t instanceof SSLException) {
+                return TLS;
+            } else if (t instanceof IllegalArgumentException) {
+                return INVALID_URL;
+            } else {
+                return OTHER;
+            }
+        }
+
+        static ErrorClass ofCode(int code) {
+            for (ErrorClass error : values()) {
+                if (error.code == code) {
+                    return error;
+                }
+            }
+            return OTHER;
+        }
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public long getLatencyMicros() {
+        return latencyMicros;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public long getConnectMicros() {
+        return connectMicros;
+    }
+
+    public long getFirstByteMicros() {
+        return firstByteMicros;
+    }
+
+    public boolean isResponse() {
+        return code >= 0;
+    }
+
+    public boolean isOk() {
+        return (code == 0 || code >= 200 && code < 300) && failed == null;
+    }
+
+    /**
+     * The assertion the response failed, or null if it failed none or there was no response.
+     */
+    public Assertion getFailedAssertion() {
+        return failed;
+    }
+
+    public CheckResult failing(Assertion assertion) {
+        return new CheckResult(timestamp, latencyMicros, code, connectMicros, firstByteMicros, assertion, certificateDays);
+    }
+
+    /**
+     * The days left until the server's certificate expires, or {@link Integer#MIN_VALUE} if no certificate was seen.
+     */
+    public int getCertificateDays() {
+        return certificateDays;
+    }
+
+    public CheckResult withCertificateDays(int days) {
+        return new CheckResult(timestamp, latencyMicros, code, connectMicros, firstByteMicros, failed, days);
+    }
+
+    public ErrorClass getError() {
+        return isResponse() ? null : ErrorClass.ofCode(-code);
+    }
+
+    public CheckRecord toRecord() {
+        return new CheckRecord(new DateTime(timestamp), latencyMicros,
+                code > 0 ? code : null,
+                isResponse() ? null : getError().name(),
+                connectMicros >= 0 ? connectMicros : null,
+                firstByteMicros >= 0 ? firstByteMicros : null,
+                failed != null ? failed.name() : null,
+                certificateDays != Integer.MIN_VALUE ? certificateDays : null);
+    }
+}
@@ -0,0 +1,139 @@
+package krymon;
+
+import rx.Single;
+import rx.SingleSubscriber;
+import rx.functions.Func0;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Limits how many checks run at once, both in total and per host. Checks beyond the limits wait here, rather than
+ * in the HTTP client's connection pool where their timeouts would already be running. Hosts with waiting checks are
+ * served round-robin, so one large host does not starve the others.
+ */
+public class CheckScheduler {
+
+    private final int maxInFlight;
+    private final int maxPerHost;
+    private final Map<String, Host> hosts = new HashMap<>();
+    private final Deque<Host> runnable = new ArrayDeque<>();
+    private int inFlight = 0;
+    private boolean dispatching = false;
+
+    public CheckScheduler(int maxInFlight, int maxPerHost) {
+        this.maxInFlight = maxInFlight;
+        this.maxPerHost = maxPerHost;
+    }
+
+    public <T> Single<T> schedule(String host, Func0<Single<T>> check) {
+        return Single.create(subscriber -> {
+            synchronized (this) {
+                Host h = hosts.computeIfAbsent(host, Host::new);
+                h.waiting.add(new Task<>(check, subscriber));
+                markRunnable(h);
+            }
+            dispatch();
+        });
+    }
+
+    public synchronized int inFlight() {
+        return inFlight;
+    }
+
+    public synchronized int waiting() {
+        int waiting = 0;
+        for (Host host : hosts.values()) {
+            waiting += host.waiting.size();
+        }
+        return waiting;
+    }
+
+    private void dispatch() {
+        synchronized (this) {
+            if (dispatching) {
+                return;
+            }
+            dispatching = true;
+        }
+        while (true) {
+            Task<?> task;
+            Host host;
+            synchronized (this) {
+                if (inFlight >= maxInFlight || runnable.isEmpty()) {
+                    dispatching = false;
+                    return;
+                }
+                host = runnable.poll();
+                host.queued = false;
+                task = host.waiting.poll();
+                host.inFlight++;
+                inFlight++;
+                markRunnable(host);
+            }
+            task.run(() -> done(host));
+        }
+    }
+
+    private void done(Host host) {
+        synchronized (this) {
+            inFlight--;
+            host.inFlight--;
+            markRunnable(host);
+            if (host.inFlight == 0 && host.waiting.isEmpty()) {
+                hosts.remove(host.name);
+            }
+        }
+        dispatch();
+    }
+
+    private void markRunnable(Host host) {
+        if (!host.queued && !host.waiting.isEmpty() && host.inFlight < maxPerHost) {
+            host.queued = true;
+            runnable.add(host);
+        }
+    }
+
+    private static class Host {
+        private final String name;
+        private final Deque<Task<?>> waiting = new ArrayDeque<>();
+        private int inFlight = 0;
+        private boolean queued = false;
+
+        private Host(String name) {
+            this.name = name;
+        }
+    }
+
+    private static class Task<T> {
+        private final Func0<Single<T>> check;
+        private final SingleSubscriber<? super T> subscriber;
+
+        private Task(Func0<Single<T>> check, SingleSubscriber<? super T> subscriber) {
+            this.check = check;
+            this.subscriber = subscriber;
+        }
+
+        private void run(Runnable done) {
+            Single<T> single;
+            try {
+                single = check.call();
+            } catch (RuntimeException e) {
+                done.run();
+                subscriber.onError(e);
+                return;
+            }
+            single.subscribe(
+                    result -> {
+                        done.run();
+                        subscriber.onSuccess(result);
+                    },
+                    error -> {
+                        done.run();
+                        subscriber.onError(error);
+                    });
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package krymon;
+
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import org.joda.time.DateTime;
+import rx.Single;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+/**
+ * Checks every service on its own interval. Due checks are kept in a {@link TimingWheel} owned by the verticle's
+ * event loop and handed to the {@link CheckScheduler} when they come due. Each result is applied to the registry as
+ * soon as it arrives, and the service is then put back on the wheel.
+ * <p>
+ * Several instances can be deployed to spread checks over event loops. Services are partitioned between instances by
+ * host, so every instance has its own probes, wheel and scheduler, and the per-host limit still holds. In a
+ * {@link Cluster}, an instance only checks the services of its partition which belong to this node.
+ * <p>
+ * Each check is made by the {@link Probe} registered for the scheme of the service's URL. The {@link StatusEvaluator}
+ * turns the latest results into a status, and only a change of status is written to the store.
+ */
+public class CheckVerticle extends AbstractVerticle {
+
+    private final static Logger log = LoggerFactory.getLogger(CheckVerticle.class.getName());
+    private final int partition;
+    private final int partitions;
+    private final ServiceRegistry registry;
+    private final Cluster cluster;
+    private final KrymonOptions options;
+    private final CheckHistories histories;
+    private final Latencies latencies;
+    private final KrymonMetrics metrics;
+    private final CheckScheduler scheduler;
+    private final StatusEvaluator statuses;
+    private final CheckListener listener;
+    private final Random random = new Random();
+    private final Map<String, Long> deadlines = new HashMap<>();
+    private final Map<String, Probe> probes = new HashMap<>();
+    private TimingWheel<String> wheel;
+
+    public CheckVerticle(int partition, int partitions, ServiceRegistry registry, Cluster cluster, CheckHistories histories,
+                         Latencies latencies, KrymonMetrics metrics, KrymonOptions options, CheckListener listener) {
+        this.partition = partition;
+        this.partitions = partitions;
+        this.registry = registry;
+        this.cluster = cluster;
+        this.histories = histories;
+        this.latencies = latencies;
+        this.metrics = metrics;
+        this.options = options;
+        this.scheduler = new CheckScheduler((options.getMaxChecksInFlight() + partitions - 1) / partitions, options.getMaxChecksPerHost());
+        this.statuses = new StatusEvaluator(options);
+        this.listener = listener;
+    }
+
+    @Override
+    public void start() {
+        Map<Probe.Factory, Probe> created = new HashMap<>();
+        for (Map.Entry<String, Probe.Factory> probe : options.getProbes().entrySet()) {
+            probes.put(probe.getKey(), created.computeIfAbsent(probe.getValue(), factory -> factory.create(vertx, options, metrics)));
+        }
+        wheel = new TimingWheel<>(options.getWheelTick(), options.getWheelSlots(), System.currentTimeMillis());
+        for (Service service : registry.list().getServices()) {
+            if (isMine(service)) {
+                scheduleFirst(service);
+            }
+        }
+        registry.addListener(records -> context.runOnContext(ig -> added(records)));
+        cluster.addListener(() -> context.runOnContext(ig -> rebalance()));
+        vertx.setPeriodic(options.getWheelTick(), ig -> wheel.advance(System.currentTimeMillis(), this::due));
+        metrics.monitorEventLoop(vertx, context, "checks-" + partition);
+    }
+
+    public int checksInFlight() {
+        return scheduler.inFlight();
+    }
+
+    public int checksWaiting() {
+        return scheduler.waiting();
+    }
+
+    private void added(List<StoreRecord> records) {
+        for (StoreRecord record : records) {
+            if (record.getType() == StoreRecord.Type.ADD && isMine(record.getService()) && !deadlines.containsKey(record.getId())) {
+                scheduleFirst(record.getService());
+            }
+        }
+    }
+
+    /**
+     * Starts checking the services this node has been given by a change of the cluster. Services it no longer owns
+     * are dropped when they next come due.
+     */
+    private void rebalance() {
+        for (Service service : registry.list().getServices()) {
+            if (isMine(service) && !deadlines.containsKey(service.getId())) {
+                scheduleFirst(service);
+            }
+        }
+    }
+
+    private boolean isMine(Service service) {
+        return cluster.owns(service.getId()) && Math.floorMod(hostOf(service.getUrl()).hashCode(), partitions) == partition;
+    }
+
+    private void scheduleFirst(Service service) {
+        long jitter = (long) (random.nextDouble() * intervalOf(service));
+        schedule(service.getId(), System.currentTimeMillis() + jitter);
+    }
+
+    private void schedule(String serviceID, long deadline) {
+        deadlines.put(serviceID, deadline);
+        wheel.schedule(serviceID, deadline);
+    }
+
+    private void due(String serviceID) {
+        long dueNanos = System.nanoTime();
+        Optional<Service> current = registry.get(serviceID);
+        if (!current.isPresent() || !isMine(current.get())) {
+            forget(serviceID);
+            return;
+        }
+        Service service = current.get();
+        scheduler.schedule(hostOf(service.getUrl()), () -> {
+            metrics.checkQueued(System.nanoTime() - dueNanos);
+            return updateStatus(service);
+        }).subscribe(
+                ig -> context.runOnContext(ig2 -> reschedule(serviceID)),
+                e -> {
+                    log.error("Failed to update status of service {0}", e, serviceID);
+                    context.runOnContext(ig2 -> reschedule(serviceID));
+                });
+    }
+
+    /**
+     * Schedules the next check one interval after the previous deadline, rather than after the tick the wheel
+     * fired on, so that rounding up to whole ticks does not add up over time. A check running past its next
+     * deadline is followed by the next one right away.
+     */
+    private void reschedule(String serviceID) {
+        Optional<Service> current = registry.get(serviceID);
+        if (!current.isPresent()) {
+            forget(serviceID);
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long previous = deadlines.getOrDefault(serviceID, now);
+        schedule(serviceID, Math.max(previous + intervalOf(current.get()), now));
+    }
+
+    private void forget(String serviceID) {
+        deadlines.remove(serviceID);
+        statuses.forget(serviceID);
+        for (Probe probe : probes.values()) {
+            probe.forget(serviceID);
+        }
+    }
+
+    private long intervalOf(Service service) {
+        long interval = service.getInterval() != null ? service.getInterval() : options.getCheckPeriod();
+        return Math.max(interval, options.getWheelTick());
+    }
+
+    private int timeoutOf(Service service) {
+        return service.getTimeout() != null ? service.getTimeout() : options.getCheckTimeout();
+    }
+
+    private static String hostOf(String url) {
+        try {
+            URI uri = new URI(url);
+            return uri.getHost() + ":" + uri.getPort();
+        } catch (URISyntaxException | NullPointerException e) {
+            return "";
+        }
+    }
+
+    private Single<Boolean> updateStatus(Service service) {
+        return check(service).flatMap(result ->
+                registry.submit(Mutation.updateStatus(service.getId(), statuses.evaluate(service, result.isOk()), new DateTime(result.getTimestamp())))
+                        .doOnSuccess(existed -> {
+                            if (existed) {
+                                histories.record(service.getId(), result);
+                                latencies.record(service.getId(), result);
+                                metrics.check(result);
+                                listener.checked(service, result);
+                            }
+                        }));
+    }
+
+    private Single<CheckResult> check(Service service) {
+        Probe probe = probes.get(schemeOf(service.getUrl()));
+        if (probe == null) {
+            return Single.just(CheckResult.error(System.currentTimeMillis(), 0, CheckResult.ErrorClass.INVALID_URL));
+        }
+        return probe.check(service, timeoutOf(service));
+    }
+
+    private static String schemeOf(String url) {
+        try {
+            String scheme = new URI(url).getScheme();
+            return scheme != null ? scheme.toLowerCase(Locale.ROOT) : "";
+        } catch (URISyntaxException e) {
+            return "";
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package krymon;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.json.Json;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import org.joda.time.DateTime;
+import rx.Observable;
+import rx.Single;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Shards checks between Krymon nodes without any coordinator. Every node is given the addresses of its peers, pings
+ * them every heartbeat interval and counts those which answered within the failure timeout as live. Services are
+ * assigned to the live nodes by a {@link HashRing} over their ids, and each node only checks its own; when a node
+ * joins or leaves, the ring is rebuilt and listeners are told so that checks move to their new owners.
+ * <p>
+ * Every node keeps the whole registry. The records of the changes made on a node, such as services added through its
+ * API or status changes found by its checks, are posted to every live peer, which applies them to its own registry
+ * and store without passing them on. When a peer becomes live, the node pulls the peer's export and adds the services
+ * it is missing, and takes the status of those the peer owns. Services deleted while two nodes could not reach each
+ * other can come back when they meet again.
+ * <p>
+ * A node remembers when it saw each service deleted. A replicated add made before that time is dropped, so that an
+ * add which was overtaken by the delete on the way does not bring the service back, while a later add of the same id,
+ * such as an import of an export, is applied. Adds are timed by their service's last check, which is set when the
+ * service is added, so this relies on the clocks of the nodes roughly agreeing. Pulled services are never added back
+ * while their delete is remembered.
+ * <p>
+ * Membership is kept on one event loop of its own. The ring is immutable and can be read from any thread.
+ */
+public class Cluster {
+
+    private final static Logger log = LoggerFactory.getLogger(Cluster.class.getName());
+    private final static int MAX_BATCH_SIZE = 1000;
+    private final static int MAX_DELETED = 10_000;
+    private final Vertx vertx;
+    private final Context context;
+    private final ServiceRegistry registry;
+    private final KrymonOptions options;
+    private final String self;
+    private final Map<String, Peer> peers = new LinkedHashMap<>();
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private final Set<StoreRecord> replicated = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Map<String, Long> deleted = new LinkedHashMap<String, Long>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > MAX_DELETED;
+        }
+    };
+    private volatile HashRing ring;
+    private HttpClient client;
+
+    public Cluster(Vertx vertx, ServiceRegistry registry, KrymonOptions options) {
+        this.vertx = vertx;
+        this.context = vertx.getOrCreateContext();
+        this.registry = registry;
+        this.options = options;
+        this.self = options.getClusterAddress() != null ? options.getClusterAddress() : "http://localhost:" + options.getPort();
+        for (String peer : options.getClusterPeers()) {
+            if (!peer.equals(self)) {
+                peers.put(peer, new Peer(peer));
+            }
+        }
+        this.ring = new HashRing(Collections.singleton(self), options.getVirtualNodes());
+    }
+
+    /**
+     * Starts following the registry and pings every peer once, so that the ring already has the live peers when
+     * checks start.
+     */
+    public Single<Void> start() {
+        registry.addListener(this::changed);
+        if (peers.isEmpty()) {
+            return Single.just(null);
+        }
+        return Single.<Void>create(subscriber -> context.runOnContext(ig -> {
+            client = vertx.createHttpClient(new HttpClientOptions().setConnectTimeout((int) options.getHeartbeatInterval()));
+            vertx.setPeriodic(options.getHeartbeatInterval(), ig2 -> heartbeats());
+            subscriber.onSuccess(null);
+        })).flatMap(ig -> Observable.from(new ArrayList<>(peers.values()))
+                .flatMap(peer -> heartbeat(peer).toObservable())
+                .toList()
+                .toSingle()
+                .map(ig2 -> null));
+    }
+
+    public String getSelf() {
+        return self;
+    }
+
+    public SortedSet<String> getMembers() {
+        return ring.getNodes();
+    }
+
+    /**
+     * Whether this node is the one to check a service.
+     */
+    public boolean owns(String serviceID) {
+        return self.equals(ring.owner(serviceID));
+    }
+
+    /**
+     * Adds a listener to call, on the cluster's event loop, whenever the set of live nodes changes.
+     */
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Applies records posted by a peer. They are stored like any other change, but not passed on.
+     */
+    public Single<Void> receive(List<StoreRecord> records) {
+        return registry.submit((services, journal) -> {
+            for (StoreRecord record : records) {
+                if (record.getType() == StoreRecord.Type.ADD && isDeletedSince(record)) {
+                    continue;
+                }
+                if (Mutation.apply(record, services, journal)) {
+                    replicated.add(record);
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Whether an add was made before its service was last deleted.
+     */
+    private boolean isDeletedSince(StoreRecord add) {
+        Long deletedAt = deleted.get(add.getId());
+        DateTime addedAt = add.getService().getLastCheck();
+        return deletedAt != null && (addedAt == null || addedAt.getMillis() <= deletedAt);
+    }
+
+    private void changed(List<StoreRecord> records) {
+        List<StoreRecord> local = new ArrayList<>(records.size());
+        for (StoreRecord record : records) {
+            if (record.getType() == StoreRecord.Type.DELETE) {
+                deleted.put(record.getId(), System.currentTimeMillis());
+            } else if (record.getType() == StoreRecord.Type.ADD) {
+                deleted.remove(record.getId());
+            }
+            if (!replicated.remove(record)) {
+                local.add(record);
+            }
+        }
+        if (!local.isEmpty() && !peers.isEmpty()) {
+            context.runOnContext(ig -> {
+                for (Peer peer : peers.values()) {
+                    if (peer.live) {
+                        peer.pending.addAll(local);
+                        send(peer);
+                    }
+                }
+            });
+        }
+    }
+
+    private void heartbeats() {
+        for (Peer peer : peers.values()) {
+            heartbeat(peer).subscribe();
+            send(peer);
+        }
+    }
+
+    private Single<Void> heartbeat(Peer peer) {
+        return Single.create(subscriber -> context.runOnContext(ig -> {
+            try {
+                client.getAbs(peer.address + "/cluster/ping", response -> response.bodyHandler(body -> {
+                    if (response.statusCode() == 200) {
+                        seen(peer);
+                    } else {
+                        missed(peer);
+                    }
+                    subscriber.onSuccess(null);
+                })).setTimeout(options.getHeartbeatInterval()).exceptionHandler(e -> {
+                    missed(peer);
+                    subscriber.onSuccess(null);
+                }).end();
+            } catch (RuntimeException e) {
+                log.error("Failed to ping {0}", e, peer.address);
+                subscriber.onSuccess(null);
+            }
+        }));
+    }
+
+    private void seen(Peer peer) {
+        peer.lastSeen = System.currentTimeMillis();
+        if (!peer.live) {
+            peer.live = true;
+            log.info("{0} joined the cluster", peer.address);
+            pull(peer);
+            membershipChanged();
+        }
+    }
+
+    private void missed(Peer peer) {
+        if (peer.live && System.currentTimeMillis() - peer.lastSeen > options.getFailureTimeout()) {
+            peer.live = false;
+            peer.pending.clear();
+            log.info("{0} left the cluster", peer.address);
+            membershipChanged();
+        }
+    }
+
+    private void membershipChanged() {
+        SortedSet<String> nodes = new TreeSet<>();
+        nodes.add(self);
+        for (Peer peer : peers.values()) {
+            if (peer.live) {
+                nodes.add(peer.address);
+            }
+        }
+        if (!nodes.equals(ring.getNodes())) {
+            ring = new HashRing(nodes, options.getVirtualNodes());
+            for (Runnable listener : listeners) {
+                listener.run();
+            }
+        }
+    }
+
+    private void send(Peer peer) {
+        if (peer.sending || peer.pending.isEmpty() || !peer.live) {
+            return;
+        }
+        int size = Math.min(peer.pending.size(), MAX_BATCH_SIZE);
+        Buffer body = Buffer.buffer();
+        Iterator<StoreRecord> records = peer.pending.iterator();
+        for (int i = 0; i < size; i++) {
+            body.appendBuffer(Json.encodeToBuffer(records.next())).appendByte((byte) '\n');
+        }
+        peer.sending = true;
+        client.postAbs(peer.address + "/cluster/records", response -> response.bodyHandler(ig -> {
+            peer.sending = false;
+            if (response.statusCode() == 200) {
+                for (int i = 0; i < size && !peer.pending.isEmpty(); i++) {
+                    peer.pending.poll();
+                }
+                send(peer);
+            } else {
+                log.warn("{0} answered {1} to replicated records, will retry", peer.address, response.statusCode());
+            }
+        })).setTimeout(options.getFailureTimeout()).exceptionHandler(e -> {
+            peer.sending = false;
+            log.warn("Failed to replicate records to {0}, will retry", peer.address);
+        }).end(body);
+    }
+
+    /**
+     * Reads the services of a peer and adds those this node is missing, taking the status of those the peer owns.
+     */
+    private void pull(Peer peer) {
+        List<Service> services = new ArrayList<>();
+        JsonValueStream stream;
+        try {
+            stream = new JsonValueStream(node -> services.add(Json.mapper.convertValue(node, Service.class)));
+        } catch (IOException e) {
+            log.error("Failed to create parser for services of {0}", e, peer.address);
+            return;
+        }
+        client.getAbs(peer.address + "/service/_export", response -> {
+            response.handler(chunk -> {
+                try {
+                    stream.feed(chunk);
+                } catch (IOException | IllegalArgumentException e) {
+                    log.error("Failed to parse services of {0}", e, peer.address);
+                    response.request().reset();
+                }
+            });
+            response.endHandler(ig -> {
+                try {
+                    stream.end();
+                } catch (IOException | IllegalArgumentException e) {
+                    log.error("Failed to parse services of {0}", e, peer.address);
+                    return;
+                }
+                registry.submit(merge(services, peer.address)).subscribe(
+                        added -> log.info("Pulled {0} services from {1}", added, peer.address),
+                        e -> log.error("Failed to merge services of {0}", e, peer.address));
+            });
+        }).exceptionHandler(e -> log.warn("Failed to pull services from {0}", peer.address)).end();
+    }
+
+    private Mutation<Integer> merge(List<Service> remote, String from) {
+        return (services, journal) -> {
+            int added = 0;
+            for (Service service : remote) {
+                if (deleted.containsKey(service.getId())) {
+                    continue;
+                }
+                Service local = services.get(service.getId());
+                StoreRecord record;
+                if (local == null) {
+                    record = StoreRecord.add(service);
+                    added++;
+                } else if (local.getStatus() != service.getStatus() && from.equals(ring.owner(service.getId()))) {
+                    record = StoreRecord.status(service.getId(), service.getStatus(), service.getLastCheck());
+                } else {
+                    continue;
+                }
+                if (Mutation.apply(record, services, journal)) {
+                    replicated.add(record);
+                }
+            }
+            return added;
+        };
+    }
+
+    private static class Peer {
+        private final String address;
+        private final Deque<StoreRecord> pending = new ArrayDeque<>();
+        private long lastSeen = 0;
+        private boolean live = false;
+        private boolean sending = false;
+
+        private Peer(String address) {
+            this.address = address;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package krymon;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
+import io.vertx.core.json.Json;
+import rx.Single;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a shell command for each notification, with the notification as JSON on its standard input and the numbers of
+ * alerting and resolved services in {@code KRYMON_FIRING} and {@code KRYMON_RESOLVED}. The command fails the
+ * notification by exiting with anything but 0. Commands run on a worker thread of their own, so a slow command only
+ * holds up notifications. The input is read from a temporary file rather than a pipe, so that a command which
+ * neither reads its input nor exits cannot block the write, and is stopped by the timeout.
+ */
+public class CommandSink implements AlertSink {
+
+    private final String command;
+    private final int timeout;
+    private final WorkerExecutor executor;
+
+    public CommandSink(Vertx vertx, String command, KrymonOptions options) {
+        this.command = command;
+        this.timeout = options.getAlertTimeout();
+        this.executor = vertx.createSharedWorkerExecutor("krymon-alert-command", 1);
+    }
+
+    @Override
+    public Single<Void> send(AlertNotification notification) {
+        byte[] input = Json.encodeToBuffer(notification).getBytes();
+        return Single.create(subscriber -> executor.<Void>executeBlocking(future -> {
+            try {
+                run(notification, input);
+                future.complete();
+            } catch (IOException e) {
+                future.fail(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.fail(e);
+            }
+        }, true, done -> {
+            if (done.succeeded()) {
+                subscriber.onSuccess(null);
+            } else {
+                subscriber.onError(done.cause());
+            }
+        }));
+    }
+
+    private void run(AlertNotification notification, byte[] input) throws IOException, InterruptedException {
+        ProcessBuilder builder = new ProcessBuilder("sh", "-c", command)
+                .redirectOutput(ProcessBuilder.Redirect.INHERIT)
+                .redirectError(ProcessBuilder.Redirect.INHERIT);
+        builder.environment().put("KRYMON_FIRING", String.valueOf(notification.getFiring().size()));
+        builder.environment().put("KRYMON_RESOLVED", String.valueOf(notification.getResolved().size()));
+        Path file = Files.createTempFile("krymon-alert", ".json");
+        Process process;
+        try {
+            Files.write(file, input);
+            process = builder.redirectInput(file.toFile()).start();
+        } finally {
+            Files.delete(file);
+        }
+        if (!process.waitFor(timeout, TimeUnit.MILLISECONDS)) {
+            process.destroyForcibly();
+            throw new IOException("Timed out running " + command);
+        }
+        if (process.exitValue() != 0) {
+            throw new IOException(command + " exited with " + process.exitValue());
+        }
+    }
+}
@@ -0,0 +1,534 @@
+package krymon;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.Json;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * The body assertions of a {@link CheckSpec}, compiled once and then matched against any number of responses as their
+ * bodies stream in. Nothing but a small window of the body is ever held, and each {@link Match} reports a verdict as
+ * soon as one is known, so the rest of the body need not be looked at.
+ */
+public class ContentAssertions {
+
+    public enum Verdict {
+        PASS, FAIL, UNDECIDED
+    }
+
+    private final CheckSpec spec;
+    private final List<Assertion> assertions;
+
+    private ContentAssertions(CheckSpec spec, List<Assertion> assertions) {
+        this.spec = spec;
+        this.assertions = assertions;
+    }
+
+    /**
+     * Compiles the body assertions of a spec, or returns null if it has none.
+     *
+     * @throws IllegalArgumentException if an assertion is invalid, such as a regular expression which does not compile
+     */
+    public static ContentAssertions compile(CheckSpec spec) {
+        if (spec == null) {
+            return null;
+        }
+        List<Assertion> assertions = new ArrayList<>();
+        if (spec.getContains() != null && !spec.getContains().isEmpty()) {
+            assertions.add(new Substrings(spec.getContains()));
+        }
+        if (spec.getMatches() != null) {
+            assertions.add(new Regex(Pattern.compile(spec.getMatches())));
+        }
+        if (spec.getJson() != null && !spec.getJson().isEmpty()) {
+            assertions.add(new JsonValues(spec.getJson()));
+        }
+        return assertions.isEmpty() ? null : new ContentAssertions(spec, assertions);
+    }
+
+    public CheckSpec getSpec() {
+        return spec;
+    }
+
+    public Match start() {
+        return new Match(assertions);
+    }
+
+    /**
+     * The assertions matched against one body. A verdict, once reached, does not change.
+     */
+    public static class Match {
+        private final List<Matcher> undecided = new ArrayList<>();
+        private Verdict verdict = Verdict.UNDECIDED;
+        private CheckResult.Assertion failed;
+
+        private Match(List<Assertion> assertions) {
+            for (Assertion assertion : assertions) {
+                undecided.add(assertion.start());
+            }
+        }
+
+        public Verdict feed(Buffer chunk) {
+            if (verdict == Verdict.UNDECIDED) {
+                byte[] bytes = chunk.getBytes();
+                undecided.removeIf(matcher -> decide(matcher, matcher.feed(bytes)));
+                if (verdict == Verdict.UNDECIDED && undecided.isEmpty()) {
+                    verdict = Verdict.PASS;
+                }
+            }
+            return verdict;
+        }
+
+        /**
+         * Ends the body, failing any assertion which could not be decided on what was read.
+         */
+        public Verdict end() {
+            if (verdict == Verdict.UNDECIDED) {
+                for (Matcher matcher : undecided) {
+                    if (decide(matcher, matcher.end())) {
+                        break;
+                    }
+                }
+                if (verdict == Verdict.UNDECIDED) {
+                    verdict = Verdict.PASS;
+                }
+            }
+            return verdict;
+        }
+
+        /**
+         * The first assertion found to fail, or null.
+         */
+        public CheckResult.Assertion getFailed() {
+            return failed;
+        }
+
+        private boolean decide(Matcher matcher, Verdict verdict) {
+            if (verdict == Verdict.FAIL && this.verdict == Verdict.UNDECIDED) {
+                this.verdict = Verdict.FAIL;
+                this.failed = matcher.kind();
+            }
+            return verdict != Verdict.UNDECIDED;
+        }
+    }
+
+    private interface Assertion {
+        Matcher start();
+    }
+
+    private interface Matcher {
+        CheckResult.Assertion kind();
+
+        Verdict feed(byte[] bytes);
+
+        /**
+         * The verdict at the end of the body, which is never undecided.
+         */
+        Verdict end();
+    }
+
+    /**
+     * Finds any number of strings at once with an Aho-Corasick automaton over their UTF-8 bytes, in one pass over the
+     * body whatever their number.
+     */
+    private static class Substrings implements Assertion {
+        private static final int MAX_STRINGS = 64;
+
+        private final byte[][] keys;
+        private final int[][] children;
+        private final int[] failures;
+        private final long[] outputs;
+        private final long all;
+        private int nodes = 0;
+
+        private Substrings(List<String> strings) {
+            if (strings.size() > MAX_STRINGS) {
+                throw new IllegalArgumentException("At most " + MAX_STRINGS + " strings can be asserted");
+            }
+            List<byte[]> encoded = new ArrayList<>(strings.size());
+            int capacity = 1;
+            for (String string : strings) {
+                encoded.add(string.getBytes(StandardCharsets.UTF_8));
+                capacity += encoded.get(encoded.size() - 1).length;
+            }
+            keys = new byte[capacity][];
+            children = new int[capacity][];
+            failures = new int[capacity];
+            outputs = new long[capacity];
+            addNode();
+            for (int i = 0; i < encoded.size(); i++) {
+                int node = 0;
+                for (byte b : encoded.get(i)) {
+                    int child = child(node, b);
+                    if (child < 0) {
+                        child = addNode();
+                        addChild(node, b, child);
+                    }
+                    node = child;
+                }
+                outputs[node] |= 1L << i;
+            }
+            this.all = strings.size() == MAX_STRINGS ? -1L : (1L << strings.size()) - 1;
+            linkFailures();
+        }
+
+        private int addNode() {
+            keys[nodes] = new byte[0];
+            children[nodes] = new int[0];
+            return nodes++;
+        }
+
+        private void addChild(int node, byte key, int child) {
+            keys[node] = Arrays.copyOf(keys[node], keys[node].length + 1);
+            children[node] = Arrays.copyOf(children[node], children[node].length + 1);
+            keys[node][keys[node].length - 1] = key;
+            children[node][children[node].length - 1] = child;
+        }
+
+        private int child(int node, byte key) {
+            byte[] nodeKeys = keys[node];
+            for (int i = 0; i < nodeKeys.length; i++) {
+                if (nodeKeys[i] == key) {
+                    return children[node][i];
+                }
+            }
+            return -1;
+        }
+
+        private void linkFailures() {
+            Deque<Integer> queue = new ArrayDeque<>();
+            for (int child : children[0]) {
+                queue.add(child);
+            }
+            while (!queue.isEmpty()) {
+                int node = queue.poll();
+                for (int i = 0; i < keys[node].length; i++) {
+                    int child = children[node][i];
+                    int failure = next(failures[node], keys[node][i]);
+                    failures[child] = failure;
+                    outputs[child] |= outputs[failure];
+                    queue.add(child);
+                }
+            }
+        }
+
+        private int next(int node, byte key) {
+            while (true) {
+                int child = child(node, key);
+                if (child >= 0) {
+                    return child;
+                } else if (node == 0) {
+                    return 0;
+                }
+                node = failures[node];
+            }
+        }
+
+        @Override
+        public Matcher start() {
+            return new Matcher() {
+                private int node = 0;
+                private long found = 0;
+
+                @Override
+                public CheckResult.Assertion kind() {
+                    return CheckResult.Assertion.CONTAINS;
+                }
+
+                @Override
+                public Verdict feed(byte[] bytes) {
+                    for (byte b : bytes) {
+                        node = next(node, b);
+                        found |= outputs[node];
+                        if (found == all) {
+                            return Verdict.PASS;
+                        }
+                    }
+                    return Verdict.UNDECIDED;
+                }
+
+                @Override
+                public Verdict end() {
+                    return found == all ? Verdict.PASS : Verdict.FAIL;
+                }
+            };
+        }
+    }
+
+    /**
+     * Looks for a regular expression in a sliding window over the decoded body, so a match can span chunks as long as
+     * it is no longer than the window. When the front of the window has been cut, one more
+     * character is kept before it and searched from, but not matched at, so that {@code ^} and {@code \A} only match
+     * at the start of the body. A match which ran into the end of the window could change with more of the body, as
+     * with {@code $} or a greedy repetition, so it only counts once the body has ended. Each search may look at a
+     * bounded number of characters, which stops patterns that backtrack badly from holding up the event loop; a
+     * search that runs out fails the assertion.
+     */
+    private static class Regex implements Assertion {
+        private static final int WINDOW = 4096;
+        private static final long STEP_BUDGET = 1_000_000;
+
+        private final Pattern pattern;
+
+        private Regex(Pattern pattern) {
+            this.pattern = pattern;
+        }
+
+        @Override
+        public Matcher start() {
+            CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            return new Matcher() {
+                private final StringBuilder window = new StringBuilder();
+                private byte[] pending = new byte[0];
+                private boolean cut = false;
+
+                @Override
+                public CheckResult.Assertion kind() {
+                    return CheckResult.Assertion.MATCHES;
+                }
+
+                @Override
+                public Verdict feed(byte[] bytes) {
+                    byte[] input = Arrays.copyOf(pending, pending.length + bytes.length);
+                    System.arraycopy(bytes, 0, input, pending.length, bytes.length);
+                    ByteBuffer in = ByteBuffer.wrap(input);
+                    CharBuffer out = CharBuffer.allocate(input.length);
+                    decoder.decode(in, out, false);
+                    pending = Arrays.copyOfRange(input, in.position(), input.length);
+                    window.append(out.array(), 0, out.position());
+                    Verdict verdict = search(false);
+                    if (window.length() > WINDOW + 1) {
+                        window.delete(0, window.length() - WINDOW - 1);
+                        cut = true;
+                    }
+                    return verdict;
+                }
+
+                @Override
+                public Verdict end() {
+                    return search(true) == Verdict.PASS ? Verdict.PASS : Verdict.FAIL;
+                }
+
+                private Verdict search(boolean ended) {
+                    java.util.regex.Matcher matcher = pattern.matcher(new Budgeted(window))
+                            .useTransparentBounds(true)
+                            .useAnchoringBounds(false)
+                            .region(cut ? 1 : 0, window.length());
+                    try {
+                        while (matcher.find()) {
+                            if (ended || !matcher.hitEnd()) {
+                                return Verdict.PASS;
+                            }
+                        }
+                        return Verdict.UNDECIDED;
+                    } catch (BudgetExceeded e) {
+                        return Verdict.FAIL;
+                    }
+                }
+            };
+        }
+
+        /**
+         * The window, as seen by a search which may only read {@link #STEP_BUDGET} characters of it.
+         */
+        private static class Budgeted implements CharSequence {
+            private final CharSequence text;
+            private long steps = 0;
+
+            private Budgeted(CharSequence text) {
+                this.text = text;
+            }
+
+            @Override
+            public char charAt(int index) {
+                if (++steps > STEP_BUDGET) {
+                    throw new BudgetExceeded();
+                }
+                return text.charAt(index);
+            }
+
+            @Override
+            public int length() {
+                return text.length();
+            }
+
+            @Override
+            public CharSequence subSequence(int start, int end) {
+                return text.subSequence(start, end);
+            }
+
+            @Override
+            public String toString() {
+                return text.toString();
+            }
+        }
+
+        private static class BudgetExceeded extends RuntimeException {
+            private static final long serialVersionUID = 1L;
+
+            private BudgetExceeded() {
+                super(null, null, false, false);
+            }
+        }
+    }
+
+    /**
+     * Compares scalar values at JSON pointers while the body is parsed as it arrives, deciding as soon as every value
+     * has been seen or one differs. The path to each value is tracked here rather than taken from the parser, whose
+     * non-blocking parsing context does not count array elements.
+     */
+    private static class JsonValues implements Assertion {
+        private final Map<String, Object> expected = new HashMap<>();
+
+        private JsonValues(Map<String, Object> values) {
+            for (Map.Entry<String, Object> entry : values.entrySet()) {
+                expected.put(pointer(entry.getKey()).toString(), entry.getValue());
+            }
+        }
+
+        /**
+         * Parses a JSON pointer, or a path such as {@code $.checks[0].ok} made up of fields and indexes only.
+         */
+        static JsonPointer pointer(String path) {
+            if (!path.startsWith("$")) {
+                return JsonPointer.compile(path);
+            }
+            StringBuilder pointer = new StringBuilder();
+            for (String part : path.substring(1).split("(?=[.\\[])")) {
+                if (part.startsWith(".")) {
+                    pointer.append('/').append(part.substring(1).replace("~", "~0").replace("/", "~1"));
+                } else if (part.startsWith("[") && part.endsWith("]")) {
+                    pointer.append('/').append(Integer.parseInt(part.substring(1, part.length() - 1)));
+                } else if (!part.isEmpty()) {
+                    throw new IllegalArgumentException("Unsupported JSON path " + path);
+                }
+            }
+            return JsonPointer.compile(pointer.toString());
+        }
+
+        @Override
+        public Matcher start() {
+            JsonParser parser;
+            try {
+                parser = Json.mapper.getFactory().createNonBlockingByteArrayParser();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return new Matcher() {
+                private final Set<String> seen = new HashSet<>();
+                private final Deque<Frame> path = new ArrayDeque<>();
+
+                @Override
+                public CheckResult.Assertion kind() {
+                    return CheckResult.Assertion.JSON;
+                }
+
+                @Override
+                public Verdict feed(byte[] bytes) {
+                    try {
+                        ((ByteArrayFeeder) parser.getNonBlockingInputFeeder()).feedInput(bytes, 0, bytes.length);
+                        return parse();
+                    } catch (IOException e) {
+                        return Verdict.FAIL;
+                    }
+                }
+
+                @Override
+                public Verdict end() {
+                    try {
+                        ((ByteArrayFeeder) parser.getNonBlockingInputFeeder()).endOfInput();
+                        Verdict verdict = parse();
+                        return verdict == Verdict.UNDECIDED ? Verdict.FAIL : verdict;
+                    } catch (IOException e) {
+                        return Verdict.FAIL;
+                    }
+                }
+
+                private Verdict parse() throws IOException {
+                    JsonToken token;
+                    while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                        if (token == JsonToken.FIELD_NAME) {
+                            path.peekLast().segment = parser.getCurrentName().replace("~", "~0").replace("/", "~1");
+                            continue;
+                        } else if (token.isStructEnd()) {
+                            path.pollLast();
+                            continue;
+                        }
+                        Frame parent = path.peekLast();
+                        if (parent != null && parent.array) {
+                            parent.segment = String.valueOf(++parent.index);
+                        }
+                        if (token.isStructStart()) {
+                            path.addLast(new Frame(token == JsonToken.START_ARRAY));
+                            continue;
+                        }
+                        String at = pointer();
+                        if (expected.containsKey(at) && seen.add(at)) {
+                            if (!equal(token, parser, expected.get(at))) {
+                                return Verdict.FAIL;
+                            }
+                            if (seen.size() == expected.size()) {
+                                return Verdict.PASS;
+                            }
+                        }
+                    }
+                    return Verdict.UNDECIDED;
+                }
+
+                private String pointer() {
+                    StringBuilder pointer = new StringBuilder();
+                    for (Frame frame : path) {
+                        pointer.append('/').append(frame.segment);
+                    }
+                    return pointer.toString();
+                }
+            };
+        }
+
+        private static class Frame {
+            private final boolean array;
+            private int index = -1;
+            private String segment = "";
+
+            private Frame(boolean array) {
+                this.array = array;
+            }
+        }
+
+        private static boolean equal(JsonToken token, JsonParser parser, Object expected) throws IOException {
+            if (expected == null) {
+                return token == JsonToken.VALUE_NULL;
+            } else if (expected instanceof String) {
+                return token == JsonToken.VALUE_STRING && expected.equals(parser.getText());
+            } else if (expected instanceof Boolean) {
+                return token == ((Boolean) expected ? JsonToken.VALUE_TRUE : JsonToken.VALUE_FALSE);
+            } else if (expected instanceof Number) {
+                return token.isNumeric() && new BigDecimal(expected.toString()).compareTo(parser.getDecimalValue()) == 0;
+            } else {
+                return false;
+            }
+        }
+    }
+}
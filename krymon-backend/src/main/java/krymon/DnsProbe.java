@@ -0,0 +1,115 @@
+package krymon;
+
+import io.netty.resolver.dns.DnsServerAddressStreamProviders;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.dns.DnsClient;
+import io.vertx.core.impl.VertxInternal;
+import rx.Single;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.UnknownHostException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Checks that a name resolves, with URLs such as {@code dns://example.com}, which asks the system's name server, or
+ * {@code dns://8.8.8.8/example.com}, which asks the given one. A name server given by host name is resolved without
+ * blocking, like any other host. The name has to resolve to an IPv4 or IPv6 address.
+ * Lookups always go to the name server, past any cache, so that its answers are what is checked.
+ */
+public class DnsProbe implements Probe {
+
+    private static final int DNS_PORT = 53;
+
+    private final Vertx vertx;
+    private final Map<InetSocketAddress, DnsClient> clients = new ConcurrentHashMap<>();
+
+    public DnsProbe(Vertx vertx, KrymonOptions options, KrymonMetrics metrics) {
+        this.vertx = vertx;
+    }
+
+    @Override
+    public Single<CheckResult> check(Service service, int timeout) {
+        return Single.create(subscriber -> {
+            long start = System.nanoTime();
+            InetSocketAddress server;
+            String name;
+            try {
+                URI uri = new URI(service.getUrl());
+                String path = uri.getPath() != null ? uri.getPath().replaceFirst("^/", "") : "";
+                if (path.isEmpty()) {
+                    name = uri.getHost();
+                    server = DnsServerAddressStreamProviders.platformDefault().nameServerAddressStream(name).next();
+                } else {
+                    name = path;
+                    server = uri.getHost() != null
+                            ? InetSocketAddress.createUnresolved(uri.getHost(), uri.getPort() >= 0 ? uri.getPort() : DNS_PORT)
+                            : null;
+                }
+            } catch (URISyntaxException e) {
+                subscriber.onSuccess(CheckResult.error(System.currentTimeMillis(), 0, CheckResult.ErrorClass.INVALID_URL));
+                return;
+            }
+            if (name == null || server == null) {
+                subscriber.onSuccess(CheckResult.error(System.currentTimeMillis(), 0, CheckResult.ErrorClass.INVALID_URL));
+                return;
+            }
+            AtomicBoolean done = new AtomicBoolean();
+            long timer = vertx.setTimer(timeout, ig -> {
+                if (done.compareAndSet(false, true)) {
+                    subscriber.onSuccess(CheckResult.error(System.currentTimeMillis(), micros(start), CheckResult.ErrorClass.TIMEOUT));
+                }
+            });
+            Handler<Throwable> failed = cause -> {
+                if (done.compareAndSet(false, true)) {
+                    vertx.cancelTimer(timer);
+                    subscriber.onSuccess(CheckResult.error(System.currentTimeMillis(), micros(start), CheckResult.ErrorClass.of(cause)));
+                }
+            };
+            resolve(server, resolvedServer -> {
+                if (resolvedServer.failed()) {
+                    failed.handle(resolvedServer.cause());
+                    return;
+                }
+                clientFor(resolvedServer.result()).lookup(name, resolved -> {
+                    if (resolved.succeeded() && resolved.result() != null) {
+                        if (done.compareAndSet(false, true)) {
+                            vertx.cancelTimer(timer);
+                            subscriber.onSuccess(CheckResult.success(System.currentTimeMillis(), micros(start), -1));
+                        }
+                    } else {
+                        failed.handle(resolved.failed() ? resolved.cause() : new UnknownHostException(name));
+                    }
+                });
+            });
+        });
+    }
+
+    /**
+     * Resolves a name server given by host name the way Vert.x resolves any host, without blocking, and through the
+     * DNS cache set up in {@link KrymonOptions#vertxOptions()}. IP literals are resolved as they are.
+     */
+    private void resolve(InetSocketAddress server, Handler<AsyncResult<InetSocketAddress>> handler) {
+        if (!server.isUnresolved()) {
+            handler.handle(Future.succeededFuture(server));
+            return;
+        }
+        ((VertxInternal) vertx).resolveAddress(server.getHostString(), resolved -> handler.handle(resolved.succeeded()
+                ? Future.succeededFuture(new InetSocketAddress(resolved.result(), server.getPort()))
+                : Future.failedFuture(resolved.cause())));
+    }
+
+    private DnsClient clientFor(InetSocketAddress server) {
+        return clients.computeIfAbsent(server, address -> vertx.createDnsClient(address.getPort(), address.getAddress().getHostAddress()));
+    }
+
+    private static long micros(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1000;
+    }
+}
@@ -0,0 +1,61 @@
+package krymon;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * A consistent hash ring of cluster nodes. Every node is placed on the ring at a number of pseudo-random points, and
+ * a key belongs to the node at the first point at or after the key's hash. When a node joins or leaves, only the keys
+ * between its points and the points before them move. Rings are immutable; a membership change builds a new one.
+ */
+public class HashRing {
+
+    private final SortedSet<String> nodes;
+    private final TreeMap<Long, String> points = new TreeMap<>();
+
+    public HashRing(Collection<String> nodes, int virtualNodes) {
+        this.nodes = Collections.unmodifiableSortedSet(new TreeSet<>(nodes));
+        for (String node : this.nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                points.put(hash(node + "#" + i), node);
+            }
+        }
+    }
+
+    public SortedSet<String> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * The node a key belongs to, or null if the ring is empty.
+     */
+    public String owner(String key) {
+        if (points.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, String> point = points.ceilingEntry(hash(key));
+        return point != null ? point.getValue() : points.firstEntry().getValue();
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes, with the MurmurHash3 finalizer to spread similar keys over the ring.
+     */
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb3fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
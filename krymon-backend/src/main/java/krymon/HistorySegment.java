@@ -0,0 +1,206 @@
+package krymon;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A memory-mapped file of fixed-width rows, stored column by column: all values of the first column, then all of the
+ * second, and so on, each column sized for the segment's capacity up front. Scanning one column, such as the service
+ * index, reads a single contiguous run of the file. The first column is the row's timestamp.
+ * <p>
+ * A 64-byte header holds a magic number, the resolution, the capacity, the row count and the range of timestamps. The
+ * count is written after the row, so a crash can at worst lose the row being appended. Segments are only used from
+ * the history store's thread.
+ * <p>
+ * Rows are mostly appended in time order, so the range of timestamps of every block of rows is kept in memory, and
+ * scans for a range of time skip the blocks outside it.
+ */
+public class HistorySegment {
+
+    private static final int MAGIC = 0x4b524853;
+    private static final int HEADER_SIZE = 64;
+    private static final int COUNT = 12;
+    private static final int MIN = 16;
+    private static final int MAX = 24;
+    private static final int BLOCK_ROWS = 1024;
+
+    private final Path path;
+    private final HistoryStore.Resolution resolution;
+    private final int capacity;
+    private final long[] offsets;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final long[] blockMin;
+    private final long[] blockMax;
+    private int count;
+    private long min;
+    private long max;
+
+    private HistorySegment(Path path, HistoryStore.Resolution resolution, int capacity, FileChannel channel) throws IOException {
+        this.path = path;
+        this.resolution = resolution;
+        this.capacity = capacity;
+        this.channel = channel;
+        int[] widths = resolution.widths();
+        this.offsets = new long[widths.length];
+        long offset = HEADER_SIZE;
+        for (int i = 0; i < widths.length; i++) {
+            offsets[i] = offset;
+            offset += (long) widths[i] * capacity;
+        }
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, offset);
+        int blocks = (capacity + BLOCK_ROWS - 1) / BLOCK_ROWS;
+        this.blockMin = new long[blocks];
+        this.blockMax = new long[blocks];
+        Arrays.fill(blockMin, Long.MAX_VALUE);
+        Arrays.fill(blockMax, Long.MIN_VALUE);
+    }
+
+    public static HistorySegment create(Path path, HistoryStore.Resolution resolution, int capacity) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        HistorySegment segment = new HistorySegment(path, resolution, capacity, channel);
+        segment.buffer.putInt(0, MAGIC).putInt(4, resolution.ordinal()).putInt(8, capacity);
+        segment.min = Long.MAX_VALUE;
+        segment.max = Long.MIN_VALUE;
+        segment.writeHeader();
+        return segment;
+    }
+
+    public static HistorySegment open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            int resolution = header.getInt(4);
+            if (header.getInt(0) != MAGIC || resolution < 0 || resolution >= HistoryStore.Resolution.values().length) {
+                throw new IOException("Not a history segment: " + path);
+            }
+            HistorySegment segment = new HistorySegment(path, HistoryStore.Resolution.values()[resolution], header.getInt(8), channel);
+            segment.count = Math.min(header.getInt(COUNT), segment.capacity);
+            segment.min = header.getLong(MIN);
+            segment.max = header.getLong(MAX);
+            for (int row = 0; row < segment.count; row++) {
+                segment.extendBlock(row, segment.get(0, row));
+            }
+            return segment;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public HistoryStore.Resolution getResolution() {
+        return resolution;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public boolean isFull() {
+        return count == capacity;
+    }
+
+    /**
+     * The earliest timestamp in the segment, or {@link Long#MAX_VALUE} if it is empty.
+     */
+    public long getMin() {
+        return min;
+    }
+
+    /**
+     * The latest timestamp in the segment, or {@link Long#MIN_VALUE} if it is empty.
+     */
+    public long getMax() {
+        return max;
+    }
+
+    public boolean overlaps(long from, long to) {
+        return count > 0 && min < to && max >= from;
+    }
+
+    /**
+     * Appends a row with a value for every column, in column order.
+     */
+    public void append(long... values) {
+        int row = count;
+        for (int column = 0; column < values.length; column++) {
+            set(column, row, values[column]);
+        }
+        extendBlock(row, values[0]);
+        count++;
+        min = Math.min(min, values[0]);
+        max = Math.max(max, values[0]);
+        writeHeader();
+    }
+
+    public long get(int column, int row) {
+        long position = offsets[column] + (long) resolution.widths()[column] * row;
+        return resolution.widths()[column] == Long.BYTES ? buffer.getLong((int) position) : buffer.getInt((int) position);
+    }
+
+    /**
+     * The first row at or after {@code row} whose value in {@code column}, an int column, is {@code value}, among the
+     * blocks with timestamps from {@code from} to {@code to}, or -1. Rows found may still be outside the range.
+     */
+    public int find(int column, int value, int row, long from, long to) {
+        int base = (int) offsets[column];
+        for (row = skip(row, from, to); row < count; row = skip(row, from, to)) {
+            int end = Math.min(count, (row / BLOCK_ROWS + 1) * BLOCK_ROWS);
+            for (; row < end; row++) {
+                if (buffer.getInt(base + row * Integer.BYTES) == value) {
+                    return row;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The first row at or after {@code row} in a block with timestamps from {@code from} to {@code to}, or the row
+     * count if there is none. Rows found may still be outside the range.
+     */
+    public int skip(int row, long from, long to) {
+        while (row < count) {
+            int block = row / BLOCK_ROWS;
+            if (blockMin[block] < to && blockMax[block] >= from) {
+                return row;
+            }
+            row = (block + 1) * BLOCK_ROWS;
+        }
+        return count;
+    }
+
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    public void delete() throws IOException {
+        channel.close();
+        Files.deleteIfExists(path);
+    }
+
+    private void set(int column, int row, long value) {
+        long position = offsets[column] + (long) resolution.widths()[column] * row;
+        if (resolution.widths()[column] == Long.BYTES) {
+            buffer.putLong((int) position, value);
+        } else {
+            buffer.putInt((int) position, (int) value);
+        }
+    }
+
+    private void extendBlock(int row, long timestamp) {
+        int block = row / BLOCK_ROWS;
+        blockMin[block] = Math.min(blockMin[block], timestamp);
+        blockMax[block] = Math.max(blockMax[block], timestamp);
+    }
+
+    private void writeHeader() {
+        buffer.putInt(COUNT, count).putLong(MIN, min).putLong(MAX, max);
+    }
+}
@@ -0,0 +1,601 @@
+package krymon;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import rx.Single;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Long-term history of check results, in {@link HistorySegment}s under a directory of its own. Every result is
+ * appended as a raw row of timestamp, service index, latency and code, and counted into per-minute rollups of checks,
+ * failures, latency sum and maximum latency per service. Minutes are rolled up into hours and hours into days as they
+ * end. Each resolution has its own retention, after which whole segments are deleted.
+ * <p>
+ * Services are numbered in the order they are first seen, and the numbers kept in {@code services.idx}, one id per
+ * line. Rollup rows are additive: a bucket may have several rows for a service, such as when a result arrives after
+ * its minute was written, and queries sum them. Buckets which have not been written yet are kept in memory; after a
+ * restart they are rebuilt from the rows of the resolution below.
+ * <p>
+ * Check verticles only queue their results. Everything else runs on a worker thread of the store's own, every flush
+ * interval, so that disk and page faults never hold up checks. A query scans the service column of the segments
+ * overlapping its range, and only reads the other columns of the rows it matches.
+ */
+public class HistoryStore {
+
+    private final static Logger log = LoggerFactory.getLogger(HistoryStore.class.getName());
+    private final static String INDEX_FILE = "services.idx";
+    private final static String SEGMENT_SUFFIX = ".seg";
+    private final static String CORRUPT_SUFFIX = ".corrupt";
+    private final static int MAX_SEGMENT_ROWS = 1 << 25;
+    static final int TIMESTAMP = 0;
+    static final int SERVICE = 1;
+    static final int LATENCY = 2;
+    static final int CODE = 3;
+    static final int CHECKS = 2;
+    static final int FAILURES = 3;
+    static final int LATENCY_SUM = 4;
+    static final int LATENCY_MAX = 5;
+
+    public enum Resolution {
+        RAW("raw", 0, 3_600_000L),
+        MINUTE("1m", 60_000L, 86_400_000L),
+        HOUR("1h", 3_600_000L, 30 * 86_400_000L),
+        DAY("1d", 86_400_000L, 365 * 86_400_000L);
+
+        private static final int[] RAW_WIDTHS = {Long.BYTES, Integer.BYTES, Integer.BYTES, Integer.BYTES};
+        private static final int[] ROLLUP_WIDTHS = {Long.BYTES, Integer.BYTES, Integer.BYTES, Integer.BYTES, Long.BYTES, Integer.BYTES};
+        private final String label;
+        private final long width;
+        private final long span;
+
+        Resolution(String label, long width, long span) {
+            this.label = label;
+            this.width = width;
+            this.span = span;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        /**
+         * The length of a bucket in milliseconds, or 0 for raw results.
+         */
+        public long getWidth() {
+            return width;
+        }
+
+        public long bucket(long timestamp) {
+            return width == 0 ? timestamp : timestamp - Math.floorMod(timestamp, width);
+        }
+
+        int[] widths() {
+            return this == RAW ? RAW_WIDTHS : ROLLUP_WIDTHS;
+        }
+
+        public static Resolution of(String label) {
+            for (Resolution resolution : values()) {
+                if (resolution.label.equals(label)) {
+                    return resolution;
+                }
+            }
+            throw new IllegalArgumentException("Unknown resolution " + label);
+        }
+    }
+
+    /**
+     * The checks of a service within one bucket.
+     */
+    public static class Rollup {
+        private final long timestamp;
+        private int checks;
+        private int failures;
+        private long latencySum;
+        private long latencyMax;
+
+        public Rollup(long timestamp) {
+            this.timestamp = timestamp;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public int getChecks() {
+            return checks;
+        }
+
+        public int getFailures() {
+            return failures;
+        }
+
+        public long getLatencySum() {
+            return latencySum;
+        }
+
+        public long getLatencyMax() {
+            return latencyMax;
+        }
+
+        void add(long checks, long failures, long latencySum, long latencyMax) {
+            this.checks += checks;
+            this.failures += failures;
+            this.latencySum += latencySum;
+            this.latencyMax = Math.max(this.latencyMax, latencyMax);
+        }
+
+        void add(Rollup rollup) {
+            add(rollup.checks, rollup.failures, rollup.latencySum, rollup.latencyMax);
+        }
+    }
+
+    private final Vertx vertx;
+    private final WorkerExecutor executor;
+    private final Path directory;
+    private final int segmentRows;
+    private final long flushInterval;
+    private final long grace;
+    private final Map<Resolution, Long> retention = new EnumMap<>(Resolution.class);
+    private final Queue<Entry> queue = new ConcurrentLinkedQueue<>();
+    private final Map<String, Integer> indexes = new HashMap<>();
+    private final List<String> ids = new ArrayList<>();
+    private final Map<Resolution, List<HistorySegment>> segments = new EnumMap<>(Resolution.class);
+    private final Map<Resolution, TreeMap<Long, Map<Integer, Rollup>>> pending = new EnumMap<>(Resolution.class);
+    private long timer = -1;
+
+    public HistoryStore(Vertx vertx, String directory, KrymonOptions options) {
+        this.vertx = vertx;
+        this.executor = vertx.createSharedWorkerExecutor("krymon-history-" + directory, 1);
+        this.directory = Paths.get(directory);
+        this.segmentRows = Math.min(options.getHistorySegmentRows(), MAX_SEGMENT_ROWS);
+        this.flushInterval = options.getHistoryFlushInterval();
+        this.grace = options.getCheckTimeout() + options.getHistoryFlushInterval();
+        retention.put(Resolution.RAW, options.getRawRetention());
+        retention.put(Resolution.MINUTE, options.getMinuteRetention());
+        retention.put(Resolution.HOUR, options.getHourRetention());
+        retention.put(Resolution.DAY, options.getDayRetention());
+        for (Resolution resolution : Resolution.values()) {
+            segments.put(resolution, new ArrayList<>());
+            pending.put(resolution, new TreeMap<>());
+        }
+    }
+
+    /**
+     * Opens the segments in the directory, creating it if needed, and starts flushing every flush interval. Segments
+     * which cannot be read, such as one torn while it was created, are renamed with a {@code .corrupt} suffix and left
+     * out.
+     */
+    public Single<Void> open() {
+        return this.<Void>run(() -> {
+            Files.createDirectories(directory);
+            loadIndex();
+            loadSegments();
+            for (Resolution resolution : Resolution.values()) {
+                if (resolution != Resolution.RAW) {
+                    rebuild(resolution);
+                }
+            }
+            return null;
+        }).doOnSuccess(ig -> timer = vertx.setPeriodic(flushInterval, ig2 -> flush().subscribe(
+                ig3 -> {
+                },
+                e -> {
+                    // The executor is closed before the timer when Vert.x closes.
+                    if (!(e instanceof RejectedExecutionException)) {
+                        log.error("Failed to flush history", e);
+                    }
+                })));
+    }
+
+    /**
+     * Queues a result to be stored. Safe to call from any thread.
+     */
+    public void record(String serviceID, CheckResult result) {
+        queue.add(new Entry(serviceID, result));
+    }
+
+    /**
+     * Stores the queued results, writes the buckets which have ended and deletes segments past their retention.
+     */
+    public Single<Void> flush() {
+        return this.<Void>run(() -> {
+            long now = System.currentTimeMillis();
+            drain();
+            writeBuckets(now - grace);
+            expire(now);
+            return null;
+        });
+    }
+
+    /**
+     * Stores the queued results and closes the segments. Buckets which have not ended are left to be rebuilt when the
+     * store is opened again.
+     */
+    public Single<Void> close() {
+        if (timer >= 0) {
+            vertx.cancelTimer(timer);
+        }
+        return this.<Void>run(() -> {
+            drain();
+            writeBuckets(System.currentTimeMillis() - grace);
+            for (List<HistorySegment> list : segments.values()) {
+                for (HistorySegment segment : list) {
+                    segment.close();
+                }
+                list.clear();
+            }
+            return null;
+        }).doAfterTerminate(executor::close);
+    }
+
+    /**
+     * The raw results of a service from {@code from}, inclusive, to {@code to}, exclusive, oldest first.
+     */
+    public Single<List<CheckResult>> results(String serviceID, long from, long to) {
+        return run(() -> {
+            drain();
+            Integer index = indexes.get(serviceID);
+            List<CheckResult> results = new ArrayList<>();
+            if (index == null) {
+                return results;
+            }
+            for (HistorySegment segment : segments.get(Resolution.RAW)) {
+                if (!segment.overlaps(from, to)) {
+                    continue;
+                }
+                for (int row = segment.find(SERVICE, index, 0, from, to); row >= 0; row = segment.find(SERVICE, index, row + 1, from, to)) {
+                    long timestamp = segment.get(TIMESTAMP, row);
+                    if (timestamp >= from && timestamp < to) {
+                        results.add(resultOf(timestamp, segment.get(LATENCY, row), (int) segment.get(CODE, row)));
+                    }
+                }
+            }
+            results.sort(Comparator.comparingLong(CheckResult::getTimestamp));
+            return results;
+        });
+    }
+
+    /**
+     * The rollups of a service for the buckets from the one holding {@code from} up to {@code to}, exclusive, oldest
+     * first. Buckets without checks are left out. Results not yet rolled up to the resolution are included.
+     */
+    public Single<List<Rollup>> rollups(String serviceID, Resolution resolution, long from, long to) {
+        if (resolution == Resolution.RAW) {
+            throw new IllegalArgumentException("Raw results are not rolled up");
+        }
+        return run(() -> {
+            drain();
+            Integer index = indexes.get(serviceID);
+            TreeMap<Long, Rollup> rollups = new TreeMap<>();
+            if (index == null) {
+                return new ArrayList<>();
+            }
+            long start = resolution.bucket(from);
+            for (HistorySegment segment : segments.get(resolution)) {
+                if (!segment.overlaps(start, to)) {
+                    continue;
+                }
+                for (int row = segment.find(SERVICE, index, 0, start, to); row >= 0; row = segment.find(SERVICE, index, row + 1, start, to)) {
+                    long bucket = segment.get(TIMESTAMP, row);
+                    if (bucket >= start && bucket < to) {
+                        rollups.computeIfAbsent(bucket, Rollup::new).add(segment.get(CHECKS, row), segment.get(FAILURES, row),
+                                segment.get(LATENCY_SUM, row), segment.get(LATENCY_MAX, row));
+                    }
+                }
+            }
+            for (Resolution finer = Resolution.MINUTE; finer != null && finer.ordinal() <= resolution.ordinal(); finer = next(finer)) {
+                for (Map.Entry<Long, Map<Integer, Rollup>> bucket : pending.get(finer).subMap(start, to).entrySet()) {
+                    Rollup rollup = bucket.getValue().get(index);
+                    if (rollup != null) {
+                        rollups.computeIfAbsent(resolution.bucket(bucket.getKey()), Rollup::new).add(rollup);
+                    }
+                }
+            }
+            return new ArrayList<>(rollups.values());
+        });
+    }
+
+    /**
+     * Sums the checks from {@code from} to {@code to} of one service, or of every service when {@code serviceID} is
+     * null, by service id. The range is widened to whole minutes, and split into whole days with whole hours and then
+     * whole minutes at either end, so that only a few rows per service are read however long it is.
+     */
+    public Single<Map<String, Rollup>> totals(String serviceID, long from, long to) {
+        return run(() -> {
+            drain();
+            Map<String, Rollup> totals = new HashMap<>();
+            Integer index = serviceID != null ? indexes.get(serviceID) : null;
+            if (serviceID != null && index == null) {
+                return totals;
+            }
+            Rollup[] sums = new Rollup[ids.size()];
+            long start = Resolution.MINUTE.bucket(from);
+            long end = Resolution.MINUTE.bucket(to + Resolution.MINUTE.width - 1);
+            List<long[]> pieces = new ArrayList<>();
+            split(start, end, Resolution.DAY, pieces);
+            for (long[] piece : pieces) {
+                sum(Resolution.values()[(int) piece[0]], piece[1], piece[2], index, sums, start);
+            }
+            for (int i = 0; i < sums.length; i++) {
+                if (sums[i] != null) {
+                    totals.put(ids.get(i), sums[i]);
+                }
+            }
+            return totals;
+        });
+    }
+
+    private static void split(long from, long to, Resolution resolution, List<long[]> pieces) {
+        if (from >= to) {
+            return;
+        }
+        if (resolution == Resolution.MINUTE) {
+            pieces.add(new long[]{resolution.ordinal(), from, to});
+            return;
+        }
+        Resolution finer = Resolution.values()[resolution.ordinal() - 1];
+        long start = resolution.bucket(from + resolution.width - 1);
+        long end = resolution.bucket(to);
+        if (start >= end) {
+            split(from, to, finer, pieces);
+        } else {
+            split(from, start, finer, pieces);
+            pieces.add(new long[]{resolution.ordinal(), start, end});
+            split(end, to, finer, pieces);
+        }
+    }
+
+    /**
+     * Adds the rollups of the buckets from {@code start} to {@code end} at a resolution, including those still held
+     * at finer resolutions, to the sums by service index.
+     */
+    private void sum(Resolution resolution, long start, long end, Integer index, Rollup[] sums, long timestamp) {
+        for (HistorySegment segment : segments.get(resolution)) {
+            if (!segment.overlaps(start, end)) {
+                continue;
+            }
+            int row = index != null ? segment.find(SERVICE, index, 0, start, end) : segment.skip(0, start, end);
+            while (row >= 0 && row < segment.size()) {
+                long bucket = segment.get(TIMESTAMP, row);
+                if (bucket >= start && bucket < end) {
+                    int service = (int) segment.get(SERVICE, row);
+                    if (sums[service] == null) {
+                        sums[service] = new Rollup(timestamp);
+                    }
+                    sums[service].add(segment.get(CHECKS, row), segment.get(FAILURES, row),
+                            segment.get(LATENCY_SUM, row), segment.get(LATENCY_MAX, row));
+                }
+                row = index != null ? segment.find(SERVICE, index, row + 1, start, end) : segment.skip(row + 1, start, end);
+            }
+        }
+        for (Resolution finer = Resolution.MINUTE; finer != null && finer.ordinal() <= resolution.ordinal(); finer = next(finer)) {
+            for (Map<Integer, Rollup> bucket : pending.get(finer).subMap(start, end).values()) {
+                for (Map.Entry<Integer, Rollup> rollup : bucket.entrySet()) {
+                    int service = rollup.getKey();
+                    if (index == null || index == service) {
+                        if (sums[service] == null) {
+                            sums[service] = new Rollup(timestamp);
+                        }
+                        sums[service].add(rollup.getValue());
+                    }
+                }
+            }
+        }
+    }
+
+    private void drain() throws IOException {
+        for (Entry entry = queue.poll(); entry != null; entry = queue.poll()) {
+            CheckResult result = entry.result;
+            int index = indexOf(entry.serviceID);
+            long latency = Math.min(result.getLatencyMicros(), Integer.MAX_VALUE);
+            int code = (result.getCode() & 0xffff) | (result.getFailedAssertion() != null ? result.getFailedAssertion().ordinal() + 1 : 0) << 16;
+            writable(Resolution.RAW, result.getTimestamp()).append(result.getTimestamp(), index, latency, code);
+            count(Resolution.MINUTE, result.getTimestamp(), index).add(1, result.isOk() ? 0 : 1, latency, latency);
+        }
+    }
+
+    /**
+     * Writes the buckets of every resolution which ended before {@code before}, finest first, rolling each up into
+     * the next resolution.
+     */
+    private void writeBuckets(long before) throws IOException {
+        for (Resolution resolution = Resolution.MINUTE; resolution != null; resolution = next(resolution)) {
+            TreeMap<Long, Map<Integer, Rollup>> buckets = pending.get(resolution);
+            for (Iterator<Map.Entry<Long, Map<Integer, Rollup>>> it = buckets.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<Long, Map<Integer, Rollup>> bucket = it.next();
+                if (bucket.getKey() + resolution.width > before) {
+                    break;
+                }
+                List<Integer> services = new ArrayList<>(bucket.getValue().keySet());
+                Collections.sort(services);
+                for (int index : services) {
+                    Rollup rollup = bucket.getValue().get(index);
+                    writable(resolution, bucket.getKey()).append(bucket.getKey(), index, rollup.checks, rollup.failures,
+                            rollup.latencySum, rollup.latencyMax);
+                    Resolution next = next(resolution);
+                    if (next != null) {
+                        count(next, bucket.getKey(), index).add(rollup);
+                    }
+                }
+                it.remove();
+            }
+        }
+    }
+
+    private void expire(long now) throws IOException {
+        for (Resolution resolution : Resolution.values()) {
+            List<HistorySegment> list = segments.get(resolution);
+            for (Iterator<HistorySegment> it = list.iterator(); it.hasNext(); ) {
+                HistorySegment segment = it.next();
+                if (segment != list.get(list.size() - 1) && segment.getMax() < now - retention.get(resolution)) {
+                    log.info("Deleting {0} history segment ending {1}", resolution.label, segment.getMax());
+                    segment.delete();
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts the rows of the resolution below into the buckets which were not written before a restart.
+     */
+    private void rebuild(Resolution resolution) {
+        long written = Long.MIN_VALUE;
+        for (HistorySegment segment : segments.get(resolution)) {
+            if (segment.size() > 0) {
+                written = Math.max(written, segment.getMax() + resolution.width);
+            }
+        }
+        Resolution finer = Resolution.values()[resolution.ordinal() - 1];
+        for (HistorySegment segment : segments.get(finer)) {
+            if (segment.size() == 0 || segment.getMax() < written) {
+                continue;
+            }
+            for (int row = segment.skip(0, written, Long.MAX_VALUE); row < segment.size(); row = segment.skip(row + 1, written, Long.MAX_VALUE)) {
+                long timestamp = segment.get(TIMESTAMP, row);
+                if (timestamp < written) {
+                    continue;
+                }
+                int index = (int) segment.get(SERVICE, row);
+                if (finer == Resolution.RAW) {
+                    long latency = segment.get(LATENCY, row);
+                    boolean ok = resultOf(timestamp, latency, (int) segment.get(CODE, row)).isOk();
+                    count(resolution, timestamp, index).add(1, ok ? 0 : 1, latency, latency);
+                } else {
+                    count(resolution, timestamp, index).add(segment.get(CHECKS, row), segment.get(FAILURES, row),
+                            segment.get(LATENCY_SUM, row), segment.get(LATENCY_MAX, row));
+                }
+            }
+        }
+    }
+
+    private Rollup count(Resolution resolution, long timestamp, int index) {
+        long bucket = resolution.bucket(timestamp);
+        return pending.get(resolution).computeIfAbsent(bucket, ig -> new HashMap<>()).computeIfAbsent(index, ig -> new Rollup(bucket));
+    }
+
+    /**
+     * The segment to append a row at the given time to, starting a new one when the last is full or spans too long.
+     */
+    private HistorySegment writable(Resolution resolution, long timestamp) throws IOException {
+        List<HistorySegment> list = segments.get(resolution);
+        HistorySegment last = list.isEmpty() ? null : list.get(list.size() - 1);
+        if (last != null && !last.isFull() && (last.size() == 0 || Math.abs(timestamp - last.getMin()) < resolution.span)) {
+            return last;
+        }
+        Path path;
+        for (long name = timestamp; ; name++) {
+            path = directory.resolve(resolution.label + "-" + name + SEGMENT_SUFFIX);
+            if (!Files.exists(path)) {
+                break;
+            }
+        }
+        HistorySegment segment = HistorySegment.create(path, resolution, segmentRows);
+        list.add(segment);
+        return segment;
+    }
+
+    private int indexOf(String serviceID) throws IOException {
+        Integer index = indexes.get(serviceID);
+        if (index == null) {
+            index = indexes.size();
+            Files.write(directory.resolve(INDEX_FILE), (serviceID + "\n").getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            indexes.put(serviceID, index);
+            ids.add(serviceID);
+        }
+        return index;
+    }
+
+    private void loadIndex() throws IOException {
+        Path file = directory.resolve(INDEX_FILE);
+        if (Files.exists(file)) {
+            for (String id : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                if (!id.isEmpty()) {
+                    if (indexes.putIfAbsent(id, indexes.size()) == null) {
+                        ids.add(id);
+                    }
+                }
+            }
+        }
+    }
+
+    private void loadSegments() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                HistorySegment segment;
+                try {
+                    segment = HistorySegment.open(file);
+                } catch (IOException | RuntimeException e) {
+                    Path quarantined = file.resolveSibling(file.getFileName() + CORRUPT_SUFFIX);
+                    log.error("Cannot read history segment {0}, moving it to {1}", e, file, quarantined);
+                    Files.move(file, quarantined, StandardCopyOption.REPLACE_EXISTING);
+                    continue;
+                }
+                segments.get(segment.getResolution()).add(segment);
+            }
+        }
+        for (List<HistorySegment> list : segments.values()) {
+            list.sort(Comparator.comparingLong(HistorySegment::getMin));
+        }
+    }
+
+    private static CheckResult resultOf(long timestamp, long latency, int code) {
+        int assertion = code >>> 16;
+        return new CheckResult(timestamp, latency, (short) code, -1, -1,
+                assertion != 0 ? CheckResult.Assertion.values()[assertion - 1] : null);
+    }
+
+    private static Resolution next(Resolution resolution) {
+        return resolution.ordinal() + 1 < Resolution.values().length ? Resolution.values()[resolution.ordinal() + 1] : null;
+    }
+
+    private <T> Single<T> run(Callable<T> action) {
+        return Single.create(subscriber -> executor.<T>executeBlocking(future -> {
+            try {
+                future.complete(action.call());
+            } catch (Exception e) {
+                future.fail(e);
+            }
+        }, true, handler -> {
+            if (handler.succeeded()) {
+                subscriber.onSuccess(handler.result());
+            } else {
+                subscriber.onError(handler.cause());
+            }
+        }));
+    }
+
+    private static class Entry {
+        private final String serviceID;
+        private final CheckResult result;
+
+        private Entry(String serviceID, CheckResult result) {
+            this.serviceID = serviceID;
+            this.result = result;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package krymon;
+
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpClientRequest;
+import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.core.net.JdkSSLEngineOptions;
+import rx.Single;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Checks http and https URLs.
+ * <p>
+ * The client keeps connections to each host open between checks and offers HTTP/2, so that most checks need neither
+ * a new connection nor a TLS handshake; when one is needed, the TLS session of an earlier connection to the host is
+ * resumed from the client's SSL context. Host names are resolved through the Vert.x DNS cache.
+ */
+public class HttpProbe implements Probe {
+
+    private final KrymonOptions options;
+    private final KrymonMetrics metrics;
+    private final HttpClient httpClient;
+    private final Map<String, ContentAssertions> contentAssertions = new ConcurrentHashMap<>();
+
+    public HttpProbe(Vertx vertx, KrymonOptions options, KrymonMetrics metrics) {
+        this.options = options;
+        this.metrics = metrics;
+        this.httpClient = vertx.createHttpClient(httpClientOptions());
+    }
+
+    @Override
+    public Single<CheckResult> check(Service service, int timeout) {
+        return Single.create(subscriber -> {
+            ContentAssertions content;
+            try {
+                content = contentAssertionsOf(service);
+            } catch (IllegalArgumentException e) {
+                subscriber.onError(e);
+                return;
+            }
+            new HttpCheck(service, content, timeout, subscriber::onSuccess).start();
+        });
+    }
+
+    @Override
+    public void forget(String serviceID) {
+        contentAssertions.remove(serviceID);
+    }
+
+    /**
+     * The compiled body assertions of a service, compiled again only when its check spec has changed.
+     */
+    private ContentAssertions contentAssertionsOf(Service service) {
+        ContentAssertions compiled = contentAssertions.get(service.getId());
+        if (compiled != null && compiled.getSpec().equals(service.getCheck())) {
+            return compiled;
+        }
+        compiled = ContentAssertions.compile(service.getCheck());
+        if (compiled != null) {
+            contentAssertions.put(service.getId(), compiled);
+        } else {
+            contentAssertions.remove(service.getId());
+        }
+        return compiled;
+    }
+
+    private static CheckSpec.Method methodOf(Service service) {
+        return service.getCheck() != null && service.getCheck().getMethod() != null
+                ? service.getCheck().getMethod()
+                : CheckSpec.Method.GET;
+    }
+
+    private static long micros(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1000;
+    }
+
+    /**
+     * One check of a service, timing the connection, if a new one had to be opened, the first byte of the response and
+     * the end of it. The body is never buffered. A 2xx body is fed to the service's content assertions, if it has any,
+     * until they reach a verdict or {@link KrymonOptions#getMaxAssertedBytes()} have been read. Anything after that is
+     * counted and thrown away so that the connection can go back to the pool, and the request is reset once more than
+     * {@link KrymonOptions#getMaxDrainBytes()} have been thrown away, since draining a huge body costs more than
+     * opening a new connection.
+     */
+    private class HttpCheck {
+        private final Service service;
+        private final ContentAssertions content;
+        private final int timeout;
+        private final Handler<CheckResult> done;
+        private final long start = System.nanoTime();
+        private HttpClientRequest request;
+        private long connected = -1;
+        private long firstByte = -1;
+        private long matchedBytes = 0;
+        private long drainedBytes = 0;
+        private boolean completed = false;
+
+        private HttpCheck(Service service, ContentAssertions content, int timeout, Handler<CheckResult> done) {
+            this.service = service;
+            this.content = content;
+            this.timeout = timeout;
+            this.done = done;
+        }
+
+        private void start() {
+            CheckSpec.Method method = methodOf(service);
+            try {
+                request = httpClient.requestAbs(method == CheckSpec.Method.HEAD ? HttpMethod.HEAD : HttpMethod.GET,
+                        service.getUrl(), this::response);
+            } catch (RuntimeException e) {
+                failed(e);
+                return;
+            }
+            if (method == CheckSpec.Method.RANGE) {
+                request.putHeader("Range", "bytes=0-0");
+            }
+            request.connectionHandler(connection -> connected = micros(start))
+                    .setTimeout(timeout)
+                    .exceptionHandler(this::failed)
+                    .end();
+        }
+
+        private void response(HttpClientResponse response) {
+            firstByte = micros(start);
+            int statusCode = response.statusCode();
+            ContentAssertions.Match match = content != null && statusCode >= 200 && statusCode < 300 ? content.start() : null;
+            if (tooSlow()) {
+                complete(statusCode, CheckResult.Assertion.MAX_LATENCY);
+            }
+            response.exceptionHandler(this::failed);
+            response.handler(chunk -> {
+                metrics.checkBody(chunk.length());
+                if (match != null && !completed) {
+                    matchedBytes += chunk.length();
+                    if (match.feed(chunk) != ContentAssertions.Verdict.UNDECIDED) {
+                        complete(statusCode, match.getFailed());
+                    } else if (matchedBytes > options.getMaxAssertedBytes()) {
+                        match.end();
+                        complete(statusCode, match.getFailed());
+                        request.reset();
+                    }
+                } else {
+                    drainedBytes += chunk.length();
+                    if (drainedBytes > options.getMaxDrainBytes()) {
+                        complete(statusCode, null);
+                        request.reset();
+                    }
+                }
+            });
+            response.endHandler(ig -> {
+                if (match != null && !completed) {
+                    match.end();
+                    complete(statusCode, match.getFailed());
+                } else {
+                    complete(statusCode, null);
+                }
+            });
+        }
+
+        private boolean tooSlow() {
+            Long maxLatency = service.getCheck() != null ? service.getCheck().getMaxLatency() : null;
+            return maxLatency != null && micros(start) > maxLatency * 1000;
+        }
+
+        private void complete(int statusCode, CheckResult.Assertion failedAssertion) {
+            if (!completed) {
+                completed = true;
+                if (failedAssertion == null && tooSlow()) {
+                    failedAssertion = CheckResult.Assertion.MAX_LATENCY;
+                }
+                CheckResult result = CheckResult.response(System.currentTimeMillis(), micros(start), statusCode, connected, firstByte);
+                done.handle(failedAssertion != null ? result.failing(failedAssertion) : result);
+            }
+        }
+
+        private void failed(Throwable t) {
+            if (!completed) {
+                completed = true;
+                done.handle(CheckResult.error(System.currentTimeMillis(), micros(start), CheckResult.ErrorClass.of(t), connected, firstByte));
+            }
+        }
+    }
+
+    private HttpClientOptions httpClientOptions() {
+        int connectionsPerHost = options.isPipelining()
+                ? (options.getMaxChecksPerHost() + options.getPipeliningLimit() - 1) / options.getPipeliningLimit()
+                : options.getMaxChecksPerHost();
+        return new HttpClientOptions()
+                .setMaxPoolSize(connectionsPerHost)
+                .setKeepAlive(true)
+                .setPipelining(options.isPipelining())
+                .setPipeliningLimit(options.getPipeliningLimit())
+                .setProtocolVersion(options.isHttp2() ? HttpVersion.HTTP_2 : HttpVersion.HTTP_1_1)
+                .setUseAlpn(options.isHttp2() && JdkSSLEngineOptions.isAlpnAvailable())
+                .setConnectTimeout(options.getCheckTimeout());
+    }
+}
@@ -0,0 +1,176 @@
+package krymon;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.AsyncFile;
+import io.vertx.core.file.CopyOptions;
+import io.vertx.core.file.OpenOptions;
+import io.vertx.core.json.Json;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import rx.Single;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Stores services as a snapshot file plus an append-only journal of {@link StoreRecord}s, one JSON object per
+ * line. Writes only append the new records. Once the journal holds more than the compaction threshold of records,
+ * the current list is written to a new snapshot, which atomically replaces the old one, and the journal is
+ * truncated.
+ * <p>
+ * The snapshot has the same format as the file written by {@link JsonFileStore}, so an existing store file is
+ * picked up as the initial snapshot. Replaying the journal is idempotent, so a crash between replacing the snapshot
+ * and truncating the journal is harmless.
+ */
+public class JournalStore implements ServiceStore {
+
+    private final static Logger log = LoggerFactory.getLogger(JournalStore.class.getName());
+    private final Vertx vertx;
+    private final String snapshotFile;
+    private final String journalFile;
+    private final long compactionThreshold;
+    private final StoreMetrics metrics;
+    private final JsonFileStore snapshots;
+    private final JsonFileStore newSnapshots;
+    private AsyncFile journal;
+    private long position;
+    private long journalRecords;
+
+    public JournalStore(Vertx vertx, String storeFile, long compactionThreshold) {
+        this(vertx, storeFile, compactionThreshold, new StoreMetrics());
+    }
+
+    public JournalStore(Vertx vertx, String storeFile, long compactionThreshold, StoreMetrics metrics) {
+        this.vertx = vertx;
+        this.snapshotFile = storeFile;
+        this.journalFile = storeFile + ".journal";
+        this.compactionThreshold = compactionThreshold;
+        this.metrics = metrics;
+        this.snapshots = new JsonFileStore(vertx, snapshotFile, metrics);
+        this.newSnapshots = new JsonFileStore(vertx, snapshotFile + ".tmp", metrics);
+    }
+
+    @Override
+    public Single<ServiceList> load() {
+        return snapshots.readListOrEmpty().flatMap(snapshot -> {
+            Map<String, Service> services = new LinkedHashMap<>();
+            for (Service service : snapshot.getServices()) {
+                services.put(service.getId(), service);
+            }
+            return openJournal().flatMap(contents -> replay(contents, services))
+                    .map(ig -> new ServiceList(new ArrayList<>(services.values())));
+        });
+    }
+
+    @Override
+    public Single<Void> write(List<StoreRecord> records, Supplier<ServiceList> snapshot) {
+        Buffer buffer = Buffer.buffer();
+        for (StoreRecord record : records) {
+            buffer.appendBuffer(Json.encodeToBuffer(record)).appendByte((byte) '\n');
+        }
+        return append(buffer).flatMap(ig -> {
+            journalRecords += records.size();
+            if (journalRecords >= compactionThreshold) {
+                return compact(snapshot.get());
+            } else {
+                return Single.just(null);
+            }
+        });
+    }
+
+    private Single<Buffer> openJournal() {
+        return Single.<AsyncFile>create(subscriber ->
+                vertx.fileSystem().open(journalFile, new OpenOptions().setRead(true).setWrite(true).setCreate(true), handler -> {
+                    if (handler.succeeded()) {
+                        subscriber.onSuccess(handler.result());
+                    } else {
+                        subscriber.onError(handler.cause());
+                    }
+                })).flatMap(file -> {
+            journal = file;
+            return Single.create(subscriber -> {
+                long start = System.nanoTime();
+                vertx.fileSystem().readFile(journalFile, handler -> {
+                    if (handler.succeeded()) {
+                        metrics.read(System.nanoTime() - start, handler.result().length());
+                        subscriber.onSuccess(handler.result());
+                    } else {
+                        subscriber.onError(handler.cause());
+                    }
+                });
+            });
+        });
+    }
+
+    private Single<Void> replay(Buffer contents, Map<String, Service> services) {
+        int start = 0;
+        journalRecords = 0;
+        for (int i = 0; i < contents.length(); i++) {
+            if (contents.getByte(i) == '\n') {
+                Json.decodeValue(contents.getBuffer(start, i), StoreRecord.class).applyTo(services);
+                journalRecords++;
+                start = i + 1;
+            }
+        }
+        position = start;
+        if (start < contents.length()) {
+            log.warn("Discarding {0} bytes of incomplete record at the end of {1}", contents.length() - start, journalFile);
+            return truncate(start);
+        } else {
+            return Single.just(null);
+        }
+    }
+
+    private Single<Void> append(Buffer buffer) {
+        return Single.create(subscriber -> {
+            long start = System.nanoTime();
+            journal.write(buffer, position, handler -> {
+                if (handler.succeeded()) {
+                    metrics.write(System.nanoTime() - start, buffer.length());
+                    position += buffer.length();
+                    subscriber.onSuccess(null);
+                } else {
+                    subscriber.onError(handler.cause());
+                }
+            });
+        });
+    }
+
+    private Single<Void> compact(ServiceList snapshot) {
+        return newSnapshots.writeList(snapshot)
+                .flatMap(ig -> Single.<Void>create(subscriber ->
+                        vertx.fileSystem().move(snapshotFile + ".tmp", snapshotFile,
+                                new CopyOptions().setReplaceExisting(true).setAtomicMove(true), handler -> {
+                                    if (handler.succeeded()) {
+                                        subscriber.onSuccess(null);
+                                    } else {
+                                        subscriber.onError(handler.cause());
+                                    }
+                                })))
+                .flatMap(ig -> truncate(0))
+                .doOnSuccess(ig -> {
+                    log.info("Compacted {0} journal records into a snapshot of {1} services", journalRecords, snapshot.getServices().size());
+                    position = 0;
+                    journalRecords = 0;
+                })
+                .onErrorReturn(e -> {
+                    log.error("Failed to compact journal, will retry on next write.", e);
+                    return null;
+                });
+    }
+
+    private Single<Void> truncate(long length) {
+        return Single.create(subscriber ->
+                vertx.fileSystem().truncate(journalFile, length, handler -> {
+                    if (handler.succeeded()) {
+                        subscriber.onSuccess(null);
+                    } else {
+                        subscriber.onError(handler.cause());
+                    }
+                }));
+    }
+}
@@ -0,0 +1,94 @@
+package krymon;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.Json;
+import rx.Single;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Stores the whole service list as one JSON file, rewriting it on every write.
+ */
+public class JsonFileStore implements ServiceStore {
+
+    private final Vertx vertx;
+    private final String storeFile;
+    private final StoreMetrics metrics;
+
+    public JsonFileStore(Vertx vertx, String storeFile) {
+        this(vertx, storeFile, new StoreMetrics());
+    }
+
+    public JsonFileStore(Vertx vertx, String storeFile, StoreMetrics metrics) {
+        this.vertx = vertx;
+        this.storeFile = storeFile;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Single<ServiceList> load() {
+        return readListOrEmpty();
+    }
+
+    @Override
+    public Single<Void> write(List<StoreRecord> records, Supplier<ServiceList> snapshot) {
+        return writeList(snapshot.get());
+    }
+
+    public Single<ServiceList> readListOrEmpty() {
+        return fileExists().flatMap(exists -> {
+            if (exists) {
+                return readList();
+            } else {
+                return Single.just(new ServiceList(Collections.emptyList()));
+            }
+        });
+    }
+
+    public Single<Void> writeList(ServiceList serviceList) {
+        return Single.create(subscriber -> {
+            long start = System.nanoTime();
+            Buffer buffer = Json.encodeToBuffer(serviceList);
+            vertx.fileSystem().writeFile(storeFile, buffer, handler -> {
+                metrics.write(System.nanoTime() - start, buffer.length());
+                if (handler.succeeded()) {
+                    subscriber.onSuccess(handler.result());
+                } else {
+                    subscriber.onError(handler.cause());
+                }
+            });
+        });
+    }
+
+    private Single<Boolean> fileExists() {
+        return Single.create(subscriber ->
+                vertx.fileSystem().exists(storeFile, event -> {
+                    if (event.succeeded()) {
+                        subscriber.onSuccess(event.result());
+                    } else {
+                        subscriber.onError(event.cause());
+                    }
+                }));
+    }
+
+    private Single<ServiceList> readList() {
+        return readFile().map(b -> Json.decodeValue(b, ServiceList.class));
+    }
+
+    private Single<Buffer> readFile() {
+        return Single.create(subscriber -> {
+            long start = System.nanoTime();
+            vertx.fileSystem().readFile(storeFile, buffer -> {
+                if (buffer.succeeded()) {
+                    metrics.read(System.nanoTime() - start, buffer.result().length());
+                    subscriber.onSuccess(buffer.result());
+                } else {
+                    subscriber.onError(buffer.cause());
+                }
+            });
+        });
+    }
+}
@@ -0,0 +1,75 @@
+package krymon;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.Json;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * Parses a JSON array, or a sequence of JSON values such as NDJSON, as it arrives, handing over one tree per element.
+ * Only the element being parsed is held in memory.
+ */
+public class JsonValueStream {
+
+    private final JsonParser parser;
+    private final Consumer<JsonNode> values;
+    private TokenBuffer current;
+    private int depth;
+    private boolean started = false;
+    private boolean array = false;
+
+    public JsonValueStream(Consumer<JsonNode> values) throws IOException {
+        this.parser = Json.mapper.getFactory().createNonBlockingByteArrayParser();
+        this.values = values;
+    }
+
+    public void feed(Buffer chunk) throws IOException {
+        byte[] bytes = chunk.getBytes();
+        ((ByteArrayFeeder) parser.getNonBlockingInputFeeder()).feedInput(bytes, 0, bytes.length);
+        parse();
+    }
+
+    public void end() throws IOException {
+        ((ByteArrayFeeder) parser.getNonBlockingInputFeeder()).endOfInput();
+        parse();
+        if (current != null || array) {
+            throw new IOException("Unexpected end of input");
+        }
+    }
+
+    private void parse() throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            if (current == null) {
+                if (!started && token == JsonToken.START_ARRAY) {
+                    started = true;
+                    array = true;
+                    continue;
+                }
+                started = true;
+                if (array && token == JsonToken.END_ARRAY) {
+                    array = false;
+                    continue;
+                }
+                current = new TokenBuffer(parser, null);
+                depth = 0;
+            }
+            current.copyCurrentEvent(parser);
+            if (token.isStructStart()) {
+                depth++;
+            } else if (token.isStructEnd()) {
+                depth--;
+            }
+            if (depth == 0) {
+                values.accept(Json.mapper.readTree(current.asParser()));
+                current = null;
+            }
+        }
+    }
+}
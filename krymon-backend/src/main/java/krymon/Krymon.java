@@ -1,244 +1,106 @@
 package krymon;
 
-import io.vertx.core.Handler;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Verticle;
 import io.vertx.core.Vertx;
-import io.vertx.core.buffer.Buffer;
-import io.vertx.core.http.HttpClient;
-import io.vertx.core.http.HttpClientResponse;
-import io.vertx.core.http.HttpServer;
-import io.vertx.core.json.Json;
 import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
-import io.vertx.ext.web.Router;
-import io.vertx.ext.web.RoutingContext;
-import org.joda.time.DateTime;
-import org.joda.time.DateTimeZone;
 import rx.Single;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import java.util.UUID;
-
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * Loads the registry and the history store, starts alerting, joins the cluster if there is one, and deploys the check and API verticles on
+ * top of them. An aggregating Krymon leaves checking to its agents and deploys no check verticles.
+ */
 public class Krymon {
 
     private final static Logger log = LoggerFactory.getLogger(Krymon.class.getName());
-    private final String storeFile;
     private final Vertx vertx;
+    private final ServiceRegistry registry;
+    private final CheckHistories histories;
+    private final Latencies latencies;
+    private final ServiceEvents events;
+    private final Cluster cluster;
+    private final Aggregator aggregator;
+    private final HistoryStore history;
+    private final Alerts alerts;
+    private final KrymonMetrics metrics;
+    private final KrymonOptions options;
+    private final List<CheckVerticle> checks = new CopyOnWriteArrayList<>();
     private boolean running = false;
-    private HttpClient httpClient;
 
     public Krymon(Vertx vertx, String storeFile, long period) {
-        this.vertx = vertx;
-        this.storeFile = storeFile;
-        vertx.setTimer(period, new Handler<Long>() {
-            @Override
-            public void handle(Long event) {
-                if(running){
-                    updateServices().subscribe(
-                            ignore -> {
-                                log.info("Successfully updated statuses of all services.");
-                                vertx.setTimer(period, this);
-                            },
-                            error -> {
-                                log.error("Failed to update list of services.", error);
-                                vertx.setTimer(period, this);
-                            }
-                    );
-                }
-            }
-        });
+        this(vertx, storeFile, new KrymonOptions().setCheckPeriod(period));
     }
 
-    private Single<Void> updateServices() {
-        return fileExists().flatMap(exists -> {
-            if(exists){
-                return readList().toObservable().flatMap(list -> rx.Observable.from(list.getServices()))
-                        .flatMap(service -> updateStatus(service).toObservable())
-                        .toList().toSingle()
-                        .flatMap(newList -> writeList(new ServiceList(newList)));
-            }
-            else{
-                return Single.just(null);
-            }
-        });
+    public Krymon(Vertx vertx, String storeFile, KrymonOptions options) {
+        this(vertx, storeFile, options, new KrymonMetrics());
     }
 
-    private Single<Service> updateStatus(Service oldService) {
-        return get(oldService.getUrl()).map(this::statusFor)
-                .onErrorReturn(t -> Service.Status.FAIL)
-                .map(status -> new Service(
-                        oldService.getId(),
-                        oldService.getName(),
-                        oldService.getUrl(),
-                        status, DateTime.now()));
+    private Krymon(Vertx vertx, String storeFile, KrymonOptions options, KrymonMetrics metrics) {
+        this(vertx, new JournalStore(vertx, storeFile, options.getCompactionThreshold(), metrics.store()), options, metrics);
     }
 
-    private Service.Status statusFor(HttpClientResponse resp) {
-        if (resp.statusCode() >= 200 && resp.statusCode() < 300) {
-            return Service.Status.OK;
-        } else {
-            return Service.Status.FAIL;
-        }
+    public Krymon(Vertx vertx, ServiceStore store, KrymonOptions options) {
+        this(vertx, store, options, new KrymonMetrics());
     }
 
-    private Single<HttpClientResponse> get(String url) {
-        return Single.create(subscriber -> httpClient.getAbs(url, subscriber::onSuccess)
-                .setTimeout(5000)
-                .exceptionHandler(subscriber::onError).end());
+    private Krymon(Vertx vertx, ServiceStore store, KrymonOptions options, KrymonMetrics metrics) {
+        this.vertx = vertx;
+        this.metrics = metrics;
+        this.options = options;
+        this.registry = new ServiceRegistry(vertx, store, options.getFlushDelay());
+        this.histories = new CheckHistories(registry, options.getHistorySize());
+        this.latencies = new Latencies(registry, options.getLatencySignificantDigits());
+        this.events = new ServiceEvents(vertx, registry, metrics, options.getEventQueueSize());
+        this.cluster = new Cluster(vertx, registry, options);
+        this.aggregator = options.isAggregating() ? new Aggregator(vertx, registry, options) : null;
+        this.history = options.getHistoryDirectory() != null ? new HistoryStore(vertx, options.getHistoryDirectory(), options) : null;
+        this.alerts = new Alerts(vertx, registry, cluster, metrics, options);
     }
 
     public synchronized Single<Void> start() {
         if (!running) {
             running = true;
-            this.httpClient = vertx.createHttpClient();
-            return listen(vertx.createHttpServer().requestHandler(createRouter(vertx)::accept), 8080)
-                    .doOnEach(ig -> log.info("Krymon listening on port {0}", String.valueOf(8080)))
-                    .doOnError(t -> log.error("Failed to start on port {0}", t, String.valueOf(8080)));
+            return registry.load()
+                    .flatMap(ig -> events.start())
+                    .flatMap(ig -> alerts.start())
+                    .flatMap(ig -> history != null ? history.open() : Single.just(null))
+                    .flatMap(ig -> cluster.start())
+                    .flatMap(ig -> aggregator == null ? deploy(this::checkVerticle, options.getCheckInstances()) : aggregator.start())
+                    .flatMap(ig -> deploy(this::apiVerticle, options.getApiInstances()))
+                    .doOnEach(ig -> log.info("Krymon listening on port {0}", String.valueOf(options.getPort())))
+                    .doOnError(t -> log.error("Failed to start on port {0}", t, String.valueOf(options.getPort())));
         } else {
             return Single.just(null);
         }
 
     }
 
-    private Single<Void> listen(HttpServer httpServer, int port) {
-        return Single.create(subscriber ->
-                httpServer.listen(port, handler -> {
-                    if (handler.succeeded()) {
-                        subscriber.onSuccess(null);
-                    } else {
-                        subscriber.onError(handler.cause());
-                    }
-                }));
-    }
-
-    private Router createRouter(Vertx vertx) {
-        Router router = Router.router(vertx);
-        router.get("/service").handler(this::getServices);
-        router.post("/service").handler(this::addService);
-        router.delete("/service/:serviceID").handler(this::deleteService);
-        return router;
-    }
-
-    private void getServices(RoutingContext routingContext) {
-        readListOrEmpty().subscribe(
-                list -> routingContext.response().end(Json.encode(list)),
-                e -> routingContext.response().setStatusCode(500).end()
-        );
-    }
-
-    private void addService(RoutingContext routingContext) {
-        readBody(routingContext)
-                .map(b -> withRandomId(Json.decodeValue(b, NewService.class)))
-                .flatMap(this::addService)
-                .subscribe(
-                        id -> {
-                            log.info("Successfully added service with id {0}", id);
-                            routingContext.response().setStatusCode(201).putHeader("Location", "/service/" + id).end();
-                        },
-                        e -> {
-                            log.error("Failed to add service.", e);
-                            routingContext.response().setStatusCode(500).end();
-                        }
-                );
-    }
-
-    private Single<Buffer> readBody(RoutingContext routingContext) {
-        return Single.create(subscriber -> routingContext.request().bodyHandler(subscriber::onSuccess));
-    }
-
-    private Single<String> addService(Service service) {
-        return readListOrEmpty().flatMap(existingList -> {
-            List<Service> services = new ArrayList<>(existingList.getServices());
-            services.add(service);
-            return writeList(new ServiceList(services));
-        }).map(ig -> service.getId());
-    }
-
-
-    private Single<ServiceList> readListOrEmpty() {
-        return fileExists().flatMap(exists -> {
-            if (exists) {
-                return readList();
-            } else {
-                return Single.just(new ServiceList(Collections.emptyList()));
-            }
-        });
-    }
-
-    private final Service withRandomId(NewService service) {
-        return new Service(UUID.randomUUID().toString(), service.getName(), service.getUrl(), Service.Status.UNKNOWN, DateTime.now(DateTimeZone.UTC));
-    }
-
-    private void deleteService(RoutingContext routingContext) {
-        String serviceID = routingContext.pathParam("serviceID");
-        Single.just(serviceID)
-                .flatMap(this::deleteIfExists)
-                .subscribe(
-                        existed -> {
-                            if (existed) {
-                                log.info("Successfully deleted service with id {0}", serviceID);
-                                routingContext.response().setStatusCode(200).end();
-                            } else {
-                                log.info("Tried deleting non-existing service id {0}", serviceID);
-                                routingContext.response().setStatusCode(404).end();
-                            }
-                        });
-    }
-
-    private Single<Boolean> deleteIfExists(String serviceID) {
-        return fileExists().flatMap(fileExists -> {
-            if (fileExists) {
-                return readList().flatMap(services -> {
-                    List<Service> list = services.getServices();
-                    if (list.removeIf(s -> s.getId().equals(serviceID))) {
-                        return writeList(new ServiceList(list)).map(ig -> Boolean.TRUE);
-                    } else {
-                        return Single.just(Boolean.FALSE);
-                    }
-                });
-            } else {
-                return Single.just(Boolean.FALSE);
-            }
-        });
-    }
-
-    private Single<Boolean> fileExists() {
-        return Single.create(subscriber ->
-                vertx.fileSystem().exists(storeFile, event -> {
-                    if (event.succeeded()) {
-                        subscriber.onSuccess(event.result());
-                    } else {
-                        subscriber.onError(event.cause());
-                    }
-                }));
+    private Verticle checkVerticle(int instance) {
+        CheckVerticle verticle = new CheckVerticle(instance, options.getCheckInstances(), registry, cluster, histories, latencies, metrics, options,
+                history != null ? (service, result) -> history.record(service.getId(), result) : CheckListener.NONE);
+        checks.add(verticle);
+        return verticle;
     }
 
-    private Single<ServiceList> readList() {
-        return readFile().map(b -> Json.decodeValue(b, ServiceList.class));
-    }
-
-    private Single<Buffer> readFile() {
-        return Single.create(subscriber ->
-                vertx.fileSystem().readFile(storeFile, buffer -> {
-                    if (buffer.succeeded()) {
-                        subscriber.onSuccess(buffer.result());
-                    } else {
-                        subscriber.onError(buffer.cause());
-                    }
-                }));
+    private Verticle apiVerticle(int instance) {
+        return new ApiVerticle(instance, registry, cluster, histories, latencies, events, metrics, checks, aggregator, history, options.getPort());
     }
 
-    private Single<Void> writeList(ServiceList serviceList) {
+    private Single<Void> deploy(IntFunction<Verticle> verticles, int instances) {
+        AtomicInteger instance = new AtomicInteger();
         return Single.create(subscriber ->
-                vertx.fileSystem().writeFile(storeFile, Json.encodeToBuffer(serviceList), handler -> {
+                vertx.deployVerticle(() -> verticles.apply(instance.getAndIncrement()), new DeploymentOptions().setInstances(instances), handler -> {
                     if (handler.succeeded()) {
-                        subscriber.onSuccess(handler.result());
+                        subscriber.onSuccess(null);
                     } else {
                         subscriber.onError(handler.cause());
                     }
                 }));
     }
-
-
 }
@@ -0,0 +1,172 @@
+package krymon;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Krymon's own counters and timers: checks, the store, the HTTP API and event loop lag.
+ */
+public class KrymonMetrics {
+
+    private static final long LAG_PROBE_INTERVAL = 500;
+    private final StoreMetrics store = new StoreMetrics();
+    private final LongAdder checksOk = new LongAdder();
+    private final LongAdder checksFailed = new LongAdder();
+    private final Timer checkDuration = new Timer();
+    private final Timer checkQueueDelay = new Timer();
+    private final Timer checkConnect = new Timer();
+    private final Timer checkFirstByte = new Timer();
+    private final LongAdder checkConnectionsReused = new LongAdder();
+    private final LongAdder checkBodyBytes = new LongAdder();
+    private final Map<RequestKey, Timer> requests = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> eventLoopLagNanos = new ConcurrentHashMap<>();
+    private final AtomicInteger eventSubscribers = new AtomicInteger();
+    private final LongAdder eventResyncs = new LongAdder();
+    private final LongAdder alertsSent = new LongAdder();
+    private final LongAdder alertsDropped = new LongAdder();
+    private final LongAdder alertRetries = new LongAdder();
+
+    public StoreMetrics store() {
+        return store;
+    }
+
+    public void check(CheckResult result) {
+        (result.isOk() ? checksOk : checksFailed).increment();
+        checkDuration.record(TimeUnit.MICROSECONDS.toNanos(result.getLatencyMicros()));
+        if (result.getConnectMicros() >= 0) {
+            checkConnect.record(TimeUnit.MICROSECONDS.toNanos(result.getConnectMicros()));
+        } else if (result.getFirstByteMicros() >= 0) {
+            checkConnectionsReused.increment();
+        }
+        if (result.getFirstByteMicros() >= 0) {
+            checkFirstByte.record(TimeUnit.MICROSECONDS.toNanos(result.getFirstByteMicros()));
+        }
+    }
+
+    public void checkBody(long bytes) {
+        checkBodyBytes.add(bytes);
+    }
+
+    public void checkQueued(long nanos) {
+        checkQueueDelay.record(nanos);
+    }
+
+    public void request(String method, String route, int statusCode, long nanos) {
+        requests.computeIfAbsent(new RequestKey(method, route, statusCode), k -> new Timer()).record(nanos);
+    }
+
+    public void eventSubscribed() {
+        eventSubscribers.incrementAndGet();
+    }
+
+    public void eventUnsubscribed() {
+        eventSubscribers.decrementAndGet();
+    }
+
+    public void eventResync() {
+        eventResyncs.increment();
+    }
+
+    public void alertSent() {
+        alertsSent.increment();
+    }
+
+    public void alertDropped() {
+        alertsDropped.increment();
+    }
+
+    public void alertRetried() {
+        alertRetries.increment();
+    }
+
+    /**
+     * Measures how late a periodic timer on the given context fires, which is how long other work blocks its event
+     * loop.
+     */
+    public void monitorEventLoop(Vertx vertx, Context context, String name) {
+        AtomicLong lag = eventLoopLagNanos.computeIfAbsent(name, n -> new AtomicLong());
+        context.runOnContext(ig -> {
+            long[] expected = {System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(LAG_PROBE_INTERVAL)};
+            vertx.setPeriodic(LAG_PROBE_INTERVAL, id -> {
+                long now = System.nanoTime();
+                lag.set(Math.max(0, now - expected[0]));
+                expected[0] = now + TimeUnit.MILLISECONDS.toNanos(LAG_PROBE_INTERVAL);
+            });
+        });
+    }
+
+    public void writeTo(PrometheusWriter writer) {
+        writer.type("krymon_checks_total", "counter", "Completed checks by result.");
+        writer.sample("krymon_checks_total").label("result", "ok").value(checksOk.sum());
+        writer.sample("krymon_checks_total").label("result", "fail").value(checksFailed.sum());
+        writer.type("krymon_check_duration_seconds", "histogram", "Duration of checks, from sending the request to the result.");
+        checkDuration.writeTo(writer, "krymon_check_duration_seconds", Timer.Labels.NONE);
+        writer.type("krymon_check_queue_delay_seconds", "histogram", "Time between a check coming due and it starting.");
+        checkQueueDelay.writeTo(writer, "krymon_check_queue_delay_seconds", Timer.Labels.NONE);
+        writer.type("krymon_check_connect_seconds", "histogram", "Time checks spent opening new connections, including TLS handshakes.");
+        checkConnect.writeTo(writer, "krymon_check_connect_seconds", Timer.Labels.NONE);
+        writer.type("krymon_check_first_byte_seconds", "histogram", "Time from sending a check to the first byte of its response.");
+        checkFirstByte.writeTo(writer, "krymon_check_first_byte_seconds", Timer.Labels.NONE);
+        writer.type("krymon_check_connections_reused_total", "counter", "Checks answered on a pooled connection instead of a new one.");
+        writer.sample("krymon_check_connections_reused_total").value(checkConnectionsReused.sum());
+        writer.type("krymon_check_body_bytes_total", "counter", "Bytes of response bodies read, and thrown away, by checks.");
+        writer.sample("krymon_check_body_bytes_total").value(checkBodyBytes.sum());
+        store.writeTo(writer);
+        writer.type("krymon_http_request_duration_seconds", "histogram", "Duration of requests to the Krymon API.");
+        for (Map.Entry<RequestKey, Timer> entry : requests.entrySet()) {
+            RequestKey key = entry.getKey();
+            entry.getValue().writeTo(writer, "krymon_http_request_duration_seconds", w -> w
+                    .label("method", key.method)
+                    .label("route", key.route)
+                    .label("code", key.statusCode));
+        }
+        writer.type("krymon_event_subscribers", "gauge", "Clients subscribed to service events.");
+        writer.sample("krymon_event_subscribers").value(eventSubscribers.get());
+        writer.type("krymon_event_resyncs_total", "counter", "Times a subscriber fell behind and had its events replaced by a resync.");
+        writer.sample("krymon_event_resyncs_total").value(eventResyncs.sum());
+        writer.type("krymon_alert_notifications_total", "counter", "Alert notifications sent, or dropped after failing or from a full outbox.");
+        writer.sample("krymon_alert_notifications_total").label("result", "sent").value(alertsSent.sum());
+        writer.sample("krymon_alert_notifications_total").label("result", "dropped").value(alertsDropped.sum());
+        writer.type("krymon_alert_retries_total", "counter", "Times an alert notification was sent again after failing.");
+        writer.sample("krymon_alert_retries_total").value(alertRetries.sum());
+        writer.type("krymon_event_loop_lag_seconds", "gauge", "How late the last timer on an event loop fired.");
+        for (Map.Entry<String, AtomicLong> entry : eventLoopLagNanos.entrySet()) {
+            writer.sample("krymon_event_loop_lag_seconds").label("loop", entry.getKey()).value(entry.getValue().get() / 1e9);
+        }
+    }
+
+    private static class RequestKey {
+        private final String method;
+        private final String route;
+        private final String statusCode;
+
+        private RequestKey(String method, String route, int statusCode) {
+            this.method = method;
+            this.route = route;
+            this.statusCode = String.valueOf(statusCode);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            RequestKey that = (RequestKey) o;
+            return Objects.equals(method, that.method) &&
+                    Objects.equals(route, that.route) &&
+                    Objects.equals(statusCode, that.statusCode);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(method, route, statusCode);
+        }
+    }
+}
@@ -0,0 +1,774 @@
+package krymon;
+
+import io.vertx.core.VertxOptions;
+import io.vertx.core.dns.AddressResolverOptions;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class KrymonOptions {
+
+    public static final int DEFAULT_PORT = 8080;
+    public static final int DEFAULT_API_INSTANCES = Runtime.getRuntime().availableProcessors();
+    public static final int DEFAULT_CHECK_INSTANCES = Runtime.getRuntime().availableProcessors();
+    public static final long DEFAULT_CHECK_PERIOD = 60_000;
+    public static final int DEFAULT_CHECK_TIMEOUT = 5000;
+    public static final long DEFAULT_FLUSH_DELAY = 1000;
+    public static final long DEFAULT_COMPACTION_THRESHOLD = 10_000;
+    public static final int DEFAULT_MAX_CHECKS_IN_FLIGHT = 256;
+    public static final int DEFAULT_MAX_CHECKS_PER_HOST = 4;
+    public static final boolean DEFAULT_PIPELINING = false;
+    public static final int DEFAULT_PIPELINING_LIMIT = 4;
+    public static final boolean DEFAULT_HTTP2 = true;
+    public static final long DEFAULT_MAX_DRAIN_BYTES = 64 * 1024;
+    public static final long DEFAULT_MAX_ASSERTED_BYTES = 1024 * 1024;
+    public static final int DEFAULT_DNS_CACHE_MIN_TTL = 30;
+    public static final int DEFAULT_DNS_CACHE_MAX_TTL = 300;
+    public static final int DEFAULT_DNS_CACHE_NEGATIVE_TTL = 5;
+    public static final long DEFAULT_WHEEL_TICK = 50;
+    public static final int DEFAULT_WHEEL_SLOTS = 512;
+    public static final int DEFAULT_HISTORY_SIZE = 120;
+    public static final int DEFAULT_LATENCY_SIGNIFICANT_DIGITS = 1;
+    public static final int DEFAULT_EVENT_QUEUE_SIZE = 1024;
+    public static final int DEFAULT_STATUS_WINDOW = 5;
+    public static final int DEFAULT_FAILURE_THRESHOLD = 3;
+    public static final int DEFAULT_RECOVERY_THRESHOLD = 4;
+    public static final int DEFAULT_DEGRADED_THRESHOLD = 2;
+    public static final int DEFAULT_FLAP_WINDOW = 20;
+    public static final double DEFAULT_FLAP_START = 0.5;
+    public static final double DEFAULT_FLAP_STOP = 0.25;
+    public static final long DEFAULT_HEARTBEAT_INTERVAL = 1000;
+    public static final long DEFAULT_FAILURE_TIMEOUT = 3000;
+    public static final int DEFAULT_VIRTUAL_NODES = 128;
+    public static final String DEFAULT_AGENT_NAME = "agent";
+    public static final long DEFAULT_AGENT_SYNC_INTERVAL = 5000;
+    public static final long DEFAULT_RESULT_FLUSH_INTERVAL = 1000;
+    public static final int DEFAULT_RESULT_BATCH_SIZE = 1000;
+    public static final int DEFAULT_MAX_PENDING_RESULTS = 100_000;
+    public static final int DEFAULT_QUORUM = 0;
+    public static final long DEFAULT_AGENT_RESULT_TTL = 0;
+    public static final int DEFAULT_HISTORY_SEGMENT_ROWS = 1 << 20;
+    public static final long DEFAULT_HISTORY_FLUSH_INTERVAL = 1000;
+    public static final long DEFAULT_RAW_RETENTION = 2 * 86_400_000L;
+    public static final long DEFAULT_MINUTE_RETENTION = 14 * 86_400_000L;
+    public static final long DEFAULT_HOUR_RETENTION = 180 * 86_400_000L;
+    public static final long DEFAULT_DAY_RETENTION = 5 * 365 * 86_400_000L;
+    public static final long DEFAULT_ALERT_WINDOW = 30_000;
+    public static final int DEFAULT_ALERT_OUTBOX_SIZE = 100;
+    public static final int DEFAULT_ALERT_RETRIES = 5;
+    public static final long DEFAULT_ALERT_RETRY_DELAY = 1000;
+    public static final int DEFAULT_ALERT_TIMEOUT = 10_000;
+
+    private int port = DEFAULT_PORT;
+    private int apiInstances = DEFAULT_API_INSTANCES;
+    private int checkInstances = DEFAULT_CHECK_INSTANCES;
+    private long checkPeriod = DEFAULT_CHECK_PERIOD;
+    private int checkTimeout = DEFAULT_CHECK_TIMEOUT;
+    private long flushDelay = DEFAULT_FLUSH_DELAY;
+    private long compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+    private int maxChecksInFlight = DEFAULT_MAX_CHECKS_IN_FLIGHT;
+    private int maxChecksPerHost = DEFAULT_MAX_CHECKS_PER_HOST;
+    private boolean pipelining = DEFAULT_PIPELINING;
+    private int pipeliningLimit = DEFAULT_PIPELINING_LIMIT;
+    private boolean http2 = DEFAULT_HTTP2;
+    private long maxDrainBytes = DEFAULT_MAX_DRAIN_BYTES;
+    private long maxAssertedBytes = DEFAULT_MAX_ASSERTED_BYTES;
+    private int dnsCacheMinTtl = DEFAULT_DNS_CACHE_MIN_TTL;
+    private int dnsCacheMaxTtl = DEFAULT_DNS_CACHE_MAX_TTL;
+    private int dnsCacheNegativeTtl = DEFAULT_DNS_CACHE_NEGATIVE_TTL;
+    private long wheelTick = DEFAULT_WHEEL_TICK;
+    private int wheelSlots = DEFAULT_WHEEL_SLOTS;
+    private int historySize = DEFAULT_HISTORY_SIZE;
+    private int latencySignificantDigits = DEFAULT_LATENCY_SIGNIFICANT_DIGITS;
+    private int eventQueueSize = DEFAULT_EVENT_QUEUE_SIZE;
+    private int statusWindow = DEFAULT_STATUS_WINDOW;
+    private int failureThreshold = DEFAULT_FAILURE_THRESHOLD;
+    private int recoveryThreshold = DEFAULT_RECOVERY_THRESHOLD;
+    private int degradedThreshold = DEFAULT_DEGRADED_THRESHOLD;
+    private int flapWindow = DEFAULT_FLAP_WINDOW;
+    private double flapStart = DEFAULT_FLAP_START;
+    private double flapStop = DEFAULT_FLAP_STOP;
+    private String clusterAddress = null;
+    private List<String> clusterPeers = new ArrayList<>();
+    private long heartbeatInterval = DEFAULT_HEARTBEAT_INTERVAL;
+    private long failureTimeout = DEFAULT_FAILURE_TIMEOUT;
+    private int virtualNodes = DEFAULT_VIRTUAL_NODES;
+    private boolean aggregating = false;
+    private String aggregator = null;
+    private String agentName = DEFAULT_AGENT_NAME;
+    private long agentSyncInterval = DEFAULT_AGENT_SYNC_INTERVAL;
+    private long resultFlushInterval = DEFAULT_RESULT_FLUSH_INTERVAL;
+    private int resultBatchSize = DEFAULT_RESULT_BATCH_SIZE;
+    private int maxPendingResults = DEFAULT_MAX_PENDING_RESULTS;
+    private int quorum = DEFAULT_QUORUM;
+    private long agentResultTtl = DEFAULT_AGENT_RESULT_TTL;
+    private String historyDirectory = null;
+    private int historySegmentRows = DEFAULT_HISTORY_SEGMENT_ROWS;
+    private long historyFlushInterval = DEFAULT_HISTORY_FLUSH_INTERVAL;
+    private long rawRetention = DEFAULT_RAW_RETENTION;
+    private long minuteRetention = DEFAULT_MINUTE_RETENTION;
+    private long hourRetention = DEFAULT_HOUR_RETENTION;
+    private long dayRetention = DEFAULT_DAY_RETENTION;
+    private long alertWindow = DEFAULT_ALERT_WINDOW;
+    private int alertOutboxSize = DEFAULT_ALERT_OUTBOX_SIZE;
+    private int alertRetries = DEFAULT_ALERT_RETRIES;
+    private long alertRetryDelay = DEFAULT_ALERT_RETRY_DELAY;
+    private int alertTimeout = DEFAULT_ALERT_TIMEOUT;
+    private final Map<String, AlertSink.Factory> alertSinks = new LinkedHashMap<>();
+    private final Map<String, Probe.Factory> probes = defaultProbes();
+
+    private static Map<String, Probe.Factory> defaultProbes() {
+        Map<String, Probe.Factory> probes = new LinkedHashMap<>();
+        Probe.Factory http = HttpProbe::new;
+        probes.put("http", http);
+        probes.put("https", http);
+        probes.put("tcp", (vertx, options, metrics) -> new SocketProbe(vertx, options, false));
+        probes.put("tls", (vertx, options, metrics) -> new SocketProbe(vertx, options, true));
+        probes.put("dns", DnsProbe::new);
+        return probes;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public KrymonOptions setPort(int port) {
+        this.port = port;
+        return this;
+    }
+
+    public int getApiInstances() {
+        return apiInstances;
+    }
+
+    public KrymonOptions setApiInstances(int apiInstances) {
+        this.apiInstances = apiInstances;
+        return this;
+    }
+
+    public int getCheckInstances() {
+        return checkInstances;
+    }
+
+    public KrymonOptions setCheckInstances(int checkInstances) {
+        this.checkInstances = checkInstances;
+        return this;
+    }
+
+    public long getCheckPeriod() {
+        return checkPeriod;
+    }
+
+    public KrymonOptions setCheckPeriod(long checkPeriod) {
+        this.checkPeriod = checkPeriod;
+        return this;
+    }
+
+    public int getCheckTimeout() {
+        return checkTimeout;
+    }
+
+    public KrymonOptions setCheckTimeout(int checkTimeout) {
+        this.checkTimeout = checkTimeout;
+        return this;
+    }
+
+    public long getFlushDelay() {
+        return flushDelay;
+    }
+
+    public KrymonOptions setFlushDelay(long flushDelay) {
+        this.flushDelay = flushDelay;
+        return this;
+    }
+
+    public long getCompactionThreshold() {
+        return compactionThreshold;
+    }
+
+    public KrymonOptions setCompactionThreshold(long compactionThreshold) {
+        this.compactionThreshold = compactionThreshold;
+        return this;
+    }
+
+    public int getMaxChecksInFlight() {
+        return maxChecksInFlight;
+    }
+
+    public KrymonOptions setMaxChecksInFlight(int maxChecksInFlight) {
+        this.maxChecksInFlight = maxChecksInFlight;
+        return this;
+    }
+
+    public int getMaxChecksPerHost() {
+        return maxChecksPerHost;
+    }
+
+    public KrymonOptions setMaxChecksPerHost(int maxChecksPerHost) {
+        this.maxChecksPerHost = maxChecksPerHost;
+        return this;
+    }
+
+    public boolean isPipelining() {
+        return pipelining;
+    }
+
+    public KrymonOptions setPipelining(boolean pipelining) {
+        this.pipelining = pipelining;
+        return this;
+    }
+
+    public int getPipeliningLimit() {
+        return pipeliningLimit;
+    }
+
+    public KrymonOptions setPipeliningLimit(int pipeliningLimit) {
+        this.pipeliningLimit = pipeliningLimit;
+        return this;
+    }
+
+    public long getWheelTick() {
+        return wheelTick;
+    }
+
+    public KrymonOptions setWheelTick(long wheelTick) {
+        this.wheelTick = wheelTick;
+        return this;
+    }
+
+    public int getWheelSlots() {
+        return wheelSlots;
+    }
+
+    public KrymonOptions setWheelSlots(int wheelSlots) {
+        this.wheelSlots = wheelSlots;
+        return this;
+    }
+
+    public int getHistorySize() {
+        return historySize;
+    }
+
+    public KrymonOptions setHistorySize(int historySize) {
+        this.historySize = historySize;
+        return this;
+    }
+
+    public int getLatencySignificantDigits() {
+        return latencySignificantDigits;
+    }
+
+    public KrymonOptions setLatencySignificantDigits(int latencySignificantDigits) {
+        this.latencySignificantDigits = latencySignificantDigits;
+        return this;
+    }
+
+    public int getEventQueueSize() {
+        return eventQueueSize;
+    }
+
+    public KrymonOptions setEventQueueSize(int eventQueueSize) {
+        this.eventQueueSize = eventQueueSize;
+        return this;
+    }
+
+    public boolean isHttp2() {
+        return http2;
+    }
+
+    /**
+     * Whether checks offer HTTP/2, through ALPN for https and an upgrade for http. Services that do not take it up
+     * are checked over HTTP/1.1 as before.
+     */
+    public KrymonOptions setHttp2(boolean http2) {
+        this.http2 = http2;
+        return this;
+    }
+
+    public long getMaxDrainBytes() {
+        return maxDrainBytes;
+    }
+
+    /**
+     * How much of a response body a check reads, and throws away, before resetting the request instead. Below this,
+     * the connection is kept for the next check.
+     */
+    public KrymonOptions setMaxDrainBytes(long maxDrainBytes) {
+        this.maxDrainBytes = maxDrainBytes;
+        return this;
+    }
+
+    public long getMaxAssertedBytes() {
+        return maxAssertedBytes;
+    }
+
+    /**
+     * How much of a response body is searched for a service's content assertions. Assertions which are still
+     * undecided after this much fail.
+     */
+    public KrymonOptions setMaxAssertedBytes(long maxAssertedBytes) {
+        this.maxAssertedBytes = maxAssertedBytes;
+        return this;
+    }
+
+    public int getDnsCacheMinTtl() {
+        return dnsCacheMinTtl;
+    }
+
+    /**
+     * The least time, in seconds, a resolved address is cached for, even if its record has a shorter TTL.
+     */
+    public KrymonOptions setDnsCacheMinTtl(int dnsCacheMinTtl) {
+        this.dnsCacheMinTtl = dnsCacheMinTtl;
+        return this;
+    }
+
+    public int getDnsCacheMaxTtl() {
+        return dnsCacheMaxTtl;
+    }
+
+    /**
+     * The most time, in seconds, a resolved address is cached for, even if its record has a longer TTL.
+     */
+    public KrymonOptions setDnsCacheMaxTtl(int dnsCacheMaxTtl) {
+        this.dnsCacheMaxTtl = dnsCacheMaxTtl;
+        return this;
+    }
+
+    public int getDnsCacheNegativeTtl() {
+        return dnsCacheNegativeTtl;
+    }
+
+    /**
+     * How long, in seconds, a failed lookup is cached for.
+     */
+    public KrymonOptions setDnsCacheNegativeTtl(int dnsCacheNegativeTtl) {
+        this.dnsCacheNegativeTtl = dnsCacheNegativeTtl;
+        return this;
+    }
+
+    public int getStatusWindow() {
+        return statusWindow;
+    }
+
+    /**
+     * How many of the latest checks of a service its status is decided from, at most 64.
+     */
+    public KrymonOptions setStatusWindow(int statusWindow) {
+        this.statusWindow = statusWindow;
+        return this;
+    }
+
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    /**
+     * How many checks within the status window have to fail for a service to FAIL.
+     */
+    public KrymonOptions setFailureThreshold(int failureThreshold) {
+        this.failureThreshold = failureThreshold;
+        return this;
+    }
+
+    public int getRecoveryThreshold() {
+        return recoveryThreshold;
+    }
+
+    /**
+     * How many checks within the status window have to succeed for a failed service to be up again.
+     */
+    public KrymonOptions setRecoveryThreshold(int recoveryThreshold) {
+        this.recoveryThreshold = recoveryThreshold;
+        return this;
+    }
+
+    public int getDegradedThreshold() {
+        return degradedThreshold;
+    }
+
+    /**
+     * How many checks within the status window have to fail for a service which is up to be DEGRADED.
+     */
+    public KrymonOptions setDegradedThreshold(int degradedThreshold) {
+        this.degradedThreshold = degradedThreshold;
+        return this;
+    }
+
+    public int getFlapWindow() {
+        return flapWindow;
+    }
+
+    /**
+     * How many of the latest checks of a service are looked at to tell whether it is flapping, at most 64.
+     */
+    public KrymonOptions setFlapWindow(int flapWindow) {
+        this.flapWindow = flapWindow;
+        return this;
+    }
+
+    public double getFlapStart() {
+        return flapStart;
+    }
+
+    /**
+     * The share of checks in the flap window which changed outcome from the check before, above which a service is
+     * FLAPPING.
+     */
+    public KrymonOptions setFlapStart(double flapStart) {
+        this.flapStart = flapStart;
+        return this;
+    }
+
+    public double getFlapStop() {
+        return flapStop;
+    }
+
+    /**
+     * The share of changed outcomes below which a flapping service is no longer FLAPPING. Lower than the flap start,
+     * so that a service near the threshold does not keep going in and out of it.
+     */
+    public KrymonOptions setFlapStop(double flapStop) {
+        this.flapStop = flapStop;
+        return this;
+    }
+
+    public String getClusterAddress() {
+        return clusterAddress;
+    }
+
+    /**
+     * The base URL other nodes reach this node's API at, such as {@code http://10.0.0.1:8080}. Defaults to
+     * {@code http://localhost:<port>}.
+     */
+    public KrymonOptions setClusterAddress(String clusterAddress) {
+        this.clusterAddress = clusterAddress;
+        return this;
+    }
+
+    public List<String> getClusterPeers() {
+        return clusterPeers;
+    }
+
+    /**
+     * The base URLs of the other nodes of the cluster. Without any, this node checks every service itself. The list
+     * may include this node's own address, so that every node can be given the same list.
+     */
+    public KrymonOptions setClusterPeers(List<String> clusterPeers) {
+        this.clusterPeers = clusterPeers;
+        return this;
+    }
+
+    public long getHeartbeatInterval() {
+        return heartbeatInterval;
+    }
+
+    public KrymonOptions setHeartbeatInterval(long heartbeatInterval) {
+        this.heartbeatInterval = heartbeatInterval;
+        return this;
+    }
+
+    public long getFailureTimeout() {
+        return failureTimeout;
+    }
+
+    /**
+     * How long a peer may go without answering a ping before its services are checked by the other nodes.
+     */
+    public KrymonOptions setFailureTimeout(long failureTimeout) {
+        this.failureTimeout = failureTimeout;
+        return this;
+    }
+
+    public int getVirtualNodes() {
+        return virtualNodes;
+    }
+
+    /**
+     * How many points every node has on the hash ring. More points spread services more evenly between nodes.
+     */
+    public KrymonOptions setVirtualNodes(int virtualNodes) {
+        this.virtualNodes = virtualNodes;
+        return this;
+    }
+
+    public boolean isAggregating() {
+        return aggregating;
+    }
+
+    /**
+     * Whether to leave checking to agents and decide the status of services from the results they send, rather than
+     * checking services from this node.
+     */
+    public KrymonOptions setAggregating(boolean aggregating) {
+        this.aggregating = aggregating;
+        return this;
+    }
+
+    public String getAggregator() {
+        return aggregator;
+    }
+
+    /**
+     * The base URL of the aggregating Krymon an {@link Agent} takes its services from and sends its results to.
+     */
+    public KrymonOptions setAggregator(String aggregator) {
+        this.aggregator = aggregator;
+        return this;
+    }
+
+    public String getAgentName() {
+        return agentName;
+    }
+
+    /**
+     * The name an agent's results are sent under, unique among the agents of an aggregator, such as its region.
+     */
+    public KrymonOptions setAgentName(String agentName) {
+        this.agentName = agentName;
+        return this;
+    }
+
+    public long getAgentSyncInterval() {
+        return agentSyncInterval;
+    }
+
+    /**
+     * How often an agent asks the aggregator for changes to its services.
+     */
+    public KrymonOptions setAgentSyncInterval(long agentSyncInterval) {
+        this.agentSyncInterval = agentSyncInterval;
+        return this;
+    }
+
+    public long getResultFlushInterval() {
+        return resultFlushInterval;
+    }
+
+    /**
+     * How long an agent may hold results before sending them, when it has fewer than a batch of them.
+     */
+    public KrymonOptions setResultFlushInterval(long resultFlushInterval) {
+        this.resultFlushInterval = resultFlushInterval;
+        return this;
+    }
+
+    public int getResultBatchSize() {
+        return resultBatchSize;
+    }
+
+    public KrymonOptions setResultBatchSize(int resultBatchSize) {
+        this.resultBatchSize = resultBatchSize;
+        return this;
+    }
+
+    public int getMaxPendingResults() {
+        return maxPendingResults;
+    }
+
+    /**
+     * How many results an agent holds on to while the aggregator cannot be reached. Beyond that, the oldest are
+     * dropped.
+     */
+    public KrymonOptions setMaxPendingResults(int maxPendingResults) {
+        this.maxPendingResults = maxPendingResults;
+        return this;
+    }
+
+    public int getQuorum() {
+        return quorum;
+    }
+
+    /**
+     * How many agents must see a service fail for it to FAIL. Fewer make it DEGRADED. Defaults to 0, a majority of
+     * the agents with recent results for the service.
+     */
+    public KrymonOptions setQuorum(int quorum) {
+        this.quorum = quorum;
+        return this;
+    }
+
+    public long getAgentResultTtl() {
+        return agentResultTtl;
+    }
+
+    /**
+     * How long the result of an agent counts towards the status of a service. Defaults to 0, three check periods.
+     */
+    public KrymonOptions setAgentResultTtl(long agentResultTtl) {
+        this.agentResultTtl = agentResultTtl;
+        return this;
+    }
+
+    public String getHistoryDirectory() {
+        return historyDirectory;
+    }
+
+    /**
+     * The directory to keep the long-term {@link HistoryStore} in. Defaults to null, keeping only the recent history
+     * in memory.
+     */
+    public KrymonOptions setHistoryDirectory(String historyDirectory) {
+        this.historyDirectory = historyDirectory;
+        return this;
+    }
+
+    public int getHistorySegmentRows() {
+        return historySegmentRows;
+    }
+
+    /**
+     * How many rows a history segment file is sized for. Files are sparse, so unused rows take no disk space.
+     */
+    public KrymonOptions setHistorySegmentRows(int historySegmentRows) {
+        this.historySegmentRows = historySegmentRows;
+        return this;
+    }
+
+    public long getHistoryFlushInterval() {
+        return historyFlushInterval;
+    }
+
+    public KrymonOptions setHistoryFlushInterval(long historyFlushInterval) {
+        this.historyFlushInterval = historyFlushInterval;
+        return this;
+    }
+
+    public long getRawRetention() {
+        return rawRetention;
+    }
+
+    /**
+     * How long raw results are kept in the history store, in milliseconds.
+     */
+    public KrymonOptions setRawRetention(long rawRetention) {
+        this.rawRetention = rawRetention;
+        return this;
+    }
+
+    public long getMinuteRetention() {
+        return minuteRetention;
+    }
+
+    public KrymonOptions setMinuteRetention(long minuteRetention) {
+        this.minuteRetention = minuteRetention;
+        return this;
+    }
+
+    public long getHourRetention() {
+        return hourRetention;
+    }
+
+    public KrymonOptions setHourRetention(long hourRetention) {
+        this.hourRetention = hourRetention;
+        return this;
+    }
+
+    public long getDayRetention() {
+        return dayRetention;
+    }
+
+    public KrymonOptions setDayRetention(long dayRetention) {
+        this.dayRetention = dayRetention;
+        return this;
+    }
+
+    public long getAlertWindow() {
+        return alertWindow;
+    }
+
+    /**
+     * How long alerts for a target are gathered before they are sent as one notification, in milliseconds.
+     */
+    public KrymonOptions setAlertWindow(long alertWindow) {
+        this.alertWindow = alertWindow;
+        return this;
+    }
+
+    public int getAlertOutboxSize() {
+        return alertOutboxSize;
+    }
+
+    /**
+     * How many notifications are queued for a sink which is failing or slow. Beyond that, the oldest are dropped.
+     */
+    public KrymonOptions setAlertOutboxSize(int alertOutboxSize) {
+        this.alertOutboxSize = alertOutboxSize;
+        return this;
+    }
+
+    public int getAlertRetries() {
+        return alertRetries;
+    }
+
+    /**
+     * How many times a notification is sent again after failing, before it is dropped.
+     */
+    public KrymonOptions setAlertRetries(int alertRetries) {
+        this.alertRetries = alertRetries;
+        return this;
+    }
+
+    public long getAlertRetryDelay() {
+        return alertRetryDelay;
+    }
+
+    /**
+     * Milliseconds to wait before the first retry of a notification. The delay doubles with every retry.
+     */
+    public KrymonOptions setAlertRetryDelay(long alertRetryDelay) {
+        this.alertRetryDelay = alertRetryDelay;
+        return this;
+    }
+
+    public int getAlertTimeout() {
+        return alertTimeout;
+    }
+
+    /**
+     * Milliseconds a sink may take to send a notification before it counts as failed.
+     */
+    public KrymonOptions setAlertTimeout(int alertTimeout) {
+        this.alertTimeout = alertTimeout;
+        return this;
+    }
+
+    public Map<String, AlertSink.Factory> getAlertSinks() {
+        return alertSinks;
+    }
+
+    /**
+     * Sends alerts targeted at {@code name} through a sink made by {@code factory}. Services alert every sink unless
+     * their {@link AlertSpec} names some.
+     */
+    public KrymonOptions addAlertSink(String name, AlertSink.Factory factory) {
+        this.alertSinks.put(name, factory);
+        return this;
+    }
+
+    public Map<String, Probe.Factory> getProbes() {
+        return probes;
+    }
+
+    /**
+     * Checks URLs with the given scheme using probes made by {@code factory}, in place of any built-in probe for it.
+     * Schemes registered with the same factory share one probe in each check verticle.
+     */
+    public KrymonOptions addProbe(String scheme, Probe.Factory factory) {
+        this.probes.put(scheme, factory);
+        return this;
+    }
+
+    /**
+     * Options for the {@link io.vertx.core.Vertx} to run Krymon on. Host names are resolved by Vert.x rather than by
+     * each client, so the DNS cache is set up here, for the whole instance.
+     */
+    public VertxOptions vertxOptions() {
+        return new VertxOptions().setAddressResolverOptions(new AddressResolverOptions()
+                .setCacheMinTimeToLive(dnsCacheMinTtl)
+                .setCacheMaxTimeToLive(dnsCacheMaxTtl)
+                .setCacheNegativeTimeToLive(dnsCacheNegativeTtl));
+    }
+}
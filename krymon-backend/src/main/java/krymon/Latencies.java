@@ -0,0 +1,50 @@
+package krymon;
+
+import org.HdrHistogram.ShortCountsHistogram;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sliding-window latency percentiles for each service and for the whole fleet. Per-service histograms use short
+ * counts and a configurable, by default coarse, precision to keep their footprint at a few kilobytes; the single
+ * fleet-wide set uses long counts and two significant digits.
+ */
+public class Latencies {
+
+    private static final int FLEET_SIGNIFICANT_DIGITS = 2;
+    private final int significantDigits;
+    private final Map<String, LatencyStats> services = new ConcurrentHashMap<>();
+    private final LatencyStats fleet = new LatencyStats(FLEET_SIGNIFICANT_DIGITS, Long.MAX_VALUE,
+            () -> LatencyStats.histogram(FLEET_SIGNIFICANT_DIGITS));
+
+    public Latencies(ServiceRegistry registry, int significantDigits) {
+        this.significantDigits = significantDigits;
+        registry.addListener(records -> {
+            for (StoreRecord record : records) {
+                if (record.getType() == StoreRecord.Type.DELETE) {
+                    services.remove(record.getId());
+                }
+            }
+        });
+    }
+
+    public void record(String serviceID, CheckResult result) {
+        services.computeIfAbsent(serviceID, id -> new LatencyStats(significantDigits, Short.MAX_VALUE, this::serviceHistogram))
+                .record(result.getTimestamp(), result.getLatencyMicros());
+        fleet.record(result.getTimestamp(), result.getLatencyMicros());
+    }
+
+    public Optional<Latency> get(String serviceID, long now) {
+        return Optional.ofNullable(services.get(serviceID)).map(stats -> stats.latency(now));
+    }
+
+    public Latency fleet(long now) {
+        return fleet.latency(now);
+    }
+
+    private ShortCountsHistogram serviceHistogram() {
+        return new ShortCountsHistogram(LatencyStats.LOWEST_DISCERNIBLE_MICROS, LatencyStats.HIGHEST_TRACKABLE_MICROS, significantDigits);
+    }
+}
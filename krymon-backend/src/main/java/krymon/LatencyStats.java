@@ -0,0 +1,61 @@
+package krymon;
+
+import org.HdrHistogram.AbstractHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Check latencies, in microseconds, over the last minute, 15 minutes and hour.
+ */
+public class LatencyStats {
+
+    public static final long LOWEST_DISCERNIBLE_MICROS = 10;
+    public static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+    private static final int SLICES_PER_WINDOW = 4;
+    private final int significantDigits;
+    private final SlidingHistogram oneMinute;
+    private final SlidingHistogram fifteenMinutes;
+    private final SlidingHistogram oneHour;
+
+    public LatencyStats(int significantDigits, long maxCountPerSlice, Supplier<AbstractHistogram> histograms) {
+        this.significantDigits = significantDigits;
+        this.oneMinute = new SlidingHistogram(TimeUnit.MINUTES.toMillis(1), SLICES_PER_WINDOW, maxCountPerSlice, histograms);
+        this.fifteenMinutes = new SlidingHistogram(TimeUnit.MINUTES.toMillis(15), SLICES_PER_WINDOW, maxCountPerSlice, histograms);
+        this.oneHour = new SlidingHistogram(TimeUnit.HOURS.toMillis(1), SLICES_PER_WINDOW, maxCountPerSlice, histograms);
+    }
+
+    public static Histogram histogram(int significantDigits) {
+        return new Histogram(LOWEST_DISCERNIBLE_MICROS, HIGHEST_TRACKABLE_MICROS, significantDigits);
+    }
+
+    public static Latency empty() {
+        Percentiles none = new Percentiles(0, 0, 0, 0, 0);
+        return new Latency(none, none, none);
+    }
+
+    public synchronized void record(long now, long latencyMicros) {
+        oneMinute.record(now, latencyMicros);
+        fifteenMinutes.record(now, latencyMicros);
+        oneHour.record(now, latencyMicros);
+    }
+
+    public synchronized Latency latency(long now) {
+        return new Latency(
+                percentiles(oneMinute, now),
+                percentiles(fifteenMinutes, now),
+                percentiles(oneHour, now));
+    }
+
+    private Percentiles percentiles(SlidingHistogram window, long now) {
+        Histogram merged = histogram(significantDigits);
+        window.addTo(now, merged);
+        return new Percentiles(
+                merged.getTotalCount(),
+                merged.getValueAtPercentile(50),
+                merged.getValueAtPercentile(95),
+                merged.getValueAtPercentile(99),
+                merged.getMaxValue());
+    }
+}
@@ -4,19 +4,83 @@ import com.fasterxml.jackson.datatype.joda.JodaModule;
 import io.vertx.core.Vertx;
 import io.vertx.core.json.Json;
 
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Starts Krymon. Takes the store file, {@code services.json} by default, and optionally {@code --port <port>},
+ * {@code --address <url>} and any number of {@code --peer <url>} to run as a node of a {@link Cluster}. With
+ * {@code --aggregate}, it decides the status of services from the results of agents instead of checking them. With
+ * {@code --agent <url>}, it runs as an {@link Agent} of the aggregator at that URL, named by {@code --name <name>}.
+ * {@code --history <dir>} keeps long-term check history in a {@link HistoryStore} in that directory.
+ * <p>
+ * Alerts are sent to the {@code webhook} sink with {@code --webhook <url>}, to the {@code command} sink with
+ * {@code --alert-command <command>}, and to the {@code mail} sink with {@code --smtp <host>[:<port>]},
+ * {@code --mail-from <address>} and any number of {@code --mail-to <address>}.
+ */
 public class Main {
     public static void main(String[] args) {
         Json.mapper.registerModule(new JodaModule());
-        Krymon krymon = new Krymon(Vertx.vertx(), parseFile(args), 60_000);
-        krymon.start().subscribe();
-    }
-
-    private static String parseFile(String[] args) {
-        if(args.length > 0){
-            return args[0];
+        KrymonOptions options = new KrymonOptions();
+        String storeFile = "services.json";
+        String smtp = null;
+        String mailFrom = "krymon@localhost";
+        List<String> mailTo = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port":
+                    options.setPort(Integer.parseInt(args[++i]));
+                    break;
+                case "--address":
+                    options.setClusterAddress(args[++i]);
+                    break;
+                case "--peer":
+                    options.getClusterPeers().add(args[++i]);
+                    break;
+                case "--history":
+                    options.setHistoryDirectory(args[++i]);
+                    break;
+                case "--aggregate":
+                    options.setAggregating(true);
+                    break;
+                case "--agent":
+                    options.setAggregator(args[++i]);
+                    break;
+                case "--name":
+                    options.setAgentName(args[++i]);
+                    break;
+                case "--webhook":
+                    String url = args[++i];
+                    options.addAlertSink("webhook", (vertx, o) -> new WebhookSink(vertx, url, o));
+                    break;
+                case "--alert-command":
+                    String command = args[++i];
+                    options.addAlertSink("command", (vertx, o) -> new CommandSink(vertx, command, o));
+                    break;
+                case "--smtp":
+                    smtp = args[++i];
+                    break;
+                case "--mail-from":
+                    mailFrom = args[++i];
+                    break;
+                case "--mail-to":
+                    mailTo.add(args[++i]);
+                    break;
+                default:
+                    storeFile = args[i];
+            }
+        }
+        if (smtp != null && !mailTo.isEmpty()) {
+            String host = smtp.contains(":") ? smtp.substring(0, smtp.lastIndexOf(':')) : smtp;
+            int port = smtp.contains(":") ? Integer.parseInt(smtp.substring(smtp.lastIndexOf(':') + 1)) : 25;
+            String from = mailFrom;
+            options.addAlertSink("mail", (vertx, o) -> new SmtpSink(vertx, host, port, from, mailTo, o));
         }
-        else{
-            return "services.json";
+        Vertx vertx = Vertx.vertx(options.vertxOptions());
+        if (options.getAggregator() != null) {
+            new Agent(vertx, options).start().subscribe();
+        } else {
+            new Krymon(vertx, storeFile, options).start().subscribe();
         }
     }
 }
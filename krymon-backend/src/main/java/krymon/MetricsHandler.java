@@ -0,0 +1,98 @@
+package krymon;
+
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.web.RoutingContext;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serves {@code /metrics} in the Prometheus text format. The whole scrape is written into one buffer, presized from
+ * the previous scrape so that it is not regrown and copied while rendering thousands of services.
+ */
+public class MetricsHandler implements Handler<RoutingContext> {
+
+    private final ServiceRegistry registry;
+    private final CheckHistories histories;
+    private final Latencies latencies;
+    private final Collection<CheckVerticle> checks;
+    private final KrymonMetrics metrics;
+    private volatile int lastSize = 4096;
+
+    public MetricsHandler(ServiceRegistry registry, CheckHistories histories, Latencies latencies, Collection<CheckVerticle> checks, KrymonMetrics metrics) {
+        this.registry = registry;
+        this.histories = histories;
+        this.latencies = latencies;
+        this.checks = checks;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void handle(RoutingContext routingContext) {
+        Buffer buffer = Buffer.buffer(lastSize + lastSize / 8);
+        PrometheusWriter writer = new PrometheusWriter(buffer);
+        writeServices(writer);
+        writeFleetLatency(writer);
+        writer.type("krymon_checks_in_flight", "gauge", "Checks currently running.");
+        writer.sample("krymon_checks_in_flight").value(checks.stream().mapToLong(CheckVerticle::checksInFlight).sum());
+        writer.type("krymon_checks_waiting", "gauge", "Due checks waiting for a free slot.");
+        writer.sample("krymon_checks_waiting").value(checks.stream().mapToLong(CheckVerticle::checksWaiting).sum());
+        metrics.writeTo(writer);
+        lastSize = buffer.length();
+        routingContext.response()
+                .putHeader("Content-Type", "text/plain; version=0.0.4; charset=utf-8")
+                .end(buffer);
+    }
+
+    private void writeServices(PrometheusWriter writer) {
+        List<Service> services = registry.list().getServices();
+        Map<Service.Status, Integer> counts = new EnumMap<>(Service.Status.class);
+        for (Service.Status status : Service.Status.values()) {
+            counts.put(status, 0);
+        }
+        writer.type("krymon_service_up", "gauge", "Whether the last check of a service succeeded.");
+        for (Service service : services) {
+            counts.merge(service.getStatus(), 1, Integer::sum);
+            if (service.getStatus() != Service.Status.UNKNOWN) {
+                writer.sample("krymon_service_up")
+                        .label("id", service.getId())
+                        .label("name", service.getName())
+                        .value(service.getStatus() == Service.Status.OK || service.getStatus() == Service.Status.DEGRADED ? 1 : 0);
+            }
+        }
+        writer.type("krymon_service_check_latency_seconds", "gauge", "Latency of the last check of a service.");
+        for (Service service : services) {
+            CheckResult last = histories.get(service.getId()).map(CheckHistory::last).orElse(null);
+            if (last != null) {
+                writer.sample("krymon_service_check_latency_seconds")
+                        .label("id", service.getId())
+                        .value(last.getLatencyMicros() / 1e6);
+            }
+        }
+        writer.type("krymon_service_certificate_days", "gauge", "Days left on the certificate seen by the last TLS check of a service.");
+        for (Service service : services) {
+            CheckResult last = histories.get(service.getId()).map(CheckHistory::last).orElse(null);
+            if (last != null && last.getCertificateDays() != Integer.MIN_VALUE) {
+                writer.sample("krymon_service_certificate_days")
+                        .label("id", service.getId())
+                        .value(last.getCertificateDays());
+            }
+        }
+        writer.type("krymon_services", "gauge", "Monitored services by status.");
+        for (Map.Entry<Service.Status, Integer> entry : counts.entrySet()) {
+            writer.sample("krymon_services").label("status", entry.getKey().name()).value(entry.getValue());
+        }
+    }
+
+    private void writeFleetLatency(PrometheusWriter writer) {
+        Percentiles percentiles = latencies.fleet(System.currentTimeMillis()).getOneMinute();
+        writer.type("krymon_fleet_check_latency_seconds", "summary", "Latency of checks of all services over the last minute.");
+        writer.sample("krymon_fleet_check_latency_seconds").label("quantile", "0.5").value(percentiles.getP50() / 1e6);
+        writer.sample("krymon_fleet_check_latency_seconds").label("quantile", "0.95").value(percentiles.getP95() / 1e6);
+        writer.sample("krymon_fleet_check_latency_seconds").label("quantile", "0.99").value(percentiles.getP99() / 1e6);
+        writer.sample("krymon_fleet_check_latency_seconds_count").value(percentiles.getCount());
+    }
+}
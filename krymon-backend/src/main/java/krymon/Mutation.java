@@ -0,0 +1,64 @@
+package krymon;
+
+import org.joda.time.DateTime;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A change to the registry. Mutations are only ever applied by the registry's single writer, in submission order,
+ * and add a {@link StoreRecord} to the journal for every change they actually make.
+ */
+public interface Mutation<T> {
+
+    T apply(Map<String, Service> services, List<StoreRecord> journal);
+
+    static Mutation<String> add(Service service) {
+        return (services, journal) -> {
+            apply(StoreRecord.add(service), services, journal);
+            return service.getId();
+        };
+    }
+
+    static Mutation<Boolean> remove(String serviceID) {
+        return (services, journal) -> apply(StoreRecord.delete(serviceID), services, journal);
+    }
+
+    /**
+     * Sets the time of the latest check of a service, and its status if that has changed. Only a new status is
+     * journaled, so a check which changes nothing else is not written to the store until the next snapshot.
+     */
+    static Mutation<Boolean> updateStatus(String serviceID, Service.Status status, DateTime lastCheck) {
+        return (services, journal) -> {
+            Service service = services.get(serviceID);
+            if (service == null || service.getStatus() != status) {
+                return apply(StoreRecord.status(serviceID, status, lastCheck), services, journal);
+            }
+            services.computeIfPresent(serviceID, (ig, s) -> s.withStatus(status, lastCheck));
+            return true;
+        };
+    }
+
+    /**
+     * Applies every operation of a bulk request in one go, so that they reach the store together.
+     */
+    static Mutation<List<BulkResult>> bulk(List<BulkOperation> operations) {
+        return (services, journal) -> {
+            List<BulkResult> results = new ArrayList<>(operations.size());
+            for (BulkOperation operation : operations) {
+                results.add(operation.apply(services, journal));
+            }
+            return results;
+        };
+    }
+
+    static boolean apply(StoreRecord record, Map<String, Service> services, List<StoreRecord> journal) {
+        if (record.applyTo(services)) {
+            journal.add(record);
+            return true;
+        } else {
+            return false;
+        }
+    }
+}
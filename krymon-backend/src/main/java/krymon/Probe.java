@@ -0,0 +1,26 @@
+package krymon;
+
+import io.vertx.core.Vertx;
+import rx.Single;
+
+/**
+ * A way of checking services, chosen by the scheme of their URL. Every check verticle creates its own probes from the
+ * factories registered in {@link KrymonOptions#getProbes()}.
+ */
+public interface Probe {
+
+    /**
+     * Checks a service once. A failed check is a result, not an error.
+     */
+    Single<CheckResult> check(Service service, int timeout);
+
+    /**
+     * Forgets anything kept about a service, which has been deleted.
+     */
+    default void forget(String serviceID) {
+    }
+
+    interface Factory {
+        Probe create(Vertx vertx, KrymonOptions options, KrymonMetrics metrics);
+    }
+}
@@ -0,0 +1,78 @@
+package krymon;
+
+import io.vertx.core.buffer.Buffer;
+
+/**
+ * Writes the Prometheus text exposition format straight into a {@link Buffer}, one sample at a time:
+ * {@code writer.sample("name").label("id", id).value(1)}.
+ */
+public class PrometheusWriter {
+
+    private final Buffer buffer;
+    private boolean hasLabels = false;
+
+    public PrometheusWriter(Buffer buffer) {
+        this.buffer = buffer;
+    }
+
+    public PrometheusWriter type(String name, String type, String help) {
+        buffer.appendString("# HELP ").appendString(name).appendByte((byte) ' ').appendString(help).appendByte((byte) '\n');
+        buffer.appendString("# TYPE ").appendString(name).appendByte((byte) ' ').appendString(type).appendByte((byte) '\n');
+        return this;
+    }
+
+    public PrometheusWriter sample(String name) {
+        buffer.appendString(name);
+        hasLabels = false;
+        return this;
+    }
+
+    public PrometheusWriter label(String name, String value) {
+        buffer.appendByte((byte) (hasLabels ? ',' : '{')).appendString(name).appendString("=\"")
+                .appendString(escape(value)).appendByte((byte) '"');
+        hasLabels = true;
+        return this;
+    }
+
+    public PrometheusWriter value(long value) {
+        endLabels();
+        buffer.appendString(Long.toString(value)).appendByte((byte) '\n');
+        return this;
+    }
+
+    public PrometheusWriter value(double value) {
+        endLabels();
+        if (Double.isNaN(value)) {
+            buffer.appendString("NaN");
+        } else if (Double.isInfinite(value)) {
+            buffer.appendString(value > 0 ? "+Inf" : "-Inf");
+        } else {
+            buffer.appendString(Double.toString(value));
+        }
+        buffer.appendByte((byte) '\n');
+        return this;
+    }
+
+    /**
+     * The value of a label, left empty when there is none, such as the name of a service added without one.
+     */
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' || c == '"' || c == '\n') {
+                return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+            }
+        }
+        return value;
+    }
+
+    private void endLabels() {
+        if (hasLabels) {
+            buffer.appendByte((byte) '}');
+        }
+        buffer.appendByte((byte) ' ');
+    }
+}
@@ -0,0 +1,226 @@
+package krymon;
+
+import io.vertx.core.buffer.Buffer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Check results of one agent, in the binary form agents send them to the aggregator in. A batch starts with a magic
+ * number, a version, the agent's name, the earliest timestamp of the batch and the number of results. Each result is
+ * then:
+ * <ul>
+ * <li>the service id, as a tag byte followed by 16 bytes for a UUID, or a varint length and UTF-8 bytes otherwise;</li>
+ * <li>a flags byte, with the optional fields present in the low bits and the failed assertion above them;</li>
+ * <li>the timestamp as a varint offset from the batch's, the latency as a varint and the code as a zigzag varint;</li>
+ * <li>the connect time, first byte time and certificate days, where the flags say they are present.</li>
+ * </ul>
+ * A result from a UUID service typically takes around 25 bytes.
+ */
+public class ResultBatch {
+
+    public static final String CONTENT_TYPE = "application/x-krymon-results";
+    private static final int MAGIC = 0x4b52;
+    private static final int VERSION = 1;
+    private static final int UUID_ID = 0;
+    private static final int STRING_ID = 1;
+    private static final int CONNECT = 1;
+    private static final int FIRST_BYTE = 2;
+    private static final int CERTIFICATE = 4;
+    private static final int ASSERTION_SHIFT = 3;
+
+    private final String agent;
+    private final List<String> serviceIDs = new ArrayList<>();
+    private final List<CheckResult> results = new ArrayList<>();
+
+    public ResultBatch(String agent) {
+        this.agent = agent;
+    }
+
+    public void add(String serviceID, CheckResult result) {
+        serviceIDs.add(serviceID);
+        results.add(result);
+    }
+
+    public String getAgent() {
+        return agent;
+    }
+
+    public int size() {
+        return results.size();
+    }
+
+    public String getServiceID(int index) {
+        return serviceIDs.get(index);
+    }
+
+    public CheckResult getResult(int index) {
+        return results.get(index);
+    }
+
+    public Buffer encode() {
+        long base = Long.MAX_VALUE;
+        for (CheckResult result : results) {
+            base = Math.min(base, result.getTimestamp());
+        }
+        base = results.isEmpty() ? 0 : base;
+        byte[] name = agent.getBytes(StandardCharsets.UTF_8);
+        Buffer buffer = Buffer.buffer(32 + results.size() * 28)
+                .appendUnsignedShort(MAGIC)
+                .appendUnsignedByte((short) VERSION);
+        appendVarint(buffer, name.length);
+        buffer.appendBytes(name).appendLong(base);
+        appendVarint(buffer, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            appendId(buffer, serviceIDs.get(i));
+            CheckResult result = results.get(i);
+            int flags = (result.getConnectMicros() >= 0 ? CONNECT : 0)
+                    | (result.getFirstByteMicros() >= 0 ? FIRST_BYTE : 0)
+                    | (result.getCertificateDays() != Integer.MIN_VALUE ? CERTIFICATE : 0)
+                    | (result.getFailedAssertion() != null ? result.getFailedAssertion().ordinal() + 1 : 0) << ASSERTION_SHIFT;
+            buffer.appendUnsignedByte((short) flags);
+            appendVarint(buffer, result.getTimestamp() - base);
+            appendVarint(buffer, result.getLatencyMicros());
+            appendVarint(buffer, zigzag(result.getCode()));
+            if (result.getConnectMicros() >= 0) {
+                appendVarint(buffer, result.getConnectMicros());
+            }
+            if (result.getFirstByteMicros() >= 0) {
+                appendVarint(buffer, result.getFirstByteMicros());
+            }
+            if (result.getCertificateDays() != Integer.MIN_VALUE) {
+                appendVarint(buffer, zigzag(result.getCertificateDays()));
+            }
+        }
+        return buffer;
+    }
+
+    /**
+     * Reads a batch written by {@link #encode()}.
+     *
+     * @throws IllegalArgumentException if the buffer does not hold a complete batch
+     */
+    public static ResultBatch decode(Buffer buffer) {
+        try {
+            Reader reader = new Reader(buffer);
+            if (buffer.getUnsignedShort(0) != MAGIC || buffer.getUnsignedByte(2) != VERSION) {
+                throw new IllegalArgumentException("Not a result batch of version " + VERSION);
+            }
+            reader.position = 3;
+            ResultBatch batch = new ResultBatch(reader.string());
+            long base = reader.buffer.getLong(reader.position);
+            reader.position += 8;
+            long count = reader.varint();
+            for (long i = 0; i < count; i++) {
+                String serviceID = reader.id();
+                int flags = reader.buffer.getUnsignedByte(reader.position++);
+                long timestamp = base + reader.varint();
+                long latency = reader.varint();
+                int code = (int) unzigzag(reader.varint());
+                long connect = (flags & CONNECT) != 0 ? reader.varint() : -1;
+                long firstByte = (flags & FIRST_BYTE) != 0 ? reader.varint() : -1;
+                int certificateDays = (flags & CERTIFICATE) != 0 ? (int) unzigzag(reader.varint()) : Integer.MIN_VALUE;
+                int assertion = flags >>> ASSERTION_SHIFT;
+                batch.add(serviceID, new CheckResult(timestamp, latency, code, connect, firstByte,
+                        assertion != 0 ? CheckResult.Assertion.values()[assertion - 1] : null, certificateDays));
+            }
+            if (reader.position != buffer.length()) {
+                throw new IllegalArgumentException("Trailing bytes after result batch");
+            }
+            return batch;
+        } catch (IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated result batch", e);
+        }
+    }
+
+    private static void appendId(Buffer buffer, String serviceID) {
+        UUID uuid = uuidOf(serviceID);
+        if (uuid != null) {
+            buffer.appendUnsignedByte((short) UUID_ID)
+                    .appendLong(uuid.getMostSignificantBits())
+                    .appendLong(uuid.getLeastSignificantBits());
+        } else {
+            byte[] bytes = serviceID.getBytes(StandardCharsets.UTF_8);
+            buffer.appendUnsignedByte((short) STRING_ID);
+            appendVarint(buffer, bytes.length);
+            buffer.appendBytes(bytes);
+        }
+    }
+
+    /**
+     * The id as a UUID, if it is one in its canonical lower case form, so that it is decoded to the same string.
+     */
+    private static UUID uuidOf(String serviceID) {
+        if (serviceID.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(serviceID);
+            return uuid.toString().equals(serviceID) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void appendVarint(Buffer buffer, long value) {
+        while ((value & ~0x7fL) != 0) {
+            buffer.appendByte((byte) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        buffer.appendByte((byte) value);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static class Reader {
+        private final Buffer buffer;
+        private int position = 0;
+
+        private Reader(Buffer buffer) {
+            this.buffer = buffer;
+        }
+
+        private long varint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = buffer.getByte(position++);
+                value |= (long) (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        private String string() {
+            long length = varint();
+            if (length < 0 || position + length > buffer.length()) {
+                throw new IllegalArgumentException("Truncated result batch");
+            }
+            String value = buffer.getString(position, position + (int) length, StandardCharsets.UTF_8.name());
+            position += length;
+            return value;
+        }
+
+        private String id() {
+            int tag = buffer.getUnsignedByte(position++);
+            if (tag == UUID_ID) {
+                UUID uuid = new UUID(buffer.getLong(position), buffer.getLong(position + 8));
+                position += 16;
+                return uuid.toString();
+            } else if (tag == STRING_ID) {
+                return string();
+            } else {
+                throw new IllegalArgumentException("Unknown id tag " + tag);
+            }
+        }
+    }
+}
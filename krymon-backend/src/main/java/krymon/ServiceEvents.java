@@ -0,0 +1,165 @@
+package krymon;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.json.Json;
+import rx.Single;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes registry changes to subscribed clients as Server-Sent Events: {@code add} and {@code delete} events, and
+ * {@code status} events when the status of a service changes. Each event is encoded once, on the registry's writer,
+ * and the same buffer is queued for every subscriber. A subscriber that falls more than the queue size behind has its
+ * queued events dropped and gets a {@code resync} event instead, after which it should catch up with
+ * {@code GET /service?since=}.
+ */
+public class ServiceEvents {
+
+    private static final long HEARTBEAT_INTERVAL = 15_000;
+    private static final Buffer HEARTBEAT = Buffer.buffer(":\n\n");
+    private static final Buffer RESYNC = Buffer.buffer("event: resync\ndata: {}\n\n");
+
+    private final Vertx vertx;
+    private final ServiceRegistry registry;
+    private final KrymonMetrics metrics;
+    private final int queueSize;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Map<String, Service.Status> statuses = new HashMap<>();
+
+    public ServiceEvents(Vertx vertx, ServiceRegistry registry, KrymonMetrics metrics, int queueSize) {
+        this.vertx = vertx;
+        this.registry = registry;
+        this.metrics = metrics;
+        this.queueSize = queueSize;
+    }
+
+    /**
+     * Starts following the registry. The known statuses are taken on the registry's writer, so no change is seen
+     * twice or missed between them and the first records.
+     */
+    public Single<Void> start() {
+        vertx.setPeriodic(HEARTBEAT_INTERVAL, ig -> publish(HEARTBEAT));
+        return registry.submit((services, journal) -> {
+            for (Service service : services.values()) {
+                statuses.put(service.getId(), service.getStatus());
+            }
+            registry.addListener(this::changed);
+            return null;
+        });
+    }
+
+    public void subscribe(Context context, HttpServerResponse response) {
+        Subscriber subscriber = new Subscriber(context, response);
+        response.setChunked(true)
+                .putHeader("Content-Type", "text/event-stream")
+                .putHeader("Cache-Control", "no-cache")
+                .closeHandler(ig -> {
+                    subscriber.closed = true;
+                    subscribers.remove(subscriber);
+                    metrics.eventUnsubscribed();
+                })
+                .write(HEARTBEAT);
+        subscribers.add(subscriber);
+        metrics.eventSubscribed();
+    }
+
+    private void changed(List<StoreRecord> records) {
+        long revision = registry.revision();
+        for (StoreRecord record : records) {
+            switch (record.getType()) {
+                case ADD:
+                    statuses.put(record.getId(), record.getService().getStatus());
+                    publish(encode("add", revision, record.getService()));
+                    break;
+                case DELETE:
+                    statuses.remove(record.getId());
+                    publish(encode("delete", revision, new Service(record.getId(), null, null, null, null)));
+                    break;
+                case STATUS:
+                    if (statuses.containsKey(record.getId()) && statuses.put(record.getId(), record.getStatus()) != record.getStatus()) {
+                        registry.get(record.getId()).ifPresent(service -> publish(encode("status", revision, service)));
+                    }
+                    break;
+            }
+        }
+    }
+
+    private static Buffer encode(String event, long revision, Service service) {
+        return Buffer.buffer()
+                .appendString("id: ").appendString(String.valueOf(revision))
+                .appendString("\nevent: ").appendString(event)
+                .appendString("\ndata: ").appendBuffer(Json.encodeToBuffer(service))
+                .appendString("\n\n");
+    }
+
+    private void publish(Buffer event) {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(event);
+        }
+    }
+
+    private class Subscriber {
+        private final Context context;
+        private final HttpServerResponse response;
+        private final Queue<Buffer> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicBoolean drainScheduled = new AtomicBoolean();
+        private volatile boolean overflowed = false;
+        private volatile boolean closed = false;
+
+        private Subscriber(Context context, HttpServerResponse response) {
+            this.context = context;
+            this.response = response;
+        }
+
+        private void offer(Buffer event) {
+            if (queued.incrementAndGet() > queueSize) {
+                queued.decrementAndGet();
+                overflowed = true;
+            } else {
+                queue.add(event);
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (drainScheduled.compareAndSet(false, true)) {
+                context.runOnContext(ig -> drain());
+            }
+        }
+
+        private void drain() {
+            drainScheduled.set(false);
+            if (closed) {
+                return;
+            }
+            if (overflowed) {
+                overflowed = false;
+                while (queue.poll() != null) {
+                    queued.decrementAndGet();
+                }
+                metrics.eventResync();
+                response.write(RESYNC);
+            }
+            Buffer event;
+            while (!response.writeQueueFull() && (event = queue.poll()) != null) {
+                queued.decrementAndGet();
+                response.write(event);
+            }
+            if (response.writeQueueFull()) {
+                response.drainHandler(ig -> scheduleDrain());
+            }
+        }
+    }
+}
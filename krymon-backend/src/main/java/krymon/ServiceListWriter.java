@@ -0,0 +1,124 @@
+package krymon;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.vertx.core.Context;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.json.Json;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+
+/**
+ * Writes a service list to a response as chunked JSON, in the same shape as {@link ServiceList}, without holding more
+ * than one chunk of it in memory. A chunk of services is encoded at a time and the writer yields to the event loop
+ * between chunks, waiting for the response to drain whenever its write queue is full. The same services can also be
+ * written as NDJSON, one service per line.
+ */
+public class ServiceListWriter {
+
+    private final static Logger log = LoggerFactory.getLogger(ServiceListWriter.class.getName());
+    private final static int CHUNK_SIZE = 64 * 1024;
+
+    private final Context context;
+    private final Iterator<Service> services;
+    private final HttpServerResponse response;
+    private final ChunkOutputStream chunk = new ChunkOutputStream();
+    private final JsonGenerator generator;
+    private final boolean lines;
+    private boolean closed = false;
+
+    private ServiceListWriter(Context context, Iterator<Service> services, HttpServerResponse response, boolean lines) throws IOException {
+        this.context = context;
+        this.services = services;
+        this.response = response;
+        this.generator = Json.mapper.getFactory().createGenerator(chunk);
+        this.lines = lines;
+        if (lines) {
+            generator.setRootValueSeparator(null);
+        } else {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("services");
+        }
+    }
+
+    public static void write(Context context, Iterator<Service> services, HttpServerResponse response) {
+        start(context, services, response, false);
+    }
+
+    public static void writeLines(Context context, Iterator<Service> services, HttpServerResponse response) {
+        response.putHeader("Content-Type", "application/x-ndjson");
+        start(context, services, response, true);
+    }
+
+    private static void start(Context context, Iterator<Service> services, HttpServerResponse response, boolean lines) {
+        ServiceListWriter writer;
+        try {
+            writer = new ServiceListWriter(context, services, response, lines);
+        } catch (IOException e) {
+            log.error("Failed to start writing services.", e);
+            response.setStatusCode(500).end();
+            return;
+        }
+        response.setChunked(true);
+        response.closeHandler(ig -> writer.closed = true);
+        writer.writeChunk();
+    }
+
+    private void writeChunk() {
+        if (closed) {
+            return;
+        }
+        try {
+            while (services.hasNext() && chunk.buffer.length() < CHUNK_SIZE) {
+                Json.mapper.writeValue(generator, services.next());
+                if (lines) {
+                    generator.writeRaw('\n');
+                }
+                generator.flush();
+            }
+            if (!services.hasNext()) {
+                if (!lines) {
+                    generator.writeEndArray();
+                    generator.writeEndObject();
+                }
+                generator.close();
+                response.end(chunk.take());
+                return;
+            }
+        } catch (IOException e) {
+            log.error("Failed to write services.", e);
+            response.close();
+            return;
+        }
+        response.write(chunk.take());
+        if (response.writeQueueFull()) {
+            response.drainHandler(ig -> writeChunk());
+        } else {
+            context.runOnContext(ig -> writeChunk());
+        }
+    }
+
+    private static class ChunkOutputStream extends OutputStream {
+        private Buffer buffer = Buffer.buffer(CHUNK_SIZE + 1024);
+
+        @Override
+        public void write(int b) {
+            buffer.appendByte((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            buffer.appendBytes(b, off, len);
+        }
+
+        private Buffer take() {
+            Buffer taken = buffer;
+            buffer = Buffer.buffer(CHUNK_SIZE + 1024);
+            return taken;
+        }
+    }
+}
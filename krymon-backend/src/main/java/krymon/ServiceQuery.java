@@ -0,0 +1,200 @@
+package krymon;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * A page of the service list: optional filters on status, name prefix and URL host, a sort order, a page size, the
+ * cursor returned with the previous page and the fields to return for each service. Without a sort, services come
+ * in the order they were added.
+ */
+public class ServiceQuery {
+
+    public static final int MAX_LIMIT = 1000;
+    public static final List<String> FIELDS = Collections.unmodifiableList(Arrays.asList(
+            "id", "name", "url", "status", "lastCheck", "interval", "timeout", "latency", "check", "alert"));
+
+    public enum Sort {
+        NAME("name", Service::getName, value -> value),
+        STATUS("status", Service::getStatus, Service.Status::valueOf),
+        LAST_CHECK("lastCheck", service -> service.getLastCheck() != null ? service.getLastCheck().getMillis() : null, Long::valueOf);
+
+        private final String param;
+        private final Function<Service, Comparable<?>> key;
+        private final Function<String, Comparable<?>> parse;
+
+        Sort(String param, Function<Service, Comparable<?>> key, Function<String, Comparable<?>> parse) {
+            this.param = param;
+            this.key = key;
+            this.parse = parse;
+        }
+
+        Comparable<?> keyOf(Service service) {
+            return key.apply(service);
+        }
+
+        static Sort fromParam(String param) {
+            for (Sort sort : values()) {
+                if (sort.param.equals(param)) {
+                    return sort;
+                }
+            }
+            throw new IllegalArgumentException("Unknown sort " + param);
+        }
+    }
+
+    private Service.Status status;
+    private String namePrefix;
+    private String host;
+    private Sort sort;
+    private boolean descending;
+    private int limit = Integer.MAX_VALUE;
+    private Cursor cursor;
+    private Set<String> fields;
+
+    public Service.Status getStatus() {
+        return status;
+    }
+
+    public ServiceQuery setStatus(Service.Status status) {
+        this.status = status;
+        return this;
+    }
+
+    public String getNamePrefix() {
+        return namePrefix;
+    }
+
+    public ServiceQuery setNamePrefix(String namePrefix) {
+        this.namePrefix = namePrefix;
+        return this;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public ServiceQuery setHost(String host) {
+        this.host = host != null ? host.toLowerCase(Locale.ROOT) : null;
+        return this;
+    }
+
+    public Sort getSort() {
+        return sort;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public ServiceQuery setSort(Sort sort, boolean descending) {
+        this.sort = sort;
+        this.descending = descending;
+        return this;
+    }
+
+    /**
+     * Parses a sort parameter such as {@code name} or {@code -lastCheck}, where a leading minus sorts descending.
+     */
+    public ServiceQuery setSort(String param) {
+        boolean descending = param.startsWith("-");
+        return setSort(Sort.fromParam(descending ? param.substring(1) : param), descending);
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public ServiceQuery setLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_LIMIT + ", was " + limit);
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    Cursor getCursor() {
+        return cursor;
+    }
+
+    /**
+     * Continues after a cursor returned as {@code next} with a previous page. Set the sort first; a cursor is only
+     * valid for the sort it was returned for.
+     */
+    public ServiceQuery setCursor(String cursor) {
+        this.cursor = Cursor.decode(cursor, sort);
+        return this;
+    }
+
+    public ServiceQuery setFields(Set<String> fields) {
+        for (String field : fields) {
+            if (!FIELDS.contains(field)) {
+                throw new IllegalArgumentException("Unknown field " + field);
+            }
+        }
+        this.fields = new HashSet<>(fields);
+        return this;
+    }
+
+    public boolean matches(Service service) {
+        return (status == null || status == service.getStatus())
+                && (namePrefix == null || service.getName() != null && service.getName().startsWith(namePrefix))
+                && (host == null || host.equals(ServiceTable.hostOf(service.getUrl())));
+    }
+
+    public Service project(Service service) {
+        if (fields == null) {
+            return service;
+        }
+        return new Service(
+                fields.contains("id") ? service.getId() : null,
+                fields.contains("name") ? service.getName() : null,
+                fields.contains("url") ? service.getUrl() : null,
+                fields.contains("status") ? service.getStatus() : null,
+                fields.contains("lastCheck") ? service.getLastCheck() : null,
+                fields.contains("interval") ? service.getInterval() : null,
+                fields.contains("timeout") ? service.getTimeout() : null,
+                fields.contains("latency") ? service.getLatency() : null,
+                fields.contains("check") ? service.getCheck() : null,
+                fields.contains("alert") ? service.getAlert() : null);
+    }
+
+    /**
+     * The position of the last service of a page: its sort key, if sorted, and its insertion sequence.
+     */
+    static class Cursor {
+        final Comparable<?> value;
+        final long sequence;
+
+        Cursor(Comparable<?> value, long sequence) {
+            this.value = value;
+            this.sequence = sequence;
+        }
+
+        String encode(Sort sort) {
+            String position = (sort != null ? sort.param : "") + ":" + sequence + ":" + (value != null ? value : "");
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String cursor, Sort sort) {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = position.split(":", 3);
+            if (parts.length != 3 || !parts[0].equals(sort != null ? sort.param : "")) {
+                throw new IllegalArgumentException("Cursor does not match the sort");
+            }
+            long sequence = Long.parseLong(parts[1]);
+            Comparable<?> value = sort != null && !parts[2].isEmpty() ? sort.parse.apply(parts[2]) : null;
+            if (sort == Sort.NAME && value == null) {
+                value = "";
+            }
+            return new Cursor(value, sequence);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package krymon;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import rx.Single;
+import rx.SingleSubscriber;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * In-memory source of truth for the monitored services. The store is only read once, in {@link #load()}, and is
+ * written asynchronously: the {@link StoreRecord}s of all mutations made within the flush delay end up in a single
+ * write.
+ * <p>
+ * All changes go through {@link #submit(Mutation)}. Mutations are queued and applied in batches by a single writer
+ * bound to one event loop, so concurrent API calls and check results never overwrite each other. The services live
+ * in a {@link ServiceTable}, which any thread can read without locking. After every batch, listeners are handed the
+ * records of the changes the batch made.
+ */
+public class ServiceRegistry {
+
+    private final static Logger log = LoggerFactory.getLogger(ServiceRegistry.class.getName());
+    private final static int MAX_BATCH_SIZE = 1024;
+    private final Vertx vertx;
+    private final Context writerContext;
+    private final ServiceStore store;
+    private final long flushDelay;
+    private final ServiceTable services = new ServiceTable();
+    private final Queue<PendingMutation<?>> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+    private final List<Consumer<List<StoreRecord>>> listeners = new CopyOnWriteArrayList<>();
+    private List<StoreRecord> unflushed = new ArrayList<>();
+    private boolean flushScheduled = false;
+    private boolean flushing = false;
+
+    public ServiceRegistry(Vertx vertx, ServiceStore store, long flushDelay) {
+        this.vertx = vertx;
+        this.writerContext = vertx.getOrCreateContext();
+        this.store = store;
+        this.flushDelay = flushDelay;
+    }
+
+    public Single<Void> load() {
+        return store.load().flatMap(list -> submit((services, journal) -> {
+            services.clear();
+            for (Service service : list.getServices()) {
+                services.put(service.getId(), service);
+            }
+            return null;
+        }));
+    }
+
+    public ServiceList list() {
+        return new ServiceList(new ArrayList<>(services.values()));
+    }
+
+    public Optional<Service> get(String serviceID) {
+        return Optional.ofNullable(services.get(serviceID));
+    }
+
+    public ServiceList query(ServiceQuery query) {
+        return services.query(query);
+    }
+
+    public Iterator<Service> iterate(ServiceQuery query) {
+        return services.iterate(query);
+    }
+
+    public long revision() {
+        return services.revision();
+    }
+
+    public ServiceDelta changesSince(long since) {
+        return services.changesSince(since);
+    }
+
+    public void addListener(Consumer<List<StoreRecord>> listener) {
+        listeners.add(listener);
+    }
+
+    public <T> Single<T> submit(Mutation<T> mutation) {
+        return Single.create(subscriber -> {
+            queue.add(new PendingMutation<>(mutation, subscriber, Vertx.currentContext()));
+            if (drainScheduled.compareAndSet(false, true)) {
+                writerContext.runOnContext(ig -> drain());
+            }
+        });
+    }
+
+    private void drain() {
+        drainScheduled.set(false);
+        int applied = 0;
+        int changes = unflushed.size();
+        PendingMutation<?> pending;
+        while (applied < MAX_BATCH_SIZE && (pending = queue.poll()) != null) {
+            pending.apply(services, unflushed);
+            applied++;
+        }
+        if (unflushed.size() > changes) {
+            List<StoreRecord> records = Collections.unmodifiableList(new ArrayList<>(unflushed.subList(changes, unflushed.size())));
+            for (Consumer<List<StoreRecord>> listener : listeners) {
+                listener.accept(records);
+            }
+            scheduleFlush();
+        }
+        if (!queue.isEmpty() && drainScheduled.compareAndSet(false, true)) {
+            writerContext.runOnContext(ig -> drain());
+        }
+    }
+
+    private void scheduleFlush() {
+        if (!flushScheduled && !flushing) {
+            flushScheduled = true;
+            vertx.setTimer(flushDelay, ig -> writerContext.runOnContext(ig2 -> flush()));
+        }
+    }
+
+    private void flush() {
+        flushScheduled = false;
+        flushing = true;
+        List<StoreRecord> records = unflushed;
+        unflushed = new ArrayList<>();
+        store.write(records, this::list).subscribe(
+                ig -> writerContext.runOnContext(ig2 -> flushDone()),
+                e -> {
+                    log.error("Failed to write services to store.", e);
+                    writerContext.runOnContext(ig2 -> {
+                        records.addAll(unflushed);
+                        unflushed = records;
+                        flushDone();
+                    });
+                });
+    }
+
+    private void flushDone() {
+        flushing = false;
+        if (!unflushed.isEmpty()) {
+            scheduleFlush();
+        }
+    }
+
+    private static class PendingMutation<T> {
+        private final Mutation<T> mutation;
+        private final SingleSubscriber<? super T> subscriber;
+        private final Context callerContext;
+
+        private PendingMutation(Mutation<T> mutation, SingleSubscriber<? super T> subscriber, Context callerContext) {
+            this.mutation = mutation;
+            this.subscriber = subscriber;
+            this.callerContext = callerContext;
+        }
+
+        private void apply(Map<String, Service> services, List<StoreRecord> journal) {
+            T result;
+            try {
+                result = mutation.apply(services, journal);
+            } catch (RuntimeException e) {
+                complete(() -> subscriber.onError(e));
+                return;
+            }
+            complete(() -> subscriber.onSuccess(result));
+        }
+
+        private void complete(Runnable completion) {
+            if (callerContext != null && callerContext != Vertx.currentContext()) {
+                callerContext.runOnContext(ig -> completion.run());
+            } else {
+                completion.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package krymon;
+
+import rx.Single;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Persistence behind the {@link ServiceRegistry}. The registry loads the store once on start and then hands it the
+ * records of every flushed batch, in order, together with a way to get the full list should the store need it.
+ */
+public interface ServiceStore {
+
+    Single<ServiceList> load();
+
+    Single<Void> write(List<StoreRecord> records, Supplier<ServiceList> snapshot);
+}
@@ -0,0 +1,486 @@
+package krymon;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.BiFunction;
+
+/**
+ * Services by id, in the order they were added. Lookups go through a {@link ConcurrentHashMap} and iteration through
+ * a {@link ConcurrentSkipListMap} keyed by insertion sequence, so any number of threads can read without locking
+ * while the registry's single writer modifies the table. Iteration is weakly consistent.
+ * <p>
+ * The table also keeps a skip list per {@link ServiceQuery.Sort}, keyed by sort key and then insertion sequence, and
+ * one per URL host, keyed by insertion sequence, which {@link #query} walks from the cursor on instead of scanning
+ * every service.
+ * <p>
+ * Every change gets the next table revision, and each service is indexed by the revision it last changed in, so
+ * {@link #changesSince} finds what changed after a revision without a scan. A new check time alone is not a change.
+ * Deletions are remembered for the last {@value #MAX_DELETIONS} deletes. Revisions start from the creation time, so
+ * revisions handed out before a restart are older than any after it.
+ */
+public class ServiceTable extends AbstractMap<String, Service> {
+
+    public static final int MAX_DELETIONS = 10_000;
+    private static final ConcurrentNavigableMap<Key, Entry> EMPTY = new ConcurrentSkipListMap<>();
+
+    private final Map<String, Entry> byId = new ConcurrentHashMap<>();
+    private final ConcurrentNavigableMap<Key, Entry> bySequence = new ConcurrentSkipListMap<>();
+    private final Map<ServiceQuery.Sort, ConcurrentNavigableMap<Key, Entry>> bySort = new EnumMap<>(ServiceQuery.Sort.class);
+    private final Map<String, ConcurrentNavigableMap<Key, Entry>> byHost = new ConcurrentHashMap<>();
+    private final ConcurrentNavigableMap<Long, Entry> byRevision = new ConcurrentSkipListMap<>();
+    private final ConcurrentNavigableMap<Long, String> deletions = new ConcurrentSkipListMap<>();
+    private long nextSequence = 0;
+    private volatile long revision = System.currentTimeMillis() << 20;
+    private volatile long horizon = revision;
+
+    public ServiceTable() {
+        for (ServiceQuery.Sort sort : ServiceQuery.Sort.values()) {
+            bySort.put(sort, new ConcurrentSkipListMap<>());
+        }
+    }
+
+    @Override
+    public Service get(Object id) {
+        Entry entry = byId.get(id);
+        return entry != null ? entry.service : null;
+    }
+
+    @Override
+    public boolean containsKey(Object id) {
+        return byId.containsKey(id);
+    }
+
+    @Override
+    public int size() {
+        return byId.size();
+    }
+
+    @Override
+    public Service put(String id, Service service) {
+        Entry existing = byId.get(id);
+        if (existing != null) {
+            return update(existing, service);
+        }
+        long next = revision + 1;
+        Entry entry = new Entry(nextSequence++, next, service);
+        byId.put(id, entry);
+        bySequence.put(new Key(null, entry.sequence), entry);
+        byRevision.put(next, entry);
+        index(entry, service);
+        revision = next;
+        return null;
+    }
+
+    @Override
+    public Service remove(Object id) {
+        Entry entry = byId.remove(id);
+        if (entry == null) {
+            return null;
+        }
+        long next = revision + 1;
+        bySequence.remove(new Key(null, entry.sequence));
+        byRevision.remove(entry.revision);
+        unindex(entry, entry.service);
+        deletions.put(next, entry.service.getId());
+        if (deletions.size() > MAX_DELETIONS) {
+            horizon = deletions.pollFirstEntry().getKey();
+        }
+        revision = next;
+        return entry.service;
+    }
+
+    @Override
+    public Service computeIfPresent(String id, BiFunction<? super String, ? super Service, ? extends Service> remapping) {
+        Entry entry = byId.get(id);
+        if (entry == null) {
+            return null;
+        }
+        Service service = remapping.apply(id, entry.service);
+        if (service == null) {
+            remove(id);
+        } else {
+            update(entry, service);
+        }
+        return service;
+    }
+
+    @Override
+    public void clear() {
+        byId.clear();
+        bySequence.clear();
+        bySort.values().forEach(Map::clear);
+        byHost.clear();
+        byRevision.clear();
+        deletions.clear();
+        horizon = ++revision;
+    }
+
+    public long revision() {
+        return revision;
+    }
+
+    /**
+     * The services changed and deleted after {@code since}, up to the current revision, or the whole list if the
+     * deletions since then are no longer known.
+     */
+    public ServiceDelta changesSince(long since) {
+        long current = revision;
+        if (since < horizon || since > current) {
+            return new ServiceDelta(current, true, new ArrayList<>(values()), Collections.emptyList());
+        }
+        List<Service> services = new ArrayList<>();
+        for (Entry entry : byRevision.subMap(since, false, current, true).values()) {
+            services.add(entry.service);
+        }
+        return new ServiceDelta(current, false, services, new ArrayList<>(deletions.subMap(since, false, current, true).values()));
+    }
+
+    /**
+     * One page of the services matching the query, with the cursor of the next page if there is one.
+     * <p>
+     * When an index is ordered the way the query asks for and covers its filters, the page is read straight off that
+     * index from the cursor on, so the cost follows the page size. Otherwise the most selective filter index (host,
+     * then name prefix, then status) is scanned and only the best {@code limit} services are kept.
+     */
+    public ServiceList query(ServiceQuery query) {
+        Iterator<Hit> matching = hits(query);
+        List<Service> page = new ArrayList<>();
+        Key last = null;
+        while (matching.hasNext() && page.size() < query.getLimit()) {
+            Hit hit = matching.next();
+            page.add(hit.service);
+            last = hit.key;
+        }
+        String next = null;
+        if (matching.hasNext()) {
+            ServiceQuery.Sort sort = query.getSort();
+            next = new ServiceQuery.Cursor(sort != null ? last.value : null, last.sequence).encode(sort);
+        }
+        return new ServiceList(page, next);
+    }
+
+    /**
+     * All services matching the query from its cursor on, ignoring its limit. Services are read off the index as the
+     * iterator advances where the query allows it, as described for {@link #query}.
+     */
+    public Iterator<Service> iterate(ServiceQuery query) {
+        Iterator<Hit> matching = hits(query);
+        return new Iterator<Service>() {
+            @Override
+            public boolean hasNext() {
+                return matching.hasNext();
+            }
+
+            @Override
+            public Service next() {
+                return matching.next().service;
+            }
+        };
+    }
+
+    private Iterator<Hit> hits(ServiceQuery query) {
+        NavigableMap<Key, Entry> ordered = orderedSource(query);
+        if (ordered == null) {
+            return top(query, filteredSource(query)).iterator();
+        }
+        Iterator<Map.Entry<Key, Entry>> entries = ordered.entrySet().iterator();
+        return new Iterator<Hit>() {
+            private Hit next = advance();
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Hit next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Hit hit = next;
+                next = advance();
+                return hit;
+            }
+
+            private Hit advance() {
+                while (entries.hasNext()) {
+                    Map.Entry<Key, Entry> indexed = entries.next();
+                    Service service = indexed.getValue().service;
+                    if (query.matches(service)) {
+                        return new Hit(indexed.getKey(), service);
+                    }
+                }
+                return null;
+            }
+        };
+    }
+
+    static String hostOf(String url) {
+        try {
+            String host = new URI(url).getHost();
+            return host != null ? host.toLowerCase(Locale.ROOT) : "";
+        } catch (URISyntaxException | NullPointerException e) {
+            return "";
+        }
+    }
+
+    private NavigableMap<Key, Entry> orderedSource(ServiceQuery query) {
+        ServiceQuery.Sort sort = query.getSort();
+        if (sort == null) {
+            if (query.getHost() != null) {
+                return walk(byHost.getOrDefault(query.getHost(), EMPTY), null, query);
+            } else if (query.getStatus() != null) {
+                return walk(range(ServiceQuery.Sort.STATUS, query.getStatus()), query.getStatus(), query);
+            } else if (query.getNamePrefix() == null) {
+                return walk(bySequence, null, query);
+            }
+        } else if (sort == ServiceQuery.Sort.NAME && query.getNamePrefix() != null && query.getHost() == null) {
+            return walk(prefixRange(query.getNamePrefix()), null, query);
+        } else if (sort == ServiceQuery.Sort.STATUS && query.getStatus() != null && query.getHost() == null
+                && query.getNamePrefix() == null) {
+            return walk(range(ServiceQuery.Sort.STATUS, query.getStatus()), null, query);
+        } else if (query.getHost() == null && query.getNamePrefix() == null && query.getStatus() == null) {
+            return walk(bySort.get(sort), null, query);
+        }
+        return null;
+    }
+
+    private Collection<Entry> filteredSource(ServiceQuery query) {
+        if (query.getHost() != null) {
+            return byHost.getOrDefault(query.getHost(), EMPTY).values();
+        } else if (query.getNamePrefix() != null) {
+            return prefixRange(query.getNamePrefix()).values();
+        } else {
+            return range(ServiceQuery.Sort.STATUS, query.getStatus()).values();
+        }
+    }
+
+    /**
+     * The index from just after the query's cursor, in the query's direction. Indexes holding a single sort key value
+     * pass it as {@code fixedValue}, since insertion order cursors carry only a sequence.
+     */
+    private static NavigableMap<Key, Entry> walk(ConcurrentNavigableMap<Key, Entry> index, Comparable<?> fixedValue, ServiceQuery query) {
+        ServiceQuery.Cursor cursor = query.getCursor();
+        if (cursor == null) {
+            return query.isDescending() ? index.descendingMap() : index;
+        }
+        Key after = new Key(fixedValue != null ? fixedValue : cursor.value, cursor.sequence);
+        return query.isDescending() ? index.headMap(after, false).descendingMap() : index.tailMap(after, false);
+    }
+
+    private ConcurrentNavigableMap<Key, Entry> range(ServiceQuery.Sort sort, Comparable<?> value) {
+        return bySort.get(sort).subMap(new Key(value, Long.MIN_VALUE), true, new Key(value, Long.MAX_VALUE), true);
+    }
+
+    private ConcurrentNavigableMap<Key, Entry> prefixRange(String prefix) {
+        return bySort.get(ServiceQuery.Sort.NAME).subMap(
+                new Key(prefix, Long.MIN_VALUE), true, new Key(prefix + Character.MAX_VALUE, Long.MAX_VALUE), true);
+    }
+
+    /**
+     * The first {@code limit + 1} matching candidates after the cursor in the query's order, keeping no more than that
+     * many in memory.
+     */
+    private static List<Hit> top(ServiceQuery query, Collection<Entry> candidates) {
+        ServiceQuery.Sort sort = query.getSort();
+        ServiceQuery.Cursor cursor = query.getCursor();
+        Key after = cursor != null ? new Key(cursor.value, cursor.sequence) : null;
+        Comparator<Key> order = query.isDescending() ? Comparator.reverseOrder() : Comparator.naturalOrder();
+        int keep = query.getLimit() == Integer.MAX_VALUE ? Integer.MAX_VALUE : query.getLimit() + 1;
+        PriorityQueue<Hit> best = new PriorityQueue<>((a, b) -> order.compare(b.key, a.key));
+        for (Entry entry : candidates) {
+            Service service = entry.service;
+            if (!query.matches(service)) {
+                continue;
+            }
+            Hit hit = new Hit(new Key(sort != null ? sort.keyOf(service) : null, entry.sequence), service);
+            if (after != null && order.compare(hit.key, after) <= 0) {
+                continue;
+            }
+            best.add(hit);
+            if (best.size() > keep) {
+                best.poll();
+            }
+        }
+        List<Hit> hits = new ArrayList<>(best);
+        hits.sort((a, b) -> order.compare(a.key, b.key));
+        return hits;
+    }
+
+    private Service update(Entry entry, Service service) {
+        Service previous = entry.service;
+        for (ServiceQuery.Sort sort : ServiceQuery.Sort.values()) {
+            Comparable<?> from = sort.keyOf(previous);
+            Comparable<?> to = sort.keyOf(service);
+            if (!Objects.equals(from, to)) {
+                bySort.get(sort).put(new Key(to, entry.sequence), entry);
+                bySort.get(sort).remove(new Key(from, entry.sequence));
+            }
+        }
+        String fromHost = hostOf(previous.getUrl());
+        String toHost = hostOf(service.getUrl());
+        if (!fromHost.equals(toHost)) {
+            byHost.computeIfAbsent(toHost, ig -> new ConcurrentSkipListMap<>()).put(new Key(null, entry.sequence), entry);
+            removeFromHost(fromHost, entry);
+        }
+        boolean changed = previous.getStatus() != service.getStatus()
+                || !previous.withStatus(service.getStatus(), service.getLastCheck()).equals(service);
+        if (changed) {
+            long next = revision + 1;
+            byRevision.put(next, entry);
+            byRevision.remove(entry.revision);
+            entry.revision = next;
+            entry.service = service;
+            revision = next;
+        } else {
+            entry.service = service;
+        }
+        return previous;
+    }
+
+    private void index(Entry entry, Service service) {
+        for (ServiceQuery.Sort sort : ServiceQuery.Sort.values()) {
+            bySort.get(sort).put(new Key(sort.keyOf(service), entry.sequence), entry);
+        }
+        byHost.computeIfAbsent(hostOf(service.getUrl()), ig -> new ConcurrentSkipListMap<>()).put(new Key(null, entry.sequence), entry);
+    }
+
+    private void unindex(Entry entry, Service service) {
+        for (ServiceQuery.Sort sort : ServiceQuery.Sort.values()) {
+            bySort.get(sort).remove(new Key(sort.keyOf(service), entry.sequence));
+        }
+        removeFromHost(hostOf(service.getUrl()), entry);
+    }
+
+    private void removeFromHost(String host, Entry entry) {
+        byHost.computeIfPresent(host, (ig, services) -> {
+            services.remove(new Key(null, entry.sequence));
+            return services.isEmpty() ? null : services;
+        });
+    }
+
+    @Override
+    public Collection<Service> values() {
+        return new AbstractCollection<Service>() {
+            @Override
+            public Iterator<Service> iterator() {
+                Iterator<Entry> entries = bySequence.values().iterator();
+                return new Iterator<Service>() {
+                    @Override
+                    public boolean hasNext() {
+                        return entries.hasNext();
+                    }
+
+                    @Override
+                    public Service next() {
+                        return entries.next().service;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return bySequence.size();
+            }
+        };
+    }
+
+    @Override
+    public Set<Map.Entry<String, Service>> entrySet() {
+        return new AbstractSet<Map.Entry<String, Service>>() {
+            @Override
+            public Iterator<Map.Entry<String, Service>> iterator() {
+                Iterator<Service> services = values().iterator();
+                return new Iterator<Map.Entry<String, Service>>() {
+                    @Override
+                    public boolean hasNext() {
+                        return services.hasNext();
+                    }
+
+                    @Override
+                    public Map.Entry<String, Service> next() {
+                        Service service = services.next();
+                        return new SimpleImmutableEntry<>(service.getId(), service);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return bySequence.size();
+            }
+        };
+    }
+
+    private static class Entry {
+        private final long sequence;
+        private volatile long revision;
+        private volatile Service service;
+
+        private Entry(long sequence, long revision, Service service) {
+            this.sequence = sequence;
+            this.revision = revision;
+            this.service = service;
+        }
+    }
+
+    /**
+     * A position in an index: a sort key, or null for insertion order, then the insertion sequence.
+     */
+    private static final class Key implements Comparable<Key> {
+        private final Comparable<?> value;
+        private final long sequence;
+
+        private Key(Comparable<?> value, long sequence) {
+            this.value = value;
+            this.sequence = sequence;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public int compareTo(Key other) {
+            if (value != other.value) {
+                if (value == null) {
+                    return -1;
+                } else if (other.value == null) {
+                    return 1;
+                }
+                int compared = ((Comparable<Object>) value).compareTo(other.value);
+                if (compared != 0) {
+                    return compared;
+                }
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private static final class Hit {
+        private final Key key;
+        private final Service service;
+
+        private Hit(Key key, Service service) {
+            this.key = key;
+            this.service = service;
+        }
+    }
+}
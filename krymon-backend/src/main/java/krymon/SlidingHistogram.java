@@ -0,0 +1,51 @@
+package krymon;
+
+import org.HdrHistogram.AbstractHistogram;
+
+import java.util.function.Supplier;
+
+/**
+ * A histogram over a sliding time window, made of a fixed ring of slices which are reset as they are reused. Memory
+ * use only depends on the slice count and the histogram precision, not on how many values are recorded. Values
+ * beyond a slice's maximum count are dropped, so histograms with narrow count types never overflow.
+ */
+public class SlidingHistogram {
+
+    private final long sliceMillis;
+    private final AbstractHistogram[] slices;
+    private final long[] sliceIds;
+    private final long maxCountPerSlice;
+
+    public SlidingHistogram(long windowMillis, int sliceCount, long maxCountPerSlice, Supplier<AbstractHistogram> histograms) {
+        this.sliceMillis = windowMillis / sliceCount;
+        this.maxCountPerSlice = maxCountPerSlice;
+        this.slices = new AbstractHistogram[sliceCount];
+        this.sliceIds = new long[sliceCount];
+        for (int i = 0; i < sliceCount; i++) {
+            slices[i] = histograms.get();
+            sliceIds[i] = Long.MIN_VALUE;
+        }
+    }
+
+    public void record(long now, long value) {
+        long sliceId = now / sliceMillis;
+        int index = (int) (sliceId % slices.length);
+        AbstractHistogram slice = slices[index];
+        if (sliceIds[index] != sliceId) {
+            slice.reset();
+            sliceIds[index] = sliceId;
+        }
+        if (slice.getTotalCount() < maxCountPerSlice) {
+            slice.recordValue(Math.min(value, slice.getHighestTrackableValue()));
+        }
+    }
+
+    public void addTo(long now, AbstractHistogram target) {
+        long oldest = now / sliceMillis - slices.length;
+        for (int i = 0; i < slices.length; i++) {
+            if (sliceIds[i] > oldest) {
+                target.add(slices[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package krymon;
+
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.net.NetClient;
+import io.vertx.core.net.NetClientOptions;
+import io.vertx.core.net.NetSocket;
+import io.vertx.core.parsetools.RecordParser;
+import org.joda.time.DateTime;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+import rx.Single;
+import rx.SingleSubscriber;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Mails each notification as plain text through an SMTP relay which needs neither authentication nor TLS, such as a
+ * local MTA. A connection is opened per notification, which counts as sent once the relay has accepted the message.
+ */
+public class SmtpSink implements AlertSink {
+
+    private static final DateTimeFormatter DATE = DateTimeFormat.forPattern("EEE, dd MMM yyyy HH:mm:ss Z").withLocale(Locale.US);
+    private final Vertx vertx;
+    private final String host;
+    private final int port;
+    private final String from;
+    private final List<String> to;
+    private final int timeout;
+    private final NetClient client;
+
+    public SmtpSink(Vertx vertx, String host, int port, String from, List<String> to, KrymonOptions options) {
+        this.vertx = vertx;
+        this.host = host;
+        this.port = port;
+        this.from = from;
+        this.to = to;
+        this.timeout = options.getAlertTimeout();
+        this.client = vertx.createNetClient(new NetClientOptions().setConnectTimeout(timeout));
+    }
+
+    @Override
+    public Single<Void> send(AlertNotification notification) {
+        List<String> commands = new ArrayList<>();
+        commands.add("HELO krymon");
+        commands.add("MAIL FROM:<" + from + ">");
+        for (String recipient : to) {
+            commands.add("RCPT TO:<" + recipient + ">");
+        }
+        commands.add("DATA");
+        commands.add(message(notification) + ".");
+        return Single.create(subscriber -> client.connect(port, host, connected -> {
+            if (connected.failed()) {
+                subscriber.onError(connected.cause());
+                return;
+            }
+            NetSocket socket = connected.result();
+            Conversation conversation = new Conversation(socket, commands, subscriber);
+            conversation.timer = vertx.setTimer(timeout, ig -> conversation.finish(new IOException("Timed out mailing through " + host)));
+            socket.exceptionHandler(conversation::finish);
+            socket.closeHandler(ig -> conversation.finish(new IOException(host + " closed the connection")));
+            socket.handler(RecordParser.newDelimited("\r\n", conversation));
+        }));
+    }
+
+    /**
+     * The message, with headers and with every line ending in CRLF. Services are listed indented, so no line starts
+     * with a dot.
+     */
+    private String message(AlertNotification notification) {
+        StringBuilder message = new StringBuilder()
+                .append("From: ").append(from).append("\r\n")
+                .append("To: ").append(String.join(", ", to)).append("\r\n")
+                .append("Subject: ").append(subject(notification)).append("\r\n")
+                .append("Date: ").append(DATE.print(notification.getTimestamp())).append("\r\n")
+                .append("Content-Type: text/plain; charset=UTF-8\r\n")
+                .append("\r\n");
+        appendServices(message, "Alerting", notification.getFiring());
+        appendServices(message, "Resolved", notification.getResolved());
+        return message.toString();
+    }
+
+    private static String subject(AlertNotification notification) {
+        List<String> parts = new ArrayList<>();
+        if (!notification.getFiring().isEmpty()) {
+            parts.add(notification.getFiring().size() + " alerting");
+        }
+        if (!notification.getResolved().isEmpty()) {
+            parts.add(notification.getResolved().size() + " resolved");
+        }
+        return "[Krymon] " + String.join(", ", parts);
+    }
+
+    private static void appendServices(StringBuilder message, String title, List<Service> services) {
+        if (services.isEmpty()) {
+            return;
+        }
+        message.append(title).append(":\r\n");
+        for (Service service : services) {
+            DateTime since = service.getLastCheck();
+            String line = "  " + service.getName() + " (" + service.getUrl() + ") " + service.getStatus()
+                    + (since != null ? " since " + since : "");
+            message.append(line.replaceAll("[\r\n]", " ")).append("\r\n");
+        }
+        message.append("\r\n");
+    }
+
+    /**
+     * Sends the commands one at a time, each after a positive reply to the previous, starting from the greeting.
+     */
+    private class Conversation implements Handler<Buffer> {
+        private final NetSocket socket;
+        private final List<String> commands;
+        private final SingleSubscriber<? super Void> subscriber;
+        private long timer;
+        private int next = 0;
+        private boolean done = false;
+
+        private Conversation(NetSocket socket, List<String> commands, SingleSubscriber<? super Void> subscriber) {
+            this.socket = socket;
+            this.commands = commands;
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void handle(Buffer buffer) {
+            String line = buffer.toString("UTF-8");
+            if (done || line.length() > 3 && line.charAt(3) == '-') {
+                return;
+            }
+            boolean data = next > 0 && commands.get(next - 1).equals("DATA");
+            char expected = data ? '3' : '2';
+            if (line.isEmpty() || line.charAt(0) != expected) {
+                finish(new IOException(host + " answered " + line));
+            } else if (next == commands.size()) {
+                finish(null);
+            } else {
+                socket.write(commands.get(next++) + "\r\n");
+            }
+        }
+
+        private void finish(Throwable error) {
+            if (done) {
+                return;
+            }
+            done = true;
+            vertx.cancelTimer(timer);
+            socket.closeHandler(null);
+            socket.write("QUIT\r\n");
+            socket.close();
+            if (error != null) {
+                subscriber.onError(error);
+            } else {
+                subscriber.onSuccess(null);
+            }
+        }
+    }
+}
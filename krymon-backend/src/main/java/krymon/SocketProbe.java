@@ -0,0 +1,103 @@
+package krymon;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.net.NetClient;
+import io.vertx.core.net.NetClientOptions;
+import io.vertx.core.net.NetSocket;
+import rx.Single;
+
+import javax.net.ssl.SSLPeerUnverifiedException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Checks {@code tcp://host:port} URLs by opening a connection, and {@code tls://host:port} URLs by also completing a
+ * TLS handshake, with the certificate verified against the host name. A TLS check reports the days left until the
+ * server's certificate expires, and fails if they are fewer than the service's
+ * {@link CheckSpec#getMinCertificateDays()}. The connection is closed as soon as it is open.
+ */
+public class SocketProbe implements Probe {
+
+    private final Vertx vertx;
+    private final NetClient client;
+    private final boolean tls;
+
+    public SocketProbe(Vertx vertx, KrymonOptions options, boolean tls) {
+        this.vertx = vertx;
+        this.tls = tls;
+        this.client = vertx.createNetClient(new NetClientOptions()
+                .setSsl(tls)
+                .setHostnameVerificationAlgorithm(tls ? "HTTPS" : "")
+                .setConnectTimeout(options.getCheckTimeout()));
+    }
+
+    @Override
+    public Single<CheckResult> check(Service service, int timeout) {
+        return Single.create(subscriber -> {
+            long start = System.nanoTime();
+            URI uri;
+            try {
+                uri = new URI(service.getUrl());
+            } catch (URISyntaxException e) {
+                subscriber.onSuccess(CheckResult.error(System.currentTimeMillis(), 0, CheckResult.ErrorClass.INVALID_URL));
+                return;
+            }
+            if (uri.getHost() == null || uri.getPort() < 0) {
+                subscriber.onSuccess(CheckResult.error(System.currentTimeMillis(), 0, CheckResult.ErrorClass.INVALID_URL));
+                return;
+            }
+            AtomicBoolean done = new AtomicBoolean();
+            long timer = vertx.setTimer(timeout, ig -> {
+                if (done.compareAndSet(false, true)) {
+                    subscriber.onSuccess(CheckResult.error(System.currentTimeMillis(), micros(start), CheckResult.ErrorClass.TIMEOUT));
+                }
+            });
+            client.connect(uri.getPort(), uri.getHost(), uri.getHost(), connected -> {
+                if (connected.succeeded()) {
+                    long micros = micros(start);
+                    NetSocket socket = connected.result();
+                    Integer days = tls ? certificateDays(socket) : null;
+                    socket.close();
+                    if (done.compareAndSet(false, true)) {
+                        vertx.cancelTimer(timer);
+                        subscriber.onSuccess(result(service, micros, days));
+                    }
+                } else if (done.compareAndSet(false, true)) {
+                    vertx.cancelTimer(timer);
+                    subscriber.onSuccess(CheckResult.error(System.currentTimeMillis(), micros(start), CheckResult.ErrorClass.of(connected.cause())));
+                }
+            });
+        });
+    }
+
+    private static CheckResult result(Service service, long micros, Integer days) {
+        CheckResult result = CheckResult.success(System.currentTimeMillis(), micros, micros);
+        if (days == null) {
+            return result;
+        }
+        result = result.withCertificateDays(days);
+        Integer minDays = service.getCheck() != null ? service.getCheck().getMinCertificateDays() : null;
+        return minDays != null && days < minDays ? result.failing(CheckResult.Assertion.CERTIFICATE) : result;
+    }
+
+    private static Integer certificateDays(NetSocket socket) {
+        try {
+            Certificate[] chain = socket.sslSession().getPeerCertificates();
+            if (chain.length == 0 || !(chain[0] instanceof X509Certificate)) {
+                return null;
+            }
+            long left = ((X509Certificate) chain[0]).getNotAfter().getTime() - System.currentTimeMillis();
+            return (int) Math.floorDiv(left, TimeUnit.DAYS.toMillis(1));
+        } catch (SSLPeerUnverifiedException e) {
+            return null;
+        }
+    }
+
+    private static long micros(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1000;
+    }
+}
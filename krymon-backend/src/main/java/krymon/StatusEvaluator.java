@@ -0,0 +1,111 @@
+package krymon;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Decides the status of services from their latest checks, so that one failed check does not make a service FAIL and
+ * one success does not make it OK again. The outcomes of the last 64 checks of a service are kept as bits of a long.
+ * <p>
+ * A service fails once {@link KrymonOptions#getFailureThreshold()} of its last {@link KrymonOptions#getStatusWindow()}
+ * checks have failed, and only recovers once {@link KrymonOptions#getRecoveryThreshold()} of them have succeeded. In
+ * between, a service which is up becomes DEGRADED when {@link KrymonOptions#getDegradedThreshold()} of the checks have
+ * failed, and OK again when none have. A service whose checks keep alternating between success and failure is
+ * FLAPPING instead, from when more than the flap start ratio of its last {@link KrymonOptions#getFlapWindow()} checks
+ * changed outcome until fewer than the flap stop ratio did. The first check of a new service decides its status on its
+ * own.
+ * <p>
+ * Each check verticle has its own evaluator for the services it checks, used from its event loop only.
+ */
+public class StatusEvaluator {
+
+    private static final int MAX_WINDOW = Long.SIZE;
+
+    private final int window;
+    private final int failureThreshold;
+    private final int recoveryThreshold;
+    private final int degradedThreshold;
+    private final int flapWindow;
+    private final double flapStart;
+    private final double flapStop;
+    private final Map<String, State> states = new HashMap<>();
+
+    public StatusEvaluator(KrymonOptions options) {
+        this.window = Math.min(options.getStatusWindow(), MAX_WINDOW);
+        this.failureThreshold = options.getFailureThreshold();
+        this.recoveryThreshold = options.getRecoveryThreshold();
+        this.degradedThreshold = options.getDegradedThreshold();
+        this.flapWindow = Math.min(options.getFlapWindow(), MAX_WINDOW);
+        this.flapStart = options.getFlapStart();
+        this.flapStop = options.getFlapStop();
+    }
+
+    /**
+     * Records the outcome of a check of a service and returns the status the service should now have.
+     */
+    public Service.Status evaluate(Service service, boolean ok) {
+        State state = states.computeIfAbsent(service.getId(), id -> new State(service.getStatus()));
+        state.failures = (state.failures << 1) | (ok ? 0 : 1);
+        state.checks = Math.min(state.checks + 1, MAX_WINDOW);
+        state.steady = steady(state, ok);
+        state.flapping = flapping(state);
+        return state.flapping ? Service.Status.FLAPPING : state.steady;
+    }
+
+    public void forget(String serviceID) {
+        states.remove(serviceID);
+    }
+
+    private Service.Status steady(State state, boolean ok) {
+        int checks = Math.min(state.checks, window);
+        int failed = Long.bitCount(state.failures & mask(checks));
+        switch (state.steady) {
+            case UNKNOWN:
+                return ok ? Service.Status.OK : Service.Status.FAIL;
+            case FAIL:
+                if (checks - failed < recoveryThreshold) {
+                    return Service.Status.FAIL;
+                }
+                return failed >= degradedThreshold ? Service.Status.DEGRADED : Service.Status.OK;
+            default:
+                if (failed >= failureThreshold) {
+                    return Service.Status.FAIL;
+                } else if (failed >= degradedThreshold) {
+                    return Service.Status.DEGRADED;
+                } else if (failed == 0) {
+                    return Service.Status.OK;
+                } else {
+                    return state.steady;
+                }
+        }
+    }
+
+    private boolean flapping(State state) {
+        if (state.checks < flapWindow || flapWindow < 2) {
+            return state.flapping;
+        }
+        long changes = (state.failures ^ (state.failures >>> 1)) & mask(flapWindow - 1);
+        double ratio = Long.bitCount(changes) / (double) (flapWindow - 1);
+        if (state.flapping) {
+            return ratio >= flapStop;
+        } else {
+            return ratio > flapStart;
+        }
+    }
+
+    private static long mask(int bits) {
+        return bits >= MAX_WINDOW ? -1L : (1L << bits) - 1;
+    }
+
+    private static class State {
+        private long failures = 0;
+        private int checks = 0;
+        private Service.Status steady;
+        private boolean flapping;
+
+        private State(Service.Status status) {
+            this.flapping = status == Service.Status.FLAPPING;
+            this.steady = status == Service.Status.FLAPPING ? Service.Status.UNKNOWN : status;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package krymon;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency and size of the reads and writes a {@link ServiceStore} makes to disk.
+ */
+public class StoreMetrics {
+
+    private final Timer reads = new Timer();
+    private final Timer writes = new Timer();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+
+    public void read(long nanos, long bytes) {
+        reads.record(nanos);
+        bytesRead.add(bytes);
+    }
+
+    public void write(long nanos, long bytes) {
+        writes.record(nanos);
+        bytesWritten.add(bytes);
+    }
+
+    public void writeTo(PrometheusWriter writer) {
+        writer.type("krymon_store_read_duration_seconds", "histogram", "Duration of reads from the service store.");
+        reads.writeTo(writer, "krymon_store_read_duration_seconds", Timer.Labels.NONE);
+        writer.type("krymon_store_read_bytes_total", "counter", "Bytes read from the service store.");
+        writer.sample("krymon_store_read_bytes_total").value(bytesRead.sum());
+        writer.type("krymon_store_write_duration_seconds", "histogram", "Duration of writes to the service store.");
+        writes.writeTo(writer, "krymon_store_write_duration_seconds", Timer.Labels.NONE);
+        writer.type("krymon_store_write_bytes_total", "counter", "Bytes written to the service store.");
+        writer.sample("krymon_store_write_bytes_total").value(bytesWritten.sum());
+    }
+}
@@ -0,0 +1,105 @@
+package krymon;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.joda.time.DateTime;
+
+import java.util.Map;
+import java.util.Objects;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class StoreRecord {
+    private final Type type;
+    private final String id;
+    private final Service service;
+    private final Service.Status status;
+    private final DateTime lastCheck;
+
+    @JsonCreator
+    public StoreRecord(
+            @JsonProperty("type")
+            Type type,
+            @JsonProperty("id")
+            String id,
+            @JsonProperty("service")
+            Service service,
+            @JsonProperty("status")
+            Service.Status status,
+            @JsonProperty("lastCheck")
+            DateTime lastCheck
+    ) {
+        this.type = type;
+        this.id = id;
+        this.service = service;
+        this.status = status;
+        this.lastCheck = lastCheck;
+    }
+
+    public enum Type {
+        ADD, DELETE, STATUS
+    }
+
+    public static StoreRecord add(Service service) {
+        return new StoreRecord(Type.ADD, service.getId(), service, null, null);
+    }
+
+    public static StoreRecord delete(String serviceID) {
+        return new StoreRecord(Type.DELETE, serviceID, null, null, null);
+    }
+
+    public static StoreRecord status(String serviceID, Service.Status status, DateTime lastCheck) {
+        return new StoreRecord(Type.STATUS, serviceID, null, status, lastCheck);
+    }
+
+    public boolean applyTo(Map<String, Service> services) {
+        switch (type) {
+            case ADD:
+                services.put(id, service);
+                return true;
+            case DELETE:
+                return services.remove(id) != null;
+            case STATUS:
+                return services.computeIfPresent(id, (ig, s) -> s.withStatus(status, lastCheck)) != null;
+            default:
+                throw new IllegalStateException("Unknown record type " + type);
+        }
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Service getService() {
+        return service;
+    }
+
+    public Service.Status getStatus() {
+        return status;
+    }
+
+    public DateTime getLastCheck() {
+        return lastCheck;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        StoreRecord that = (StoreRecord) o;
+        return type == that.type &&
+                Objects.equals(id, that.id) &&
+                Objects.equals(service, that.service) &&
+                status == that.status &&
+                Objects.equals(lastCheck, that.lastCheck);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, id, service, status, lastCheck);
+    }
+}
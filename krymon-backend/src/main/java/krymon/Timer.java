@@ -0,0 +1,67 @@
+package krymon;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts durations into fixed buckets, rendered as a Prometheus histogram in seconds.
+ */
+public class Timer {
+
+    private static final double[] BUCKETS = {0.001, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+    private static final String[] BUCKET_LABELS = new String[BUCKETS.length];
+    private static final long[] BUCKET_NANOS = new long[BUCKETS.length];
+
+    static {
+        for (int i = 0; i < BUCKETS.length; i++) {
+            BUCKET_LABELS[i] = Double.toString(BUCKETS[i]);
+            BUCKET_NANOS[i] = (long) (BUCKETS[i] * TimeUnit.SECONDS.toNanos(1));
+        }
+    }
+
+    private final LongAdder[] counts = new LongAdder[BUCKETS.length];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumNanos = new LongAdder();
+
+    public Timer() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        for (int i = 0; i < BUCKET_NANOS.length; i++) {
+            if (nanos <= BUCKET_NANOS[i]) {
+                counts[i].increment();
+                break;
+            }
+        }
+        count.increment();
+        sumNanos.add(nanos);
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    /**
+     * Writes the buckets, sum and count of this timer. {@code labels} writes any labels shared by all samples.
+     */
+    public void writeTo(PrometheusWriter writer, String name, Labels labels) {
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i].sum();
+            labels.writeTo(writer.sample(name + "_bucket")).label("le", BUCKET_LABELS[i]).value(cumulative);
+        }
+        long total = count.sum();
+        labels.writeTo(writer.sample(name + "_bucket")).label("le", "+Inf").value(total);
+        labels.writeTo(writer.sample(name + "_sum")).value(sumNanos.sum() / 1e9);
+        labels.writeTo(writer.sample(name + "_count")).value(total);
+    }
+
+    public interface Labels {
+        Labels NONE = writer -> writer;
+
+        PrometheusWriter writeTo(PrometheusWriter writer);
+    }
+}
@@ -0,0 +1,68 @@
+package krymon;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Consumer;
+
+/**
+ * A hashed timing wheel. Scheduling is O(1); each tick only looks at the entries hashed to that tick's slot.
+ * Deadlines are rounded up to whole ticks. Not thread safe, it is meant to be owned by one event loop.
+ */
+public class TimingWheel<T> {
+
+    private final long tickMillis;
+    private final Deque<Entry<T>>[] slots;
+    private long currentTick;
+    private int size = 0;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, int slotCount, long now) {
+        this.tickMillis = tickMillis;
+        this.slots = (Deque<Entry<T>>[]) new Deque<?>[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = new ArrayDeque<>();
+        }
+        this.currentTick = now / tickMillis;
+    }
+
+    public void schedule(T item, long deadline) {
+        long tick = Math.max((deadline + tickMillis - 1) / tickMillis, currentTick + 1);
+        slots[(int) (tick % slots.length)].add(new Entry<>(item, tick));
+        size++;
+    }
+
+    public void advance(long now, Consumer<T> expired) {
+        long targetTick = now / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+            Deque<Entry<T>> slot = slots[(int) (currentTick % slots.length)];
+            for (int i = slot.size(); i > 0; i--) {
+                Entry<T> entry = slot.poll();
+                if (entry.tick <= currentTick) {
+                    size--;
+                    expired.accept(entry.item);
+                } else {
+                    slot.add(entry);
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    private static class Entry<T> {
+        private final T item;
+        private final long tick;
+
+        private Entry(T item, long tick) {
+            this.item = item;
+            this.tick = tick;
+        }
+    }
+}
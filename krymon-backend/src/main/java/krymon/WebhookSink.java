@@ -0,0 +1,38 @@
+package krymon;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.json.Json;
+import rx.Single;
+
+import java.io.IOException;
+
+/**
+ * Posts each notification as JSON to a URL. Any answer but a 2xx fails the notification.
+ */
+public class WebhookSink implements AlertSink {
+
+    private final String url;
+    private final int timeout;
+    private final HttpClient client;
+
+    public WebhookSink(Vertx vertx, String url, KrymonOptions options) {
+        this.url = url;
+        this.timeout = options.getAlertTimeout();
+        this.client = vertx.createHttpClient();
+    }
+
+    @Override
+    public Single<Void> send(AlertNotification notification) {
+        return Single.create(subscriber -> client.postAbs(url, response -> response.bodyHandler(ig -> {
+            if (response.statusCode() / 100 == 2) {
+                subscriber.onSuccess(null);
+            } else {
+                subscriber.onError(new IOException(url + " answered " + response.statusCode()));
+            }
+        })).setTimeout(timeout)
+                .exceptionHandler(subscriber::onError)
+                .putHeader("Content-Type", "application/json")
+                .end(Json.encodeToBuffer(notification)));
+    }
+}
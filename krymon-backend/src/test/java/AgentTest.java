@@ -0,0 +1,161 @@
+import com.fasterxml.jackson.datatype.joda.JodaModule;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.json.Json;
+import krymon.Agent;
+import krymon.CheckResult;
+import krymon.HttpProbe;
+import krymon.Krymon;
+import krymon.KrymonOptions;
+import krymon.NewService;
+import krymon.Probe;
+import krymon.Service;
+import krymon.ServiceList;
+import krymon.VantageResults;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import rx.Single;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class AgentTest {
+
+    private static final int PORT = 8094;
+    private final List<Vertx> nodes = new ArrayList<>();
+    private Vertx vertx;
+    private HttpClient httpClient;
+
+    @Before
+    public void setup() throws IOException {
+        Json.mapper.registerModule(new JodaModule());
+        File storeFile = File.createTempFile("krymon-agent-test", ".json");
+        storeFile.delete();
+        storeFile.deleteOnExit();
+        Vertx aggregator = Vertx.vertx();
+        new Krymon(aggregator, storeFile.getAbsolutePath(), new KrymonOptions()
+                .setPort(PORT)
+                .setCheckPeriod(100)
+                .setApiInstances(2)
+                .setAggregating(true)).start().toBlocking().value();
+        nodes.add(aggregator);
+        for (String name : Arrays.asList("a1", "a2", "a3")) {
+            Vertx agent = Vertx.vertx();
+            KrymonOptions options = new KrymonOptions()
+                    .setAggregator("http://localhost:" + PORT)
+                    .setAgentName(name)
+                    .setCheckPeriod(100)
+                    .setCheckInstances(2)
+                    .setAgentSyncInterval(100)
+                    .setResultFlushInterval(100);
+            if (name.equals("a3")) {
+                options.addProbe("http", (v, o, m) -> {
+                    Probe http = new HttpProbe(v, o, m);
+                    return (service, timeout) -> service.getName().equals("one-vantage")
+                            ? Single.just(CheckResult.error(System.currentTimeMillis(), 0, CheckResult.ErrorClass.CONNECTION))
+                            : http.check(service, timeout);
+                });
+            }
+            new Agent(agent, options).start().toBlocking().value();
+            nodes.add(agent);
+        }
+        vertx = Vertx.vertx();
+        httpClient = vertx.createHttpClient();
+    }
+
+    @After
+    public void cleanup() {
+        for (Vertx node : nodes) {
+            close(node).toBlocking().value();
+        }
+        close(vertx).toBlocking().value();
+    }
+
+    @Test
+    public void shouldDecideStatusByQuorumOfAgents() throws InterruptedException {
+        HttpServer server = Single.<HttpServer>create(subscriber -> vertx.createHttpServer()
+                .requestHandler(request -> request.response().end())
+                .listen(0, listening -> subscriber.onSuccess(listening.result()))).toBlocking().value();
+        addService(new NewService("everywhere", "http://localhost:" + server.actualPort() + "/a"));
+        addService(new NewService("one-vantage", "http://localhost:" + server.actualPort() + "/b"));
+        addService(new NewService("down", "http://localhost:1/"));
+
+        await(() -> {
+            Map<String, Service.Status> statuses = new HashMap<>();
+            for (Service service : getServices().getServices()) {
+                statuses.put(service.getName(), service.getStatus());
+            }
+            assertEquals(Service.Status.OK, statuses.get("everywhere"));
+            assertEquals(Service.Status.DEGRADED, statuses.get("one-vantage"));
+            assertEquals(Service.Status.FAIL, statuses.get("down"));
+            for (Service service : getServices().getServices()) {
+                VantageResults vantages = Json.decodeValue(get("/service/" + service.getId() + "/agents"), VantageResults.class);
+                assertEquals(Arrays.asList("a1", "a2", "a3"), new ArrayList<>(vantages.getAgents().keySet()));
+            }
+        });
+        server.close();
+    }
+
+    @Test
+    public void shouldForgetStatusOnceAgentsGoQuiet() throws InterruptedException {
+        HttpServer server = Single.<HttpServer>create(subscriber -> vertx.createHttpServer()
+                .requestHandler(request -> request.response().end())
+                .listen(0, listening -> subscriber.onSuccess(listening.result()))).toBlocking().value();
+        addService(new NewService("everywhere", "http://localhost:" + server.actualPort() + "/"));
+        await(() -> assertEquals(Service.Status.OK, getServices().getServices().get(0).getStatus()));
+
+        while (nodes.size() > 1) {
+            close(nodes.remove(nodes.size() - 1)).toBlocking().value();
+        }
+        await(() -> assertEquals(Service.Status.UNKNOWN, getServices().getServices().get(0).getStatus()));
+        server.close();
+    }
+
+    private ServiceList getServices() {
+        return Json.decodeValue(get("/service"), ServiceList.class);
+    }
+
+    private Buffer get(String uri) {
+        return Single.<Buffer>create(subscriber ->
+                httpClient.getNow(PORT, "localhost", uri, response -> response.bodyHandler(subscriber::onSuccess))).toBlocking().value();
+    }
+
+    private void addService(NewService service) {
+        Single.create(subscriber -> httpClient.post(PORT, "localhost", "/service")
+                .handler(subscriber::onSuccess).end(Json.encode(service))).toBlocking().value();
+    }
+
+    private static Single<Void> close(Vertx vertx) {
+        return Single.create(subscriber -> vertx.close(closed -> subscriber.onSuccess(null)));
+    }
+
+    private interface Condition {
+        void check();
+    }
+
+    private void await(Condition condition) throws InterruptedException {
+        AssertionError exception = null;
+        for (int i = 0; i < 1000; i++) {
+            try {
+                condition.check();
+                return;
+            } catch (AssertionError e) {
+                exception = e;
+            }
+            Thread.sleep(10);
+        }
+        if (exception != null) {
+            throw exception;
+        }
+    }
+}
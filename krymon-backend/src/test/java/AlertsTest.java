@@ -0,0 +1,265 @@
+import com.fasterxml.jackson.datatype.joda.JodaModule;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.Json;
+import io.vertx.core.net.NetServer;
+import io.vertx.core.parsetools.RecordParser;
+import krymon.AlertNotification;
+import krymon.AlertSpec;
+import krymon.CommandSink;
+import krymon.Krymon;
+import krymon.KrymonOptions;
+import krymon.NewService;
+import krymon.Service;
+import krymon.ServiceList;
+import krymon.SmtpSink;
+import krymon.WebhookSink;
+import org.joda.time.DateTime;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import rx.Single;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AlertsTest {
+
+    private static final int PORT = 8095;
+    private final List<AlertNotification> notifications = new CopyOnWriteArrayList<>();
+    private final List<String> mails = new CopyOnWriteArrayList<>();
+    private final AtomicInteger webhookRequests = new AtomicInteger();
+    private volatile int webhookFailures = 0;
+    private volatile int serviceStatus = 200;
+    private Vertx vertx;
+    private Vertx krymon;
+    private HttpClient httpClient;
+    private HttpServer service;
+    private File storeFile;
+    private File commandFile;
+
+    @Before
+    public void setup() throws IOException {
+        Json.mapper.registerModule(new JodaModule());
+        vertx = Vertx.vertx();
+        httpClient = vertx.createHttpClient();
+        service = listen(request -> request.response().setStatusCode(serviceStatus).end());
+        HttpServer webhook = listen(request -> request.bodyHandler(body -> {
+            if (webhookRequests.incrementAndGet() <= webhookFailures) {
+                request.response().setStatusCode(503).end();
+            } else {
+                notifications.add(Json.decodeValue(body, AlertNotification.class));
+                request.response().end();
+            }
+        }));
+        NetServer smtp = smtpStub();
+        storeFile = File.createTempFile("krymon-alerts-test", ".json");
+        storeFile.delete();
+        commandFile = File.createTempFile("krymon-alerts-test", ".out");
+        commandFile.delete();
+        String command = "cat > " + commandFile.getAbsolutePath();
+        krymon = Vertx.vertx();
+        new Krymon(krymon, storeFile.getAbsolutePath(), new KrymonOptions()
+                .setPort(PORT)
+                .setCheckPeriod(50)
+                .setAlertWindow(1000)
+                .setAlertRetryDelay(50)
+                .addAlertSink("webhook", (v, o) -> new WebhookSink(v, "http://localhost:" + webhook.actualPort() + "/alerts", o))
+                .addAlertSink("mail", (v, o) -> new SmtpSink(v, "localhost", smtp.actualPort(), "krymon@localhost",
+                        Collections.singletonList("ops@localhost"), o))
+                .addAlertSink("command", (v, o) -> new CommandSink(v, command, o))).start().toBlocking().value();
+    }
+
+    @After
+    public void cleanup() {
+        close(krymon).toBlocking().value();
+        close(vertx).toBlocking().value();
+        storeFile.delete();
+        new File(storeFile.getAbsolutePath() + ".journal").delete();
+        commandFile.delete();
+    }
+
+    @Test
+    public void shouldSendOneNotificationPerTargetForAnOutage() throws InterruptedException {
+        String url = "http://localhost:" + service.actualPort() + "/";
+        for (int i = 0; i < 5; i++) {
+            addService(new NewService("service-" + i, url + i));
+        }
+        addService(new NewService("muted", url + "muted", null, null, null, new AlertSpec(null, null, true)));
+        addService(new NewService("mail-only", url + "mail", null, null, null,
+                new AlertSpec(Collections.singletonList("mail"), null, null)));
+        await(() -> {
+            for (Service service : getServices().getServices()) {
+                assertEquals(Service.Status.OK, service.getStatus());
+            }
+        });
+
+        serviceStatus = 500;
+        await(() -> assertEquals(1, notifications.size()));
+        AlertNotification outage = notifications.get(0);
+        assertEquals("webhook", outage.getTarget());
+        assertEquals(Arrays.asList("service-0", "service-1", "service-2", "service-3", "service-4"), sortedNames(outage.getFiring()));
+        assertEquals(Collections.emptyList(), outage.getResolved());
+        await(() -> {
+            assertEquals(1, mails.size());
+            assertTrue(mails.get(0), mails.get(0).contains("Subject: [Krymon] 6 alerting\r\n"));
+            assertTrue(mails.get(0), mails.get(0).contains("  mail-only (" + url + "mail) FAIL"));
+        });
+        await(() -> {
+            AlertNotification ran = read(commandFile);
+            assertEquals("command", ran.getTarget());
+            assertEquals(5, ran.getFiring().size());
+        });
+
+        serviceStatus = 200;
+        await(() -> assertEquals(2, notifications.size()));
+        AlertNotification recovery = notifications.get(1);
+        assertEquals(Collections.emptyList(), recovery.getFiring());
+        assertEquals(Arrays.asList("service-0", "service-1", "service-2", "service-3", "service-4"), sortedNames(recovery.getResolved()));
+        await(() -> {
+            assertEquals(2, mails.size());
+            assertTrue(mails.get(1), mails.get(1).contains("Subject: [Krymon] 6 resolved\r\n"));
+        });
+    }
+
+    @Test
+    public void shouldRetryFailedNotifications() throws InterruptedException {
+        webhookFailures = 2;
+        addService(new NewService("down", "http://localhost:" + service.actualPort() + "/"));
+        await(() -> assertEquals(Service.Status.OK, getServices().getServices().get(0).getStatus()));
+
+        serviceStatus = 500;
+        await(() -> assertEquals(1, notifications.size()));
+        assertEquals(3, webhookRequests.get());
+        assertEquals(Collections.singletonList("down"), sortedNames(notifications.get(0).getFiring()));
+    }
+
+    @Test(timeout = 20_000)
+    public void shouldTimeOutCommandsWhichDoNotReadTheirInput() {
+        CommandSink sink = new CommandSink(vertx, "sleep 60", new KrymonOptions().setAlertTimeout(500));
+        List<Service> services = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            services.add(new Service(String.valueOf(i), "service-" + i, "http://localhost/" + i, Service.Status.FAIL, DateTime.now()));
+        }
+        AlertNotification large = new AlertNotification("command", DateTime.now(), services, Collections.emptyList());
+        assertTrue(Json.encodeToBuffer(large).length() > 128 * 1024);
+
+        try {
+            sink.send(large).toBlocking().value();
+            fail("Expected the command to time out");
+        } catch (RuntimeException e) {
+            assertTrue(String.valueOf(e.getCause()), e.getCause() instanceof IOException);
+        }
+    }
+
+    private static List<String> sortedNames(List<Service> services) {
+        List<String> names = new ArrayList<>();
+        for (Service service : services) {
+            names.add(service.getName());
+        }
+        Collections.sort(names);
+        return names;
+    }
+
+    private static AlertNotification read(File file) {
+        try {
+            return Json.decodeValue(Buffer.buffer(Files.readAllBytes(file.toPath())), AlertNotification.class);
+        } catch (IOException | DecodeException e) {
+            throw new AssertionError("Could not read " + file, e);
+        }
+    }
+
+    private HttpServer listen(Handler<HttpServerRequest> handler) {
+        return Single.<HttpServer>create(subscriber -> vertx.createHttpServer()
+                .requestHandler(handler)
+                .listen(0, listening -> subscriber.onSuccess(listening.result()))).toBlocking().value();
+    }
+
+    /**
+     * Accepts every command, and keeps the messages it is sent.
+     */
+    private NetServer smtpStub() {
+        return Single.<NetServer>create(subscriber -> vertx.createNetServer().connectHandler(socket -> {
+            StringBuilder message = new StringBuilder();
+            boolean[] data = {false};
+            socket.handler(RecordParser.newDelimited("\r\n", line -> {
+                String command = line.toString("UTF-8");
+                if (data[0]) {
+                    if (command.equals(".")) {
+                        data[0] = false;
+                        mails.add(message.toString());
+                        message.setLength(0);
+                        socket.write("250 queued\r\n");
+                    } else {
+                        message.append(command).append("\r\n");
+                    }
+                } else if (command.equals("DATA")) {
+                    data[0] = true;
+                    socket.write("354 go ahead\r\n");
+                } else if (command.startsWith("HELO")) {
+                    socket.write("250-stub\r\n250 ok\r\n");
+                } else if (command.equals("QUIT")) {
+                    socket.write("221 bye\r\n");
+                    socket.close();
+                } else {
+                    socket.write("250 ok\r\n");
+                }
+            }));
+            socket.write("220 stub\r\n");
+        }).listen(0, listening -> subscriber.onSuccess(listening.result()))).toBlocking().value();
+    }
+
+    private ServiceList getServices() {
+        return Json.decodeValue(get("/service"), ServiceList.class);
+    }
+
+    private Buffer get(String uri) {
+        return Single.<Buffer>create(subscriber ->
+                httpClient.getNow(PORT, "localhost", uri, response -> response.bodyHandler(subscriber::onSuccess))).toBlocking().value();
+    }
+
+    private void addService(NewService service) {
+        Single.create(subscriber -> httpClient.post(PORT, "localhost", "/service")
+                .handler(subscriber::onSuccess).end(Json.encode(service))).toBlocking().value();
+    }
+
+    private static Single<Void> close(Vertx vertx) {
+        return Single.create(subscriber -> vertx.close(closed -> subscriber.onSuccess(null)));
+    }
+
+    private interface Condition {
+        void check();
+    }
+
+    private void await(Condition condition) throws InterruptedException {
+        AssertionError exception = null;
+        for (int i = 0; i < 1000; i++) {
+            try {
+                condition.check();
+                return;
+            } catch (AssertionError e) {
+                exception = e;
+            }
+            Thread.sleep(10);
+        }
+        if (exception != null) {
+            throw exception;
+        }
+    }
+}
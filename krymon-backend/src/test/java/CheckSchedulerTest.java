@@ -0,0 +1,85 @@
+import krymon.CheckScheduler;
+import org.junit.Test;
+import rx.Single;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CheckSchedulerTest {
+
+    private final Map<String, AtomicInteger> inFlightPerHost = new HashMap<>();
+    private final Map<String, Integer> maxInFlightPerHost = new HashMap<>();
+    private int inFlight = 0;
+    private int maxInFlight = 0;
+
+    @Test
+    public void shouldRespectGlobalAndPerHostLimits() {
+        CheckScheduler scheduler = new CheckScheduler(5, 2);
+        List<Single<String>> checks = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            String host = "host" + (i % 6);
+            checks.add(scheduler.schedule(host, () -> check(host)));
+        }
+
+        Single.zip(checks, results -> results).toBlocking().value();
+
+        assertEquals(5, maxInFlight);
+        for (int max : maxInFlightPerHost.values()) {
+            assertTrue(max <= 2);
+        }
+        assertEquals(0, scheduler.inFlight());
+    }
+
+    @Test
+    public void shouldRunChecksOnSingleHostOneAtATime() {
+        CheckScheduler scheduler = new CheckScheduler(10, 1);
+        List<Single<String>> checks = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            checks.add(scheduler.schedule("host", () -> check("host")));
+        }
+
+        Single.zip(checks, results -> results).toBlocking().value();
+
+        assertEquals(1, maxInFlight);
+    }
+
+    @Test
+    public void shouldFreeSlotWhenCheckFails() {
+        CheckScheduler scheduler = new CheckScheduler(1, 1);
+        List<Single<String>> checks = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            checks.add(scheduler.<String>schedule("host", () -> Single.error(new RuntimeException("failed")))
+                    .onErrorReturn(e -> "failed"));
+        }
+
+        Single.zip(checks, results -> results).toBlocking().value();
+
+        assertEquals(0, scheduler.inFlight());
+    }
+
+    private Single<String> check(String host) {
+        return Single.defer(() -> {
+            started(host);
+            return Single.just(host).delay(5, TimeUnit.MILLISECONDS).doOnSuccess(this::finished);
+        });
+    }
+
+    private synchronized void started(String host) {
+        inFlight++;
+        maxInFlight = Math.max(maxInFlight, inFlight);
+        int forHost = inFlightPerHost.computeIfAbsent(host, h -> new AtomicInteger()).incrementAndGet();
+        maxInFlightPerHost.merge(host, forHost, Math::max);
+    }
+
+    private synchronized void finished(String host) {
+        inFlight--;
+        inFlightPerHost.get(host).decrementAndGet();
+    }
+}
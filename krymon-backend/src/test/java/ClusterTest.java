@@ -0,0 +1,200 @@
+import com.fasterxml.jackson.datatype.joda.JodaModule;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.json.Json;
+import krymon.ClusterStatus;
+import krymon.Krymon;
+import krymon.KrymonOptions;
+import krymon.NewService;
+import krymon.Service;
+import krymon.ServiceList;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import rx.Single;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ClusterTest {
+
+    private static final List<Integer> PORTS = Arrays.asList(8091, 8092, 8093);
+    private final List<Vertx> nodes = new ArrayList<>();
+    private Vertx vertx;
+    private HttpClient httpClient;
+
+    @Before
+    public void setup() throws IOException {
+        Json.mapper.registerModule(new JodaModule());
+        List<String> peers = new ArrayList<>();
+        for (int port : PORTS) {
+            peers.add("http://localhost:" + port);
+        }
+        for (int port : PORTS) {
+            File storeFile = File.createTempFile("krymon-cluster-test", ".json");
+            storeFile.delete();
+            storeFile.deleteOnExit();
+            Vertx node = Vertx.vertx();
+            KrymonOptions options = new KrymonOptions()
+                    .setPort(port)
+                    .setCheckPeriod(100)
+                    .setApiInstances(2)
+                    .setCheckInstances(2)
+                    .setClusterPeers(peers)
+                    .setHeartbeatInterval(100)
+                    .setFailureTimeout(300);
+            new Krymon(node, storeFile.getAbsolutePath(), options).start().toBlocking().value();
+            nodes.add(node);
+        }
+        vertx = Vertx.vertx();
+        httpClient = vertx.createHttpClient();
+    }
+
+    @After
+    public void cleanup() {
+        for (Vertx node : nodes) {
+            close(node).toBlocking().value();
+        }
+        close(vertx).toBlocking().value();
+    }
+
+    @Test
+    public void shouldShardChecksAndReplicateServices() throws InterruptedException {
+        await(() -> {
+            for (int port : PORTS) {
+                assertEquals(3, cluster(port).getMembers().size());
+            }
+        });
+        HttpServer server = Single.<HttpServer>create(subscriber -> vertx.createHttpServer()
+                .requestHandler(request -> request.response().end())
+                .listen(0, listening -> subscriber.onSuccess(listening.result()))).toBlocking().value();
+        for (int i = 0; i < 30; i++) {
+            addService(PORTS.get(0), new NewService("service-" + i, "http://0.0.0.0:" + server.actualPort() + "/" + i));
+        }
+
+        await(() -> {
+            for (int port : PORTS) {
+                List<Service> services = getServices(port).getServices();
+                assertEquals(30, services.size());
+                for (Service service : services) {
+                    assertEquals(Service.Status.OK, service.getStatus());
+                }
+            }
+        });
+        int owned = 0;
+        for (int port : PORTS) {
+            int ownedByNode = cluster(port).getOwned();
+            assertTrue(ownedByNode > 0);
+            owned += ownedByNode;
+        }
+        assertEquals(30, owned);
+
+        close(nodes.remove(2)).toBlocking().value();
+        await(() -> {
+            int left = 0;
+            for (int port : PORTS.subList(0, 2)) {
+                ClusterStatus cluster = cluster(port);
+                assertEquals(2, cluster.getMembers().size());
+                left += cluster.getOwned();
+            }
+            assertEquals(30, left);
+        });
+
+        String deleted = getServices(PORTS.get(1)).getServices().get(0).getId();
+        delete(PORTS.get(1), deleted);
+        await(() -> assertEquals(29, getServices(PORTS.get(0)).getServices().size()));
+        server.close();
+    }
+
+    @Test
+    public void shouldReplicateServicesImportedAfterBeingDeleted() throws InterruptedException {
+        await(() -> {
+            for (int port : PORTS) {
+                assertEquals(3, cluster(port).getMembers().size());
+            }
+        });
+        addService(PORTS.get(0), new NewService("example", "http://www.example.com"));
+        await(() -> {
+            for (int port : PORTS) {
+                assertEquals(1, getServices(port).getServices().size());
+            }
+        });
+        String id = getServices(PORTS.get(0)).getServices().get(0).getId();
+        Buffer exported = get(PORTS.get(0), "/service/_export");
+
+        delete(PORTS.get(0), id);
+        await(() -> {
+            for (int port : PORTS) {
+                assertTrue(getServices(port).getServices().isEmpty());
+            }
+        });
+        post(PORTS.get(1), "/service/_bulk", exported);
+        await(() -> {
+            for (int port : PORTS) {
+                List<Service> services = getServices(port).getServices();
+                assertEquals(1, services.size());
+                assertEquals(id, services.get(0).getId());
+            }
+        });
+    }
+
+    private ClusterStatus cluster(int port) {
+        return Json.decodeValue(get(port, "/cluster"), ClusterStatus.class);
+    }
+
+    private ServiceList getServices(int port) {
+        return Json.decodeValue(get(port, "/service"), ServiceList.class);
+    }
+
+    private Buffer get(int port, String uri) {
+        return Single.<Buffer>create(subscriber ->
+                httpClient.getNow(port, "localhost", uri, response -> response.bodyHandler(subscriber::onSuccess))).toBlocking().value();
+    }
+
+    private void addService(int port, NewService service) {
+        Single.create(subscriber -> httpClient.post(port, "localhost", "/service")
+                .handler(subscriber::onSuccess).end(Json.encode(service))).toBlocking().value();
+    }
+
+    private void post(int port, String uri, Buffer body) {
+        Single.create(subscriber -> httpClient.post(port, "localhost", uri)
+                .handler(subscriber::onSuccess).end(body)).toBlocking().value();
+    }
+
+    private void delete(int port, String id) {
+        Single.create(subscriber -> httpClient.delete(port, "localhost", "/service/" + id)
+                .handler(subscriber::onSuccess).end()).toBlocking().value();
+    }
+
+    private static Single<Void> close(Vertx vertx) {
+        return Single.create(subscriber -> vertx.close(closed -> subscriber.onSuccess(null)));
+    }
+
+    private interface Condition {
+        void check();
+    }
+
+    private void await(Condition condition) throws InterruptedException {
+        AssertionError exception = null;
+        for (int i = 0; i < 1000; i++) {
+            try {
+                condition.check();
+                return;
+            } catch (AssertionError e) {
+                exception = e;
+            }
+            Thread.sleep(10);
+        }
+        if (exception != null) {
+            throw exception;
+        }
+    }
+}
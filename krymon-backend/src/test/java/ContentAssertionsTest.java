@@ -0,0 +1,126 @@
+import io.vertx.core.buffer.Buffer;
+import krymon.CheckResult;
+import krymon.CheckSpec;
+import krymon.ContentAssertions;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ContentAssertionsTest {
+
+    @Test
+    public void shouldFindAllStringsAcrossChunks() {
+        ContentAssertions assertions = ContentAssertions.compile(spec(Arrays.asList("healthy", "he", "db: up"), null, null));
+        ContentAssertions.Match match = assertions.start();
+
+        assertEquals(ContentAssertions.Verdict.UNDECIDED, match.feed(Buffer.buffer("status: heal")));
+        assertEquals(ContentAssertions.Verdict.UNDECIDED, match.feed(Buffer.buffer("thy, db")));
+        assertEquals(ContentAssertions.Verdict.PASS, match.feed(Buffer.buffer(": up, cache: up")));
+        assertNull(match.getFailed());
+    }
+
+    @Test
+    public void shouldFailWhenStringIsMissingAtEnd() {
+        ContentAssertions.Match match = ContentAssertions.compile(spec(Collections.singletonList("ababc"), null, null)).start();
+
+        assertEquals(ContentAssertions.Verdict.UNDECIDED, match.feed(Buffer.buffer("abababab")));
+        assertEquals(ContentAssertions.Verdict.FAIL, match.end());
+        assertEquals(CheckResult.Assertion.CONTAINS, match.getFailed());
+
+        match = ContentAssertions.compile(spec(Collections.singletonList("ababc"), null, null)).start();
+        assertEquals(ContentAssertions.Verdict.PASS, match.feed(Buffer.buffer("abababc")));
+    }
+
+    @Test
+    public void shouldMatchRegexAcrossChunks() {
+        ContentAssertions assertions = ContentAssertions.compile(spec(null, "version: \\d+\\.\\d+", null));
+        ContentAssertions.Match match = assertions.start();
+
+        assertEquals(ContentAssertions.Verdict.UNDECIDED, match.feed(Buffer.buffer("<html>version: 1")));
+        assertEquals(ContentAssertions.Verdict.PASS, match.feed(Buffer.buffer(".2</html>")));
+
+        match = assertions.start();
+        match.feed(Buffer.buffer("no version here"));
+        assertEquals(ContentAssertions.Verdict.FAIL, match.end());
+        assertEquals(CheckResult.Assertion.MATCHES, match.getFailed());
+    }
+
+    @Test
+    public void shouldOnlyMatchStartAnchorsAtTheStartOfTheBody() {
+        ContentAssertions assertions = ContentAssertions.compile(spec(null, "^x{3}", null));
+        ContentAssertions.Match match = assertions.start();
+
+        assertEquals(ContentAssertions.Verdict.UNDECIDED, match.feed(Buffer.buffer("abc" + repeat('x', 5000))));
+        assertEquals(ContentAssertions.Verdict.UNDECIDED, match.feed(Buffer.buffer("y")));
+        assertEquals(ContentAssertions.Verdict.FAIL, match.end());
+
+        match = ContentAssertions.compile(spec(null, "^<html>", null)).start();
+        assertEquals(ContentAssertions.Verdict.UNDECIDED, match.feed(Buffer.buffer("<ht")));
+        assertEquals(ContentAssertions.Verdict.PASS, match.feed(Buffer.buffer("ml><body>")));
+    }
+
+    @Test
+    public void shouldOnlyMatchEndAnchorsAtTheEndOfTheBody() {
+        ContentAssertions assertions = ContentAssertions.compile(spec(null, "done$", null));
+        ContentAssertions.Match match = assertions.start();
+
+        assertEquals(ContentAssertions.Verdict.UNDECIDED, match.feed(Buffer.buffer("all do")));
+        assertEquals(ContentAssertions.Verdict.UNDECIDED, match.feed(Buffer.buffer("ne")));
+        assertEquals(ContentAssertions.Verdict.UNDECIDED, match.feed(Buffer.buffer(", or not")));
+        assertEquals(ContentAssertions.Verdict.FAIL, match.end());
+
+        match = assertions.start();
+        assertEquals(ContentAssertions.Verdict.UNDECIDED, match.feed(Buffer.buffer("all do")));
+        assertEquals(ContentAssertions.Verdict.UNDECIDED, match.feed(Buffer.buffer("ne")));
+        assertEquals(ContentAssertions.Verdict.PASS, match.end());
+    }
+
+    @Test
+    public void shouldFailRegexWhichBacktracksTooMuch() {
+        ContentAssertions.Match match = ContentAssertions.compile(spec(null, "(.*a){12}b", null)).start();
+
+        assertEquals(ContentAssertions.Verdict.FAIL, match.feed(Buffer.buffer(repeat('a', 40) + "c")));
+    }
+
+    @Test
+    public void shouldCompareJsonValuesAsTheyArrive() {
+        Map<String, Object> json = new HashMap<>();
+        json.put("/status", "UP");
+        json.put("$.checks[1].ok", true);
+        json.put("$.load", 1);
+        ContentAssertions assertions = ContentAssertions.compile(spec(null, null, json));
+
+        ContentAssertions.Match match = assertions.start();
+        assertEquals(ContentAssertions.Verdict.UNDECIDED, match.feed(Buffer.buffer("{\"status\":\"UP\",\"load\":1.0,\"checks\":[{\"ok\":false},{\"o")));
+        assertEquals(ContentAssertions.Verdict.PASS, match.feed(Buffer.buffer("k\":true}],\"rest\":[")));
+
+        match = assertions.start();
+        assertEquals(ContentAssertions.Verdict.FAIL, match.feed(Buffer.buffer("{\"status\":\"DOWN\"")));
+        assertEquals(CheckResult.Assertion.JSON, match.getFailed());
+
+        match = assertions.start();
+        match.feed(Buffer.buffer("<html>Internal error</html>"));
+        assertEquals(ContentAssertions.Verdict.FAIL, match.end());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectInvalidRegex() {
+        ContentAssertions.compile(spec(null, "(unclosed", null));
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+
+    private static CheckSpec spec(java.util.List<String> contains, String matches, Map<String, Object> json) {
+        return new CheckSpec(null, contains, matches, json, null);
+    }
+}
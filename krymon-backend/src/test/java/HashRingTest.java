@@ -0,0 +1,48 @@
+import krymon.HashRing;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class HashRingTest {
+
+    @Test
+    public void shouldSpreadKeysOverNodes() {
+        HashRing ring = new HashRing(Arrays.asList("a", "b", "c"), 128);
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 30_000; i++) {
+            counts.merge(ring.owner("service-" + i), 1, Integer::sum);
+        }
+
+        assertEquals(3, counts.size());
+        for (int count : counts.values()) {
+            assertTrue(String.valueOf(count), count > 7_000 && count < 13_000);
+        }
+    }
+
+    @Test
+    public void shouldOnlyMoveKeysOfChangedNode() {
+        HashRing before = new HashRing(Arrays.asList("a", "b", "c"), 128);
+        HashRing after = new HashRing(Arrays.asList("a", "b", "c", "d"), 128);
+        int moved = 0;
+        for (int i = 0; i < 10_000; i++) {
+            String key = "service-" + i;
+            if (!before.owner(key).equals(after.owner(key))) {
+                assertEquals("d", after.owner(key));
+                moved++;
+            }
+        }
+
+        assertTrue(String.valueOf(moved), moved > 1_500 && moved < 3_500);
+    }
+
+    @Test
+    public void shouldHaveNoOwnerWithoutNodes() {
+        assertNull(new HashRing(Arrays.asList(), 128).owner("service"));
+    }
+}
@@ -0,0 +1,164 @@
+import io.vertx.core.Vertx;
+import krymon.CheckResult;
+import krymon.HistoryStore;
+import krymon.KrymonOptions;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class HistoryStoreTest {
+
+    private static final long MINUTE = 60_000;
+    private static final long HOUR = 60 * MINUTE;
+    private Vertx vertx;
+    private File directory;
+    private long base;
+
+    @Before
+    public void setup() throws IOException {
+        vertx = Vertx.vertx();
+        directory = Files.createTempDirectory("krymon-history-test").toFile();
+        long now = System.currentTimeMillis();
+        base = now - now % HOUR - 3 * HOUR;
+    }
+
+    @After
+    public void cleanup() {
+        vertx.close();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void shouldRollUpResults() {
+        HistoryStore store = open(new KrymonOptions());
+        record(store);
+        store.flush().toBlocking().value();
+
+        List<HistoryStore.Rollup> minutes = store.rollups("a", HistoryStore.Resolution.MINUTE, base, base + HOUR).toBlocking().value();
+        assertEquals(2, minutes.size());
+        assertRollup(minutes.get(0), base, 2, 1, 4000, 3000);
+        assertRollup(minutes.get(1), base + MINUTE, 1, 1, 2000, 2000);
+        List<HistoryStore.Rollup> hours = store.rollups("a", HistoryStore.Resolution.HOUR, base, base + HOUR).toBlocking().value();
+        assertEquals(1, hours.size());
+        assertRollup(hours.get(0), base, 3, 2, 6000, 3000);
+        assertEquals(1, store.rollups("b", HistoryStore.Resolution.DAY, base, base + HOUR).toBlocking().value().get(0).getChecks());
+        assertTrue(store.rollups("c", HistoryStore.Resolution.DAY, base, base + HOUR).toBlocking().value().isEmpty());
+
+        List<CheckResult> results = store.results("a", base, base + HOUR).toBlocking().value();
+        assertEquals(3, results.size());
+        assertEquals(200, results.get(0).getCode());
+        assertEquals(CheckResult.ErrorClass.TIMEOUT, results.get(1).getError());
+        assertEquals(CheckResult.Assertion.CONTAINS, results.get(2).getFailedAssertion());
+        assertEquals(base + 70_000, results.get(2).getTimestamp());
+        assertNull(results.get(0).getFailedAssertion());
+    }
+
+    @Test
+    public void shouldKeepHistoryAcrossRestarts() {
+        HistoryStore closed = open(new KrymonOptions());
+        record(closed);
+        closed.close().toBlocking().value();
+
+        HistoryStore reopened = open(new KrymonOptions());
+        assertRollup(reopened.rollups("a", HistoryStore.Resolution.DAY, base, base + HOUR).toBlocking().value().get(0),
+                base - base % (24 * HOUR), 3, 2, 6000, 3000);
+        reopened.record("a", CheckResult.response(base + 30 * MINUTE, 1000, 200));
+        reopened.flush().toBlocking().value();
+
+        HistoryStore crashed = open(new KrymonOptions());
+        assertRollup(crashed.rollups("a", HistoryStore.Resolution.DAY, base, base + HOUR).toBlocking().value().get(0),
+                base - base % (24 * HOUR), 4, 2, 7000, 3000);
+        assertEquals(4, crashed.results("a", base, base + HOUR).toBlocking().value().size());
+    }
+
+    @Test
+    public void shouldDeleteSegmentsPastRetention() {
+        HistoryStore store = open(new KrymonOptions().setRawRetention(HOUR));
+        store.record("a", CheckResult.response(base - 10 * HOUR, 1000, 200));
+        store.record("a", CheckResult.response(base - 5 * HOUR, 1000, 200));
+        store.record("a", CheckResult.response(base, 1000, 200));
+        store.flush().toBlocking().value();
+
+        List<CheckResult> results = store.results("a", 0, Long.MAX_VALUE).toBlocking().value();
+        assertEquals(1, results.size());
+        assertEquals(base, results.get(0).getTimestamp());
+        assertEquals(3, store.rollups("a", HistoryStore.Resolution.HOUR, 0, Long.MAX_VALUE).toBlocking().value().size());
+    }
+
+    @Test
+    public void shouldSumChecksAcrossResolutions() {
+        HistoryStore store = open(new KrymonOptions());
+        long now = System.currentTimeMillis();
+        long day = now - now % (24 * HOUR) - 2 * 24 * HOUR;
+        store.record("a", CheckResult.response(day - HOUR - MINUTE, 1000, 500));
+        store.record("a", CheckResult.response(day - HOUR + 30_000, 1000, 500));
+        store.record("a", CheckResult.response(day + 5 * MINUTE, 1000, 200));
+        store.record("a", CheckResult.response(day + 26 * HOUR, 1000, 200));
+        store.record("a", CheckResult.response(day + 27 * HOUR + 10 * MINUTE, 1000, 200));
+        store.record("a", CheckResult.response(day + 27 * HOUR + 20 * MINUTE, 1000, 500));
+        store.record("b", CheckResult.response(day + 12 * HOUR, 1000, 200));
+        store.flush().toBlocking().value();
+        store.record("a", CheckResult.response(now - 1000, 1000, 200));
+
+        Map<String, HistoryStore.Rollup> totals = store.totals(null, day - HOUR, day + 27 * HOUR + 15 * MINUTE).toBlocking().value();
+        assertEquals(4, totals.get("a").getChecks());
+        assertEquals(1, totals.get("a").getFailures());
+        assertEquals(1, totals.get("b").getChecks());
+        assertEquals(5, store.totals("a", day, now + MINUTE).toBlocking().value().get("a").getChecks());
+        assertEquals(1, store.totals("b", 0, now).toBlocking().value().size());
+        assertTrue(store.totals("c", 0, now).toBlocking().value().isEmpty());
+    }
+
+    @Test
+    public void shouldSetAsideUnreadableSegments() throws IOException {
+        Files.write(new File(directory, "stray.seg").toPath(), "not a segment".getBytes("UTF-8"));
+        Files.write(new File(directory, "torn.seg").toPath(), new byte[0]);
+
+        HistoryStore store = open(new KrymonOptions());
+        record(store);
+        store.flush().toBlocking().value();
+
+        assertEquals(3, store.results("a", base, base + HOUR).toBlocking().value().size());
+        assertTrue(new File(directory, "stray.seg.corrupt").exists());
+        assertTrue(new File(directory, "torn.seg.corrupt").exists());
+        assertFalse(new File(directory, "stray.seg").exists());
+    }
+
+    private HistoryStore open(KrymonOptions options) {
+        HistoryStore store = new HistoryStore(vertx, directory.getAbsolutePath(), options.setHistorySegmentRows(1000));
+        store.open().toBlocking().value();
+        return store;
+    }
+
+    private void record(HistoryStore store) {
+        store.record("a", CheckResult.response(base + 10_000, 1000, 200));
+        store.record("b", CheckResult.response(base + 30_000, 5000, 204));
+        store.record("a", CheckResult.error(base + 20_000, 3000, CheckResult.ErrorClass.TIMEOUT));
+        store.record("a", CheckResult.response(base + 70_000, 2000, 200).failing(CheckResult.Assertion.CONTAINS));
+    }
+
+    private static void assertRollup(HistoryStore.Rollup rollup, long timestamp, int checks, int failures, long latencySum, long latencyMax) {
+        assertEquals(timestamp, rollup.getTimestamp());
+        assertEquals(checks, rollup.getChecks());
+        assertEquals(failures, rollup.getFailures());
+        assertEquals(latencySum, rollup.getLatencySum());
+        assertEquals(latencyMax, rollup.getLatencyMax());
+    }
+}
@@ -0,0 +1,114 @@
+import com.fasterxml.jackson.datatype.joda.JodaModule;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.Json;
+import krymon.JournalStore;
+import krymon.Service;
+import krymon.ServiceList;
+import krymon.StoreRecord;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JournalStoreTest {
+
+    private Vertx vertx;
+    private File storeFile;
+    private File journalFile;
+
+    @Before
+    public void setup() throws IOException {
+        Json.mapper.registerModule(new JodaModule());
+        vertx = Vertx.vertx();
+        storeFile = File.createTempFile("krymon-journal-test", ".json");
+        storeFile.delete();
+        storeFile.deleteOnExit();
+        journalFile = new File(storeFile.getAbsolutePath() + ".journal");
+        journalFile.deleteOnExit();
+    }
+
+    @After
+    public void cleanup() {
+        vertx.close();
+    }
+
+    @Test
+    public void shouldLoadExistingServiceListAsSnapshot() throws IOException {
+        Service service = service("example");
+        Files.write(storeFile.toPath(), Json.encode(new ServiceList(Collections.singletonList(service))).getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(Collections.singletonList(service), store(100).load().toBlocking().value().getServices());
+    }
+
+    @Test
+    public void shouldReplayJournalOnLoad() {
+        Service first = service("first");
+        Service second = service("second");
+        DateTime lastCheck = new DateTime(1000, DateTimeZone.UTC);
+        JournalStore store = store(100);
+        store.load().toBlocking().value();
+        write(store, StoreRecord.add(first), StoreRecord.add(second));
+        write(store, StoreRecord.status(first.getId(), Service.Status.OK, lastCheck), StoreRecord.delete(second.getId()));
+
+        List<Service> services = store(100).load().toBlocking().value().getServices();
+        assertEquals(Collections.singletonList(first.withStatus(Service.Status.OK, lastCheck)), services);
+        assertTrue(!storeFile.exists());
+    }
+
+    @Test
+    public void shouldCompactJournalIntoSnapshot() {
+        Service first = service("first");
+        Service second = service("second");
+        JournalStore store = store(2);
+        store.load().toBlocking().value();
+        write(store, StoreRecord.add(first));
+        ServiceList snapshot = new ServiceList(Arrays.asList(first, second));
+        store.write(Collections.singletonList(StoreRecord.add(second)), () -> snapshot).toBlocking().value();
+
+        assertTrue(storeFile.exists());
+        assertEquals(0, journalFile.length());
+        assertEquals(snapshot, store(2).load().toBlocking().value());
+    }
+
+    @Test
+    public void shouldDiscardIncompleteRecordAtEndOfJournal() throws IOException {
+        Service first = service("first");
+        Service second = service("second");
+        JournalStore store = store(100);
+        store.load().toBlocking().value();
+        write(store, StoreRecord.add(first));
+        Files.write(journalFile.toPath(), "{\"type\":\"ADD\",\"id\":".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        JournalStore reopened = store(100);
+        assertEquals(Collections.singletonList(first), reopened.load().toBlocking().value().getServices());
+        write(reopened, StoreRecord.add(second));
+        assertEquals(Arrays.asList(first, second), store(100).load().toBlocking().value().getServices());
+    }
+
+    private JournalStore store(long compactionThreshold) {
+        return new JournalStore(vertx, storeFile.getAbsolutePath(), compactionThreshold);
+    }
+
+    private void write(JournalStore store, StoreRecord... records) {
+        store.write(Arrays.asList(records), () -> {
+            throw new AssertionError("Should not compact");
+        }).toBlocking().value();
+    }
+
+    private static Service service(String name) {
+        return new Service(name + "-id", name, "http://" + name + ".example.com", Service.Status.UNKNOWN, new DateTime(0, DateTimeZone.UTC));
+    }
+}
@@ -2,15 +2,31 @@ import com.fasterxml.jackson.datatype.joda.JodaModule;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.datagram.DatagramSocket;
 import io.vertx.core.http.HttpClient;
 import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.http.HttpMethod;
 import io.vertx.core.http.HttpServer;
 import io.vertx.core.http.HttpServerRequest;
 import io.vertx.core.json.Json;
+import krymon.BulkResult;
+import krymon.CheckRecord;
+import krymon.CheckSpec;
+import krymon.FleetLatency;
 import krymon.Krymon;
+import krymon.KrymonOptions;
+import krymon.Latency;
 import krymon.NewService;
+import krymon.Percentiles;
+import krymon.RollupRecord;
 import krymon.Service;
+import krymon.ServiceDelta;
+import krymon.ServiceHistory;
 import krymon.ServiceList;
+import krymon.ServiceRollups;
+import krymon.ServiceUptime;
+import krymon.UptimeReport;
 import org.joda.time.DateTime;
 import org.joda.time.Seconds;
 import org.junit.After;
@@ -22,11 +38,21 @@ import rx.Single;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import static junit.framework.TestCase.assertTrue;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 
 public class KrymonTest {
 
@@ -34,17 +60,30 @@ public class KrymonTest {
     private Krymon krymon;
     private Vertx vertx;
     private HttpClient httpClient;
+    private File storeFile;
 
     @Before
     public void setup() throws IOException {
-        vertx = Vertx.vertx();
         Json.mapper.registerModule(new JodaModule());
-        krymon = new Krymon(vertx, tmpFile().getAbsolutePath(), CHECK_PERIOD);
+        storeFile = tmpFile();
+        startKrymon();
+    }
+
+    private void startKrymon() {
+        vertx = Vertx.vertx();
+        krymon = new Krymon(vertx, storeFile.getAbsolutePath(), new KrymonOptions()
+                .setCheckPeriod(CHECK_PERIOD)
+                .setHistoryDirectory(historyDirectory().getAbsolutePath())
+                .setHistoryFlushInterval(CHECK_PERIOD));
         krymon.start().toBlocking().value();
 
         httpClient = vertx.createHttpClient();
     }
 
+    private File historyDirectory() {
+        return new File(storeFile.getAbsolutePath() + ".history");
+    }
+
     private static File tmpFile() throws IOException {
         File file = File.createTempFile("krymon-test", ".json");
         file.delete();
@@ -58,6 +97,13 @@ public class KrymonTest {
             delete(service.getId());
         }
         close(vertx).toBlocking().value();
+        File[] history = historyDirectory().listFiles();
+        if (history != null) {
+            for (File file : history) {
+                file.delete();
+            }
+        }
+        historyDirectory().delete();
     }
 
     Single<Void> close(Vertx vertx){
@@ -106,6 +152,49 @@ public class KrymonTest {
         assertTrue(getServices().getServices().isEmpty());
     }
 
+    @Test
+    public void shouldKeepServicesAcrossRestarts() throws InterruptedException {
+        addService(new NewService("example", "http://www.example.com"));
+        await(() -> assertTrue(new File(storeFile.getAbsolutePath() + ".journal").length() > 0));
+
+        close(vertx).toBlocking().value();
+        startKrymon();
+
+        List<Service> services = getServices().getServices();
+        assertEquals(1, services.size());
+        assertEquals("example", services.get(0).getName());
+    }
+
+    @Test
+    public void shouldNotLoseConcurrentlyAddedServices() {
+        List<Single<HttpClientResponse>> posts = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            NewService service = new NewService("service" + i, "http://www.example.com");
+            posts.add(Single.create(subscriber ->
+                    httpClient.post(8080, "0.0.0.0", "/service").handler(subscriber::onSuccess).end(Json.encode(service))));
+        }
+        Single.zip(posts, responses -> responses).toBlocking().value();
+        assertEquals(50, getServices().getServices().size());
+    }
+
+    @Test
+    public void shouldNotResurrectServiceDeletedDuringCheck() throws InterruptedException {
+        AtomicInteger requests = new AtomicInteger();
+        HttpServer server = startServer(request -> {
+            requests.incrementAndGet();
+            vertx.setTimer(500, ig -> request.response().end());
+        });
+        try {
+            addService(new NewService("slow", "http://0.0.0.0:" + server.actualPort()));
+            await(() -> assertTrue(requests.get() > 0));
+            delete(getServices().getServices().get(0).getId());
+            Thread.sleep(1000);
+            assertTrue(getServices().getServices().isEmpty());
+        } finally {
+            server.close();
+        }
+    }
+
     @Test
     public void deletingNonExistentServiceShouldReturn404() {
         assertEquals(404, delete("foobar").statusCode());
@@ -173,6 +262,439 @@ public class KrymonTest {
         }
     }
 
+    @Test
+    public void shouldOnlyJournalChangesOfStatus() throws InterruptedException {
+        HttpServer server = startServerWithStatus(200);
+        try {
+            addService(new NewService("server", "http://0.0.0.0:" + server.actualPort()));
+            await(() -> assertEquals(Service.Status.OK, getServices().getServices().get(0).getStatus()));
+            Thread.sleep(1500);
+            File journal = new File(storeFile.getAbsolutePath() + ".journal");
+            long length = journal.length();
+
+            Thread.sleep(1500);
+            assertEquals(length, journal.length());
+            assertTrue(Seconds.secondsBetween(getServices().getServices().get(0).getLastCheck(), DateTime.now()).getSeconds() < 2);
+        } finally {
+            server.close();
+        }
+    }
+
+    @Test
+    public void slowServiceShouldNotDelayChecksOfOtherServices() throws InterruptedException {
+        HttpServer slowServer = startServer(request -> vertx.setTimer(3000, ig -> request.response().end()));
+        AtomicInteger fastRequests = new AtomicInteger();
+        HttpServer fastServer = startServer(request -> {
+            fastRequests.incrementAndGet();
+            request.response().end();
+        });
+        try {
+            addService(new NewService("slow", "http://0.0.0.0:" + slowServer.actualPort()));
+            addService(new NewService("fast", "http://0.0.0.0:" + fastServer.actualPort()));
+            Thread.sleep(1500);
+            assertTrue(fastRequests.get() >= 5);
+            assertEquals(Service.Status.UNKNOWN, withName(getServices().getServices(), "slow").getStatus());
+        } finally {
+            slowServer.close();
+            fastServer.close();
+        }
+    }
+
+    @Test
+    public void shouldCheckServicesOnTheirOwnInterval() throws InterruptedException {
+        AtomicInteger frequentRequests = new AtomicInteger();
+        HttpServer frequentServer = startServer(request -> {
+            frequentRequests.incrementAndGet();
+            request.response().end();
+        });
+        AtomicInteger rareRequests = new AtomicInteger();
+        HttpServer rareServer = startServer(request -> {
+            rareRequests.incrementAndGet();
+            request.response().end();
+        });
+        try {
+            addService(new NewService("frequent", "http://0.0.0.0:" + frequentServer.actualPort(), 50L, null));
+            addService(new NewService("rare", "http://0.0.0.0:" + rareServer.actualPort(), 3_600_000L, null));
+            Thread.sleep(1000);
+            assertTrue(frequentRequests.get() >= 10);
+            assertTrue(rareRequests.get() <= 1);
+            assertEquals(Long.valueOf(50), withName(getServices().getServices(), "frequent").getInterval());
+        } finally {
+            frequentServer.close();
+            rareServer.close();
+        }
+    }
+
+    @Test
+    public void shouldRecordHistoryOfChecks() throws InterruptedException {
+        HttpServer server = startServerWithStatus(200);
+        try {
+            addService(new NewService("server", "http://0.0.0.0:" + server.actualPort()));
+            String id = getServices().getServices().get(0).getId();
+            await(() -> assertTrue(getHistory(id).getChecks().size() >= 2));
+
+            setStatus(server, 503);
+            await(() -> {
+                List<CheckRecord> checks = getHistory(id).getChecks();
+                CheckRecord latest = checks.get(checks.size() - 1);
+                assertEquals(Integer.valueOf(503), latest.getStatusCode());
+                assertTrue(latest.getLatencyMicros() > 0);
+            });
+            List<CheckRecord> checks = getHistory(id).getChecks();
+            assertEquals(Integer.valueOf(200), checks.get(0).getStatusCode());
+            assertTrue(checks.get(0).getTimestamp().isBefore(checks.get(checks.size() - 1).getTimestamp()));
+        } finally {
+            server.close();
+        }
+    }
+
+    @Test
+    public void shouldKeepLongTermHistoryAcrossRestarts() throws InterruptedException {
+        HttpServer server = startServerWithStatus(200);
+        try {
+            addService(new NewService("server", "http://0.0.0.0:" + server.actualPort()));
+            String id = getServices().getServices().get(0).getId();
+            await(() -> {
+                ServiceRollups rollups = Json.decodeValue(getBody("/service/" + id + "/rollups?resolution=1m"), ServiceRollups.class);
+                assertEquals("1m", rollups.getResolution());
+                assertTrue(rollups.getRollups().stream().mapToInt(RollupRecord::getChecks).sum() >= 3);
+            });
+            await(() -> assertTrue(new File(storeFile.getAbsolutePath() + ".journal").length() > 0));
+
+            close(vertx).toBlocking().value();
+            startKrymon();
+
+            List<CheckRecord> checks = Json.decodeValue(getBody("/service/" + id + "/history?from=0"), ServiceHistory.class).getChecks();
+            assertTrue(checks.size() >= 3);
+            assertEquals(Integer.valueOf(200), checks.get(0).getStatusCode());
+            assertEquals(1, Json.decodeValue(getBody("/service/" + id + "/rollups?resolution=1d"), ServiceRollups.class).getRollups().size());
+            assertEquals(400, get("/service/" + id + "/rollups?resolution=1w").statusCode());
+        } finally {
+            server.close();
+        }
+    }
+
+    @Test
+    public void shouldReportUptime() throws InterruptedException {
+        HttpServer up = startServerWithStatus(200);
+        HttpServer down = startServerWithStatus(503);
+        try {
+            addService(new NewService("team-up", "http://0.0.0.0:" + up.actualPort()));
+            addService(new NewService("team-down", "http://0.0.0.0:" + down.actualPort()));
+            addService(new NewService("other", "http://0.0.0.0:" + up.actualPort() + "/other"));
+            String id = withName(getServices().getServices(), "team-up").getId();
+            await(() -> {
+                ServiceUptime uptime = Json.decodeValue(getBody("/service/" + id + "/uptime"), ServiceUptime.class);
+                assertTrue(uptime.getChecks() >= 2);
+                assertEquals(Double.valueOf(100), uptime.getUptime());
+            });
+
+            UptimeReport report = Json.decodeValue(getBody("/service/_uptime?name=team-&target=99.9"), UptimeReport.class);
+            assertEquals(2, report.getServices().size());
+            assertEquals(report.getChecks(), report.getServices().stream().mapToLong(ServiceUptime::getChecks).sum());
+            assertTrue(report.getUptime() < 100);
+            assertEquals(Collections.singletonList(withName(getServices().getServices(), "team-down").getId()), report.getBreaching());
+            assertEquals(400, get("/service/_uptime?from=yesterday").statusCode());
+        } finally {
+            up.close();
+            down.close();
+        }
+    }
+
+    @Test
+    public void shouldReuseConnectionsAndRecordTimings() throws InterruptedException {
+        Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+        HttpServer server = startServer(request -> {
+            clientPorts.add(request.remoteAddress().port());
+            request.response().end("ok");
+        });
+        try {
+            addService(new NewService("server", "http://0.0.0.0:" + server.actualPort()));
+            String id = getServices().getServices().get(0).getId();
+            await(() -> assertTrue(getHistory(id).getChecks().size() >= 3));
+
+            List<CheckRecord> checks = getHistory(id).getChecks();
+            assertEquals(1, clientPorts.size());
+            assertTrue(checks.get(0).getConnectMicros() != null);
+            assertNull(checks.get(checks.size() - 1).getConnectMicros());
+            for (CheckRecord check : checks) {
+                assertTrue(check.getFirstByteMicros() <= check.getLatencyMicros());
+            }
+        } finally {
+            server.close();
+        }
+    }
+
+    @Test
+    public void shouldCheckWithConfiguredMethod() throws InterruptedException {
+        Buffer page = Buffer.buffer(new byte[1024 * 1024]);
+        Set<String> requests = ConcurrentHashMap.newKeySet();
+        HttpServer server = startServer(request -> {
+            requests.add(request.method() + " " + request.path() + " " + request.getHeader("Range"));
+            if (request.method() == HttpMethod.HEAD) {
+                request.response().end();
+            } else {
+                request.response().end(page);
+            }
+        });
+        try {
+            String url = "http://0.0.0.0:" + server.actualPort();
+            addService(new NewService("head", url + "/head", null, null, new CheckSpec(CheckSpec.Method.HEAD)));
+            addService(new NewService("range", url + "/range", null, null, new CheckSpec(CheckSpec.Method.RANGE)));
+            addService(new NewService("get", url + "/get"));
+            await(() -> {
+                for (Service service : getServices().getServices()) {
+                    assertEquals(service.getName(), Service.Status.OK, service.getStatus());
+                }
+            });
+
+            assertTrue(requests.contains("HEAD /head null"));
+            assertTrue(requests.contains("GET /range bytes=0-0"));
+            assertTrue(requests.contains("GET /get null"));
+            assertEquals(new CheckSpec(CheckSpec.Method.HEAD), withName(getServices().getServices(), "head").getCheck());
+        } finally {
+            server.close();
+        }
+    }
+
+    @Test
+    public void shouldFailServicesWhoseBodyFailsAssertions() throws InterruptedException {
+        HttpServer server = startServer(request -> request.response().end(
+                request.path().equals("/healthy") ? "{\"status\":\"UP\"}" : "<html>Something went wrong</html>"));
+        try {
+            String url = "http://0.0.0.0:" + server.actualPort();
+            CheckSpec spec = new CheckSpec(null, null, null, Collections.singletonMap("/status", "UP"), null);
+            addService(new NewService("healthy", url + "/healthy", null, null, spec));
+            addService(new NewService("broken", url + "/broken", null, null, spec));
+            await(() -> {
+                List<Service> services = getServices().getServices();
+                assertEquals(Service.Status.OK, withName(services, "healthy").getStatus());
+                assertEquals(Service.Status.FAIL, withName(services, "broken").getStatus());
+            });
+
+            CheckRecord check = getHistory(withName(getServices().getServices(), "broken").getId()).getChecks().get(0);
+            assertEquals(Integer.valueOf(200), check.getStatusCode());
+            assertEquals("JSON", check.getFailedAssertion());
+            assertEquals(400, addService(new NewService("invalid", url, null, null, new CheckSpec(null, null, "(", null, null))).statusCode());
+        } finally {
+            server.close();
+        }
+    }
+
+    @Test
+    public void shouldCheckWithTcpAndDnsProbes() throws InterruptedException {
+        HttpServer server = startServerWithStatus(200);
+        DatagramSocket dns = startDnsServer("up.example.com");
+        try {
+            String resolver = "dns://127.0.0.1:" + dns.localAddress().port();
+            addService(new NewService("tcp", "tcp://0.0.0.0:" + server.actualPort()));
+            addService(new NewService("tcp-closed", "tcp://0.0.0.0:" + 1));
+            addService(new NewService("dns", resolver + "/up.example.com"));
+            addService(new NewService("dns-missing", resolver + "/down.example.com"));
+            addService(new NewService("dns-named-server", "dns://localhost:" + dns.localAddress().port() + "/up.example.com"));
+            addService(new NewService("dns-unknown-server", "dns://no-such-server.invalid/up.example.com"));
+            await(() -> {
+                List<Service> services = getServices().getServices();
+                assertEquals(Service.Status.OK, withName(services, "tcp").getStatus());
+                assertEquals(Service.Status.FAIL, withName(services, "tcp-closed").getStatus());
+                assertEquals(Service.Status.OK, withName(services, "dns").getStatus());
+                assertEquals(Service.Status.FAIL, withName(services, "dns-missing").getStatus());
+                assertEquals(Service.Status.OK, withName(services, "dns-named-server").getStatus());
+                assertEquals(Service.Status.FAIL, withName(services, "dns-unknown-server").getStatus());
+            });
+
+            List<Service> services = getServices().getServices();
+            CheckRecord tcp = getHistory(withName(services, "tcp").getId()).getChecks().get(0);
+            assertNull(tcp.getStatusCode());
+            assertNull(tcp.getError());
+            assertEquals("CONNECTION", getHistory(withName(services, "tcp-closed").getId()).getChecks().get(0).getError());
+            assertEquals("DNS", getHistory(withName(services, "dns-missing").getId()).getChecks().get(0).getError());
+        } finally {
+            server.close();
+            dns.close();
+        }
+    }
+
+    @Test
+    public void shouldRecordErrorClassInHistory() throws InterruptedException {
+        addService(new NewService("server", "http://0.0.0.0:" + 554215));
+        String id = getServices().getServices().get(0).getId();
+        await(() -> {
+            List<CheckRecord> checks = getHistory(id).getChecks();
+            assertTrue(!checks.isEmpty());
+            CheckRecord check = checks.get(0);
+            assertEquals(null, check.getStatusCode());
+            assertTrue(check.getError() != null);
+        });
+    }
+
+    @Test
+    public void shouldReportLatencyPercentiles() throws InterruptedException {
+        HttpServer server = startServer(request -> vertx.setTimer(20, ig -> request.response().end()));
+        try {
+            addService(new NewService("server", "http://0.0.0.0:" + server.actualPort()));
+            String id = getServices().getServices().get(0).getId();
+            await(() -> {
+                FleetLatency latency = Json.decodeValue(getBody("/service/_latency"), FleetLatency.class);
+                assertTrue(latency.getFleet().getOneMinute().getCount() >= 3);
+                Percentiles service = latency.getServices().get(id).getOneMinute();
+                assertTrue(service.getP50() >= 15_000);
+                assertTrue(service.getP99() <= service.getMax());
+            });
+            Latency latency = Json.decodeValue(getBody("/service/" + id + "/latency"), Latency.class);
+            assertTrue(latency.getOneHour().getCount() >= latency.getOneMinute().getCount());
+
+            assertEquals(null, getServices().getServices().get(0).getLatency());
+            ServiceList withLatency = Json.decodeValue(getBody("/service?latency=true"), ServiceList.class);
+            assertTrue(withLatency.getServices().get(0).getLatency().getOneMinute().getCount() > 0);
+        } finally {
+            server.close();
+        }
+    }
+
+    @Test
+    public void shouldExposeMetrics() throws InterruptedException {
+        HttpServer server = startServerWithStatus(200);
+        try {
+            addService(new NewService("server", "http://0.0.0.0:" + server.actualPort()));
+            String id = getServices().getServices().get(0).getId();
+            delete("foobar");
+            await(() -> {
+                String metrics = getBody("/metrics").toString();
+                assertTrue(metrics.contains("krymon_service_up{id=\"" + id + "\",name=\"server\"} 1\n"));
+                assertTrue(metrics.contains("krymon_service_check_latency_seconds{id=\"" + id + "\"} "));
+                assertTrue(metrics.contains("krymon_checks_in_flight "));
+                assertTrue(metrics.contains("krymon_store_write_bytes_total "));
+                assertTrue(metrics.contains("krymon_http_request_duration_seconds_count{method=\"POST\",route=\"/service\",code=\"201\"} 1\n"));
+                assertTrue(metrics.contains("krymon_http_request_duration_seconds_count{method=\"DELETE\",route=\"/service/:serviceID\",code=\"404\"} 1\n"));
+                assertTrue(metrics.contains("krymon_event_loop_lag_seconds{loop=\"checks-0\"} "));
+            });
+        } finally {
+            server.close();
+        }
+    }
+
+    @Test
+    public void shouldPageFilterAndProjectServices() {
+        addService(new NewService("b", "http://b.example.com"));
+        addService(new NewService("a", "http://a.example.com"));
+        addService(new NewService("c", "http://c.example.com"));
+        addService(new NewService("other", "http://other.example.org"));
+
+        ServiceList first = Json.decodeValue(getBody("/service?sort=name&limit=2&fields=name"), ServiceList.class);
+        assertEquals(Arrays.asList("a", "b"), first.getServices().stream().map(Service::getName).collect(Collectors.toList()));
+        assertNull(first.getServices().get(0).getId());
+        assertNull(first.getServices().get(0).getUrl());
+
+        ServiceList second = Json.decodeValue(getBody("/service?sort=name&limit=2&fields=name&cursor=" + first.getNext()), ServiceList.class);
+        assertEquals(Arrays.asList("c", "other"), second.getServices().stream().map(Service::getName).collect(Collectors.toList()));
+        assertNull(second.getNext());
+
+        ServiceList byHost = Json.decodeValue(getBody("/service?host=other.example.org"), ServiceList.class);
+        assertEquals(1, byHost.getServices().size());
+        assertEquals("other", byHost.getServices().get(0).getName());
+
+        assertEquals(400, get("/service?limit=0").statusCode());
+        assertEquals(400, get("/service?sort=url").statusCode());
+        assertEquals(400, get("/service?fields=password").statusCode());
+        assertEquals(400, get("/service?cursor=" + first.getNext()).statusCode());
+        assertEquals(400, get("/service?sort=name&cursor=bogus!").statusCode());
+    }
+
+    @Test
+    public void shouldStreamLargeServiceListInChunks() throws IOException {
+        List<Service> stored = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            stored.add(new Service("id" + i, "service" + i, "http://localhost:1/" + i, Service.Status.UNKNOWN, null, 3_600_000L, null));
+        }
+        close(vertx).toBlocking().value();
+        Files.write(storeFile.toPath(), Json.encode(new ServiceList(stored)).getBytes(StandardCharsets.UTF_8));
+        startKrymon();
+
+        HttpClientResponse response = get("/service");
+        assertEquals("chunked", response.getHeader("Transfer-Encoding"));
+        assertEquals(stored, getServices().getServices());
+    }
+
+    @Test
+    public void shouldReturnOnlyChangesSinceRevision() {
+        addService(new NewService("a", "http://a.example.com"));
+        ServiceDelta first = Json.decodeValue(getBody("/service?since=0"), ServiceDelta.class);
+        assertTrue(first.isFull());
+        assertEquals(1, first.getServices().size());
+
+        addService(new NewService("b", "http://b.example.com"));
+        delete(first.getServices().get(0).getId());
+        ServiceDelta second = Json.decodeValue(getBody("/service?since=" + first.getRevision()), ServiceDelta.class);
+        assertFalse(second.isFull());
+        assertEquals("b", second.getServices().get(0).getName());
+        assertEquals(Collections.singletonList(first.getServices().get(0).getId()), second.getDeleted());
+
+        assertEquals(400, get("/service?since=" + second.getRevision() + "&sort=name").statusCode());
+    }
+
+    @Test
+    public void shouldAnswerNotModifiedForUnchangedList() {
+        addService(new NewService("a", "http://a.example.com"));
+        String etag = get("/service").getHeader("ETag");
+        assertEquals(304, getIfNoneMatch("/service", etag).statusCode());
+
+        addService(new NewService("b", "http://b.example.com"));
+        assertEquals(200, getIfNoneMatch("/service", etag).statusCode());
+    }
+
+    @Test
+    public void shouldPushServiceEventsToEverySubscriber() throws InterruptedException {
+        StringBuffer first = subscribe("/service/_events");
+        StringBuffer second = subscribe("/service/_events");
+        HttpServer server = startServerWithStatus(200);
+        try {
+            addService(new NewService("server", "http://0.0.0.0:" + server.actualPort()));
+            String id = getServices().getServices().get(0).getId();
+            await(() -> {
+                assertTrue(first.toString().contains("event: add\ndata: {\"id\":\"" + id + "\""));
+                assertTrue(first.toString().contains("event: status\ndata: {\"id\":\"" + id + "\",\"name\":\"server\""));
+                assertTrue(first.toString().contains("\"status\":\"OK\""));
+            });
+            delete(id);
+            await(() -> assertTrue(first.toString().contains("event: delete\ndata: {\"id\":\"" + id + "\"}\n\n")));
+            await(() -> assertEquals(first.toString(), second.toString()));
+        } finally {
+            server.close();
+        }
+    }
+
+    @Test
+    public void shouldApplyBulkRequestsAndRoundTripExport() {
+        addService(new NewService("old", "http://old.example.com"));
+        String old = getServices().getServices().get(0).getId();
+        List<BulkResult> results = bulk("{\"name\":\"a\",\"url\":\"http://a.example.com\",\"interval\":3600000}\n"
+                + "{\"delete\":\"" + old + "\"}\n"
+                + "{\"delete\":\"missing\"}\n"
+                + "{\"name\":\"b\"}\n");
+        assertEquals(Arrays.asList(201, 200, 404, 400), results.stream().map(BulkResult::getStatus).collect(Collectors.toList()));
+        assertEquals(Collections.singletonList("a"), getServices().getServices().stream().map(Service::getName).collect(Collectors.toList()));
+
+        HttpClientResponse export = get("/service/_export");
+        assertEquals("application/x-ndjson", export.getHeader("Content-Type"));
+        String exported = getBody("/service/_export").toString();
+        Service a = getServices().getServices().get(0);
+        delete(a.getId());
+        results = bulk("[" + exported.trim().replace("\n", ",") + "]");
+        assertEquals(Collections.singletonList(new BulkResult(a.getId(), 201, null)), results);
+        Service imported = getServices().getServices().get(0);
+        assertEquals(Arrays.asList(a.getId(), a.getName(), a.getUrl(), a.getInterval()),
+                Arrays.asList(imported.getId(), imported.getName(), imported.getUrl(), imported.getInterval()));
+
+        assertEquals(400, post("/service/_bulk", "[{\"name\":").statusCode());
+        assertEquals(1, getServices().getServices().size());
+    }
+
+    @Test
+    public void historyOfNonExistentServiceShouldReturn404() {
+        assertEquals(404, get("/service/foobar/history").statusCode());
+    }
+
     @Test
     public void shouldHandleFoobarPort() throws InterruptedException {
         addService(new NewService("server", "http://0.0.0.0:" + 554215));
@@ -194,6 +716,14 @@ public class KrymonTest {
         });
     }
 
+    @Test
+    public void shouldRejectServicesWithoutNameOrUrl() {
+        assertEquals(400, post("/service", "{\"name\":\"no-url\"}").statusCode());
+        assertEquals(400, post("/service", "{\"url\":\"http://www.example.com\"}").statusCode());
+        assertEquals(400, post("/service", "{\"name\":\"numeric-url\",\"url\":8080}").statusCode());
+        assertTrue(getServices().getServices().isEmpty());
+    }
+
     private Service withName(List<Service> services, String name) {
         for (Service s : services) {
             if (name.equals(s.getName())) {
@@ -208,8 +738,12 @@ public class KrymonTest {
     }
 
     private HttpServer startServerWithStatus(int statusCode) {
+        return startServer(new SettableStatusRequestHandler(statusCode));
+    }
+
+    private HttpServer startServer(Handler<HttpServerRequest> handler) {
         return Single.<HttpServer>create(subscriber ->
-                vertx.createHttpServer().requestHandler(new SettableStatusRequestHandler(statusCode)).listen(0, httpServer -> {
+                vertx.createHttpServer().requestHandler(handler).listen(0, httpServer -> {
                     if (httpServer.succeeded()) {
                         subscriber.onSuccess(httpServer.result());
                     } else {
@@ -218,6 +752,46 @@ public class KrymonTest {
                 })).toBlocking().value();
     }
 
+    /**
+     * Starts a name server which answers 127.0.0.1 for {@code name} and NXDOMAIN for anything else.
+     */
+    private DatagramSocket startDnsServer(String name) {
+        DatagramSocket socket = vertx.createDatagramSocket();
+        socket.handler(packet -> {
+            Buffer query = packet.data();
+            int end = 12;
+            List<String> asked = new ArrayList<>();
+            for (int questions = query.getUnsignedShort(4); questions > 0; questions--) {
+                List<String> labels = new ArrayList<>();
+                for (int length = query.getUnsignedByte(end); length != 0; length = query.getUnsignedByte(end)) {
+                    labels.add(query.getString(end + 1, end + 1 + length));
+                    end += 1 + length;
+                }
+                asked.add(String.join(".", labels));
+                end += 5;
+            }
+            boolean found = asked.contains(name);
+            Buffer answer = query.getBuffer(0, end)
+                    .setUnsignedShort(2, found ? 0x8180 : 0x8183)
+                    .setUnsignedShort(6, found ? 1 : 0)
+                    .setUnsignedShort(8, 0)
+                    .setUnsignedShort(10, 0);
+            if (found) {
+                answer.appendUnsignedShort(0xc00c).appendUnsignedShort(1).appendUnsignedShort(1).appendInt(60)
+                        .appendUnsignedShort(4).appendBytes(new byte[]{127, 0, 0, 1});
+            }
+            socket.send(answer, packet.sender().port(), packet.sender().host(), ig -> {
+            });
+        });
+        return Single.<DatagramSocket>create(subscriber -> socket.listen(0, "127.0.0.1", listening -> {
+            if (listening.succeeded()) {
+                subscriber.onSuccess(listening.result());
+            } else {
+                subscriber.onError(listening.cause());
+            }
+        })).toBlocking().value();
+    }
+
     private static class SettableStatusRequestHandler implements Handler<HttpServerRequest> {
 
         private final AtomicInteger status;
@@ -240,12 +814,52 @@ public class KrymonTest {
     }
 
 
+    private ServiceHistory getHistory(String id) {
+        return Single.<ServiceHistory>create(subscriber ->
+                httpClient.getNow(8080, "0.0.0.0", "/service/" + id + "/history",
+                        response -> response.bodyHandler(buffer -> subscriber.onSuccess(Json.decodeValue(buffer, ServiceHistory.class))))).toBlocking().value();
+    }
+
+    private Buffer getBody(String uri) {
+        return Single.<Buffer>create(subscriber ->
+                httpClient.getNow(8080, "0.0.0.0", uri, response -> response.bodyHandler(subscriber::onSuccess))).toBlocking().value();
+    }
+
+    private HttpClientResponse get(String uri) {
+        return Single.<HttpClientResponse>create(subscriber -> httpClient.getNow(8080, "0.0.0.0", uri, subscriber::onSuccess)).toBlocking().value();
+    }
+
+    private StringBuffer subscribe(String uri) {
+        StringBuffer events = new StringBuffer();
+        Single.<HttpClientResponse>create(subscriber -> httpClient.getNow(8080, "0.0.0.0", uri, response -> {
+            response.handler(buffer -> events.append(buffer.toString()));
+            subscriber.onSuccess(response);
+        })).toBlocking().value();
+        return events;
+    }
+
+    private HttpClientResponse getIfNoneMatch(String uri, String etag) {
+        return Single.<HttpClientResponse>create(subscriber ->
+                httpClient.get(8080, "0.0.0.0", uri).putHeader("If-None-Match", etag).handler(subscriber::onSuccess).end()).toBlocking().value();
+    }
+
     private HttpClientResponse addService(NewService service) {
         return Single.<HttpClientResponse>create(subscriber -> {
             httpClient.post(8080, "0.0.0.0", "/service").handler(subscriber::onSuccess).end(Json.encode(service));
         }).toBlocking().value();
     }
 
+    private List<BulkResult> bulk(String body) {
+        return Single.<List<BulkResult>>create(subscriber ->
+                httpClient.post(8080, "0.0.0.0", "/service/_bulk")
+                        .handler(response -> response.bodyHandler(buffer -> subscriber.onSuccess(Arrays.asList(Json.decodeValue(buffer, BulkResult[].class)))))
+                        .end(body)).toBlocking().value();
+    }
+
+    private HttpClientResponse post(String uri, String body) {
+        return Single.<HttpClientResponse>create(subscriber -> httpClient.post(8080, "0.0.0.0", uri).handler(subscriber::onSuccess).end(body)).toBlocking().value();
+    }
+
     private HttpClientResponse delete(String id) {
         return Single.<HttpClientResponse>create(subscriber -> httpClient.delete(8080, "0.0.0.0", "/service/" + id).handler(subscriber::onSuccess).end()).toBlocking().value();
     }
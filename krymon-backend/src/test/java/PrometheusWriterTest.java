@@ -0,0 +1,24 @@
+import io.vertx.core.buffer.Buffer;
+import krymon.PrometheusWriter;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class PrometheusWriterTest {
+
+    @Test
+    public void shouldEscapeLabelValues() {
+        Buffer buffer = Buffer.buffer();
+        new PrometheusWriter(buffer).sample("krymon_service_up").label("id", "1").label("name", "a \"b\"\\c\nd").value(1);
+
+        assertEquals("krymon_service_up{id=\"1\",name=\"a \\\"b\\\"\\\\c\\nd\"} 1\n", buffer.toString());
+    }
+
+    @Test
+    public void shouldWriteMissingLabelValuesAsEmpty() {
+        Buffer buffer = Buffer.buffer();
+        new PrometheusWriter(buffer).sample("krymon_service_up").label("id", "1").label("name", null).value(0);
+
+        assertEquals("krymon_service_up{id=\"1\",name=\"\"} 0\n", buffer.toString());
+    }
+}
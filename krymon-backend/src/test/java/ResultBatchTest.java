@@ -0,0 +1,58 @@
+import io.vertx.core.buffer.Buffer;
+import krymon.CheckResult;
+import krymon.ResultBatch;
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ResultBatchTest {
+
+    @Test
+    public void shouldRoundTripResults() {
+        long now = System.currentTimeMillis();
+        String id = UUID.randomUUID().toString();
+        ResultBatch batch = new ResultBatch("eu-west");
+        batch.add(id, CheckResult.response(now, 12_345, 200, 1_000, 8_000));
+        batch.add("not-a-uuid", CheckResult.error(now + 1500, 5_000_000, CheckResult.ErrorClass.TIMEOUT));
+        batch.add(id, CheckResult.success(now + 30, 900, 800).withCertificateDays(-3).failing(CheckResult.Assertion.CERTIFICATE));
+        batch.add(id.toUpperCase(), CheckResult.response(now - 20, 1, 503));
+
+        ResultBatch decoded = ResultBatch.decode(batch.encode());
+
+        assertEquals("eu-west", decoded.getAgent());
+        assertEquals(batch.size(), decoded.size());
+        for (int i = 0; i < batch.size(); i++) {
+            assertEquals(batch.getServiceID(i), decoded.getServiceID(i));
+            assertEquals(batch.getResult(i).toRecord(), decoded.getResult(i).toRecord());
+            assertEquals(batch.getResult(i).getLatencyMicros(), decoded.getResult(i).getLatencyMicros());
+        }
+    }
+
+    @Test
+    public void shouldEncodeCompactly() {
+        long now = System.currentTimeMillis();
+        ResultBatch batch = new ResultBatch("agent");
+        for (int i = 0; i < 1000; i++) {
+            batch.add(UUID.randomUUID().toString(), CheckResult.response(now + i, 20_000 + i, 200, 2_000, 15_000));
+        }
+
+        assertTrue(batch.encode().length() < 1000 * 30);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectOtherContent() {
+        ResultBatch.decode(Buffer.buffer("{\"services\": []}"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectTruncatedBatches() {
+        ResultBatch batch = new ResultBatch("agent");
+        batch.add(UUID.randomUUID().toString(), CheckResult.response(System.currentTimeMillis(), 100, 200));
+        Buffer encoded = batch.encode();
+
+        ResultBatch.decode(encoded.getBuffer(0, encoded.length() - 1));
+    }
+}
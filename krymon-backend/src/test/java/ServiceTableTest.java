@@ -0,0 +1,165 @@
+import krymon.Service;
+import krymon.ServiceDelta;
+import krymon.ServiceList;
+import krymon.ServiceQuery;
+import krymon.ServiceTable;
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ServiceTableTest {
+
+    @Test
+    public void shouldIterateInInsertionOrderAcrossUpdates() {
+        ServiceTable table = new ServiceTable();
+        table.put("b", service("b", Service.Status.UNKNOWN));
+        table.put("a", service("a", Service.Status.UNKNOWN));
+        table.put("c", service("c", Service.Status.UNKNOWN));
+        table.computeIfPresent("b", (id, service) -> service.withStatus(Service.Status.OK, null));
+
+        assertEquals(Arrays.asList("b", "a", "c"), ids(table));
+        assertEquals(Service.Status.OK, table.get("b").getStatus());
+    }
+
+    @Test
+    public void shouldForgetRemovedServices() {
+        ServiceTable table = new ServiceTable();
+        table.put("a", service("a", Service.Status.UNKNOWN));
+        table.put("b", service("b", Service.Status.UNKNOWN));
+        table.remove("a");
+        table.put("a", service("a", Service.Status.UNKNOWN));
+
+        assertEquals(Arrays.asList("b", "a"), ids(table));
+        assertNull(table.computeIfPresent("x", (id, service) -> service));
+        assertEquals(2, table.size());
+    }
+
+    @Test
+    public void shouldIterateWhileBeingModified() {
+        ServiceTable table = new ServiceTable();
+        for (int i = 0; i < 10; i++) {
+            table.put(String.valueOf(i), service(String.valueOf(i), Service.Status.UNKNOWN));
+        }
+        List<String> seen = new ArrayList<>();
+        for (Service service : table.values()) {
+            seen.add(service.getId());
+            if (service.getId().equals("0")) {
+                table.remove("5");
+                table.put("10", service("10", Service.Status.UNKNOWN));
+            }
+        }
+
+        assertEquals(Arrays.asList("0", "1", "2", "3", "4", "6", "7", "8", "9", "10"), seen);
+    }
+
+    @Test
+    public void shouldPageThroughSortedServicesWithCursors() {
+        ServiceTable table = new ServiceTable();
+        for (String name : Arrays.asList("d", "b", "e", "a", "c")) {
+            table.put(name, service(name, Service.Status.UNKNOWN));
+        }
+
+        List<String> names = new ArrayList<>();
+        ServiceList page = table.query(new ServiceQuery().setSort("name").setLimit(2));
+        names.addAll(ids(page));
+        while (page.getNext() != null) {
+            page = table.query(new ServiceQuery().setSort("name").setLimit(2).setCursor(page.getNext()));
+            names.addAll(ids(page));
+        }
+
+        assertEquals(Arrays.asList("a", "b", "c", "d", "e"), names);
+        assertEquals(Arrays.asList("e", "d"), ids(table.query(new ServiceQuery().setSort("-name").setLimit(2))));
+    }
+
+    @Test
+    public void shouldFilterByStatusNamePrefixAndHost() {
+        ServiceTable table = new ServiceTable();
+        table.put("api-1", new Service("api-1", "api-1", "http://api.example.com/1", Service.Status.OK, null));
+        table.put("api-2", new Service("api-2", "api-2", "http://API.example.com/2", Service.Status.FAIL, null));
+        table.put("web-1", new Service("web-1", "web-1", "http://web.example.com/1", Service.Status.FAIL, null));
+        table.put("web-2", new Service("web-2", "web-2", "http://web.example.com/2", Service.Status.OK, null));
+
+        assertEquals(Arrays.asList("api-2", "web-1"), ids(table.query(new ServiceQuery().setStatus(Service.Status.FAIL))));
+        assertEquals(Arrays.asList("web-1", "web-2"), ids(table.query(new ServiceQuery().setNamePrefix("web"))));
+        assertEquals(Arrays.asList("api-2", "api-1"), ids(table.query(new ServiceQuery().setHost("api.example.com").setSort("-name"))));
+        assertEquals(Arrays.asList("web-1"), ids(table.query(new ServiceQuery().setNamePrefix("w").setStatus(Service.Status.FAIL).setSort("status"))));
+        ServiceList page = table.query(new ServiceQuery().setStatus(Service.Status.OK).setSort("name").setLimit(1));
+        assertEquals(Arrays.asList("api-1"), ids(page));
+        assertEquals(Arrays.asList("web-2"), ids(table.query(new ServiceQuery().setStatus(Service.Status.OK).setSort("name").setLimit(1).setCursor(page.getNext()))));
+    }
+
+    @Test
+    public void shouldReindexUpdatedServices() {
+        ServiceTable table = new ServiceTable();
+        table.put("a", service("a", Service.Status.UNKNOWN));
+        table.put("b", service("b", Service.Status.UNKNOWN));
+        table.computeIfPresent("b", (id, service) -> service.withStatus(Service.Status.FAIL, new DateTime(1000)));
+        table.computeIfPresent("a", (id, service) -> service.withStatus(Service.Status.OK, new DateTime(2000)));
+        table.remove("a");
+
+        assertEquals(Arrays.asList("b"), ids(table.query(new ServiceQuery().setStatus(Service.Status.FAIL))));
+        assertEquals(Collections.emptyList(), ids(table.query(new ServiceQuery().setStatus(Service.Status.UNKNOWN))));
+        assertEquals(Arrays.asList("b"), ids(table.query(new ServiceQuery().setSort("-lastCheck"))));
+        assertEquals(Collections.emptyList(), ids(table.query(new ServiceQuery().setHost("localhost").setStatus(Service.Status.OK))));
+    }
+
+    private static List<String> ids(ServiceList page) {
+        return page.getServices().stream().map(Service::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    public void shouldReturnChangesSinceRevision() {
+        ServiceTable table = new ServiceTable();
+        table.put("a", service("a", Service.Status.UNKNOWN));
+        table.put("b", service("b", Service.Status.UNKNOWN));
+        long since = table.revision();
+
+        table.computeIfPresent("a", (id, service) -> service.withStatus(Service.Status.UNKNOWN, new DateTime(1000)));
+        assertEquals(since, table.revision());
+
+        table.computeIfPresent("a", (id, service) -> service.withStatus(Service.Status.OK, new DateTime(2000)));
+        table.put("c", service("c", Service.Status.UNKNOWN));
+        table.remove("b");
+
+        ServiceDelta delta = table.changesSince(since);
+        assertEquals(table.revision(), delta.getRevision());
+        assertFalse(delta.isFull());
+        assertEquals(Arrays.asList("a", "c"), delta.getServices().stream().map(Service::getId).collect(Collectors.toList()));
+        assertEquals(Collections.singletonList("b"), delta.getDeleted());
+        assertEquals(Collections.emptyList(), table.changesSince(delta.getRevision()).getServices());
+    }
+
+    @Test
+    public void shouldReturnFullListWhenDeletionsAreForgotten() {
+        ServiceTable table = new ServiceTable();
+        long since = table.revision();
+        for (int i = 0; i <= ServiceTable.MAX_DELETIONS; i++) {
+            table.put("x", service("x", Service.Status.UNKNOWN));
+            table.remove("x");
+        }
+        table.put("a", service("a", Service.Status.UNKNOWN));
+
+        ServiceDelta delta = table.changesSince(since);
+        assertTrue(delta.isFull());
+        assertEquals(Collections.singletonList("a"), delta.getServices().stream().map(Service::getId).collect(Collectors.toList()));
+        assertTrue(table.changesSince(delta.getRevision() + 1).isFull());
+    }
+
+    private static List<String> ids(ServiceTable table) {
+        return table.values().stream().map(Service::getId).collect(Collectors.toList());
+    }
+
+    private static Service service(String id, Service.Status status) {
+        return new Service(id, id, "http://localhost/" + id, status, null);
+    }
+}
@@ -0,0 +1,60 @@
+import krymon.LatencyStats;
+import krymon.SlidingHistogram;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.ShortCountsHistogram;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SlidingHistogramTest {
+
+    @Test
+    public void shouldOnlyIncludeValuesWithinWindow() {
+        SlidingHistogram histogram = new SlidingHistogram(1000, 4, Long.MAX_VALUE, () -> LatencyStats.histogram(2));
+        histogram.record(0, 100);
+        histogram.record(600, 200);
+        histogram.record(900, 300);
+
+        assertEquals(3, merged(histogram, 999).getTotalCount());
+        assertEquals(2, merged(histogram, 1000).getTotalCount());
+        assertEquals(1, merged(histogram, 1500).getTotalCount());
+        assertEquals(0, merged(histogram, 2000).getTotalCount());
+    }
+
+    @Test
+    public void shouldResetReusedSlices() {
+        SlidingHistogram histogram = new SlidingHistogram(1000, 4, Long.MAX_VALUE, () -> LatencyStats.histogram(2));
+        histogram.record(0, 100);
+        histogram.record(1000, 5000);
+
+        Histogram merged = merged(histogram, 1000);
+        assertEquals(1, merged.getTotalCount());
+        assertTrue(merged.getMinValue() > 1000);
+    }
+
+    @Test
+    public void shouldStopRecordingIntoFullSlice() {
+        SlidingHistogram histogram = new SlidingHistogram(1000, 1, Short.MAX_VALUE,
+                () -> new ShortCountsHistogram(LatencyStats.LOWEST_DISCERNIBLE_MICROS, LatencyStats.HIGHEST_TRACKABLE_MICROS, 1));
+        for (int i = 0; i < Short.MAX_VALUE + 10; i++) {
+            histogram.record(0, 100);
+        }
+
+        assertEquals(Short.MAX_VALUE, merged(histogram, 0).getTotalCount());
+    }
+
+    @Test
+    public void shouldClampValuesAboveHighestTrackable() {
+        SlidingHistogram histogram = new SlidingHistogram(1000, 4, Long.MAX_VALUE, () -> LatencyStats.histogram(2));
+        histogram.record(0, Long.MAX_VALUE);
+
+        assertTrue(merged(histogram, 0).getMaxValue() >= LatencyStats.HIGHEST_TRACKABLE_MICROS);
+    }
+
+    private static Histogram merged(SlidingHistogram histogram, long now) {
+        Histogram target = LatencyStats.histogram(2);
+        histogram.addTo(now, target);
+        return target;
+    }
+}
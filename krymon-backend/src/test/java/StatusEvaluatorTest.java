@@ -0,0 +1,71 @@
+import krymon.KrymonOptions;
+import krymon.Service;
+import krymon.StatusEvaluator;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class StatusEvaluatorTest {
+
+    private static final Service SERVICE = new Service("a", "a", "http://localhost/a", Service.Status.OK, null);
+
+    @Test
+    public void shouldIgnoreSingleFailures() {
+        StatusEvaluator evaluator = new StatusEvaluator(new KrymonOptions());
+
+        assertEquals(statuses("OK OK OK OK OK OK OK"), evaluate(evaluator, true, false, true, true, true, true, false));
+    }
+
+    @Test
+    public void shouldFailAfterThresholdAndRecoverWithHysteresis() {
+        StatusEvaluator evaluator = new StatusEvaluator(new KrymonOptions());
+
+        assertEquals(statuses("OK DEGRADED FAIL FAIL FAIL FAIL OK"),
+                evaluate(evaluator, false, false, false, true, true, true, true));
+    }
+
+    @Test
+    public void shouldDecideNewServicesOnFirstCheck() {
+        StatusEvaluator evaluator = new StatusEvaluator(new KrymonOptions());
+        Service service = new Service("b", "b", "http://localhost/b", Service.Status.UNKNOWN, null);
+
+        assertEquals(Service.Status.FAIL, evaluator.evaluate(service, false));
+        evaluator.forget("b");
+        assertEquals(Service.Status.OK, evaluator.evaluate(service, true));
+    }
+
+    @Test
+    public void shouldFlapWhileAlternatingAndStopOnceSteady() {
+        StatusEvaluator evaluator = new StatusEvaluator(new KrymonOptions().setFlapWindow(8));
+        boolean[] alternating = new boolean[8];
+        for (int i = 0; i < alternating.length; i++) {
+            alternating[i] = i % 2 == 0;
+        }
+        List<Service.Status> flapping = evaluate(evaluator, alternating);
+        assertEquals(Service.Status.FLAPPING, flapping.get(flapping.size() - 1));
+
+        List<Service.Status> steady = evaluate(evaluator, true, true, true, true, true, true, true);
+        assertEquals(Service.Status.FLAPPING, steady.get(0));
+        assertEquals(Service.Status.OK, steady.get(steady.size() - 1));
+    }
+
+    private static List<Service.Status> evaluate(StatusEvaluator evaluator, boolean... results) {
+        List<Service.Status> statuses = new ArrayList<>();
+        for (boolean ok : results) {
+            statuses.add(evaluator.evaluate(SERVICE, ok));
+        }
+        return statuses;
+    }
+
+    private static List<Service.Status> statuses(String statuses) {
+        List<Service.Status> list = new ArrayList<>();
+        for (String status : Arrays.asList(statuses.split(" "))) {
+            list.add(Service.Status.valueOf(status));
+        }
+        return list;
+    }
+}
@@ -0,0 +1,71 @@
+import krymon.TimingWheel;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class TimingWheelTest {
+
+    @Test
+    public void shouldExpireItemsWhenDue() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 8, 0);
+        wheel.schedule("a", 25);
+        wheel.schedule("b", 10);
+        List<String> expired = new ArrayList<>();
+
+        wheel.advance(9, expired::add);
+        assertEquals(Collections.emptyList(), expired);
+
+        wheel.advance(10, expired::add);
+        assertEquals(Collections.singletonList("b"), expired);
+
+        wheel.advance(29, expired::add);
+        assertEquals(Arrays.asList("b"), expired);
+
+        wheel.advance(30, expired::add);
+        assertEquals(Arrays.asList("b", "a"), expired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void shouldHandleDeadlinesBeyondOneRotation() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 4, 0);
+        wheel.schedule("late", 100);
+        wheel.schedule("early", 20);
+        List<String> expired = new ArrayList<>();
+
+        wheel.advance(90, expired::add);
+        assertEquals(Collections.singletonList("early"), expired);
+
+        wheel.advance(100, expired::add);
+        assertEquals(Arrays.asList("early", "late"), expired);
+    }
+
+    @Test
+    public void shouldExpireOverdueItemsOnNextTick() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 4, 1000);
+        wheel.schedule("overdue", 500);
+        List<String> expired = new ArrayList<>();
+
+        wheel.advance(1010, expired::add);
+        assertEquals(Collections.singletonList("overdue"), expired);
+    }
+
+    @Test
+    public void shouldAllowReschedulingFromExpiry() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 4, 0);
+        wheel.schedule("a", 10);
+        List<String> expired = new ArrayList<>();
+
+        wheel.advance(50, item -> {
+            expired.add(item);
+            wheel.schedule(item, expired.size() * 30);
+        });
+        assertEquals(Arrays.asList("a", "a"), expired);
+        assertEquals(1, wheel.size());
+    }
+}
@@ -0,0 +1,92 @@
+package krymon;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import rx.Single;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * End to end check throughput: a full backend checks {@code services} services, all due continuously, against a
+ * local stub server that answers every request with an empty 200. One operation is one check answered by the stub.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CheckThroughputBenchmark {
+
+    private static final int CHECKS_PER_INVOCATION = 1000;
+
+    @Param({"100", "1000", "10000"})
+    private int services;
+
+    private Vertx vertx;
+    private File storeFile;
+    private final AtomicLong checks = new AtomicLong();
+
+    @Setup
+    public void setup() throws IOException {
+        vertx = Vertx.vertx();
+        HttpServer stub = Single.<HttpServer>create(subscriber ->
+                vertx.createHttpServer()
+                        .requestHandler(request -> {
+                            checks.incrementAndGet();
+                            request.response().end();
+                        })
+                        .listen(0, handler -> {
+                            if (handler.succeeded()) {
+                                subscriber.onSuccess(handler.result());
+                            } else {
+                                subscriber.onError(handler.cause());
+                            }
+                        })).toBlocking().value();
+
+        storeFile = File.createTempFile("krymon-bench", ".json");
+        List<Service> due = new ArrayList<>();
+        for (Service service : Fixtures.services(services, i -> "http://localhost:" + stub.actualPort() + "/" + i).getServices()) {
+            due.add(new Service(service.getId(), service.getName(), service.getUrl(), Service.Status.UNKNOWN, null, 1L, null));
+        }
+        new JsonFileStore(vertx, storeFile.getAbsolutePath()).writeList(new ServiceList(due)).toBlocking().value();
+
+        KrymonOptions options = new KrymonOptions()
+                .setPort(0)
+                .setApiInstances(1)
+                .setWheelTick(1);
+        options.setMaxChecksPerHost(options.getMaxChecksInFlight());
+        new Krymon(vertx, storeFile.getAbsolutePath(), options).start().toBlocking().value();
+    }
+
+    @TearDown
+    public void tearDown() {
+        vertx.close();
+        storeFile.delete();
+        new File(storeFile.getAbsolutePath() + ".journal").delete();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHECKS_PER_INVOCATION)
+    public long checks() {
+        long target = checks.get() + CHECKS_PER_INVOCATION;
+        long current;
+        while ((current = checks.get()) < target) {
+            LockSupport.parkNanos(50_000);
+        }
+        return current;
+    }
+}
@@ -0,0 +1,39 @@
+package krymon;
+
+import com.fasterxml.jackson.datatype.joda.JodaModule;
+import io.vertx.core.json.Json;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.IntFunction;
+
+/**
+ * Service lists for the benchmarks, shaped like the ones the backend stores and serves.
+ */
+class Fixtures {
+
+    private static final DateTime LAST_CHECK = new DateTime(2018, 2, 14, 18, 0, DateTimeZone.UTC);
+
+    static {
+        Json.mapper.registerModule(new JodaModule());
+    }
+
+    static ServiceList services(int count) {
+        return services(count, i -> "http://service-" + i + ".example.com/health");
+    }
+
+    static ServiceList services(int count, IntFunction<String> url) {
+        List<Service> services = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            services.add(service("service-" + i, url.apply(i)));
+        }
+        return new ServiceList(services);
+    }
+
+    static Service service(String name, String url) {
+        return new Service(UUID.randomUUID().toString(), name, url, Service.Status.OK, LAST_CHECK);
+    }
+}
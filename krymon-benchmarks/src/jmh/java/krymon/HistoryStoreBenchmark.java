@@ -0,0 +1,85 @@
+package krymon;
+
+import io.vertx.core.Vertx;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queries over 90 days of hourly checks of one service, among many, in the memory-mapped history store, and the
+ * 30-day uptime of all of them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HistoryStoreBenchmark {
+
+    private static final long HOUR = 3_600_000L;
+    private static final int DAYS = 90;
+
+    @Param({"100", "1000"})
+    private int services;
+
+    private Vertx vertx;
+    private File directory;
+    private HistoryStore store;
+    private long from;
+    private long to;
+
+    @Setup
+    public void setup() throws IOException {
+        vertx = Vertx.vertx();
+        directory = Files.createTempDirectory("krymon-bench-history").toFile();
+        store = new HistoryStore(vertx, directory.getAbsolutePath(), new KrymonOptions());
+        store.open().toBlocking().value();
+        to = System.currentTimeMillis();
+        from = to - DAYS * 24 * HOUR;
+        for (long hour = from; hour < to; hour += HOUR) {
+            for (int i = 0; i < services; i++) {
+                store.record("service-" + i, CheckResult.response(hour + i, 10_000 + i, i % 50 == 0 ? 503 : 200));
+            }
+            store.flush().toBlocking().value();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        store.close().toBlocking().value();
+        vertx.close();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Benchmark
+    public List<HistoryStore.Rollup> hourly() {
+        return store.rollups("service-" + (services / 2), HistoryStore.Resolution.HOUR, from, to).toBlocking().value();
+    }
+
+    @Benchmark
+    public Map<String, HistoryStore.Rollup> uptimeOfAll() {
+        return store.totals(null, to - 30 * 24 * HOUR, to).toBlocking().value();
+    }
+
+    @Benchmark
+    public List<HistoryStore.Rollup> daily() {
+        return store.rollups("service-" + (services / 2), HistoryStore.Resolution.DAY, from, to).toBlocking().value();
+    }
+}
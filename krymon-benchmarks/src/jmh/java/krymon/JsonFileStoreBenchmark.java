@@ -0,0 +1,58 @@
+package krymon;
+
+import io.vertx.core.Vertx;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round trips of the service list through the file store, including the file system calls.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JsonFileStoreBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int services;
+
+    private Vertx vertx;
+    private File file;
+    private JsonFileStore store;
+    private ServiceList list;
+
+    @Setup
+    public void setup() throws IOException {
+        vertx = Vertx.vertx();
+        file = File.createTempFile("krymon-bench", ".json");
+        store = new JsonFileStore(vertx, file.getAbsolutePath());
+        list = Fixtures.services(services);
+        store.writeList(list).toBlocking().value();
+    }
+
+    @TearDown
+    public void tearDown() {
+        vertx.close();
+        file.delete();
+    }
+
+    @Benchmark
+    public ServiceList readListOrEmpty() {
+        return store.readListOrEmpty().toBlocking().value();
+    }
+
+    @Benchmark
+    public Void writeList() {
+        return store.writeList(list).toBlocking().value();
+    }
+}
@@ -0,0 +1,45 @@
+package krymon;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.Json;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding of the whole service list, as done for the store file and {@code GET /service}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ServiceListJsonBenchmark {
+
+    @Param({"100", "1000", "10000", "100000"})
+    private int services;
+
+    private ServiceList list;
+    private Buffer encoded;
+
+    @Setup
+    public void setup() {
+        list = Fixtures.services(services);
+        encoded = Json.encodeToBuffer(list);
+    }
+
+    @Benchmark
+    public Buffer encodeToBuffer() {
+        return Json.encodeToBuffer(list);
+    }
+
+    @Benchmark
+    public ServiceList decodeValue() {
+        return Json.decodeValue(encoded, ServiceList.class);
+    }
+}
@@ -0,0 +1,112 @@
+package krymon;
+
+import io.vertx.core.Vertx;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import rx.Single;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Latency of the mutations behind {@code POST /service} and {@code DELETE /service/:serviceID}, and of paged queries,
+ * on a registry already holding {@code services} services. Every benchmark leaves the registry at that size, and the store discards
+ * writes, so only the registry itself is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ServiceRegistryBenchmark {
+
+    @Param({"100", "1000", "10000", "100000"})
+    private int services;
+
+    private Vertx vertx;
+    private ServiceRegistry registry;
+
+    @Setup
+    public void setup() {
+        vertx = Vertx.vertx();
+        ServiceList list = Fixtures.services(services);
+        registry = new ServiceRegistry(vertx, new ServiceStore() {
+            @Override
+            public Single<ServiceList> load() {
+                return Single.just(list);
+            }
+
+            @Override
+            public Single<Void> write(List<StoreRecord> records, Supplier<ServiceList> snapshot) {
+                return Single.just(null);
+            }
+        }, 1000);
+        registry.load().toBlocking().value();
+    }
+
+    @TearDown
+    public void tearDown() {
+        vertx.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Added {
+        private String id;
+
+        @Setup(Level.Invocation)
+        public void add(ServiceRegistryBenchmark benchmark) {
+            id = benchmark.add();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ToDelete {
+        private String id;
+
+        @TearDown(Level.Invocation)
+        public void deleteIfExists(ServiceRegistryBenchmark benchmark) {
+            benchmark.deleteIfExists(id);
+        }
+    }
+
+    @Benchmark
+    public String addService(ToDelete added) {
+        added.id = add();
+        return added.id;
+    }
+
+    @Benchmark
+    public Boolean deleteIfExists(Added added) {
+        return deleteIfExists(added.id);
+    }
+
+    @Benchmark
+    public Boolean deleteIfExistsMissing() {
+        return deleteIfExists("missing");
+    }
+
+    @Benchmark
+    public ServiceList firstPageByName() {
+        return registry.query(new ServiceQuery().setSort("name").setLimit(100));
+    }
+
+    @Benchmark
+    public ServiceList failingPageByName() {
+        return registry.query(new ServiceQuery().setStatus(Service.Status.FAIL).setSort("name").setLimit(100));
+    }
+
+    private String add() {
+        return registry.submit(Mutation.add(Fixtures.service("added", "http://added.example.com/health"))).toBlocking().value();
+    }
+
+    private Boolean deleteIfExists(String serviceID) {
+        return registry.submit(Mutation.remove(serviceID)).toBlocking().value();
+    }
+}
@@ -0,0 +1,68 @@
+package krymon;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.joda.time.DateTime;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The alerts of one window for one target: the services which started alerting, and those which stopped, each as it
+ * was when it changed status.
+ */
+public class AlertNotification {
+    private final String target;
+    private final DateTime timestamp;
+    private final List<Service> firing;
+    private final List<Service> resolved;
+
+    @JsonCreator
+    public AlertNotification(
+            @JsonProperty("target")
+            String target,
+            @JsonProperty("timestamp")
+            DateTime timestamp,
+            @JsonProperty("firing")
+            List<Service> firing,
+            @JsonProperty("resolved")
+            List<Service> resolved
+    ) {
+        this.target = target;
+        this.timestamp = timestamp;
+        this.firing = firing;
+        this.resolved = resolved;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public DateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public List<Service> getFiring() {
+        return firing;
+    }
+
+    public List<Service> getResolved() {
+        return resolved;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        AlertNotification that = (AlertNotification) o;
+        return Objects.equals(target, that.target) &&
+                Objects.equals(timestamp, that.timestamp) &&
+                Objects.equals(firing, that.firing) &&
+                Objects.equals(resolved, that.resolved);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(target, timestamp, firing, resolved);
+    }
+}
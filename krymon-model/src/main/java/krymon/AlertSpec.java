@@ -0,0 +1,69 @@
+package krymon;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * When and where to alert about a service. Anything left out uses the backend's default.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AlertSpec {
+    private final List<String> targets;
+    private final List<Service.Status> statuses;
+    private final Boolean muted;
+
+    @JsonCreator
+    public AlertSpec(
+            @JsonProperty("targets")
+            List<String> targets,
+            @JsonProperty("statuses")
+            List<Service.Status> statuses,
+            @JsonProperty("muted")
+            Boolean muted
+    ) {
+        this.targets = targets;
+        this.statuses = statuses;
+        this.muted = muted;
+    }
+
+    /**
+     * Names of the alert sinks to notify, or null for all of them.
+     */
+    public List<String> getTargets() {
+        return targets;
+    }
+
+    /**
+     * The statuses in which the service is alerting, or null for {@code FAIL} only. An alert fires when the service
+     * enters one of them and resolves when it leaves them all.
+     */
+    public List<Service.Status> getStatuses() {
+        return statuses;
+    }
+
+    /**
+     * Whether to never alert about the service, or null for false.
+     */
+    public Boolean getMuted() {
+        return muted;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        AlertSpec that = (AlertSpec) o;
+        return Objects.equals(targets, that.targets) &&
+                Objects.equals(statuses, that.statuses) &&
+                Objects.equals(muted, that.muted);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(targets, statuses, muted);
+    }
+}
@@ -0,0 +1,55 @@
+package krymon;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Objects;
+
+/**
+ * The outcome of one item of a bulk request, with the HTTP status the item would have had on its own: 201 for a new
+ * service, 200 for a replaced or deleted one, 404 for deleting a missing one and 400 for an invalid item.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkResult {
+    private final String id;
+    private final int status;
+    private final String error;
+
+    @JsonCreator
+    public BulkResult(
+            @JsonProperty("id") String id,
+            @JsonProperty("status") int status,
+            @JsonProperty("error") String error) {
+        this.id = id;
+        this.status = status;
+        this.error = error;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BulkResult that = (BulkResult) o;
+        return status == that.status &&
+                Objects.equals(id, that.id) &&
+                Objects.equals(error, that.error);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, status, error);
+    }
+}
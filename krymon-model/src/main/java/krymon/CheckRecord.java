@@ -0,0 +1,130 @@
+package krymon;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.joda.time.DateTime;
+
+import java.util.Objects;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CheckRecord {
+    private final DateTime timestamp;
+    private final long latencyMicros;
+    private final Integer statusCode;
+    private final String error;
+    private final Long connectMicros;
+    private final Long firstByteMicros;
+    private final String failedAssertion;
+    private final Integer certificateDays;
+
+    public CheckRecord(DateTime timestamp, long latencyMicros, Integer statusCode, String error) {
+        this(timestamp, latencyMicros, statusCode, error, null, null, null);
+    }
+
+    public CheckRecord(DateTime timestamp, long latencyMicros, Integer statusCode, String error, Long connectMicros,
+                       Long firstByteMicros, String failedAssertion) {
+        this(timestamp, latencyMicros, statusCode, error, connectMicros, firstByteMicros, failedAssertion, null);
+    }
+
+    @JsonCreator
+    public CheckRecord(
+            @JsonProperty("timestamp")
+            DateTime timestamp,
+            @JsonProperty("latencyMicros")
+            long latencyMicros,
+            @JsonProperty("statusCode")
+            Integer statusCode,
+            @JsonProperty("error")
+            String error,
+            @JsonProperty("connectMicros")
+            Long connectMicros,
+            @JsonProperty("firstByteMicros")
+            Long firstByteMicros,
+            @JsonProperty("failedAssertion")
+            String failedAssertion,
+            @JsonProperty("certificateDays")
+            Integer certificateDays
+    ) {
+        this.timestamp = timestamp;
+        this.latencyMicros = latencyMicros;
+        this.statusCode = statusCode;
+        this.error = error;
+        this.connectMicros = connectMicros;
+        this.firstByteMicros = firstByteMicros;
+        this.failedAssertion = failedAssertion;
+        this.certificateDays = certificateDays;
+    }
+
+    public DateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public long getLatencyMicros() {
+        return latencyMicros;
+    }
+
+    /**
+     * The HTTP status code of the response, or null if the check failed without a response or was not an HTTP check.
+     */
+    public Integer getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * The class of error which made the check fail without a response, or null if there was a response.
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * The time it took to open a new connection, including any TLS handshake, or null if a pooled connection was
+     * reused or none could be opened.
+     */
+    public Long getConnectMicros() {
+        return connectMicros;
+    }
+
+    /**
+     * The time until the first byte of the response, or null if there was no response.
+     */
+    public Long getFirstByteMicros() {
+        return firstByteMicros;
+    }
+
+    /**
+     * The assertion the check failed, such as {@code CONTAINS}, {@code MAX_LATENCY} or {@code CERTIFICATE}, or null.
+     */
+    public String getFailedAssertion() {
+        return failedAssertion;
+    }
+
+    /**
+     * The days left until the server's certificate expires, negative once it has, or null if the check did not
+     * look at a certificate.
+     */
+    public Integer getCertificateDays() {
+        return certificateDays;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CheckRecord that = (CheckRecord) o;
+        return latencyMicros == that.latencyMicros &&
+                Objects.equals(timestamp, that.timestamp) &&
+                Objects.equals(statusCode, that.statusCode) &&
+                Objects.equals(error, that.error) &&
+                Objects.equals(connectMicros, that.connectMicros) &&
+                Objects.equals(firstByteMicros, that.firstByteMicros) &&
+                Objects.equals(failedAssertion, that.failedAssertion) &&
+                Objects.equals(certificateDays, that.certificateDays);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(timestamp, latencyMicros, statusCode, error, connectMicros, firstByteMicros, failedAssertion, certificateDays);
+    }
+}
@@ -0,0 +1,134 @@
+package krymon;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * How a service is checked, and what its response has to look like besides having a 2xx status. Anything left out
+ * uses the backend's default or is not asserted.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CheckSpec {
+    private final Method method;
+    private final List<String> contains;
+    private final String matches;
+    private final Map<String, Object> json;
+    private final Long maxLatency;
+    private final Integer minCertificateDays;
+
+    public CheckSpec(Method method) {
+        this(method, null, null, null, null);
+    }
+
+    public CheckSpec(Method method, List<String> contains, String matches, Map<String, Object> json, Long maxLatency) {
+        this(method, contains, matches, json, maxLatency, null);
+    }
+
+    @JsonCreator
+    public CheckSpec(
+            @JsonProperty("method")
+            Method method,
+            @JsonProperty("contains")
+            List<String> contains,
+            @JsonProperty("matches")
+            String matches,
+            @JsonProperty("json")
+            Map<String, Object> json,
+            @JsonProperty("maxLatency")
+            Long maxLatency,
+            @JsonProperty("minCertificateDays")
+            Integer minCertificateDays
+    ) {
+        this.method = method;
+        this.contains = contains;
+        this.matches = matches;
+        this.json = json;
+        this.maxLatency = maxLatency;
+        this.minCertificateDays = minCertificateDays;
+    }
+
+    public enum Method {
+        /**
+         * A GET whose body is read and thrown away as it arrives, or cut off if it gets too large.
+         */
+        GET,
+        /**
+         * A HEAD request, for services that answer it the same way as a GET.
+         */
+        HEAD,
+        /**
+         * A GET asking for the first byte of the body only.
+         */
+        RANGE
+    }
+
+    /**
+     * The request to check with, or null for a GET.
+     */
+    public Method getMethod() {
+        return method;
+    }
+
+    /**
+     * Strings which must all appear in the body, or null.
+     */
+    public List<String> getContains() {
+        return contains;
+    }
+
+    /**
+     * A regular expression which must match somewhere in the body, or null. Matches longer than a few kilobytes are
+     * not found, {@code ^} and {@code $} match at the start and end of the body unless multiline, and a pattern which
+     * backtracks too much fails.
+     */
+    public String getMatches() {
+        return matches;
+    }
+
+    /**
+     * Values which the body, parsed as JSON, must have, keyed by JSON pointer such as {@code /status} or by a simple
+     * JSON path such as {@code $.checks[0].ok}. Only strings, numbers, booleans and null can be compared. Null if the
+     * body does not have to be JSON.
+     */
+    public Map<String, Object> getJson() {
+        return json;
+    }
+
+    /**
+     * The most milliseconds a check may take before it fails, or null.
+     */
+    public Long getMaxLatency() {
+        return maxLatency;
+    }
+
+    /**
+     * The fewest days the server's certificate may have left before it expires, or null. Only asserted by
+     * {@code tls://} checks.
+     */
+    public Integer getMinCertificateDays() {
+        return minCertificateDays;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CheckSpec that = (CheckSpec) o;
+        return method == that.method &&
+                Objects.equals(contains, that.contains) &&
+                Objects.equals(matches, that.matches) &&
+                Objects.equals(json, that.json) &&
+                Objects.equals(maxLatency, that.maxLatency) &&
+                Objects.equals(minCertificateDays, that.minCertificateDays);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(method, contains, matches, json, maxLatency, minCertificateDays);
+    }
+}
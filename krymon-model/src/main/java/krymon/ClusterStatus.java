@@ -0,0 +1,54 @@
+package krymon;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * One node's view of the cluster: its own address, the addresses of the nodes it currently sees as live, itself
+ * included, and how many services it checks.
+ */
+public class ClusterStatus {
+    private final String self;
+    private final List<String> members;
+    private final int owned;
+
+    @JsonCreator
+    public ClusterStatus(
+            @JsonProperty("self") String self,
+            @JsonProperty("members") List<String> members,
+            @JsonProperty("owned") int owned) {
+        this.self = self;
+        this.members = members;
+        this.owned = owned;
+    }
+
+    public String getSelf() {
+        return self;
+    }
+
+    public List<String> getMembers() {
+        return members;
+    }
+
+    public int getOwned() {
+        return owned;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ClusterStatus that = (ClusterStatus) o;
+        return owned == that.owned &&
+                Objects.equals(self, that.self) &&
+                Objects.equals(members, that.members);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(self, members, owned);
+    }
+}
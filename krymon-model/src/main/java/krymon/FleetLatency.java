@@ -0,0 +1,48 @@
+package krymon;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Map;
+import java.util.Objects;
+
+public class FleetLatency {
+    private final Latency fleet;
+    private final Map<String, Latency> services;
+
+    @JsonCreator
+    public FleetLatency(
+            @JsonProperty("fleet")
+            Latency fleet,
+            @JsonProperty("services")
+            Map<String, Latency> services
+    ) {
+        this.fleet = fleet;
+        this.services = services;
+    }
+
+    public Latency getFleet() {
+        return fleet;
+    }
+
+    /**
+     * Latency per service, keyed by service id.
+     */
+    public Map<String, Latency> getServices() {
+        return services;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        FleetLatency that = (FleetLatency) o;
+        return Objects.equals(fleet, that.fleet) &&
+                Objects.equals(services, that.services);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(fleet, services);
+    }
+}
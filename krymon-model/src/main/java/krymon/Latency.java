@@ -0,0 +1,56 @@
+package krymon;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Objects;
+
+public class Latency {
+    private final Percentiles oneMinute;
+    private final Percentiles fifteenMinutes;
+    private final Percentiles oneHour;
+
+    @JsonCreator
+    public Latency(
+            @JsonProperty("1m")
+            Percentiles oneMinute,
+            @JsonProperty("15m")
+            Percentiles fifteenMinutes,
+            @JsonProperty("1h")
+            Percentiles oneHour
+    ) {
+        this.oneMinute = oneMinute;
+        this.fifteenMinutes = fifteenMinutes;
+        this.oneHour = oneHour;
+    }
+
+    @JsonProperty("1m")
+    public Percentiles getOneMinute() {
+        return oneMinute;
+    }
+
+    @JsonProperty("15m")
+    public Percentiles getFifteenMinutes() {
+        return fifteenMinutes;
+    }
+
+    @JsonProperty("1h")
+    public Percentiles getOneHour() {
+        return oneHour;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Latency latency = (Latency) o;
+        return Objects.equals(oneMinute, latency.oneMinute) &&
+                Objects.equals(fifteenMinutes, latency.fifteenMinutes) &&
+                Objects.equals(oneHour, latency.oneHour);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(oneMinute, fifteenMinutes, oneHour);
+    }
+}
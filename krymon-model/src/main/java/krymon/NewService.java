@@ -1,23 +1,53 @@
 package krymon;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.util.Objects;
 
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class NewService {
     private final String name;
     private final String url;
+    private final Long interval;
+    private final Integer timeout;
+    private final CheckSpec check;
+    private final AlertSpec alert;
+
+    public NewService(String name, String url) {
+        this(name, url, null, null);
+    }
+
+    public NewService(String name, String url, Long interval, Integer timeout) {
+        this(name, url, interval, timeout, null);
+    }
+
+    public NewService(String name, String url, Long interval, Integer timeout, CheckSpec check) {
+        this(name, url, interval, timeout, check, null);
+    }
 
     @JsonCreator
     public NewService(
             @JsonProperty("name")
             String name,
             @JsonProperty("url")
-            String url
+            String url,
+            @JsonProperty("interval")
+            Long interval,
+            @JsonProperty("timeout")
+            Integer timeout,
+            @JsonProperty("check")
+            CheckSpec check,
+            @JsonProperty("alert")
+            AlertSpec alert
     ) {
         this.name = name;
         this.url = url;
+        this.interval = interval;
+        this.timeout = timeout;
+        this.check = check;
+        this.alert = alert;
     }
 
     public String getName() {
@@ -28,18 +58,38 @@ public class NewService {
         return url;
     }
 
+    public Long getInterval() {
+        return interval;
+    }
+
+    public Integer getTimeout() {
+        return timeout;
+    }
+
+    public CheckSpec getCheck() {
+        return check;
+    }
+
+    public AlertSpec getAlert() {
+        return alert;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         NewService that = (NewService) o;
         return Objects.equals(name, that.name) &&
-                Objects.equals(url, that.url);
+                Objects.equals(url, that.url) &&
+                Objects.equals(interval, that.interval) &&
+                Objects.equals(timeout, that.timeout) &&
+                Objects.equals(check, that.check) &&
+                Objects.equals(alert, that.alert);
     }
 
     @Override
     public int hashCode() {
 
-        return Objects.hash(name, url);
+        return Objects.hash(name, url, interval, timeout, check, alert);
     }
 }
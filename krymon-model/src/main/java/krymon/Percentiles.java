@@ -0,0 +1,74 @@
+package krymon;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Objects;
+
+/**
+ * Latency percentiles over some window, in microseconds.
+ */
+public class Percentiles {
+    private final long count;
+    private final long p50;
+    private final long p95;
+    private final long p99;
+    private final long max;
+
+    @JsonCreator
+    public Percentiles(
+            @JsonProperty("count")
+            long count,
+            @JsonProperty("p50")
+            long p50,
+            @JsonProperty("p95")
+            long p95,
+            @JsonProperty("p99")
+            long p99,
+            @JsonProperty("max")
+            long max
+    ) {
+        this.count = count;
+        this.p50 = p50;
+        this.p95 = p95;
+        this.p99 = p99;
+        this.max = max;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getP50() {
+        return p50;
+    }
+
+    public long getP95() {
+        return p95;
+    }
+
+    public long getP99() {
+        return p99;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Percentiles that = (Percentiles) o;
+        return count == that.count &&
+                p50 == that.p50 &&
+                p95 == that.p95 &&
+                p99 == that.p99 &&
+                max == that.max;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(count, p50, p95, p99, max);
+    }
+}
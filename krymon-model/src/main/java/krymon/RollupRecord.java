@@ -0,0 +1,75 @@
+package krymon;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.joda.time.DateTime;
+
+import java.util.Objects;
+
+/**
+ * The checks of a service within one bucket of time, starting at {@link #getTimestamp()}.
+ */
+public class RollupRecord {
+    private final DateTime timestamp;
+    private final int checks;
+    private final int failures;
+    private final long meanLatencyMicros;
+    private final long maxLatencyMicros;
+
+    @JsonCreator
+    public RollupRecord(
+            @JsonProperty("timestamp")
+            DateTime timestamp,
+            @JsonProperty("checks")
+            int checks,
+            @JsonProperty("failures")
+            int failures,
+            @JsonProperty("meanLatencyMicros")
+            long meanLatencyMicros,
+            @JsonProperty("maxLatencyMicros")
+            long maxLatencyMicros
+    ) {
+        this.timestamp = timestamp;
+        this.checks = checks;
+        this.failures = failures;
+        this.meanLatencyMicros = meanLatencyMicros;
+        this.maxLatencyMicros = maxLatencyMicros;
+    }
+
+    public DateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public int getChecks() {
+        return checks;
+    }
+
+    public int getFailures() {
+        return failures;
+    }
+
+    public long getMeanLatencyMicros() {
+        return meanLatencyMicros;
+    }
+
+    public long getMaxLatencyMicros() {
+        return maxLatencyMicros;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RollupRecord that = (RollupRecord) o;
+        return checks == that.checks &&
+                failures == that.failures &&
+                meanLatencyMicros == that.meanLatencyMicros &&
+                maxLatencyMicros == that.maxLatencyMicros &&
+                Objects.equals(timestamp, that.timestamp);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(timestamp, checks, failures, meanLatencyMicros, maxLatencyMicros);
+    }
+}
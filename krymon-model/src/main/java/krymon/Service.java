@@ -1,17 +1,40 @@
 package krymon;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import org.joda.time.DateTime;
 
 import java.util.Objects;
 
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class Service {
     private final String id;
     private final String name;
     private final String url;
     private final Status status;
     private final DateTime lastCheck;
+    private final Long interval;
+    private final Integer timeout;
+    private final Latency latency;
+    private final CheckSpec check;
+    private final AlertSpec alert;
+
+    public Service(String id, String name, String url, Status status, DateTime lastCheck) {
+        this(id, name, url, status, lastCheck, null, null);
+    }
+
+    public Service(String id, String name, String url, Status status, DateTime lastCheck, Long interval, Integer timeout) {
+        this(id, name, url, status, lastCheck, interval, timeout, null);
+    }
+
+    public Service(String id, String name, String url, Status status, DateTime lastCheck, Long interval, Integer timeout, Latency latency) {
+        this(id, name, url, status, lastCheck, interval, timeout, latency, null);
+    }
+
+    public Service(String id, String name, String url, Status status, DateTime lastCheck, Long interval, Integer timeout, Latency latency, CheckSpec check) {
+        this(id, name, url, status, lastCheck, interval, timeout, latency, check, null);
+    }
 
     @JsonCreator
     public Service(
@@ -24,17 +47,40 @@ public class Service {
             @JsonProperty("status")
             Status status,
             @JsonProperty("lastCheck")
-            DateTime lastCheck
+            DateTime lastCheck,
+            @JsonProperty("interval")
+            Long interval,
+            @JsonProperty("timeout")
+            Integer timeout,
+            @JsonProperty("latency")
+            Latency latency,
+            @JsonProperty("check")
+            CheckSpec check,
+            @JsonProperty("alert")
+            AlertSpec alert
     ) {
         this.id = id;
         this.name = name;
         this.url = url;
         this.status = status;
         this.lastCheck = lastCheck;
+        this.interval = interval;
+        this.timeout = timeout;
+        this.latency = latency;
+        this.check = check;
+        this.alert = alert;
     }
 
     public enum Status{
-        OK, FAIL, UNKNOWN
+        OK, FAIL, UNKNOWN,
+        /**
+         * Up, but some of the latest checks failed.
+         */
+        DEGRADED,
+        /**
+         * Alternating between up and down too often to be either.
+         */
+        FLAPPING
     }
 
     public String getId() {
@@ -57,6 +103,49 @@ public class Service {
         return lastCheck;
     }
 
+    /**
+     * Milliseconds between checks of this service, or null to use the backend's default.
+     */
+    public Long getInterval() {
+        return interval;
+    }
+
+    /**
+     * Milliseconds to wait for a check of this service to complete, or null to use the backend's default.
+     */
+    public Integer getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Latency percentiles of recent checks. Only present when explicitly asked for.
+     */
+    public Latency getLatency() {
+        return latency;
+    }
+
+    /**
+     * How to check this service, or null to check it the backend's default way.
+     */
+    public CheckSpec getCheck() {
+        return check;
+    }
+
+    /**
+     * When and where to alert about this service, or null to use the backend's defaults.
+     */
+    public AlertSpec getAlert() {
+        return alert;
+    }
+
+    public Service withStatus(Status status, DateTime lastCheck) {
+        return new Service(id, name, url, status, lastCheck, interval, timeout, latency, check, alert);
+    }
+
+    public Service withLatency(Latency latency) {
+        return new Service(id, name, url, status, lastCheck, interval, timeout, latency, check, alert);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -66,12 +155,17 @@ public class Service {
                 Objects.equals(name, service.name) &&
                 Objects.equals(url, service.url) &&
                 status == service.status &&
-                Objects.equals(lastCheck, service.lastCheck);
+                Objects.equals(lastCheck, service.lastCheck) &&
+                Objects.equals(interval, service.interval) &&
+                Objects.equals(timeout, service.timeout) &&
+                Objects.equals(latency, service.latency) &&
+                Objects.equals(check, service.check) &&
+                Objects.equals(alert, service.alert);
     }
 
     @Override
     public int hashCode() {
 
-        return Objects.hash(id, name, url, status, lastCheck);
+        return Objects.hash(id, name, url, status, lastCheck, interval, timeout, latency, check, alert);
     }
 }
@@ -0,0 +1,63 @@
+package krymon;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The services added or changed and the ids of the services deleted since a revision. Apply the deletions first and
+ * then the services. When {@code full} is set, the revision was too old or unknown and the services are the whole
+ * list, which replaces anything held before.
+ */
+public class ServiceDelta {
+    private final long revision;
+    private final boolean full;
+    private final List<Service> services;
+    private final List<String> deleted;
+
+    @JsonCreator
+    public ServiceDelta(
+            @JsonProperty("revision") long revision,
+            @JsonProperty("full") boolean full,
+            @JsonProperty("services") List<Service> services,
+            @JsonProperty("deleted") List<String> deleted) {
+        this.revision = revision;
+        this.full = full;
+        this.services = services;
+        this.deleted = deleted;
+    }
+
+    public long getRevision() {
+        return revision;
+    }
+
+    public boolean isFull() {
+        return full;
+    }
+
+    public List<Service> getServices() {
+        return services;
+    }
+
+    public List<String> getDeleted() {
+        return deleted;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ServiceDelta that = (ServiceDelta) o;
+        return revision == that.revision &&
+                full == that.full &&
+                Objects.equals(services, that.services) &&
+                Objects.equals(deleted, that.deleted);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(revision, full, services, deleted);
+    }
+}
@@ -0,0 +1,48 @@
+package krymon;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+import java.util.Objects;
+
+public class ServiceHistory {
+    private final String id;
+    private final List<CheckRecord> checks;
+
+    @JsonCreator
+    public ServiceHistory(
+            @JsonProperty("id")
+            String id,
+            @JsonProperty("checks")
+            List<CheckRecord> checks
+    ) {
+        this.id = id;
+        this.checks = checks;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * The most recent checks of the service, oldest first.
+     */
+    public List<CheckRecord> getChecks() {
+        return checks;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ServiceHistory that = (ServiceHistory) o;
+        return Objects.equals(id, that.id) &&
+                Objects.equals(checks, that.checks);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, checks);
+    }
+}
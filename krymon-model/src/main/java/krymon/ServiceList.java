@@ -1,33 +1,49 @@
 package krymon;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.util.List;
 import java.util.Objects;
 
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class ServiceList {
     private final List<Service> services;
+    private final String next;
+
+    public ServiceList(List<Service> services) {
+        this(services, null);
+    }
 
     @JsonCreator
-    public ServiceList(@JsonProperty("services") List<Service> services) {
+    public ServiceList(@JsonProperty("services") List<Service> services, @JsonProperty("next") String next) {
         this.services = services;
+        this.next = next;
     }
 
     public List<Service> getServices() {
         return services;
     }
 
+    /**
+     * The cursor of the next page, or null if this is the last one.
+     */
+    public String getNext() {
+        return next;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         ServiceList that = (ServiceList) o;
-        return Objects.equals(services, that.services);
+        return Objects.equals(services, that.services) &&
+                Objects.equals(next, that.next);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(services);
+        return Objects.hash(services, next);
     }
 }
@@ -0,0 +1,60 @@
+package krymon;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+import java.util.Objects;
+
+public class ServiceRollups {
+    private final String id;
+    private final String resolution;
+    private final List<RollupRecord> rollups;
+
+    @JsonCreator
+    public ServiceRollups(
+            @JsonProperty("id")
+            String id,
+            @JsonProperty("resolution")
+            String resolution,
+            @JsonProperty("rollups")
+            List<RollupRecord> rollups
+    ) {
+        this.id = id;
+        this.resolution = resolution;
+        this.rollups = rollups;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * The length of each bucket: {@code 1m}, {@code 1h} or {@code 1d}.
+     */
+    public String getResolution() {
+        return resolution;
+    }
+
+    /**
+     * The buckets of the requested range which had checks, oldest first.
+     */
+    public List<RollupRecord> getRollups() {
+        return rollups;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ServiceRollups that = (ServiceRollups) o;
+        return Objects.equals(id, that.id) &&
+                Objects.equals(resolution, that.resolution) &&
+                Objects.equals(rollups, that.rollups);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, resolution, rollups);
+    }
+}
@@ -0,0 +1,99 @@
+package krymon;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.joda.time.DateTime;
+
+import java.util.Objects;
+
+/**
+ * The percentage of successful checks of a service over a range of time. Within an {@link UptimeReport}, which has the
+ * range once, {@link #getFrom()} and {@link #getTo()} are left out.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ServiceUptime {
+    private final String id;
+    private final String name;
+    private final DateTime from;
+    private final DateTime to;
+    private final long checks;
+    private final long failures;
+    private final Double uptime;
+
+    @JsonCreator
+    public ServiceUptime(
+            @JsonProperty("id")
+            String id,
+            @JsonProperty("name")
+            String name,
+            @JsonProperty("from")
+            DateTime from,
+            @JsonProperty("to")
+            DateTime to,
+            @JsonProperty("checks")
+            long checks,
+            @JsonProperty("failures")
+            long failures,
+            @JsonProperty("uptime")
+            Double uptime
+    ) {
+        this.id = id;
+        this.name = name;
+        this.from = from;
+        this.to = to;
+        this.checks = checks;
+        this.failures = failures;
+        this.uptime = uptime;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public DateTime getFrom() {
+        return from;
+    }
+
+    public DateTime getTo() {
+        return to;
+    }
+
+    public long getChecks() {
+        return checks;
+    }
+
+    public long getFailures() {
+        return failures;
+    }
+
+    /**
+     * The percentage of checks which succeeded, or null if there were no checks.
+     */
+    public Double getUptime() {
+        return uptime;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ServiceUptime that = (ServiceUptime) o;
+        return checks == that.checks &&
+                failures == that.failures &&
+                Objects.equals(id, that.id) &&
+                Objects.equals(name, that.name) &&
+                Objects.equals(from, that.from) &&
+                Objects.equals(to, that.to) &&
+                Objects.equals(uptime, that.uptime);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, name, from, to, checks, failures, uptime);
+    }
+}
@@ -0,0 +1,115 @@
+package krymon;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.joda.time.DateTime;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Uptime of a group of services over a range of time: the services matching the filters of the request, together and
+ * one by one. With a target, the services which fell short of it are listed as breaching.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UptimeReport {
+    private final DateTime from;
+    private final DateTime to;
+    private final long checks;
+    private final long failures;
+    private final Double uptime;
+    private final Double target;
+    private final List<String> breaching;
+    private final List<ServiceUptime> services;
+
+    @JsonCreator
+    public UptimeReport(
+            @JsonProperty("from")
+            DateTime from,
+            @JsonProperty("to")
+            DateTime to,
+            @JsonProperty("checks")
+            long checks,
+            @JsonProperty("failures")
+            long failures,
+            @JsonProperty("uptime")
+            Double uptime,
+            @JsonProperty("target")
+            Double target,
+            @JsonProperty("breaching")
+            List<String> breaching,
+            @JsonProperty("services")
+            List<ServiceUptime> services
+    ) {
+        this.from = from;
+        this.to = to;
+        this.checks = checks;
+        this.failures = failures;
+        this.uptime = uptime;
+        this.target = target;
+        this.breaching = breaching;
+        this.services = services;
+    }
+
+    public DateTime getFrom() {
+        return from;
+    }
+
+    public DateTime getTo() {
+        return to;
+    }
+
+    public long getChecks() {
+        return checks;
+    }
+
+    public long getFailures() {
+        return failures;
+    }
+
+    /**
+     * The percentage of all checks of the group which succeeded, or null if there were none.
+     */
+    public Double getUptime() {
+        return uptime;
+    }
+
+    /**
+     * The uptime percentage the services should have, such as 99.9.
+     */
+    public Double getTarget() {
+        return target;
+    }
+
+    /**
+     * The ids of the services whose uptime was below the target, or null without a target.
+     */
+    public List<String> getBreaching() {
+        return breaching;
+    }
+
+    public List<ServiceUptime> getServices() {
+        return services;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        UptimeReport that = (UptimeReport) o;
+        return checks == that.checks &&
+                failures == that.failures &&
+                Objects.equals(from, that.from) &&
+                Objects.equals(to, that.to) &&
+                Objects.equals(uptime, that.uptime) &&
+                Objects.equals(target, that.target) &&
+                Objects.equals(breaching, that.breaching) &&
+                Objects.equals(services, that.services);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(from, to, checks, failures, uptime, target, breaching, services);
+    }
+}
@@ -0,0 +1,54 @@
+package krymon;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The status an aggregator decided for a service, with the latest check of every agent it came from, keyed by agent
+ * name.
+ */
+public class VantageResults {
+    private final String id;
+    private final Service.Status status;
+    private final Map<String, CheckRecord> agents;
+
+    @JsonCreator
+    public VantageResults(
+            @JsonProperty("id") String id,
+            @JsonProperty("status") Service.Status status,
+            @JsonProperty("agents") Map<String, CheckRecord> agents) {
+        this.id = id;
+        this.status = status;
+        this.agents = agents;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Service.Status getStatus() {
+        return status;
+    }
+
+    public Map<String, CheckRecord> getAgents() {
+        return agents;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        VantageResults that = (VantageResults) o;
+        return Objects.equals(id, that.id) &&
+                status == that.status &&
+                Objects.equals(agents, that.agents);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, status, agents);
+    }
+}